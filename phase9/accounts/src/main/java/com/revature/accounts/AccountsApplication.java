@@ -1,20 +1,52 @@
 package com.revature.accounts;
 
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cloud.config.client.ConfigServerBootstrapper;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.cloud.sleuth.autoconfig.zipkin2.ZipkinAutoConfiguration;
+import org.springframework.cloud.sleuth.instrument.web.HttpServerSampler;
+import org.springframework.cloud.sleuth.zipkin2.ZipkinProperties;
 import org.springframework.context.annotation.Bean;
 
+import com.revature.accounts.config.ClientMetricsProperties;
+import com.revature.accounts.config.SpanReporterProperties;
+import com.revature.accounts.config.TraceSamplingProperties;
+import com.revature.accounts.config.ZoneAffinityProperties;
+import com.revature.accounts.metrics.FeignClientMetrics;
+import com.revature.accounts.registry.InstanceListLoadBalancerConfiguration;
+import com.revature.accounts.snapshot.ConfigSnapshotInterceptor;
+import com.revature.accounts.tracing.EndpointRateLimitedSampler;
+import com.revature.accounts.tracing.SpanReporters;
+import com.revature.accounts.tracing.TailSamplingSpanHandler;
+import com.revature.accounts.zone.ZoneAffinity;
+
+import brave.http.HttpRequest;
+import brave.sampler.SamplerFunction;
 import io.micrometer.core.aop.TimedAspect;
 import io.micrometer.core.instrument.MeterRegistry;
+import zipkin2.Span;
+import zipkin2.reporter.Reporter;
+import zipkin2.reporter.ReporterMetrics;
+import zipkin2.reporter.Sender;
+import zipkin2.reporter.brave.ZipkinSpanHandler;
 
 
 @SpringBootApplication
 @EnableFeignClients
+// Registry changes pushed by the Eureka server reach the load balancer right away,
+// and calls stay in our zone while it has instances that can take them
+@LoadBalancerClients(defaultConfiguration = InstanceListLoadBalancerConfiguration.class)
 public class AccountsApplication {
 
 	public static void main(String[] args) {
-		SpringApplication.run(AccountsApplication.class, args);
+		SpringApplication application = new SpringApplication(AccountsApplication.class);
+		// Start from the last configuration we got from the config server, see ConfigSnapshotInterceptor
+		application.addBootstrapRegistryInitializer(
+				new ConfigServerBootstrapper().withLoaderInterceptor(new ConfigSnapshotInterceptor()));
+		application.run(args);
 	}
 	
     /**
@@ -27,4 +59,48 @@ public class AccountsApplication {
 	    return new TimedAspect(registry);
 	}
 
+	/**
+	 * Which requests are traced: a few per endpoint up front, and the failed or
+	 * slow ones once they are done (see TailSamplingSpanHandler). Sleuth finds
+	 * the up front sampler by its bean name.
+	 */
+	@Bean(HttpServerSampler.NAME)
+	public SamplerFunction<HttpRequest> endpointRateLimitedSampler(TraceSamplingProperties traceSamplingProperties) {
+		return new EndpointRateLimitedSampler(traceSamplingProperties);
+	}
+
+	/**
+	 * Takes the place of the reporter Sleuth would create, see SpanReporters
+	 */
+	@Bean(ZipkinAutoConfiguration.REPORTER_BEAN_NAME)
+	public Reporter<Span> zipkinReporter(SpanReporterProperties spanReporterProperties,
+			ZipkinProperties zipkinProperties, @Qualifier(ZipkinAutoConfiguration.SENDER_BEAN_NAME) Sender zipkinSender,
+			ReporterMetrics reporterMetrics, MeterRegistry registry) {
+		return SpanReporters.bounded(spanReporterProperties, zipkinSender, zipkinProperties.getEncoder(),
+				reporterMetrics, registry);
+	}
+
+	@Bean
+	public TailSamplingSpanHandler tailSamplingSpanHandler(TraceSamplingProperties traceSamplingProperties,
+			@Qualifier(ZipkinAutoConfiguration.REPORTER_BEAN_NAME) Reporter<Span> zipkinReporter,
+			MeterRegistry registry) {
+		return new TailSamplingSpanHandler(traceSamplingProperties,
+				ZipkinSpanHandler.newBuilder(zipkinReporter).alwaysReportSpans(true).build(), registry);
+	}
+
+	@Bean
+	public ZoneAffinity zoneAffinity(ZoneAffinityProperties zoneAffinityProperties, MeterRegistry registry) {
+		return new ZoneAffinity(zoneAffinityProperties, registry);
+	}
+
+	/**
+	 * Times the calls to loans and cards, see FeignClientMetrics. Feign picks it
+	 * up as a Capability and the load balancer as a LoadBalancerLifecycle.
+	 */
+	@Bean
+	public FeignClientMetrics feignClientMetrics(ClientMetricsProperties clientMetricsProperties,
+			MeterRegistry registry) {
+		return new FeignClientMetrics(clientMetricsProperties, registry);
+	}
+
 }
@@ -0,0 +1,25 @@
+package com.revature.accounts.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * @ConfigurationProperties reads all properties that begin with "clientmetrics"
+ */
+@Configuration
+@ConfigurationProperties(prefix = "clientmetrics")
+@Getter
+@Setter
+@ToString
+public class ClientMetricsProperties {
+
+	private boolean enabled = true;
+	// A call to loans or cards taking longer than this is logged with its trace id
+	private Duration slowThreshold = Duration.ofMillis(500);
+}
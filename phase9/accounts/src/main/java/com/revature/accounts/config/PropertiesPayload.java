@@ -0,0 +1,82 @@
+package com.revature.accounts.config;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.revature.accounts.model.Properties;
+
+/**
+ * The /account/properties response, serialized once instead of on every request,
+ * with its ETag. It is built again after the configuration changed
+ * (/actuator/refresh or a refresh from the config snapshot).
+ */
+@Component
+public class PropertiesPayload {
+
+	private static final ObjectWriter WRITER = new ObjectMapper().writer().withDefaultPrettyPrinter();
+
+	@Autowired
+	AccountsServiceConfig accountsConfig;
+
+	private volatile Payload payload;
+	// A payload built while the configuration changed is not kept
+	private final AtomicLong generation = new AtomicLong();
+
+	public Payload get() {
+		Payload current = payload;
+		if (current == null) {
+			long built = generation.get();
+			current = build();
+			if (generation.get() == built) {
+				payload = current;
+			}
+		}
+		return current;
+	}
+
+	@EventListener({ EnvironmentChangeEvent.class, RefreshScopeRefreshedEvent.class })
+	public void invalidate() {
+		generation.incrementAndGet();
+		payload = null;
+	}
+
+	private Payload build() {
+		Properties properties = new Properties(accountsConfig.getMsg(), accountsConfig.getBuildVersion(),
+				accountsConfig.getMailDetails(), accountsConfig.getActiveBranches());
+		try {
+			byte[] body = WRITER.writeValueAsBytes(properties);
+			return new Payload(body, "\"" + DigestUtils.md5DigestAsHex(body) + "\"");
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("Could not serialize the properties", e);
+		}
+	}
+
+	public static class Payload {
+
+		private final byte[] body;
+		private final String etag;
+
+		Payload(byte[] body, String etag) {
+			this.body = body;
+			this.etag = etag;
+		}
+
+		public byte[] getBody() {
+			return body;
+		}
+
+		public String getEtag() {
+			return etag;
+		}
+	}
+
+}
@@ -0,0 +1,31 @@
+package com.revature.accounts.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * @ConfigurationProperties reads all properties that begin with "registrypush"
+ */
+@Configuration
+@ConfigurationProperties(prefix = "registrypush")
+@Getter
+@Setter
+@ToString
+public class RegistryPushProperties {
+
+	private boolean enabled = false;
+	// The Eureka server's event stream, by default /registry/events next to eureka.client.serviceUrl.defaultZone
+	private String url;
+	// How long a pushed change overrides the registry, long enough for the polled registry to catch up
+	private Duration overrideTtl = Duration.ofMinutes(2);
+	// Wait between two attempts to open the stream
+	private Duration reconnectDelay = Duration.ofSeconds(5);
+	// A stream without even a heartbeat for this long is considered dead
+	private Duration readTimeout = Duration.ofSeconds(45);
+}
@@ -0,0 +1,34 @@
+package com.revature.accounts.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * @ConfigurationProperties reads all properties that begin with "tracesampling"
+ */
+@Configuration
+@ConfigurationProperties(prefix = "tracesampling")
+@Getter
+@Setter
+@ToString
+public class TraceSamplingProperties {
+
+	private boolean enabled = false;
+	// Requests per second and endpoint that are sampled up front, whatever their outcome
+	private int baselinePerSecond = 1;
+	// Endpoints beyond this many share one rate limit, so that made up urls can't fill the memory
+	private int maxEndpoints = 100;
+	// Requests that take at least this long are kept even when the baseline didn't sample them
+	private Duration slowThreshold = Duration.ofMillis(500);
+	// Traces whose spans are held back until their request has finished
+	private int maxPendingTraces = 1000;
+	private int maxSpansPerTrace = 100;
+	// A trace whose request never finished is forgotten after this long
+	private Duration pendingTimeout = Duration.ofMinutes(1);
+}
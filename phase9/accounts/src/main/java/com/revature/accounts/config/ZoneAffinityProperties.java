@@ -0,0 +1,37 @@
+package com.revature.accounts.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * @ConfigurationProperties reads all properties that begin with "zoneaffinity"
+ */
+@Configuration
+@ConfigurationProperties(prefix = "zoneaffinity")
+@Getter
+@Setter
+@ToString
+public class ZoneAffinityProperties {
+
+	private boolean enabled = false;
+	// Where this instance runs, as published in its own Eureka metadata. Without a zone nothing is filtered
+	private String zone;
+	private String node;
+	// The metadata keys other instances publish their zone and node under
+	private String zoneMetadataKey = "zone";
+	private String nodeMetadataKey = "node";
+	// Prefer instances on the same node over the rest of the zone. Off by default: a service with a
+	// single instance on our node would get all of our calls
+	private boolean preferSameNode = false;
+	// An instance with this many of our requests still running is saturated, we spill over to the next zone
+	private int maxInFlight = 50;
+	// An instance that failed this many times in a row is skipped for failure-cooldown
+	private int failureThreshold = 3;
+	private Duration failureCooldown = Duration.ofSeconds(10);
+}
@@ -5,22 +5,21 @@ import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.ObjectWriter;
-import com.revature.accounts.config.AccountsServiceConfig;
+import com.revature.accounts.config.PropertiesPayload;
 import com.revature.accounts.model.Accounts;
 import com.revature.accounts.model.Cards;
 import com.revature.accounts.model.Customer;
 import com.revature.accounts.model.CustomerDetails;
 import com.revature.accounts.model.Loans;
-import com.revature.accounts.model.Properties;
 import com.revature.accounts.repository.AccountsRepository;
 import com.revature.accounts.service.client.CardsFeignClient;
 import com.revature.accounts.service.client.LoansFeignClient;
@@ -38,7 +37,7 @@ public class AccountsController {
 	private AccountsRepository accountsRepository;
 
 	@Autowired
-	AccountsServiceConfig accountsConfig;
+	PropertiesPayload propertiesPayload;
 
 	@Autowired
 	LoansFeignClient loansFeignClient;
@@ -65,16 +64,17 @@ public class AccountsController {
 	}
 
 	/**
-	 * This method will return all properties configured for this service from the
-	 * auto-wired AccountsServiceConfig in JSON format to the client.
+	 * This method will return all properties configured for this service in JSON
+	 * format to the client. The JSON is only built again after the configuration
+	 * changed, and a client sending back the ETag it got gets a 304.
 	 */
 	@GetMapping("/account/properties")
-	public String getPropertyDetails() throws JsonProcessingException {
-		ObjectWriter ow = new ObjectMapper().writer().withDefaultPrettyPrinter();
-		Properties properties = new Properties(accountsConfig.getMsg(), accountsConfig.getBuildVersion(),
-				accountsConfig.getMailDetails(), accountsConfig.getActiveBranches());
-		String jsonStr = ow.writeValueAsString(properties);
-		return jsonStr;
+	public ResponseEntity<byte[]> getPropertyDetails(WebRequest request) {
+		PropertiesPayload.Payload payload = propertiesPayload.get();
+		if (request.checkNotModified(payload.getEtag())) {
+			return null;
+		}
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(payload.getBody());
 	}
 
 	/**
@@ -0,0 +1,108 @@
+package com.revature.accounts.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.metrics.http.Outcome;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+
+import com.revature.accounts.config.ClientMetricsProperties;
+
+import feign.Capability;
+import feign.Client;
+import feign.RequestTemplate;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Times every call our Feign clients make, as feign.client.requests tagged
+ * with the service (loans, cards), the Feign method, the outcome and the
+ * instance that answered. Histogram buckets (SLOs) and percentiles come from
+ * the management.metrics.distribution.* properties, like for the
+ * http.server.requests and spring.data.repository.invocations timers Spring
+ * Boot records for our endpoints and repositories.
+ *
+ * Feign adds every Capability bean to its clients. The instance is the one the
+ * load balancer chose for the call: it tells us in onStartRequest, on the
+ * thread that makes the call. A call slower than clientmetrics.slow-threshold
+ * is logged, and the log line carries the trace id (the trace itself is kept
+ * by the TailSamplingSpanHandler since it is slow too).
+ */
+public class FeignClientMetrics implements Capability, LoadBalancerLifecycle<Object, Object, ServiceInstance> {
+
+	private static final Logger logger = LoggerFactory.getLogger(FeignClientMetrics.class);
+
+	public static final String METRIC_NAME = "feign.client.requests";
+
+	static final String NO_INSTANCE = "none";
+
+	private final ClientMetricsProperties properties;
+	private final MeterRegistry registry;
+	private final ThreadLocal<ServiceInstance> chosenInstance = new ThreadLocal<>();
+
+	public FeignClientMetrics(ClientMetricsProperties properties, MeterRegistry registry) {
+		this.properties = properties;
+		this.registry = registry;
+	}
+
+	@Override
+	public Client enrich(Client client) {
+		if (!properties.isEnabled()) {
+			return client;
+		}
+		return (request, options) -> {
+			chosenInstance.remove();
+			long start = System.nanoTime();
+			String outcome = Outcome.UNKNOWN.name();
+			try {
+				feign.Response response = client.execute(request, options);
+				outcome = Outcome.forStatus(response.status()).name();
+				return response;
+			} finally {
+				record(request.requestTemplate(), outcome, chosenInstance.get(), System.nanoTime() - start);
+				chosenInstance.remove();
+			}
+		};
+	}
+
+	@Override
+	public boolean supports(Class requestContextClass, Class responseClass, Class serverTypeClass) {
+		return ServiceInstance.class.isAssignableFrom(serverTypeClass);
+	}
+
+	@Override
+	public void onStart(Request<Object> request) {
+	}
+
+	@Override
+	public void onStartRequest(Request<Object> request, Response<ServiceInstance> lbResponse) {
+		if (lbResponse != null && lbResponse.hasServer()) {
+			chosenInstance.set(lbResponse.getServer());
+		}
+	}
+
+	@Override
+	public void onComplete(CompletionContext<Object, ServiceInstance, Object> completionContext) {
+	}
+
+	private void record(RequestTemplate template, String outcome, ServiceInstance instance, long nanos) {
+		String service = template != null && template.feignTarget() != null ? template.feignTarget().name() : "unknown";
+		String method = template != null && template.methodMetadata() != null
+				? template.methodMetadata().method().getName()
+				: "unknown";
+		String target = instance != null ? instance.getHost() + ":" + instance.getPort() : NO_INSTANCE;
+		Timer.builder(METRIC_NAME).description("Calls made by our Feign clients")
+				.tags("service", service, "method", method, "outcome", outcome, "instance", target)
+				.register(registry).record(nanos, TimeUnit.NANOSECONDS);
+		if (nanos > properties.getSlowThreshold().toNanos()) {
+			logger.warn("Slow call to {}.{} on {}: {} ms ({})", service, method, target,
+					TimeUnit.NANOSECONDS.toMillis(nanos), outcome);
+		}
+	}
+
+}
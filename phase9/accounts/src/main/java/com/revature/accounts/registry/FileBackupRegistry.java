@@ -0,0 +1,61 @@
+package com.revature.accounts.registry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.netflix.discovery.BackupRegistry;
+import com.netflix.discovery.shared.Applications;
+
+/**
+ * Where the Eureka client gets its registry from when the first fetch from
+ * Eureka fails at startup (eureka.client.backup-registry-impl): the copy the
+ * RegistryCacheWriter saved while Eureka was reachable. That way we can still
+ * call loans and cards when we are restarted during an Eureka outage.
+ *
+ * The Eureka client creates this class itself (with the no-arg constructor),
+ * so the file comes from RegistryCacheWriter through a static field.
+ */
+public class FileBackupRegistry implements BackupRegistry {
+
+	private static final Logger logger = LoggerFactory.getLogger(FileBackupRegistry.class);
+
+	private static volatile RegistryCacheFile cacheFile;
+
+	// When the registry we started with was fetched from Eureka, 0 if it wasn't used
+	private static volatile long loadedSavedAt;
+
+	static void use(RegistryCacheFile file) {
+		cacheFile = file;
+	}
+
+	static long getLoadedSavedAt() {
+		return loadedSavedAt;
+	}
+
+	@Override
+	public Applications fetchRegistry() {
+		RegistryCacheFile file = cacheFile;
+		if (file == null || !file.exists()) {
+			logger.warn("Eureka can't be reached and there is no saved registry to start with");
+			return null;
+		}
+		try {
+			Applications applications = file.read();
+			// Makes the next fetch a full one: the deltas Eureka keeps don't go back that far
+			applications.setVersion(-1L);
+			loadedSavedAt = file.savedAt();
+			logger.warn("Eureka can't be reached, starting with the registry saved in {} ({} applications)",
+					file.getFile(), applications.getRegisteredApplications().size());
+			return applications;
+		} catch (Exception e) {
+			logger.warn("Could not read the saved registry {}: {}", file.getFile(), e.toString());
+			return null;
+		}
+	}
+
+	@Override
+	public Applications fetchRegistry(String[] includeRemoteRegions) {
+		return fetchRegistry();
+	}
+
+}
@@ -0,0 +1,29 @@
+package com.revature.accounts.registry;
+
+import java.util.List;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.DelegatingServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * The instances of the registry (as cached by the load balancer) with the
+ * changes the Eureka server pushed since
+ */
+public class PushAwareServiceInstanceListSupplier extends DelegatingServiceInstanceListSupplier {
+
+	private final RegistryChanges changes;
+
+	public PushAwareServiceInstanceListSupplier(ServiceInstanceListSupplier delegate, RegistryChanges changes) {
+		super(delegate);
+		this.changes = changes;
+	}
+
+	@Override
+	public Flux<List<ServiceInstance>> get() {
+		return getDelegate().get().map(instances -> changes.apply(getServiceId(), instances));
+	}
+
+}
@@ -0,0 +1,131 @@
+package com.revature.accounts.registry;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cloud.client.discovery.event.HeartbeatEvent;
+import org.springframework.cloud.util.ProxyUtils;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.netflix.discovery.DiscoveryClient;
+import com.netflix.discovery.EurekaClient;
+import com.netflix.discovery.shared.Applications;
+import com.revature.accounts.config.RegistryCacheProperties;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+
+/**
+ * Saves the Eureka registry to registrycache.file every time the Eureka
+ * client has fetched it (a delta every eureka.client.registry-fetch-interval-seconds),
+ * for FileBackupRegistry to start with when Eureka is down. The file is only
+ * rewritten when the registry changed.
+ *
+ * Published metrics: eureka.registry.age (time since the registry we use was
+ * fetched from Eureka, by us or by the run that saved the file) and
+ * eureka.registry.cached (1 while the instances we call come from the file)
+ */
+@Component
+public class RegistryCacheWriter {
+
+	private static final Logger logger = LoggerFactory.getLogger(RegistryCacheWriter.class);
+
+	@Autowired
+	RegistryCacheProperties properties;
+
+	@Autowired
+	ObjectProvider<EurekaClient> eurekaClient;
+
+	@Autowired
+	MeterRegistry meterRegistry;
+
+	private RegistryCacheFile file;
+
+	private volatile String savedHashCode;
+
+	@PostConstruct
+	void start() {
+		if (!properties.isEnabled() || properties.getFile() == null) {
+			return;
+		}
+		file = new RegistryCacheFile(Paths.get(properties.getFile()));
+		FileBackupRegistry.use(file);
+		TimeGauge.builder("eureka.registry.age", this::age, TimeUnit.MILLISECONDS)
+				.description("Time since the registry in use was fetched from Eureka").register(meterRegistry);
+		Gauge.builder("eureka.registry.cached", () -> isCached() ? 1 : 0)
+				.description("1 while the registry comes from the saved file because Eureka couldn't be reached")
+				.register(meterRegistry);
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void onReady() {
+		save(discoveryClient());
+	}
+
+	// Published by the Eureka client after each registry fetch
+	@EventListener
+	public void onHeartbeat(HeartbeatEvent event) {
+		if (event.getSource() instanceof DiscoveryClient) {
+			save((DiscoveryClient) event.getSource());
+		}
+	}
+
+	void save(DiscoveryClient client) {
+		// Nothing fetched yet: what we have is the file itself
+		if (file == null || client == null || client.getLastSuccessfulRegistryFetchTimePeriod() < 0) {
+			return;
+		}
+		Applications applications = client.getApplications();
+		// A freshly restarted Eureka is empty for a while, keep the last useful copy
+		if (applications.getRegisteredApplications().isEmpty()) {
+			return;
+		}
+		String hashCode = applications.getAppsHashCode();
+		try {
+			if (hashCode.equals(savedHashCode) && file.exists()) {
+				Files.setLastModifiedTime(file.getFile(), FileTime.fromMillis(System.currentTimeMillis()));
+			} else {
+				file.write(applications);
+				savedHashCode = hashCode;
+				logger.debug("Saved the Eureka registry ({}) to {}", hashCode, file.getFile());
+			}
+		} catch (Exception e) {
+			logger.warn("Could not save the Eureka registry to {}: {}", file.getFile(), e.toString());
+		}
+	}
+
+	double age() {
+		DiscoveryClient client = discoveryClient();
+		long period = client != null ? client.getLastSuccessfulRegistryFetchTimePeriod() : -1;
+		if (period >= 0) {
+			return period;
+		}
+		long loadedSavedAt = FileBackupRegistry.getLoadedSavedAt();
+		return loadedSavedAt > 0 ? System.currentTimeMillis() - loadedSavedAt : Double.NaN;
+	}
+
+	boolean isCached() {
+		DiscoveryClient client = discoveryClient();
+		return FileBackupRegistry.getLoadedSavedAt() > 0
+				&& (client == null || client.getLastSuccessfulRegistryFetchTimePeriod() < 0);
+	}
+
+	// The Eureka client bean is a refresh scoped proxy
+	private DiscoveryClient discoveryClient() {
+		EurekaClient client = eurekaClient.getIfAvailable();
+		Object target = client != null ? ProxyUtils.getTargetObject(client) : null;
+		return target instanceof DiscoveryClient ? (DiscoveryClient) target : null;
+	}
+
+}
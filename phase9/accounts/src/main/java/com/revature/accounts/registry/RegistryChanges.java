@@ -0,0 +1,105 @@
+package com.revature.accounts.registry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+import org.springframework.cloud.client.ServiceInstance;
+
+/**
+ * The registrations and cancellations pushed by the Eureka server that the
+ * registry we poll may not show yet. The load balancer applies them on top of
+ * what it gets from the registry: a cancelled instance gets no more requests,
+ * a new one gets its share right away.
+ *
+ * A change is only needed until the next registry fetches have caught up, so
+ * it is forgotten after override-ttl.
+ */
+public class RegistryChanges {
+
+	private final long ttl;
+	private final LongSupplier clock;
+
+	// By service id (upper case, like Eureka's application names), then by instance id
+	private final Map<String, Map<String, Change>> services = new ConcurrentHashMap<>();
+
+	public RegistryChanges(Duration ttl) {
+		this(ttl, System::currentTimeMillis);
+	}
+
+	RegistryChanges(Duration ttl, LongSupplier clock) {
+		this.ttl = ttl.toMillis();
+		this.clock = clock;
+	}
+
+	public void registered(ServiceInstance instance) {
+		put(instance.getServiceId(), instance.getInstanceId(), instance);
+	}
+
+	public void removed(String serviceId, String instanceId) {
+		put(serviceId, instanceId, null);
+	}
+
+	/**
+	 * @param instances - what the registry has for the service
+	 * @return the instances without the removed ones and with the new ones
+	 */
+	public List<ServiceInstance> apply(String serviceId, List<ServiceInstance> instances) {
+		Map<String, Change> changes = services.get(key(serviceId));
+		if (changes == null || changes.isEmpty()) {
+			return instances;
+		}
+		long now = clock.getAsLong();
+		changes.values().removeIf(change -> change.expiresAt <= now);
+		if (changes.isEmpty()) {
+			return instances;
+		}
+		List<ServiceInstance> result = new ArrayList<>(instances.size() + changes.size());
+		Set<String> known = new HashSet<>();
+		for (ServiceInstance instance : instances) {
+			known.add(instance.getInstanceId());
+			Change change = changes.get(instance.getInstanceId());
+			if (change == null || change.instance != null) {
+				result.add(instance);
+			}
+		}
+		changes.forEach((instanceId, change) -> {
+			if (change.instance != null && !known.contains(instanceId)) {
+				result.add(change.instance);
+			}
+		});
+		return result;
+	}
+
+	public int size() {
+		return services.values().stream().mapToInt(Map::size).sum();
+	}
+
+	private void put(String serviceId, String instanceId, ServiceInstance instance) {
+		services.computeIfAbsent(key(serviceId), key -> new ConcurrentHashMap<>()).put(instanceId,
+				new Change(instance, clock.getAsLong() + ttl));
+	}
+
+	private static String key(String serviceId) {
+		return serviceId.toUpperCase(Locale.ROOT);
+	}
+
+	private static class Change {
+
+		// null when the instance went away
+		private final ServiceInstance instance;
+		private final long expiresAt;
+
+		Change(ServiceInstance instance, long expiresAt) {
+			this.instance = instance;
+			this.expiresAt = expiresAt;
+		}
+	}
+
+}
@@ -0,0 +1,88 @@
+package com.revature.accounts.snapshot;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.env.OriginTrackedMapPropertySource;
+import org.springframework.core.env.EnumerablePropertySource;
+import org.springframework.core.env.PropertySource;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * The property sources we last got from the config server, saved to a JSON
+ * file so the next startup can use them without waiting for the config
+ * server. The sources keep their names and order, so the application sees
+ * exactly what the config server sent.
+ */
+public class ConfigSnapshot {
+
+	private static final TypeReference<List<Source>> SOURCES = new TypeReference<List<Source>>() {
+	};
+
+	private final Path file;
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	public ConfigSnapshot(Path file) {
+		this.file = file;
+	}
+
+	public Path getFile() {
+		return file;
+	}
+
+	public boolean exists() {
+		return Files.isRegularFile(file);
+	}
+
+	public List<PropertySource<?>> read() throws IOException {
+		List<PropertySource<?>> propertySources = new ArrayList<>();
+		for (Source source : objectMapper.readValue(file.toFile(), SOURCES)) {
+			propertySources.add(new OriginTrackedMapPropertySource(source.name, source.properties));
+		}
+		return propertySources;
+	}
+
+	/**
+	 * Replaces the snapshot. Written to a temporary file first, so a crash
+	 * can't leave half a snapshot behind for the next startup.
+	 */
+	public void write(List<PropertySource<?>> propertySources) throws IOException {
+		List<Source> sources = new ArrayList<>();
+		for (PropertySource<?> propertySource : propertySources) {
+			if (!(propertySource instanceof EnumerablePropertySource)) {
+				continue;
+			}
+			EnumerablePropertySource<?> enumerable = (EnumerablePropertySource<?>) propertySource;
+			Source source = new Source();
+			source.name = enumerable.getName();
+			for (String name : enumerable.getPropertyNames()) {
+				source.properties.put(name, String.valueOf(enumerable.getProperty(name)));
+			}
+			sources.add(source);
+		}
+		Path directory = file.toAbsolutePath().getParent();
+		Files.createDirectories(directory);
+		Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+		try {
+			objectMapper.writerWithDefaultPrettyPrinter().writeValue(temporary.toFile(), sources);
+			Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temporary);
+		}
+	}
+
+	static class Source {
+
+		public String name;
+		public Map<String, Object> properties = new LinkedHashMap<>();
+	}
+
+}
@@ -0,0 +1,122 @@
+package com.revature.accounts.tracing;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import zipkin2.Call;
+import zipkin2.Callback;
+import zipkin2.CheckResult;
+import zipkin2.codec.Encoding;
+import zipkin2.reporter.Sender;
+
+/**
+ * Times every batch of spans the reporter sends, which is what reporting
+ * really costs (it happens on the reporter's own thread, never on a request):
+ * zipkin.reporter.flush.time, by sink and outcome (success or failure).
+ */
+public class TimedSender extends Sender {
+
+	private final Sender delegate;
+	private final Timer success;
+	private final Timer failure;
+
+	public TimedSender(Sender delegate, String sink, MeterRegistry meterRegistry) {
+		this.delegate = delegate;
+		this.success = timer(sink, "success", meterRegistry);
+		this.failure = timer(sink, "failure", meterRegistry);
+	}
+
+	@Override
+	public Encoding encoding() {
+		return delegate.encoding();
+	}
+
+	@Override
+	public int messageMaxBytes() {
+		return delegate.messageMaxBytes();
+	}
+
+	@Override
+	public int messageSizeInBytes(List<byte[]> encodedSpans) {
+		return delegate.messageSizeInBytes(encodedSpans);
+	}
+
+	@Override
+	public int messageSizeInBytes(int encodedSizeInBytes) {
+		return delegate.messageSizeInBytes(encodedSizeInBytes);
+	}
+
+	@Override
+	public Call<Void> sendSpans(List<byte[]> encodedSpans) {
+		return new TimedCall(delegate.sendSpans(encodedSpans));
+	}
+
+	@Override
+	public CheckResult check() {
+		return delegate.check();
+	}
+
+	@Override
+	public void close() throws IOException {
+		delegate.close();
+	}
+
+	@Override
+	public String toString() {
+		return delegate.toString();
+	}
+
+	private static Timer timer(String sink, String outcome, MeterRegistry meterRegistry) {
+		return Timer.builder("zipkin.reporter.flush.time").description("Time to send a batch of spans")
+				.tags("sink", sink, "outcome", outcome).publishPercentiles(0.5, 0.99).register(meterRegistry);
+	}
+
+	private class TimedCall extends Call.Base<Void> {
+
+		private final Call<Void> call;
+
+		TimedCall(Call<Void> call) {
+			this.call = call;
+		}
+
+		@Override
+		protected Void doExecute() throws IOException {
+			long start = System.nanoTime();
+			boolean sent = false;
+			try {
+				call.execute();
+				sent = true;
+				return null;
+			} finally {
+				(sent ? success : failure).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+			}
+		}
+
+		@Override
+		protected void doEnqueue(Callback<Void> callback) {
+			long start = System.nanoTime();
+			call.enqueue(new Callback<Void>() {
+				@Override
+				public void onSuccess(Void value) {
+					success.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+					callback.onSuccess(value);
+				}
+
+				@Override
+				public void onError(Throwable t) {
+					failure.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+					callback.onError(t);
+				}
+			});
+		}
+
+		@Override
+		public Call<Void> clone() {
+			return new TimedCall(call.clone());
+		}
+	}
+
+}
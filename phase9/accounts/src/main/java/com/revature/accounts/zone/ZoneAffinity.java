@@ -0,0 +1,167 @@
+package com.revature.accounts.zone;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.util.StringUtils;
+
+import com.revature.accounts.config.ZoneAffinityProperties;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Keeps our calls in our own zone. The instances of a service are grouped by
+ * where they run, as they published it in their Eureka metadata: same node
+ * (only with prefer-same-node), same zone, anywhere else. The load balancer
+ * only gets the closest group that still has an instance it can use, so calls
+ * spill over to another zone only when all the instances of ours are
+ * saturated (max-in-flight of our requests still running on each) or
+ * unhealthy (failure-threshold failures in a row, skipped for
+ * failure-cooldown). If no instance at all can be used, all of them are
+ * returned, a call that may fail is better than none.
+ *
+ * The load balanced calls report to started() and finished(), see
+ * ZoneAffinityLifecycle.
+ *
+ * Published metrics: loadbalancer.zone.requests (by service and locality:
+ * node, zone, cross or unknown when we don't know our zone),
+ * loadbalancer.zone.same.ratio (share of the requests that stayed in our zone)
+ * and loadbalancer.zone.spills
+ */
+public class ZoneAffinity {
+
+	public static final String NODE = "node";
+	public static final String ZONE = "zone";
+	public static final String CROSS = "cross";
+	public static final String UNKNOWN = "unknown";
+
+	private final ZoneAffinityProperties properties;
+	private final MeterRegistry meterRegistry;
+	private final LongSupplier clock;
+	private final Map<String, InstanceLoad> loads = new ConcurrentHashMap<>();
+	private final AtomicLong sameZoneRequests = new AtomicLong();
+	private final AtomicLong requests = new AtomicLong();
+
+	public ZoneAffinity(ZoneAffinityProperties properties, MeterRegistry meterRegistry) {
+		this(properties, meterRegistry, System::currentTimeMillis);
+	}
+
+	ZoneAffinity(ZoneAffinityProperties properties, MeterRegistry meterRegistry, LongSupplier clock) {
+		this.properties = properties;
+		this.meterRegistry = meterRegistry;
+		this.clock = clock;
+		Gauge.builder("loadbalancer.zone.same.ratio", this, ZoneAffinity::sameZoneRatio)
+				.description("Share of the load balanced requests that stayed in our zone").register(meterRegistry);
+	}
+
+	/**
+	 * The instances the load balancer should choose from
+	 */
+	public List<ServiceInstance> select(String serviceId, List<ServiceInstance> instances) {
+		if (!properties.isEnabled() || !StringUtils.hasText(properties.getZone()) || instances.size() < 2) {
+			return instances;
+		}
+		List<ServiceInstance> sameNode = new ArrayList<>();
+		List<ServiceInstance> sameZone = new ArrayList<>();
+		List<ServiceInstance> others = new ArrayList<>();
+		for (ServiceInstance instance : instances) {
+			String locality = locality(instance);
+			if (NODE.equals(locality) && properties.isPreferSameNode()) {
+				sameNode.add(instance);
+			} else if (NODE.equals(locality) || ZONE.equals(locality)) {
+				sameZone.add(instance);
+			} else {
+				others.add(instance);
+			}
+		}
+		long now = clock.getAsLong();
+		boolean closerGroup = false;
+		for (List<ServiceInstance> group : Arrays.asList(sameNode, sameZone, others)) {
+			List<ServiceInstance> usable = usable(group, now);
+			if (!usable.isEmpty()) {
+				if (closerGroup) {
+					meterRegistry.counter("loadbalancer.zone.spills", "service", serviceId.toLowerCase()).increment();
+				}
+				return usable;
+			}
+			closerGroup |= !group.isEmpty();
+		}
+		return instances;
+	}
+
+	public void started(ServiceInstance instance) {
+		load(instance).inFlight.incrementAndGet();
+		String locality = StringUtils.hasText(properties.getZone()) ? locality(instance) : UNKNOWN;
+		requests.incrementAndGet();
+		if (NODE.equals(locality) || ZONE.equals(locality)) {
+			sameZoneRequests.incrementAndGet();
+		}
+		meterRegistry.counter("loadbalancer.zone.requests", "service", instance.getServiceId().toLowerCase(),
+				"locality", locality).increment();
+	}
+
+	public void finished(ServiceInstance instance, boolean success) {
+		InstanceLoad load = load(instance);
+		load.inFlight.updateAndGet(inFlight -> Math.max(0, inFlight - 1));
+		if (success) {
+			load.failures.set(0);
+		} else {
+			load.failures.incrementAndGet();
+			load.lastFailure = clock.getAsLong();
+		}
+	}
+
+	// node, zone or cross
+	String locality(ServiceInstance instance) {
+		Map<String, String> metadata = instance.getMetadata();
+		String node = metadata.get(properties.getNodeMetadataKey());
+		if (StringUtils.hasText(properties.getNode()) && properties.getNode().equals(node)) {
+			return NODE;
+		}
+		String zone = metadata.get(properties.getZoneMetadataKey());
+		return properties.getZone() != null && properties.getZone().equalsIgnoreCase(zone) ? ZONE : CROSS;
+	}
+
+	double sameZoneRatio() {
+		long total = requests.get();
+		return total == 0 ? Double.NaN : (double) sameZoneRequests.get() / total;
+	}
+
+	private List<ServiceInstance> usable(List<ServiceInstance> group, long now) {
+		List<ServiceInstance> usable = new ArrayList<>(group.size());
+		for (ServiceInstance instance : group) {
+			InstanceLoad load = loads.get(key(instance));
+			if (load == null || (load.inFlight.get() < properties.getMaxInFlight()
+					&& (load.failures.get() < properties.getFailureThreshold()
+							|| now - load.lastFailure >= properties.getFailureCooldown().toMillis()))) {
+				usable.add(instance);
+			}
+		}
+		return usable;
+	}
+
+	private InstanceLoad load(ServiceInstance instance) {
+		return loads.computeIfAbsent(key(instance), key -> new InstanceLoad());
+	}
+
+	private static String key(ServiceInstance instance) {
+		return instance.getInstanceId() != null ? instance.getInstanceId()
+				: instance.getServiceId() + "@" + instance.getHost() + ":" + instance.getPort();
+	}
+
+	private static class InstanceLoad {
+
+		final AtomicInteger inFlight = new AtomicInteger();
+		final AtomicInteger failures = new AtomicInteger();
+		volatile long lastFailure;
+	}
+
+}
@@ -0,0 +1,55 @@
+package com.revature.accounts.zone;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.stereotype.Component;
+
+/**
+ * The Feign clients call every LoadBalancerLifecycle bean around a load
+ * balanced request, which is how ZoneAffinity learns how many requests are
+ * running on an instance and whether they fail. A 5xx answer counts as a
+ * failure, like a connection that couldn't be made.
+ */
+@Component
+public class ZoneAffinityLifecycle implements LoadBalancerLifecycle<Object, Object, ServiceInstance> {
+
+	@Autowired
+	ZoneAffinity zoneAffinity;
+
+	@Override
+	public boolean supports(Class requestContextClass, Class responseClass, Class serverTypeClass) {
+		return ServiceInstance.class.isAssignableFrom(serverTypeClass);
+	}
+
+	@Override
+	public void onStart(Request<Object> request) {
+	}
+
+	@Override
+	public void onStartRequest(Request<Object> request, Response<ServiceInstance> lbResponse) {
+		if (lbResponse != null && lbResponse.hasServer()) {
+			zoneAffinity.started(lbResponse.getServer());
+		}
+	}
+
+	@Override
+	public void onComplete(CompletionContext<Object, ServiceInstance, Object> completionContext) {
+		Response<ServiceInstance> lbResponse = completionContext.getLoadBalancerResponse();
+		// DISCARD: no instance was chosen, so no request was started
+		if (completionContext.status() == CompletionContext.Status.DISCARD || lbResponse == null
+				|| !lbResponse.hasServer()) {
+			return;
+		}
+		Object clientResponse = completionContext.getClientResponse();
+		boolean success = completionContext.status() == CompletionContext.Status.SUCCESS
+				&& !(clientResponse instanceof ResponseData && ((ResponseData) clientResponse).getHttpStatus() != null
+						&& ((ResponseData) clientResponse).getHttpStatus().is5xxServerError());
+		zoneAffinity.finished(lbResponse.getServer(), success);
+	}
+
+}
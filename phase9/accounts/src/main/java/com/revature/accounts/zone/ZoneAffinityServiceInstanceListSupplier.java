@@ -0,0 +1,29 @@
+package com.revature.accounts.zone;
+
+import java.util.List;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.DelegatingServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Only the instances ZoneAffinity picked for this call: those of our zone,
+ * unless they are saturated or unhealthy
+ */
+public class ZoneAffinityServiceInstanceListSupplier extends DelegatingServiceInstanceListSupplier {
+
+	private final ZoneAffinity zoneAffinity;
+
+	public ZoneAffinityServiceInstanceListSupplier(ServiceInstanceListSupplier delegate, ZoneAffinity zoneAffinity) {
+		super(delegate);
+		this.zoneAffinity = zoneAffinity;
+	}
+
+	@Override
+	public Flux<List<ServiceInstance>> get() {
+		return getDelegate().get().map(instances -> zoneAffinity.select(getServiceId(), instances));
+	}
+
+}
@@ -0,0 +1,115 @@
+package com.revature.accounts.config;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.revature.accounts.controller.AccountsController;
+import com.revature.accounts.model.Properties;
+
+/**
+ * What a GET /account/properties costs through Spring MVC: the controller as it
+ * used to be (a new ObjectMapper and pretty printing writer, then serializing
+ * the properties) against AccountsController handing out the bytes
+ * PropertiesPayload serialized once, both for a first request and for a client
+ * sending back the ETag (checkNotModified, 304). Throughput and bytes allocated
+ * per request, measured on one thread with MockMvc.
+ *
+ * Run with: mvn test -Pbenchmark -Dtest=PropertiesPayloadBenchmark
+ */
+@Tag("benchmark")
+class PropertiesPayloadBenchmark {
+
+	private static final int ITERATIONS = 20_000;
+
+	@Test
+	void compareSerializingPerRequestWithPayload() throws Exception {
+		AccountsServiceConfig config = new AccountsServiceConfig();
+		config.setMsg("Welcome to the Bank Accounts Prod application");
+		config.setBuildVersion("1");
+		config.setMailDetails(Collections.singletonMap("hostName", "prod-accounts@bank.com"));
+		config.setActiveBranches(Arrays.asList("Tampa", "Reston", "Herndon"));
+		PropertiesPayload payload = new PropertiesPayload();
+		payload.accountsConfig = config;
+		AccountsController controller = new AccountsController();
+		ReflectionTestUtils.setField(controller, "propertiesPayload", payload);
+
+		MockMvc before = MockMvcBuilders.standaloneSetup(new PerRequestController(config)).build();
+		MockMvc after = MockMvcBuilders.standaloneSetup(controller).build();
+		String etag = payload.get().getEtag();
+
+		System.out.printf("%-28s %14s %14s%n", "", "requests/s", "bytes/request");
+		double[] perRequest = measure(before, get("/account/properties"), 200);
+		double[] precomputed = measure(after, get("/account/properties"), 200);
+		double[] notModified = measure(after,
+				get("/account/properties").header(HttpHeaders.IF_NONE_MATCH, etag), 304);
+		System.out.printf("%-28s %14.0f %14.0f%n", "new ObjectMapper per call", perRequest[0], perRequest[1]);
+		System.out.printf("%-28s %14.0f %14.0f%n", "precomputed payload", precomputed[0], precomputed[1]);
+		System.out.printf("%-28s %14.0f %14.0f%n", "precomputed payload, 304", notModified[0], notModified[1]);
+		System.out.printf("Precomputed payload: %.1fx the throughput, %.1fx with the ETag%n",
+				precomputed[0] / perRequest[0], notModified[0] / perRequest[0]);
+	}
+
+	// requests per second and bytes allocated per request
+	private static double[] measure(MockMvc mvc, RequestBuilder request, int status) throws Exception {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+				.getThreadMXBean();
+		long thread = Thread.currentThread().getId();
+		// warm up the JIT
+		for (int i = 0; i < ITERATIONS / 4; i++) {
+			perform(mvc, request, status);
+		}
+		long allocated = threads.getThreadAllocatedBytes(thread);
+		long start = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			perform(mvc, request, status);
+		}
+		long nanos = System.nanoTime() - start;
+		allocated = threads.getThreadAllocatedBytes(thread) - allocated;
+		return new double[] { ITERATIONS / (nanos / 1e9), allocated / (double) ITERATIONS };
+	}
+
+	private static void perform(MockMvc mvc, RequestBuilder request, int status) throws Exception {
+		int actual = mvc.perform(request).andReturn().getResponse().getStatus();
+		if (actual != status) {
+			throw new IllegalStateException("Expected " + status + " but got " + actual);
+		}
+	}
+
+	/**
+	 * The /account/properties endpoint before PropertiesPayload.
+	 */
+	@RestController
+	static class PerRequestController {
+
+		private final AccountsServiceConfig accountsConfig;
+
+		PerRequestController(AccountsServiceConfig accountsConfig) {
+			this.accountsConfig = accountsConfig;
+		}
+
+		@GetMapping("/account/properties")
+		public String getPropertyDetails() throws JsonProcessingException {
+			ObjectWriter ow = new ObjectMapper().writer().withDefaultPrettyPrinter();
+			Properties properties = new Properties(accountsConfig.getMsg(), accountsConfig.getBuildVersion(),
+					accountsConfig.getMailDetails(), accountsConfig.getActiveBranches());
+			return ow.writeValueAsString(properties);
+		}
+	}
+
+}
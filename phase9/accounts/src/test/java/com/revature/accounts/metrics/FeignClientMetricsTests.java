@@ -0,0 +1,68 @@
+package com.revature.accounts.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.openfeign.support.SpringMvcContract;
+
+import com.revature.accounts.config.ClientMetricsProperties;
+import com.revature.accounts.service.client.LoansFeignClient;
+
+import feign.Client;
+import feign.Request;
+import feign.RequestTemplate;
+import feign.Target;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class FeignClientMetricsTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final FeignClientMetrics metrics = new FeignClientMetrics(new ClientMetricsProperties(), meterRegistry);
+
+	@Test
+	void tagsCallsWithTheInstanceTheLoadBalancerChose() throws IOException {
+		Client client = metrics.enrich((Client) (request, options) -> {
+			// what the load balancer does before handing the request to the real client
+			metrics.onStartRequest(new DefaultRequest<>(), new DefaultResponse(
+					new DefaultServiceInstance("loans-1", "loans", "10.0.0.7", 8090, false)));
+			return feign.Response.builder().status(503).request(request).headers(Collections.emptyMap()).build();
+		});
+
+		client.execute(request(), new Request.Options());
+
+		Timer timer = meterRegistry.find(FeignClientMetrics.METRIC_NAME).tag("service", "loans")
+				.tag("method", "getLoansDetails").tag("outcome", "SERVER_ERROR").tag("instance", "10.0.0.7:8090")
+				.timer();
+		assertEquals(1, timer.count());
+	}
+
+	@Test
+	void countsCallsThatNeverGotAnAnswer() {
+		Client client = metrics.enrich((Client) (request, options) -> {
+			throw new IOException("Connection refused");
+		});
+
+		assertThrows(IOException.class, () -> client.execute(request(), new Request.Options()));
+
+		Timer timer = meterRegistry.find(FeignClientMetrics.METRIC_NAME).tag("outcome", "UNKNOWN")
+				.tag("instance", FeignClientMetrics.NO_INSTANCE).timer();
+		assertEquals(1, timer.count());
+	}
+
+	private Request request() {
+		RequestTemplate template = new RequestTemplate();
+		template.methodMetadata(new SpringMvcContract().parseAndValidateMetadata(LoansFeignClient.class).get(0));
+		template.feignTarget(new Target.HardCodedTarget<>(LoansFeignClient.class, "loans", "http://loans"));
+		return Request.create(Request.HttpMethod.POST, "http://loans/myLoans", Collections.emptyMap(), null, null,
+				template);
+	}
+
+}
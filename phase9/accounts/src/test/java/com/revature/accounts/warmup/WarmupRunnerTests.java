@@ -0,0 +1,98 @@
+package com.revature.accounts.warmup;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.revature.accounts.config.WarmupProperties;
+import com.sun.net.httpserver.HttpServer;
+
+class WarmupRunnerTests {
+
+	private HttpServer server;
+	private final Map<String, AtomicInteger> received = new ConcurrentHashMap<>();
+	private volatile long delayMillis;
+
+	@BeforeEach
+	void startServer() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/", exchange -> {
+			try {
+				Thread.sleep(delayMillis);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			String key = exchange.getRequestMethod() + " " + exchange.getRequestURI().getPath() + " "
+					+ exchange.getRequestHeaders().getFirst("bank-correlation-id");
+			received.computeIfAbsent(key, k -> new AtomicInteger()).incrementAndGet();
+			// no keep-alive: a POST on a connection the server just dropped would be lost, not retried
+			exchange.getResponseHeaders().set("Connection", "close");
+			// errors are fine during the warm-up
+			exchange.sendResponseHeaders(key.contains("/myCustomerDetails") ? 500 : 200, -1);
+			exchange.close();
+		});
+		server.start();
+	}
+
+	@AfterEach
+	void stopServer() {
+		server.stop(0);
+	}
+
+	@Test
+	void sendsEveryRequestIterationsTimes() {
+		WarmupRunner runner = runner(5, Duration.ofSeconds(10));
+
+		assertEquals(10, runner.exercise(baseUrl()));
+		assertEquals(5, received.get("POST /myAccount null").get());
+		assertEquals(5, received.get("POST /myCustomerDetails warmup").get());
+	}
+
+	@Test
+	void stopsAfterMaxDuration() {
+		delayMillis = 20;
+		WarmupRunner runner = runner(1000, Duration.ofMillis(200));
+
+		long start = System.nanoTime();
+		int sent = runner.exercise(baseUrl());
+
+		assertTrue(sent > 0 && sent < 2000, "sent " + sent);
+		assertTrue(System.nanoTime() - start < 2_000_000_000L);
+	}
+
+	private WarmupRunner runner(int iterations, Duration maxDuration) {
+		WarmupProperties.Request account = new WarmupProperties.Request();
+		account.setMethod("POST");
+		account.setPath("/myAccount");
+		account.setBody("{\"customerId\":1}");
+		WarmupProperties.Request details = new WarmupProperties.Request();
+		details.setMethod("POST");
+		details.setPath("/myCustomerDetails");
+		details.setBody("{\"customerId\":1}");
+		details.getHeaders().put("bank-correlation-id", "warmup");
+		WarmupProperties properties = new WarmupProperties();
+		properties.setIterations(iterations);
+		properties.setConcurrency(2);
+		properties.setMaxDuration(maxDuration);
+		properties.setRequests(Arrays.asList(account, details));
+		WarmupRunner runner = new WarmupRunner();
+		runner.properties = properties;
+		return runner;
+	}
+
+	private String baseUrl() {
+		return "http://localhost:" + server.getAddress().getPort();
+	}
+
+}
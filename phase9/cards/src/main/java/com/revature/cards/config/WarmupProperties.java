@@ -0,0 +1,46 @@
+package com.revature.cards.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * @ConfigurationProperties reads all properties that begin with "warmup". Each
+ * of the "requests" is sent "iterations" times to this instance itself.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "warmup")
+@Getter
+@Setter
+@ToString
+public class WarmupProperties {
+
+	private boolean enabled = true;
+	private int iterations = 200;
+	// Requests in flight at once, so that several request threads get warm
+	private int concurrency = 4;
+	// The instance goes UP after this long even if not all the requests were sent
+	private Duration maxDuration = Duration.ofSeconds(30);
+	private List<Request> requests = new ArrayList<>();
+
+	@Getter
+	@Setter
+	@ToString
+	public static class Request {
+
+		private String method = "GET";
+		private String path;
+		private String body;
+		private Map<String, String> headers = new LinkedHashMap<>();
+	}
+
+}
@@ -5,19 +5,18 @@ import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.ObjectWriter;
-import com.revature.cards.config.CardsServiceConfig;
+import com.revature.cards.config.PropertiesPayload;
 import com.revature.cards.model.Cards;
 import com.revature.cards.model.Customer;
-import com.revature.cards.model.Properties;
 import com.revature.cards.repository.CardsRepository;
 
 @RestController
@@ -29,7 +28,7 @@ public class CardsController {
 	private CardsRepository cardsRepository;
 
 	@Autowired
-	CardsServiceConfig cardsConfig;
+	PropertiesPayload propertiesPayload;
 
 	/**
 	 * @param correlationid - received from AccountsController's invocation of
@@ -51,13 +50,18 @@ public class CardsController {
 		}
 	}
 
+	/**
+	 * This method will return all properties configured for this service in JSON
+	 * format to the client. The JSON is only built again after the configuration
+	 * changed, and a client sending back the ETag it got gets a 304.
+	 */
 	@GetMapping("/cards/properties")
-	public String getPropertyDetails() throws JsonProcessingException {
-		ObjectWriter ow = new ObjectMapper().writer().withDefaultPrettyPrinter();
-		Properties properties = new Properties(cardsConfig.getMsg(), cardsConfig.getBuildVersion(),
-				cardsConfig.getMailDetails(), cardsConfig.getActiveBranches());
-		String jsonStr = ow.writeValueAsString(properties);
-		return jsonStr;
+	public ResponseEntity<byte[]> getPropertyDetails(WebRequest request) {
+		PropertiesPayload.Payload payload = propertiesPayload.get();
+		if (request.checkNotModified(payload.getEtag())) {
+			return null;
+		}
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(payload.getBody());
 	}
 
 }
@@ -0,0 +1,186 @@
+package com.revature.cards.tracing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import com.revature.cards.config.TraceSamplingProperties;
+
+import brave.Tracing;
+import brave.TracingCustomizer;
+import brave.handler.MutableSpan;
+import brave.handler.SpanHandler;
+import brave.propagation.TraceContext;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Keeps the traces that matter instead of all of them. Requests sampled up
+ * front (see EndpointRateLimitedSampler) are reported as usual. All other
+ * requests are still recorded, but only locally: their spans are held back
+ * here until the request's first span in this service (the local root) has
+ * finished. Then the whole lot is reported if the request failed (an error or
+ * a 5xx in any of the spans) or was slow (slow-threshold), and dropped
+ * otherwise. A failing request therefore always shows up in Zipkin, at least
+ * from the service where it failed upwards.
+ *
+ * Held back spans are bounded: at most max-pending-traces requests and
+ * max-spans-per-trace spans each, what doesn't fit is dropped and counted.
+ *
+ * Published metrics: tracing.sampling (requests by decision: baseline, error,
+ * slow, dropped), tracing.sampling.overflow (spans that didn't fit) and
+ * tracing.sampling.pending
+ */
+public class TailSamplingSpanHandler extends SpanHandler implements TracingCustomizer {
+
+	public static final String BASELINE = "baseline";
+	public static final String ERROR = "error";
+	public static final String SLOW = "slow";
+	public static final String DROPPED = "dropped";
+
+	private final TraceSamplingProperties properties;
+	// Reports the spans we decided to keep, although they weren't sampled up front
+	private final SpanHandler reporter;
+	private final MeterRegistry meterRegistry;
+	private final LongSupplier clock;
+	private final Map<Long, PendingTrace> pending = new ConcurrentHashMap<>();
+
+	public TailSamplingSpanHandler(TraceSamplingProperties properties, SpanHandler reporter,
+			MeterRegistry meterRegistry) {
+		this(properties, reporter, meterRegistry, System::currentTimeMillis);
+	}
+
+	TailSamplingSpanHandler(TraceSamplingProperties properties, SpanHandler reporter, MeterRegistry meterRegistry,
+			LongSupplier clock) {
+		this.properties = properties;
+		this.reporter = reporter;
+		this.meterRegistry = meterRegistry;
+		this.clock = clock;
+		Gauge.builder("tracing.sampling.pending", pending, Map::size)
+				.description("Requests whose spans are held back until they finish").register(meterRegistry);
+	}
+
+	/**
+	 * Requests that weren't sampled up front have to be recorded too, or there
+	 * would be nothing to keep when they turn out slow
+	 */
+	@Override
+	public void customize(Tracing.Builder builder) {
+		if (properties.isEnabled()) {
+			builder.alwaysSampleLocal();
+		}
+	}
+
+	@Override
+	public boolean end(TraceContext context, MutableSpan span, Cause cause) {
+		if (Boolean.TRUE.equals(context.sampled())) {
+			if (context.isLocalRoot()) {
+				count(BASELINE);
+			}
+			return true;
+		}
+		if (!properties.isEnabled() || cause == Cause.ABANDONED) {
+			return false;
+		}
+		if (!context.isLocalRoot()) {
+			hold(context, span);
+			return false;
+		}
+		List<HeldSpan> held = new ArrayList<>();
+		boolean error = isError(span);
+		PendingTrace trace = pending.remove(context.localRootId());
+		if (trace != null) {
+			synchronized (trace) {
+				held.addAll(trace.spans);
+				error |= trace.error;
+			}
+		}
+		boolean slow = TimeUnit.MICROSECONDS.toMillis(span.finishTimestamp() - span.startTimestamp()) >= properties
+				.getSlowThreshold().toMillis();
+		if (!error && !slow) {
+			count(DROPPED);
+			return false;
+		}
+		count(error ? ERROR : SLOW);
+		for (HeldSpan child : held) {
+			reporter.end(child.context, child.span, Cause.FINISHED);
+		}
+		reporter.end(context, span, cause);
+		return false;
+	}
+
+	int pendingTraces() {
+		return pending.size();
+	}
+
+	private void hold(TraceContext context, MutableSpan span) {
+		long localRootId = context.localRootId();
+		PendingTrace trace = pending.get(localRootId);
+		if (trace == null) {
+			if (pending.size() >= properties.getMaxPendingTraces()) {
+				forgetStaleTraces();
+			}
+			if (pending.size() >= properties.getMaxPendingTraces()) {
+				overflow();
+				return;
+			}
+			trace = pending.computeIfAbsent(localRootId, id -> new PendingTrace(clock.getAsLong()));
+		}
+		synchronized (trace) {
+			if (trace.spans.size() >= properties.getMaxSpansPerTrace()) {
+				overflow();
+			} else {
+				trace.spans.add(new HeldSpan(context, span));
+			}
+			trace.error |= isError(span);
+		}
+	}
+
+	// The local root of these never finished (or finished without us seeing it)
+	private void forgetStaleTraces() {
+		long oldest = clock.getAsLong() - properties.getPendingTimeout().toMillis();
+		pending.values().removeIf(trace -> trace.createdAt < oldest);
+	}
+
+	private static boolean isError(MutableSpan span) {
+		if (span.error() != null || span.tag("error") != null) {
+			return true;
+		}
+		String status = span.tag("http.status_code");
+		return status != null && status.startsWith("5");
+	}
+
+	private void count(String decision) {
+		meterRegistry.counter("tracing.sampling", "decision", decision).increment();
+	}
+
+	private void overflow() {
+		meterRegistry.counter("tracing.sampling.overflow").increment();
+	}
+
+	private static class PendingTrace {
+
+		final long createdAt;
+		final List<HeldSpan> spans = new ArrayList<>();
+		boolean error;
+
+		PendingTrace(long createdAt) {
+			this.createdAt = createdAt;
+		}
+	}
+
+	private static class HeldSpan {
+
+		final TraceContext context;
+		final MutableSpan span;
+
+		HeldSpan(TraceContext context, MutableSpan span) {
+			this.context = context;
+			this.span = span;
+		}
+	}
+
+}
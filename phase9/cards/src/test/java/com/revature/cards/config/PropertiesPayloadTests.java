@@ -0,0 +1,44 @@
+package com.revature.cards.config;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PropertiesPayloadTests {
+
+	private final CardsServiceConfig config = new CardsServiceConfig();
+	private final PropertiesPayload payload = new PropertiesPayload();
+
+	@BeforeEach
+	void setUp() {
+		config.setMsg("Welcome to the Bank Cards application");
+		config.setBuildVersion("1");
+		config.setMailDetails(Collections.singletonMap("hostName", "cards@bank.com"));
+		config.setActiveBranches(Arrays.asList("Tampa", "Reston"));
+		payload.cardsConfig = config;
+	}
+
+	@Test
+	void servesTheSameBytesUntilTheConfigurationChanges() {
+		PropertiesPayload.Payload first = payload.get();
+		assertSame(first, payload.get());
+		assertTrue(new String(first.getBody(), StandardCharsets.UTF_8).contains("\"buildVersion\" : \"1\""));
+
+		config.setBuildVersion("2");
+		// not noticed before the refresh event
+		assertSame(first, payload.get());
+		payload.invalidate();
+
+		PropertiesPayload.Payload second = payload.get();
+		assertTrue(new String(second.getBody(), StandardCharsets.UTF_8).contains("\"buildVersion\" : \"2\""));
+		assertNotEquals(first.getEtag(), second.getEtag());
+	}
+
+}
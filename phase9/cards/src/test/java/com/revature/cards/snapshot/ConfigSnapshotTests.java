@@ -0,0 +1,59 @@
+package com.revature.cards.snapshot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.PropertySource;
+
+class ConfigSnapshotTests {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void keepsNamesOrderAndValues() throws Exception {
+		ConfigSnapshot snapshot = new ConfigSnapshot(directory.resolve("snapshots/cards.json"));
+		assertFalse(snapshot.exists());
+
+		snapshot.write(Arrays.asList(
+				new MapPropertySource("configserver:cards.properties",
+						Collections.singletonMap("cards.buildVersion", 3)),
+				new MapPropertySource("configserver:cards-prod.properties",
+						Collections.singletonMap("cards.activeBranches[0]", "Tampa"))));
+
+		assertTrue(snapshot.exists());
+		List<PropertySource<?>> read = snapshot.read();
+		assertEquals(Arrays.asList("configserver:cards.properties", "configserver:cards-prod.properties"),
+				read.stream().map(PropertySource::getName).collect(Collectors.toList()));
+		assertEquals("3", read.get(0).getProperty("cards.buildVersion"));
+		assertEquals("Tampa", read.get(1).getProperty("cards.activeBranches[0]"));
+	}
+
+	@Test
+	void replacesTheWholeSnapshot() throws Exception {
+		ConfigSnapshot snapshot = new ConfigSnapshot(directory.resolve("cards.json"));
+		snapshot.write(Collections.singletonList(new MapPropertySource("configserver:cards.properties",
+				Collections.singletonMap("cards.msg", "old"))));
+		snapshot.write(Collections.singletonList(new MapPropertySource("configserver:cards.properties",
+				Collections.singletonMap("cards.msg", "new"))));
+
+		assertEquals("new", snapshot.read().get(0).getProperty("cards.msg"));
+		// no temporary files left behind
+		try (Stream<Path> files = Files.list(directory)) {
+			assertEquals(1, files.count());
+		}
+	}
+
+}
@@ -0,0 +1,63 @@
+package com.revature.cards.tracing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import com.revature.cards.config.TraceSamplingProperties;
+
+import brave.http.HttpServerRequest;
+
+class EndpointRateLimitedSamplerTests {
+
+	@Test
+	void samplesEachEndpointOnItsOwn() {
+		TraceSamplingProperties properties = new TraceSamplingProperties();
+		properties.setEnabled(true);
+		properties.setBaselinePerSecond(1);
+		properties.setMaxEndpoints(2);
+		EndpointRateLimitedSampler sampler = new EndpointRateLimitedSampler(properties);
+
+		assertTrue(sampler.trySample(request("/myCards")));
+		assertFalse(sampler.trySample(request("/myCards")));
+		// a busy endpoint doesn't use up the baseline of another one
+		assertTrue(sampler.trySample(request("/cards/properties")));
+
+		// over max-endpoints the rest share one limit
+		assertTrue(sampler.trySample(request("/a")));
+		assertFalse(sampler.trySample(request("/b")));
+		assertEquals(3, sampler.size());
+	}
+
+	private HttpServerRequest request(String path) {
+		return new HttpServerRequest() {
+			@Override
+			public String method() {
+				return "POST";
+			}
+
+			@Override
+			public String path() {
+				return path;
+			}
+
+			@Override
+			public String url() {
+				return "http://localhost:9000" + path;
+			}
+
+			@Override
+			public String header(String name) {
+				return null;
+			}
+
+			@Override
+			public Object unwrap() {
+				return null;
+			}
+		};
+	}
+
+}
@@ -0,0 +1,39 @@
+package com.revature.cards.warmup;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.context.ApplicationContext;
+
+import com.netflix.appinfo.ApplicationInfoManager;
+import com.netflix.appinfo.InstanceInfo.InstanceStatus;
+
+// A short replication interval so that the Eureka client asks for the status right away
+@SpringBootTest(properties = "eureka.client.instance-info-replication-interval-seconds=1")
+class WarmupRunnerRefreshTests {
+
+	@Autowired
+	ApplicationContext context;
+
+	@Autowired
+	ApplicationInfoManager applicationInfoManager;
+
+	@Test
+	void staysUpAfterARefresh() throws InterruptedException {
+		assertEquals(InstanceStatus.UP, applicationInfoManager.getInfo().getStatus());
+
+		// registers the instance again, with eureka.instance.initial-status
+		context.publishEvent(new RefreshScopeRefreshedEvent());
+
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (applicationInfoManager.getInfo().getStatus() != InstanceStatus.UP
+				&& System.currentTimeMillis() < deadline) {
+			Thread.sleep(50);
+		}
+		assertEquals(InstanceStatus.UP, applicationInfoManager.getInfo().getStatus());
+	}
+
+}
@@ -0,0 +1,96 @@
+package com.revature.cards.warmup;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.revature.cards.config.WarmupProperties;
+import com.sun.net.httpserver.HttpServer;
+
+class WarmupRunnerTests {
+
+	private HttpServer server;
+	private final Map<String, AtomicInteger> received = new ConcurrentHashMap<>();
+	private volatile long delayMillis;
+
+	@BeforeEach
+	void startServer() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/", exchange -> {
+			try {
+				Thread.sleep(delayMillis);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			String key = exchange.getRequestMethod() + " " + exchange.getRequestURI().getPath() + " "
+					+ exchange.getRequestHeaders().getFirst("bank-correlation-id");
+			received.computeIfAbsent(key, k -> new AtomicInteger()).incrementAndGet();
+			// no keep-alive: a POST on a connection the server just dropped would be lost, not retried
+			exchange.getResponseHeaders().set("Connection", "close");
+			// errors are fine during the warm-up
+			exchange.sendResponseHeaders(key.contains("/cards/properties") ? 500 : 200, -1);
+			exchange.close();
+		});
+		server.start();
+	}
+
+	@AfterEach
+	void stopServer() {
+		server.stop(0);
+	}
+
+	@Test
+	void sendsEveryRequestIterationsTimes() {
+		WarmupRunner runner = runner(5, Duration.ofSeconds(10));
+
+		assertEquals(10, runner.exercise(baseUrl()));
+		assertEquals(5, received.get("GET /cards/properties null").get());
+		assertEquals(5, received.get("POST /myCards warmup").get());
+	}
+
+	@Test
+	void stopsAfterMaxDuration() {
+		delayMillis = 20;
+		WarmupRunner runner = runner(1000, Duration.ofMillis(200));
+
+		long start = System.nanoTime();
+		int sent = runner.exercise(baseUrl());
+
+		assertTrue(sent > 0 && sent < 2000, "sent " + sent);
+		assertTrue(System.nanoTime() - start < 2_000_000_000L);
+	}
+
+	private WarmupRunner runner(int iterations, Duration maxDuration) {
+		WarmupProperties.Request mine = new WarmupProperties.Request();
+		mine.setMethod("POST");
+		mine.setPath("/myCards");
+		mine.setBody("{\"customerId\":1}");
+		mine.getHeaders().put("bank-correlation-id", "warmup");
+		WarmupProperties.Request properties = new WarmupProperties.Request();
+		properties.setPath("/cards/properties");
+		WarmupProperties warmup = new WarmupProperties();
+		warmup.setIterations(iterations);
+		warmup.setConcurrency(2);
+		warmup.setMaxDuration(maxDuration);
+		warmup.setRequests(Arrays.asList(mine, properties));
+		WarmupRunner runner = new WarmupRunner();
+		runner.properties = warmup;
+		return runner;
+	}
+
+	private String baseUrl() {
+		return "http://localhost:" + server.getAddress().getPort();
+	}
+
+}
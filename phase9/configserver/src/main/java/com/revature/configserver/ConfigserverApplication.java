@@ -3,6 +3,9 @@ package com.revature.configserver;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.config.server.EnableConfigServer;
+import org.springframework.context.annotation.Bean;
+
+import com.revature.configserver.cache.EnvironmentCachePostProcessor;
 
 /**
  * @EnableConfigServer makes this application a ConfigServer which will read
@@ -18,4 +21,13 @@ public class ConfigserverApplication {
 		SpringApplication.run(ConfigserverApplication.class, args);
 	}
 
+	/**
+	 * Caches the rendered environments (see CachingEnvironmentRepository). Static
+	 * because it is a BeanPostProcessor.
+	 */
+	@Bean
+	public static EnvironmentCachePostProcessor environmentCachePostProcessor() {
+		return new EnvironmentCachePostProcessor();
+	}
+
 }
@@ -0,0 +1,209 @@
+package com.revature.configserver.cache;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.config.environment.Environment;
+import org.springframework.cloud.config.server.environment.EnvironmentRepository;
+import org.springframework.cloud.config.server.environment.SearchPathLocator;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.revature.configserver.config.EnvironmentCacheProperties;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Sits in front of the config server's EnvironmentRepository and keeps the
+ * rendered environment of every application/profile/label. Rendering means
+ * checking out the git clone and merging all the property files into
+ * property sources, which is what a fleet-wide restart used to repeat for
+ * every single instance.
+ *
+ * An entry is only served while the repository is still at the commit it was
+ * rendered from: every request asks the git repository for its current
+ * version first (which fetches at most every
+ * spring.cloud.config.server.git.refresh-rate). Repositories that have no
+ * version, like native, keep an entry for configserver.cache.ttl instead.
+ *
+ * The ETag of the rendered environment is handed to EnvironmentETagAdvice
+ * through a request attribute, so a hit doesn't serialize anything twice.
+ *
+ * Published metrics: configserver.environment.render (time of a real render),
+ * configserver.environment.cache (by result: hit, miss) and
+ * configserver.environment.cache.size
+ */
+public class CachingEnvironmentRepository implements EnvironmentRepository, SearchPathLocator {
+
+	private static final Logger logger = LoggerFactory.getLogger(CachingEnvironmentRepository.class);
+
+	public static final String ETAG_ATTRIBUTE = CachingEnvironmentRepository.class.getName() + ".etag";
+
+	private static final int LOCKS = 32;
+
+	private final EnvironmentRepository delegate;
+	private final EnvironmentCacheProperties properties;
+	private final ObjectProvider<SearchPathLocator> locators;
+	private final MeterRegistry meterRegistry;
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final Map<String, Entry> entries;
+	// Requests for the same key wait for one render instead of all rendering at once
+	private final Object[] locks = new Object[LOCKS];
+	private final Timer renderTime;
+
+	public CachingEnvironmentRepository(EnvironmentRepository delegate, EnvironmentCacheProperties properties,
+			ObjectProvider<SearchPathLocator> locators, MeterRegistry meterRegistry) {
+		this.delegate = delegate;
+		this.properties = properties;
+		this.locators = locators;
+		this.meterRegistry = meterRegistry;
+		// access order = true turns the LinkedHashMap into an LRU list
+		this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+				return size() > CachingEnvironmentRepository.this.properties.getMaxEntries();
+			}
+		};
+		for (int i = 0; i < LOCKS; i++) {
+			locks[i] = new Object();
+		}
+		this.renderTime = Timer.builder("configserver.environment.render")
+				.description("Time to render an environment from the repository").register(meterRegistry);
+		Gauge.builder("configserver.environment.cache.size", this, CachingEnvironmentRepository::size)
+				.description("Rendered environments kept").register(meterRegistry);
+	}
+
+	@Override
+	public Environment findOne(String application, String profile, String label) {
+		return findOne(application, profile, label, false);
+	}
+
+	@Override
+	public Environment findOne(String application, String profile, String label, boolean includeOrigin) {
+		String key = application + "/" + profile + "/" + (label != null ? label : "") + (includeOrigin ? "/origin" : "");
+		String version = currentVersion(application, profile, label);
+		long now = System.currentTimeMillis();
+
+		Entry entry = get(key);
+		if (entry == null || !entry.isCurrent(version, now)) {
+			synchronized (locks[(key.hashCode() & Integer.MAX_VALUE) % LOCKS]) {
+				entry = get(key);
+				if (entry == null || !entry.isCurrent(version, now)) {
+					meterRegistry.counter("configserver.environment.cache", "result", "miss").increment();
+					long start = System.nanoTime();
+					Environment rendered = delegate.findOne(application, profile, label, includeOrigin);
+					renderTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+					entry = new Entry(rendered, version, etag(rendered), now);
+					put(key, entry);
+					logger.debug("Rendered {} at version {}", key, version);
+					return served(entry);
+				}
+			}
+		}
+		meterRegistry.counter("configserver.environment.cache", "result", "hit").increment();
+		return served(entry);
+	}
+
+	@Override
+	public Locations getLocations(String application, String profile, String label) {
+		return ((SearchPathLocator) delegate).getLocations(application, profile, label);
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	public synchronized void clear() {
+		entries.clear();
+	}
+
+	private synchronized Entry get(String key) {
+		return entries.get(key);
+	}
+
+	private synchronized void put(String key, Entry entry) {
+		entries.put(key, entry);
+	}
+
+	/**
+	 * The commit each git repository is at, or null if none of them has a
+	 * version (or it couldn't be found out, then the TTL decides)
+	 */
+	private String currentVersion(String application, String profile, String label) {
+		StringJoiner versions = new StringJoiner(",");
+		try {
+			locators.orderedStream().filter(locator -> locator != this).forEach(locator -> {
+				String version = locator.getLocations(application, profile, label).getVersion();
+				if (version != null) {
+					versions.add(version);
+				}
+			});
+		} catch (RuntimeException e) {
+			logger.warn("Could not get the repository version of {}/{}: {}", application, profile, e.toString());
+			return null;
+		}
+		return versions.length() > 0 ? versions.toString() : null;
+	}
+
+	// A copy, the encryption and overrides wrappers add property sources to what they get
+	private Environment served(Entry entry) {
+		RequestAttributes request = RequestContextHolder.getRequestAttributes();
+		if (request != null && entry.etag != null) {
+			request.setAttribute(ETAG_ATTRIBUTE, entry.etag, RequestAttributes.SCOPE_REQUEST);
+		}
+		Environment copy = new Environment(entry.environment);
+		copy.addAll(entry.environment.getPropertySources());
+		return copy;
+	}
+
+	// A strong ETag: the first 128 bits of the SHA-256 of the environment as JSON
+	String etag(Environment environment) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(environment));
+			StringBuilder etag = new StringBuilder("\"");
+			for (int i = 0; i < 16; i++) {
+				etag.append(String.format("%02x", digest[i]));
+			}
+			return etag.append('"').toString();
+		} catch (JsonProcessingException | NoSuchAlgorithmException e) {
+			logger.warn("No ETag for {}: {}", environment.getName(), e.toString());
+			return null;
+		}
+	}
+
+	private class Entry {
+
+		private final Environment environment;
+		private final String version;
+		private final String etag;
+		private final long renderedAt;
+
+		Entry(Environment environment, String version, String etag, long renderedAt) {
+			this.environment = environment;
+			this.version = version;
+			this.etag = etag;
+			this.renderedAt = renderedAt;
+		}
+
+		boolean isCurrent(String currentVersion, long now) {
+			if (currentVersion != null) {
+				return currentVersion.equals(version);
+			}
+			return version == null && now - renderedAt < properties.getTtl().toMillis();
+		}
+	}
+
+}
@@ -0,0 +1,51 @@
+package com.revature.configserver.cache;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cloud.config.server.environment.CompositeEnvironmentRepository;
+import org.springframework.cloud.config.server.environment.SearchPathLocator;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+
+import com.revature.configserver.config.EnvironmentCacheProperties;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Puts the CachingEnvironmentRepository in front of the repository the config
+ * server answers from (the composite of all configured backends), so the
+ * EnvironmentController and everything else that asks for an environment
+ * goes through the cache without replacing any config server configuration.
+ */
+public class EnvironmentCachePostProcessor implements BeanPostProcessor, EnvironmentAware, BeanFactoryAware {
+
+	private EnvironmentCacheProperties properties;
+	private BeanFactory beanFactory;
+
+	@Override
+	public void setEnvironment(Environment environment) {
+		// Bound by hand, this runs before the @ConfigurationProperties support
+		properties = Binder.get(environment)
+				.bind("configserver.cache", Bindable.of(EnvironmentCacheProperties.class))
+				.orElseGet(EnvironmentCacheProperties::new);
+	}
+
+	@Override
+	public void setBeanFactory(BeanFactory beanFactory) {
+		this.beanFactory = beanFactory;
+	}
+
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+		if (!properties.isEnabled() || !(bean instanceof CompositeEnvironmentRepository)) {
+			return bean;
+		}
+		return new CachingEnvironmentRepository((CompositeEnvironmentRepository) bean, properties,
+				beanFactory.getBeanProvider(SearchPathLocator.class), beanFactory.getBean(MeterRegistry.class));
+	}
+
+}
@@ -0,0 +1,65 @@
+package com.revature.configserver.cache;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.config.environment.Environment;
+import org.springframework.cloud.config.server.environment.EnvironmentController;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Adds an ETag to every environment the config server sends (GET
+ * /{application}/{profile}/{label}) and answers 304 Not Modified when the
+ * client already has it (If-None-Match), so services polling for changes
+ * don't download their whole configuration every time.
+ *
+ * Published metrics: configserver.environment.not-modified
+ */
+@ControllerAdvice(assignableTypes = EnvironmentController.class)
+public class EnvironmentETagAdvice implements ResponseBodyAdvice<Object> {
+
+	@Autowired
+	MeterRegistry meterRegistry;
+
+	@Override
+	public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+		return Environment.class.isAssignableFrom(returnType.getParameterType());
+	}
+
+	@Override
+	public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+			Class<? extends HttpMessageConverter<?>> selectedConverterType, ServerHttpRequest request,
+			ServerHttpResponse response) {
+		if (!(body instanceof Environment) || !(request instanceof ServletServerHttpRequest)
+				|| !(response instanceof ServletServerHttpResponse)) {
+			return body;
+		}
+		HttpServletRequest servletRequest = ((ServletServerHttpRequest) request).getServletRequest();
+		HttpServletResponse servletResponse = ((ServletServerHttpResponse) response).getServletResponse();
+
+		// Set by the CachingEnvironmentRepository, unless the cache is disabled
+		String etag = (String) servletRequest.getAttribute(CachingEnvironmentRepository.ETAG_ATTRIBUTE);
+		if (etag == null) {
+			return body;
+		}
+		// Sets the ETag header, and the 304 status if If-None-Match matches
+		if (new ServletWebRequest(servletRequest, servletResponse).checkNotModified(etag)) {
+			meterRegistry.counter("configserver.environment.not-modified").increment();
+			return null;
+		}
+		return body;
+	}
+
+}
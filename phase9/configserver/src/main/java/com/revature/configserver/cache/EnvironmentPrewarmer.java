@@ -0,0 +1,176 @@
+package com.revature.configserver.cache;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cloud.config.server.environment.EnvironmentRepository;
+import org.springframework.cloud.config.server.environment.SearchPathLocator;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import com.revature.configserver.config.PrewarmProperties;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+
+/**
+ * Renders every application/profile combination once at startup, before the
+ * application reports ready, so they are already in the environment cache
+ * when the services ask for them and the first request is as fast as the
+ * others.
+ *
+ * Which combinations: the configured ones, else whatever has a file in the
+ * repository ({application}.properties, {application}-{profile}.yml...).
+ *
+ * How long startup took is logged and published as configserver.startup.time
+ * (JVM start to ready), configserver.startup.prewarm.time and
+ * configserver.startup.prewarm.environments
+ */
+@Component
+public class EnvironmentPrewarmer implements ApplicationRunner {
+
+	private static final Logger logger = LoggerFactory.getLogger(EnvironmentPrewarmer.class);
+
+	private static final List<String> EXTENSIONS = Arrays.asList("properties", "yml", "yaml");
+
+	private static final String SHARED = "application";
+
+	@Autowired
+	PrewarmProperties properties;
+
+	// The primary repository, so with the cache in front of it
+	@Autowired
+	EnvironmentRepository repository;
+
+	@Autowired
+	SearchPathLocator locator;
+
+	@Autowired
+	MeterRegistry meterRegistry;
+
+	private final ResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+
+	private volatile long prewarmMillis;
+	private volatile int prewarmed;
+
+	@Override
+	public void run(ApplicationArguments args) {
+		if (!properties.isEnabled()) {
+			return;
+		}
+		long start = System.nanoTime();
+		List<String> labels = properties.getLabels().isEmpty() ? Collections.singletonList(null) : properties.getLabels();
+		for (String label : labels) {
+			discover(label).forEach((application, profiles) -> {
+				for (String profile : profiles) {
+					render(application, profile, label);
+				}
+			});
+		}
+		prewarmMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void reportStartup() {
+		long startupMillis = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+		logger.info("Config server ready in {} ms, {} environments prewarmed in {} ms", startupMillis, prewarmed,
+				prewarmMillis);
+		TimeGauge.builder("configserver.startup.time", () -> startupMillis, TimeUnit.MILLISECONDS)
+				.description("From JVM start until the config server was ready").register(meterRegistry);
+		TimeGauge.builder("configserver.startup.prewarm.time", () -> prewarmMillis, TimeUnit.MILLISECONDS)
+				.description("Time spent rendering the environments at startup").register(meterRegistry);
+		Gauge.builder("configserver.startup.prewarm.environments", () -> prewarmed)
+				.description("Environments rendered at startup").register(meterRegistry);
+	}
+
+	/**
+	 * The profiles to render for each application, "default" first
+	 */
+	Map<String, Set<String>> discover(String label) {
+		Map<String, Set<String>> found = new TreeMap<>();
+		Set<String> sharedProfiles = new LinkedHashSet<>(properties.getProfiles());
+		if (properties.getApplications().isEmpty() || properties.getProfiles().isEmpty()) {
+			for (String location : locator.getLocations(SHARED, "default", label).getLocations()) {
+				if (location.contains("{")) {
+					// a search path per application or profile, can't be listed
+					continue;
+				}
+				for (String name : fileNames(location)) {
+					int dash = name.lastIndexOf('-');
+					String application = dash > 0 ? name.substring(0, dash) : name;
+					String profile = dash > 0 ? name.substring(dash + 1) : "default";
+					if (SHARED.equals(application)) {
+						sharedProfiles.add(profile);
+					} else {
+						found.computeIfAbsent(application, key -> new LinkedHashSet<>()).add(profile);
+					}
+				}
+			}
+		}
+		if (!properties.getApplications().isEmpty()) {
+			Map<String, Set<String>> configured = new TreeMap<>();
+			properties.getApplications().forEach(application -> configured.put(application,
+					found.getOrDefault(application, new LinkedHashSet<>())));
+			found.clear();
+			found.putAll(configured);
+		}
+		found.replaceAll((application, profiles) -> {
+			Set<String> all = new LinkedHashSet<>();
+			all.add("default");
+			if (properties.getProfiles().isEmpty()) {
+				all.addAll(profiles);
+			}
+			all.addAll(sharedProfiles);
+			return all;
+		});
+		return found;
+	}
+
+	private Set<String> fileNames(String location) {
+		Set<String> names = new LinkedHashSet<>();
+		String directory = location.endsWith("/") ? location : location + "/";
+		for (String extension : EXTENSIONS) {
+			try {
+				for (Resource resource : resolver.getResources(directory + "*." + extension)) {
+					names.add(StringUtils.stripFilenameExtension(resource.getFilename()));
+				}
+			} catch (IOException e) {
+				logger.debug("Could not list {}: {}", directory, e.toString());
+			}
+		}
+		return names;
+	}
+
+	private void render(String application, String profile, String label) {
+		try {
+			repository.findOne(application, profile, label);
+			prewarmed++;
+			logger.debug("Prewarmed {}/{}/{}", application, profile, label);
+		} catch (RuntimeException e) {
+			if (properties.isFailOnError()) {
+				throw e;
+			}
+			logger.warn("Could not prewarm {}/{}/{}: {}", application, profile, label, e.toString());
+		}
+	}
+
+}
@@ -0,0 +1,28 @@
+package com.revature.configserver.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Reads all properties that begin with "configserver.cache". They are bound
+ * by the EnvironmentCachePostProcessor itself (it runs before regular beans
+ * exist), so this class isn't a @Configuration like in the other services.
+ */
+@ConfigurationProperties(prefix = "configserver.cache")
+@Getter
+@Setter
+@ToString
+public class EnvironmentCacheProperties {
+
+	private boolean enabled = true;
+	// One entry per application/profile/label that was asked for
+	private int maxEntries = 500;
+	// Only for repositories without a version (native): how long a rendered environment is kept
+	private Duration ttl = Duration.ofSeconds(30);
+
+}
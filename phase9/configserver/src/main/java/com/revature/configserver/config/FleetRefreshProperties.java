@@ -0,0 +1,34 @@
+package com.revature.configserver.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Reads all properties that begin with "configserver.fleet-refresh"
+ */
+@Configuration
+@ConfigurationProperties(prefix = "configserver.fleet-refresh")
+@Getter
+@Setter
+@ToString
+public class FleetRefreshProperties {
+
+	// Empty: every service registered in Eureka
+	private List<String> services = new ArrayList<>();
+	// How many instances are refreshed at the same time
+	private int maxConcurrency = 4;
+	// Each instance waits a random time up to this before its refresh
+	private Duration maxJitter = Duration.ofMillis(500);
+	// Connect and read timeout for one instance
+	private Duration timeout = Duration.ofSeconds(10);
+	private String path = "/actuator/refresh";
+
+}
@@ -0,0 +1,33 @@
+package com.revature.configserver.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Reads all properties that begin with "configserver.prewarm"
+ */
+@Configuration
+@ConfigurationProperties(prefix = "configserver.prewarm")
+@Getter
+@Setter
+@ToString
+public class PrewarmProperties {
+
+	private boolean enabled = true;
+	// Empty: every application that has a file in the repository
+	private List<String> applications = new ArrayList<>();
+	// Empty: the profiles that have a file in the repository ("default" is always rendered)
+	private List<String> profiles = new ArrayList<>();
+	// Empty: the default label only
+	private List<String> labels = new ArrayList<>();
+	// Refuse to start when an environment can't be rendered, instead of logging it
+	private boolean failOnError = false;
+
+}
@@ -0,0 +1,171 @@
+package com.revature.configserver.refresh;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.revature.configserver.config.FleetRefreshProperties;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Calls /actuator/refresh on every instance Eureka knows of, instead of
+ * somebody doing it by hand for each pod (and instead of a message broker).
+ *
+ * At most max-concurrency instances are refreshed at the same time, and each
+ * waits a random time up to max-jitter first, so the instances don't all
+ * come back to the config server in the same moment.
+ *
+ * Published metrics: configserver.fleet.refresh.latency (per instance, by
+ * service and outcome) and configserver.fleet.refresh.duration
+ */
+@Component
+public class FleetRefreshCoordinator {
+
+	private static final Logger logger = LoggerFactory.getLogger(FleetRefreshCoordinator.class);
+
+	@Autowired
+	FleetRefreshProperties properties;
+
+	@Autowired
+	DiscoveryClient discoveryClient;
+
+	@Autowired
+	RestTemplateBuilder restTemplateBuilder;
+
+	@Autowired
+	MeterRegistry meterRegistry;
+
+	@Value("${spring.application.name}")
+	String applicationName;
+
+	private RestTemplate restTemplate;
+
+	@PostConstruct
+	void init() {
+		restTemplate = restTemplateBuilder.setConnectTimeout(properties.getTimeout())
+				.setReadTimeout(properties.getTimeout()).build();
+	}
+
+	/**
+	 * @param services - the services to refresh, all if empty
+	 */
+	public FleetRefreshReport refresh(List<String> services) {
+		long start = System.nanoTime();
+		List<ServiceInstance> instances = instances(services);
+		List<InstanceRefreshResult> results = new ArrayList<>();
+		if (!instances.isEmpty()) {
+			AtomicInteger threads = new AtomicInteger();
+			ExecutorService executor = Executors.newFixedThreadPool(
+					Math.max(1, Math.min(properties.getMaxConcurrency(), instances.size())), runnable -> {
+						Thread thread = new Thread(runnable, "fleet-refresh-" + threads.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					});
+			try {
+				List<Future<InstanceRefreshResult>> futures = new ArrayList<>();
+				for (ServiceInstance instance : instances) {
+					futures.add(executor.submit(() -> refresh(instance)));
+				}
+				for (Future<InstanceRefreshResult> future : futures) {
+					results.add(future.get());
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				throw new IllegalStateException(e.getCause());
+			} finally {
+				executor.shutdownNow();
+			}
+		}
+		long duration = System.nanoTime() - start;
+		meterRegistry.timer("configserver.fleet.refresh.duration").record(duration, TimeUnit.NANOSECONDS);
+
+		int succeeded = (int) results.stream().filter(InstanceRefreshResult::isSuccess).count();
+		logger.info("Refreshed {} of {} instances", succeeded, results.size());
+		return new FleetRefreshReport(succeeded, results.size() - succeeded, TimeUnit.NANOSECONDS.toMillis(duration),
+				results);
+	}
+
+	private List<ServiceInstance> instances(List<String> services) {
+		List<String> serviceIds = !services.isEmpty() ? services
+				: !properties.getServices().isEmpty() ? properties.getServices() : discoveryClient.getServices();
+		List<ServiceInstance> instances = new ArrayList<>();
+		for (String serviceId : serviceIds) {
+			if (!serviceId.equalsIgnoreCase(applicationName)) {
+				instances.addAll(discoveryClient.getInstances(serviceId));
+			}
+		}
+		return instances;
+	}
+
+	private InstanceRefreshResult refresh(ServiceInstance instance) throws InterruptedException {
+		long jitter = properties.getMaxJitter().toMillis();
+		if (jitter > 0) {
+			Thread.sleep(ThreadLocalRandom.current().nextLong(jitter + 1));
+		}
+		URI uri = refreshUri(instance);
+		long start = System.nanoTime();
+		InstanceRefreshResult result;
+		try {
+			ResponseEntity<String[]> response = restTemplate.postForEntity(uri, null, String[].class);
+			List<String> changedKeys = response.getBody() != null ? Arrays.asList(response.getBody())
+					: Collections.emptyList();
+			result = new InstanceRefreshResult(instance.getServiceId(), instance.getInstanceId(), uri.toString(), true,
+					response.getStatusCodeValue(), changedKeys, elapsed(start), null);
+		} catch (RestClientResponseException e) {
+			result = new InstanceRefreshResult(instance.getServiceId(), instance.getInstanceId(), uri.toString(), false,
+					e.getRawStatusCode(), Collections.emptyList(), elapsed(start), e.getMessage());
+		} catch (RuntimeException e) {
+			result = new InstanceRefreshResult(instance.getServiceId(), instance.getInstanceId(), uri.toString(), false,
+					0, Collections.emptyList(), elapsed(start), e.getMessage());
+		}
+		Timer.builder("configserver.fleet.refresh.latency").tag("service", instance.getServiceId().toLowerCase())
+				.tag("outcome", result.isSuccess() ? "success" : "failure").register(meterRegistry)
+				.record(result.getLatencyMillis(), TimeUnit.MILLISECONDS);
+		if (!result.isSuccess()) {
+			logger.warn("Could not refresh {} at {}: {}", instance.getServiceId(), uri, result.getError());
+		}
+		return result;
+	}
+
+	// Eureka instances announce a separate management port in their metadata
+	private URI refreshUri(ServiceInstance instance) {
+		UriComponentsBuilder uri = UriComponentsBuilder.fromUri(instance.getUri()).path(properties.getPath());
+		String managementPort = instance.getMetadata() != null ? instance.getMetadata().get("management.port") : null;
+		if (managementPort != null) {
+			uri.port(managementPort);
+		}
+		return uri.build().toUri();
+	}
+
+	private static long elapsed(long start) {
+		return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+	}
+
+}
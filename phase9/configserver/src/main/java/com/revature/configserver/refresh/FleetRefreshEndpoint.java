@@ -0,0 +1,32 @@
+package com.revature.configserver.refresh;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+/**
+ * POST /actuator/fleetrefresh refreshes the configuration of every instance of
+ * every service, POST /actuator/fleetrefresh?services=accounts,loans only of
+ * those services. Answers with the result for each instance.
+ */
+@Component
+@Endpoint(id = "fleetrefresh")
+public class FleetRefreshEndpoint {
+
+	@Autowired
+	FleetRefreshCoordinator coordinator;
+
+	@WriteOperation
+	public FleetRefreshReport refresh(@Nullable String services) {
+		return coordinator.refresh(StringUtils.hasText(services)
+				? Arrays.asList(StringUtils.commaDelimitedListToStringArray(services.replace(" ", "")))
+				: Collections.emptyList());
+	}
+
+}
@@ -0,0 +1,22 @@
+package com.revature.configserver.refresh;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * The outcome of one fleet refresh, with a result per instance
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class FleetRefreshReport {
+
+	private int succeeded;
+	private int failed;
+	private long durationMillis;
+	private List<InstanceRefreshResult> instances;
+
+}
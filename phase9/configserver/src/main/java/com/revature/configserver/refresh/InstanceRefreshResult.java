@@ -0,0 +1,28 @@
+package com.revature.configserver.refresh;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * What happened when one instance was asked to refresh
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class InstanceRefreshResult {
+
+	private String service;
+	private String instanceId;
+	private String uri;
+	private boolean success;
+	// HTTP status of the refresh call, 0 if there was no response
+	private int status;
+	// What /actuator/refresh reported as changed
+	private List<String> changedKeys;
+	private long latencyMillis;
+	private String error;
+
+}
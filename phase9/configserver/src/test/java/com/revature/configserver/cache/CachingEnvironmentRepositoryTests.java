@@ -0,0 +1,87 @@
+package com.revature.configserver.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.config.environment.Environment;
+import org.springframework.cloud.config.environment.PropertySource;
+import org.springframework.cloud.config.server.environment.EnvironmentRepository;
+import org.springframework.cloud.config.server.environment.SearchPathLocator;
+
+import com.revature.configserver.config.EnvironmentCacheProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class CachingEnvironmentRepositoryTests {
+
+	private final AtomicInteger renders = new AtomicInteger();
+	private final EnvironmentCacheProperties properties = new EnvironmentCacheProperties();
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private String version = "a1";
+
+	// Renders a new environment each time, with the version it was rendered at
+	private final EnvironmentRepository repository = (application, profile, label) -> {
+		renders.incrementAndGet();
+		Environment environment = new Environment(application, new String[] { profile }, label, version, null);
+		environment.add(new PropertySource(application, Collections.singletonMap("build.version", version)));
+		return environment;
+	};
+
+	private CachingEnvironmentRepository cache;
+
+	@BeforeEach
+	void setUp() {
+		StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+		beanFactory.addBean("git", (SearchPathLocator) (application, profile, label) -> new SearchPathLocator.Locations(
+				application, profile, label, version, new String[0]));
+		cache = new CachingEnvironmentRepository(repository, properties,
+				beanFactory.getBeanProvider(SearchPathLocator.class), meterRegistry);
+	}
+
+	@Test
+	void rendersOncePerCommit() {
+		Environment first = cache.findOne("accounts", "prod", "main");
+		first.getPropertySources().clear();
+		Environment second = cache.findOne("accounts", "prod", "main");
+
+		assertEquals(1, renders.get());
+		// callers get copies, so they can't change what the cache keeps
+		assertEquals(1, second.getPropertySources().size());
+		assertEquals(1, meterRegistry.counter("configserver.environment.cache", "result", "hit").count());
+
+		cache.findOne("loans", "prod", "main");
+		assertEquals(2, renders.get());
+	}
+
+	@Test
+	void rendersAgainWhenTheCommitChanges() {
+		Environment before = cache.findOne("accounts", "prod", "main");
+		String etag = cache.etag(before);
+		version = "b2";
+		Environment after = cache.findOne("accounts", "prod", "main");
+
+		assertEquals(2, renders.get());
+		assertEquals("b2", after.getPropertySources().get(0).getSource().get("build.version"));
+		assertNotEquals(etag, cache.etag(after));
+	}
+
+	@Test
+	void usesTheTtlWithoutAVersion() {
+		version = null;
+		cache.findOne("accounts", "default", null);
+		cache.findOne("accounts", "default", null);
+		assertEquals(1, renders.get());
+
+		properties.setTtl(Duration.ZERO);
+		cache.findOne("accounts", "default", null);
+		assertEquals(2, renders.get());
+	}
+
+}
@@ -0,0 +1,48 @@
+package com.revature.configserver.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.config.server.environment.SearchPathLocator;
+
+import com.revature.configserver.config.PrewarmProperties;
+
+class EnvironmentPrewarmerTests {
+
+	private final EnvironmentPrewarmer prewarmer = new EnvironmentPrewarmer();
+
+	@BeforeEach
+	void setUp() {
+		prewarmer.properties = new PrewarmProperties();
+		// the bundled configuration, like the native profile serves it
+		prewarmer.locator = (application, profile, label) -> new SearchPathLocator.Locations(application, profile,
+				label, null, new String[] { "classpath:/config/", "classpath:/{application}/" });
+	}
+
+	@Test
+	void discoversApplicationsAndProfilesFromTheFiles() {
+		Map<String, Set<String>> found = prewarmer.discover(null);
+
+		assertEquals(new LinkedHashSet<>(Arrays.asList("accounts", "cards", "loans")), found.keySet());
+		assertEquals(new LinkedHashSet<>(Arrays.asList("default", "dev", "prod")), found.get("accounts"));
+	}
+
+	@Test
+	void configuredApplicationsAndProfilesWin() {
+		prewarmer.properties.setApplications(Collections.singletonList("loans"));
+		prewarmer.properties.setProfiles(Collections.singletonList("qa"));
+
+		Map<String, Set<String>> found = prewarmer.discover(null);
+
+		assertEquals(Collections.singleton("loans"), found.keySet());
+		assertEquals(new LinkedHashSet<>(Arrays.asList("default", "qa")), found.get("loans"));
+	}
+
+}
@@ -0,0 +1,141 @@
+package com.revature.configserver.refresh;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+
+import com.revature.configserver.config.FleetRefreshProperties;
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class FleetRefreshCoordinatorTests {
+
+	private final Map<String, List<ServiceInstance>> registry = new LinkedHashMap<>();
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicInteger maxInFlight = new AtomicInteger();
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final FleetRefreshCoordinator coordinator = new FleetRefreshCoordinator();
+	private HttpServer server;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		// a service instance whose /actuator/refresh takes 100ms, "/fail" answers 500
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.createContext("/", exchange -> {
+			maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+			try {
+				Thread.sleep(100);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			inFlight.decrementAndGet();
+			boolean fail = exchange.getRequestURI().getPath().startsWith("/fail");
+			byte[] body = "[\"accounts.msg\"]".getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", "application/json");
+			exchange.sendResponseHeaders(fail ? 500 : 200, fail ? -1 : body.length);
+			if (!fail) {
+				exchange.getResponseBody().write(body);
+			}
+			exchange.close();
+		});
+		server.start();
+
+		coordinator.properties = new FleetRefreshProperties();
+		coordinator.properties.setMaxConcurrency(2);
+		coordinator.properties.setMaxJitter(Duration.ZERO);
+		coordinator.properties.setTimeout(Duration.ofSeconds(2));
+		coordinator.discoveryClient = new DiscoveryClient() {
+			@Override
+			public String description() {
+				return "test";
+			}
+
+			@Override
+			public List<ServiceInstance> getInstances(String serviceId) {
+				return registry.getOrDefault(serviceId, Collections.emptyList());
+			}
+
+			@Override
+			public List<String> getServices() {
+				return new ArrayList<>(registry.keySet());
+			}
+		};
+		coordinator.restTemplateBuilder = new RestTemplateBuilder();
+		coordinator.meterRegistry = meterRegistry;
+		coordinator.applicationName = "configserver";
+		coordinator.init();
+	}
+
+	@AfterEach
+	void tearDown() {
+		server.stop(0);
+	}
+
+	@Test
+	void refreshesEveryInstanceWithBoundedConcurrency() {
+		register("accounts", 3);
+		register("loans", 3);
+		register("configserver", 1);
+
+		FleetRefreshReport report = coordinator.refresh(Collections.emptyList());
+
+		assertEquals(6, report.getSucceeded());
+		assertEquals(0, report.getFailed());
+		assertTrue(maxInFlight.get() <= 2, "at most 2 at a time, was " + maxInFlight.get());
+		assertEquals(Collections.singletonList("accounts.msg"), report.getInstances().get(0).getChangedKeys());
+		assertEquals(3, meterRegistry.get("configserver.fleet.refresh.latency").tags("service", "loans", "outcome",
+				"success").timer().count());
+	}
+
+	@Test
+	void reportsFailedInstances() throws IOException {
+		register("accounts", 2);
+		int closedPort;
+		try (ServerSocket socket = new ServerSocket(0)) {
+			closedPort = socket.getLocalPort();
+		}
+		registry.put("loans", Arrays.asList(new DefaultServiceInstance("loans-1", "loans", "localhost", closedPort, false),
+				new DefaultServiceInstance("loans-2", "loans", "localhost", server.getAddress().getPort(), false)));
+		coordinator.properties.setPath("/fail/actuator/refresh");
+
+		FleetRefreshReport report = coordinator.refresh(Collections.singletonList("loans"));
+
+		assertEquals(0, report.getSucceeded());
+		assertEquals(2, report.getFailed());
+		assertEquals(0, report.getInstances().get(0).getStatus());
+		assertEquals(500, report.getInstances().get(1).getStatus());
+	}
+
+	private void register(String service, int instances) {
+		List<ServiceInstance> list = new ArrayList<>();
+		for (int i = 1; i <= instances; i++) {
+			list.add(new DefaultServiceInstance(service + "-" + i, service, "localhost", server.getAddress().getPort(),
+					false));
+		}
+		registry.put(service, list);
+	}
+
+}
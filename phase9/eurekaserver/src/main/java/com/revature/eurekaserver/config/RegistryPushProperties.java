@@ -0,0 +1,30 @@
+package com.revature.eurekaserver.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * @ConfigurationProperties reads all properties that begin with
+ * "eurekaserver.push"
+ */
+@Configuration
+@ConfigurationProperties(prefix = "eurekaserver.push")
+@Getter
+@Setter
+@ToString
+public class RegistryPushProperties {
+
+	private boolean enabled = false;
+	// Clients that can be subscribed at once, anyone beyond that gets a 503 and keeps polling
+	private int maxSubscribers = 100;
+	// How often an idle stream gets a comment line, so clients can tell a quiet stream from a dead one
+	private Duration heartbeatInterval = Duration.ofSeconds(15);
+	// Streams are closed after this long and the clients open a new one
+	private Duration streamTimeout = Duration.ofMinutes(10);
+}
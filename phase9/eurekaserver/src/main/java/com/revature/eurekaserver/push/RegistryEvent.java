@@ -0,0 +1,45 @@
+package com.revature.eurekaserver.push;
+
+import java.util.Map;
+
+import com.netflix.appinfo.InstanceInfo;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * What subscribed clients get (as JSON) when an instance registers, changes
+ * its status (clients register again for that) or goes away
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class RegistryEvent {
+
+	public static final String REGISTERED = "registered";
+	public static final String CANCELLED = "cancelled";
+
+	private final String type;
+	private final String app;
+	private final String instanceId;
+	private final String host;
+	private final int port;
+	private final boolean secure;
+	// UP, DOWN, STARTING, OUT_OF_SERVICE... only UP instances should get traffic
+	private final String status;
+	private final Map<String, String> metadata;
+	private final long timestamp;
+
+	public static RegistryEvent registered(InstanceInfo instance) {
+		boolean secure = instance.isPortEnabled(InstanceInfo.PortType.SECURE);
+		return new RegistryEvent(REGISTERED, instance.getAppName(), instance.getId(), instance.getHostName(),
+				secure ? instance.getSecurePort() : instance.getPort(), secure, instance.getStatus().name(),
+				instance.getMetadata(), System.currentTimeMillis());
+	}
+
+	public static RegistryEvent cancelled(String app, String instanceId) {
+		return new RegistryEvent(CANCELLED, app, instanceId, null, 0, false, null, null, System.currentTimeMillis());
+	}
+
+}
@@ -0,0 +1,144 @@
+package com.revature.eurekaserver.push;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.netflix.eureka.server.event.EurekaInstanceCanceledEvent;
+import org.springframework.cloud.netflix.eureka.server.event.EurekaInstanceRegisteredEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.revature.eurekaserver.config.RegistryPushProperties;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Pushes registrations and cancellations to the clients subscribed to
+ * /registry/events, so they can stop calling an instance that went away
+ * without waiting for their next registry fetch (every 30 seconds). The
+ * clients keep polling the registry as usual, this only gets them the
+ * changes sooner.
+ *
+ * Events are sent from a single background thread, so a slow subscriber
+ * never holds up the registration that caused the event.
+ *
+ * Published metrics: eureka.push.subscribers and eureka.push.events (by type)
+ */
+@Component
+public class RegistryEventBroadcaster implements DisposableBean {
+
+	private static final Logger logger = LoggerFactory.getLogger(RegistryEventBroadcaster.class);
+
+	@Autowired
+	RegistryPushProperties properties;
+
+	@Autowired
+	MeterRegistry meterRegistry;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private final List<SseEmitter> subscribers = new CopyOnWriteArrayList<>();
+
+	private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "registry-push");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	@PostConstruct
+	void start() {
+		if (!properties.isEnabled()) {
+			return;
+		}
+		long interval = properties.getHeartbeatInterval().toMillis();
+		executor.scheduleWithFixedDelay(this::heartbeat, interval, interval, TimeUnit.MILLISECONDS);
+		Gauge.builder("eureka.push.subscribers", subscribers, List::size)
+				.description("Clients subscribed to registry events").register(meterRegistry);
+	}
+
+	/**
+	 * @return null when push is disabled or there are already max-subscribers
+	 */
+	public SseEmitter subscribe() {
+		if (!properties.isEnabled() || subscribers.size() >= properties.getMaxSubscribers()) {
+			return null;
+		}
+		SseEmitter emitter = new SseEmitter(properties.getStreamTimeout().toMillis());
+		emitter.onCompletion(() -> subscribers.remove(emitter));
+		emitter.onTimeout(() -> subscribers.remove(emitter));
+		emitter.onError(e -> subscribers.remove(emitter));
+		subscribers.add(emitter);
+		// Gets the response headers out now rather than with the first event
+		send(emitter, SseEmitter.event().comment("subscribed"));
+		return emitter;
+	}
+
+	@EventListener
+	public void onRegistered(EurekaInstanceRegisteredEvent event) {
+		publish(RegistryEvent.registered(event.getInstanceInfo()));
+	}
+
+	@EventListener
+	public void onCancelled(EurekaInstanceCanceledEvent event) {
+		publish(RegistryEvent.cancelled(event.getAppName(), event.getServerId()));
+	}
+
+	void publish(RegistryEvent event) {
+		if (!properties.isEnabled()) {
+			return;
+		}
+		meterRegistry.counter("eureka.push.events", "type", event.getType()).increment();
+		if (subscribers.isEmpty()) {
+			return;
+		}
+		String data;
+		try {
+			data = objectMapper.writeValueAsString(event);
+		} catch (JsonProcessingException e) {
+			logger.warn("Could not write {}: {}", event, e.toString());
+			return;
+		}
+		executor.execute(() -> {
+			for (SseEmitter emitter : subscribers) {
+				send(emitter, SseEmitter.event().name(event.getType()).data(data));
+			}
+		});
+	}
+
+	private void heartbeat() {
+		for (SseEmitter emitter : subscribers) {
+			send(emitter, SseEmitter.event().comment("heartbeat"));
+		}
+	}
+
+	private void send(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+		try {
+			emitter.send(event);
+		} catch (IOException | IllegalStateException e) {
+			// The client went away, it polls until it subscribes again
+			subscribers.remove(emitter);
+			emitter.completeWithError(e);
+		}
+	}
+
+	@Override
+	public void destroy() {
+		executor.shutdownNow();
+		subscribers.forEach(SseEmitter::complete);
+	}
+
+}
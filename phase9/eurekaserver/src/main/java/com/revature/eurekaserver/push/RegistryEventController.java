@@ -0,0 +1,38 @@
+package com.revature.eurekaserver.push;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.revature.eurekaserver.config.RegistryPushProperties;
+
+/**
+ * The push channel: a server-sent events stream of RegistryEvents ("registered"
+ * and "cancelled" events with the instance as JSON data)
+ */
+@RestController
+public class RegistryEventController {
+
+	@Autowired
+	RegistryPushProperties properties;
+
+	@Autowired
+	RegistryEventBroadcaster broadcaster;
+
+	@GetMapping(path = "/registry/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public ResponseEntity<SseEmitter> events() {
+		if (!properties.isEnabled()) {
+			return ResponseEntity.notFound().build();
+		}
+		SseEmitter emitter = broadcaster.subscribe();
+		if (emitter == null) {
+			return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+		}
+		return ResponseEntity.ok(emitter);
+	}
+
+}
@@ -0,0 +1,367 @@
+package com.revature.eurekaserver;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpDelete;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.util.EntityUtils;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * How the Eureka server holds up with a whole fleet: N simulated instances
+ * register and send a heartbeat every heartbeatSeconds, M simulated clients
+ * fetch the full registry once and then a delta every fetchSeconds, like the
+ * real Eureka client does. A few instances go away and come back every
+ * minute so the deltas aren't empty.
+ *
+ * The server keeps every change in its deltas for 3 minutes, so right after
+ * the fleet registered a delta is as big as the full registry. So for the
+ * first warmupSeconds (4 minutes by default) only the instances run, and they
+ * aren't counted; the clients start after that.
+ *
+ * Measured: latency of registrations, heartbeats, full and delta fetches
+ * (percentiles, errors, payload size), and process CPU, heap and GC. The
+ * server and the simulated fleet share this JVM, so CPU and GC are an upper
+ * bound for the server alone. Latencies are measured from when a request is
+ * sent; keep "threads" high enough that requests don't wait for a thread.
+ *
+ * Every run is printed and appended as one JSON line to
+ * target/benchmarks/eureka-scale.jsonl (-Dbench.output=...), to compare runs.
+ *
+ * Run with: mvn test -Pbenchmark -Dtest=EurekaScaleBenchmark
+ * and for example -Dbench.instances=5000 -Dbench.clients=500 -Dbench.durationSeconds=300
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"eureka.client.register-with-eureka=false", "eureka.client.fetch-registry=false",
+		// a single server: the default service url is on this host, so it has no peers to replicate to
+		"eureka.instance.hostname=localhost",
+		"eureka.server.enable-self-preservation=false", "eureka.server.wait-time-in-ms-when-sync-empty=0",
+		"eurekaserver.push.enabled=false", "spring.zipkin.enabled=false", "logging.level.com.netflix=WARN" })
+class EurekaScaleBenchmark {
+
+	private static final int INSTANCES = Integer.getInteger("bench.instances", 2000);
+	private static final int CLIENTS = Integer.getInteger("bench.clients", 200);
+	private static final int APPS = Integer.getInteger("bench.apps", 50);
+	private static final int THREADS = Integer.getInteger("bench.threads", 64);
+	private static final long WARMUP_SECONDS = Long.getLong("bench.warmupSeconds", 240);
+	private static final long DURATION_SECONDS = Long.getLong("bench.durationSeconds", 120);
+	private static final long HEARTBEAT_SECONDS = Long.getLong("bench.heartbeatSeconds", 30);
+	private static final long FETCH_SECONDS = Long.getLong("bench.fetchSeconds", 30);
+	// Instances that go away and register again, per minute
+	private static final int CHURN_PER_MINUTE = Integer.getInteger("bench.churnPerMinute", INSTANCES / 100);
+	private static final String OUTPUT = System.getProperty("bench.output", "target/benchmarks/eureka-scale.jsonl");
+
+	@LocalServerPort
+	int port;
+
+	private CloseableHttpClient http;
+
+	@Test
+	void fleetOfInstancesAndClients() throws Exception {
+		http = HttpClients.custom().setMaxConnTotal(THREADS * 2).setMaxConnPerRoute(THREADS * 2).build();
+		Operation startup = new Operation("startup");
+		Operation register = new Operation("register");
+		Operation heartbeat = new Operation("heartbeat");
+		Operation cancel = new Operation("cancel");
+		Operation fullFetch = new Operation("fetch.full");
+		Operation deltaFetch = new Operation("fetch.delta");
+		ResourceSampler resources = new ResourceSampler();
+		ScheduledExecutorService executor = Executors.newScheduledThreadPool(THREADS);
+
+		// Everybody registers at once, as after a full restart of the fleet
+		long registrationStart = System.nanoTime();
+		CountDownLatch registered = new CountDownLatch(INSTANCES);
+		for (int i = 0; i < INSTANCES; i++) {
+			int instance = i;
+			executor.execute(() -> {
+				register(startup, instance);
+				registered.countDown();
+			});
+		}
+		registered.await();
+		double registrationSeconds = (System.nanoTime() - registrationStart) / 1e9;
+
+		for (int i = 0; i < INSTANCES; i++) {
+			int instance = i;
+			executor.scheduleAtFixedRate(() -> {
+				if (call(heartbeat, new HttpPut(url("/eureka/apps/" + app(instance) + "/" + id(instance)
+						+ "?status=UP"))) == 404) {
+					// What the Eureka client does when the server doesn't know it
+					register(register, instance);
+				}
+			}, random(HEARTBEAT_SECONDS), HEARTBEAT_SECONDS * 1000, TimeUnit.MILLISECONDS);
+		}
+		if (CHURN_PER_MINUTE > 0) {
+			executor.scheduleAtFixedRate(() -> {
+				int instance = ThreadLocalRandom.current().nextInt(INSTANCES);
+				call(cancel, new HttpDelete(url("/eureka/apps/" + app(instance) + "/" + id(instance))));
+				register(register, instance);
+			}, 0, 60_000 / CHURN_PER_MINUTE, TimeUnit.MILLISECONDS);
+		}
+
+		TimeUnit.SECONDS.sleep(WARMUP_SECONDS);
+		for (Operation operation : new Operation[] { register, heartbeat, cancel }) {
+			operation.reset();
+		}
+		resources.start();
+		for (int i = 0; i < CLIENTS; i++) {
+			executor.execute(() -> call(fullFetch, new HttpGet(url("/eureka/apps/"))));
+			executor.scheduleAtFixedRate(() -> call(deltaFetch, new HttpGet(url("/eureka/apps/delta"))),
+					random(FETCH_SECONDS), FETCH_SECONDS * 1000, TimeUnit.MILLISECONDS);
+		}
+		TimeUnit.SECONDS.sleep(DURATION_SECONDS);
+		executor.shutdownNow();
+		executor.awaitTermination(30, TimeUnit.SECONDS);
+		resources.stop();
+		http.close();
+
+		Map<String, Object> result = new LinkedHashMap<>();
+		result.put("timestamp", Instant.now().toString());
+		result.put("instances", INSTANCES);
+		result.put("clients", CLIENTS);
+		result.put("apps", APPS);
+		result.put("warmupSeconds", WARMUP_SECONDS);
+		result.put("durationSeconds", DURATION_SECONDS);
+		result.put("heartbeatSeconds", HEARTBEAT_SECONDS);
+		result.put("fetchSeconds", FETCH_SECONDS);
+		result.put("churnPerMinute", CHURN_PER_MINUTE);
+		result.put("registrationSeconds", round(registrationSeconds));
+		result.put(startup.name, startup.summary(registrationSeconds));
+		for (Operation operation : new Operation[] { register, heartbeat, cancel, fullFetch, deltaFetch }) {
+			result.put(operation.name, operation.summary((double) DURATION_SECONDS));
+		}
+		result.putAll(resources.summary());
+
+		print(result);
+		Path output = Paths.get(OUTPUT);
+		Files.createDirectories(output.toAbsolutePath().getParent());
+		try (Writer writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+				StandardOpenOption.APPEND)) {
+			writer.write(new ObjectMapper().writeValueAsString(result) + System.lineSeparator());
+		}
+		System.out.println("Appended to " + output.toAbsolutePath());
+
+		assertTrue(heartbeat.histogram.getTotalCount() > 0, "no heartbeat got through");
+	}
+
+	private void register(Operation register, int instance) {
+		String host = "10." + (instance >> 16 & 255) + "." + (instance >> 8 & 255) + "." + (instance & 255);
+		String body = "{\"instance\":{\"instanceId\":\"" + id(instance) + "\",\"hostName\":\"" + host
+				+ "\",\"app\":\"" + app(instance) + "\",\"ipAddr\":\"" + host
+				+ "\",\"status\":\"UP\",\"port\":{\"$\":8080,\"@enabled\":\"true\"},"
+				+ "\"securePort\":{\"$\":443,\"@enabled\":\"false\"},\"vipAddress\":\"" + app(instance).toLowerCase()
+				+ "\",\"dataCenterInfo\":{\"@class\":\"com.netflix.appinfo.InstanceInfo$DefaultDataCenterInfo\","
+				+ "\"name\":\"MyOwn\"},\"leaseInfo\":{\"renewalIntervalInSecs\":" + HEARTBEAT_SECONDS
+				+ ",\"durationInSecs\":" + HEARTBEAT_SECONDS * 3 + "},\"metadata\":{\"version\":\"1.0.0\"}}}";
+		HttpPost post = new HttpPost(url("/eureka/apps/" + app(instance)));
+		post.setEntity(new StringEntity(body, ContentType.APPLICATION_JSON));
+		call(register, post);
+	}
+
+	// The status code, 0 when there was no answer
+	private int call(Operation operation, HttpUriRequest request) {
+		request.setHeader("Accept", "application/json");
+		long start = System.nanoTime();
+		try {
+			HttpResponse response = http.execute(request);
+			byte[] body = response.getEntity() != null ? EntityUtils.toByteArray(response.getEntity()) : new byte[0];
+			int status = response.getStatusLine().getStatusCode();
+			operation.record(System.nanoTime() - start, status, body.length);
+			return status;
+		} catch (IOException e) {
+			operation.record(System.nanoTime() - start, 0, 0);
+			return 0;
+		}
+	}
+
+	private String url(String path) {
+		return "http://localhost:" + port + path;
+	}
+
+	private static String app(int instance) {
+		return "BENCH-APP-" + instance % APPS;
+	}
+
+	private static String id(int instance) {
+		return "bench-instance-" + instance;
+	}
+
+	private static long random(long seconds) {
+		return ThreadLocalRandom.current().nextLong(seconds * 1000);
+	}
+
+	private static double round(double value) {
+		return Math.round(value * 100) / 100.0;
+	}
+
+	private static void print(Map<String, Object> result) {
+		System.out.printf("%nEureka server with %d instances (%d apps), %d clients, for %ds after a %ds warmup%n",
+				INSTANCES, APPS, CLIENTS, DURATION_SECONDS, WARMUP_SECONDS);
+		System.out.printf("All instances registered in %.2fs%n%n", result.get("registrationSeconds"));
+		System.out.printf("%-12s %10s %8s %8s %9s %9s %9s %9s %10s%n", "", "requests", "errors", "per s", "p50 ms",
+				"p90 ms", "p99 ms", "max ms", "avg bytes");
+		result.values().stream().filter(value -> value instanceof Summary).map(Summary.class::cast)
+				.forEach(summary -> System.out.printf("%-12s %10d %8d %8.1f %9.2f %9.2f %9.2f %9.2f %10d%n",
+						summary.get("name"), summary.get("requests"), summary.get("errors"), summary.get("perSecond"),
+						summary.get("p50Ms"), summary.get("p90Ms"), summary.get("p99Ms"), summary.get("maxMs"),
+						summary.get("avgBytes")));
+		System.out.printf("%nProcess CPU avg %.0f%% max %.0f%% of %d cores, heap max %dMB, after GC %dMB, "
+				+ "GC %d collections %dms%n", result.get("cpuAvgPercent"), result.get("cpuMaxPercent"),
+				result.get("cores"), result.get("heapMaxUsedMb"), result.get("heapAfterGcMb"), result.get("gcCount"),
+				result.get("gcTimeMs"));
+	}
+
+	/**
+	 * Latencies and errors of one kind of request
+	 */
+	private static class Operation {
+
+		private final String name;
+		// microseconds, up to a minute with 3 significant digits
+		private final Histogram histogram = new ConcurrentHistogram(60_000_000L, 3);
+		private final AtomicLong errors = new AtomicLong();
+		private final AtomicLong bytes = new AtomicLong();
+
+		Operation(String name) {
+			this.name = name;
+		}
+
+		void record(long nanos, int status, int size) {
+			histogram.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(nanos), 60_000_000L));
+			bytes.addAndGet(size);
+			// 404 on a heartbeat is part of the protocol (the instance registers again)
+			if (status == 0 || status >= 500 || (status >= 400 && status != 404)) {
+				errors.incrementAndGet();
+			}
+		}
+
+		void reset() {
+			histogram.reset();
+			errors.set(0);
+			bytes.set(0);
+		}
+
+		Summary summary(double seconds) {
+			long count = histogram.getTotalCount();
+			Summary summary = new Summary();
+			summary.put("name", name);
+			summary.put("requests", count);
+			summary.put("errors", errors.get());
+			summary.put("perSecond", round(count / seconds));
+			summary.put("p50Ms", millis(histogram.getValueAtPercentile(50)));
+			summary.put("p90Ms", millis(histogram.getValueAtPercentile(90)));
+			summary.put("p99Ms", millis(histogram.getValueAtPercentile(99)));
+			summary.put("maxMs", millis(histogram.getMaxValue()));
+			summary.put("avgBytes", count > 0 ? bytes.get() / count : 0);
+			return summary;
+		}
+
+		private static double millis(long micros) {
+			return round(micros / 1000.0);
+		}
+	}
+
+	private static class Summary extends LinkedHashMap<String, Object> {
+
+		private static final long serialVersionUID = 1L;
+	}
+
+	/**
+	 * Process CPU and heap, sampled every second while the fleet runs
+	 */
+	private static class ResourceSampler {
+
+		private final com.sun.management.OperatingSystemMXBean os = (com.sun.management.OperatingSystemMXBean) ManagementFactory
+				.getOperatingSystemMXBean();
+		private final List<Double> cpu = new ArrayList<>();
+		private final ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+		private long heapMax;
+		private long gcCount;
+		private long gcTime;
+
+		void start() {
+			gcCount = -gcCount();
+			gcTime = -gcTime();
+			sampler.scheduleAtFixedRate(() -> {
+				synchronized (this) {
+					double load = os.getProcessCpuLoad();
+					if (load >= 0) {
+						cpu.add(load);
+					}
+					heapMax = Math.max(heapMax, ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed());
+				}
+			}, 1, 1, TimeUnit.SECONDS);
+		}
+
+		void stop() throws InterruptedException {
+			sampler.shutdownNow();
+			sampler.awaitTermination(5, TimeUnit.SECONDS);
+			gcCount += gcCount();
+			gcTime += gcTime();
+		}
+
+		synchronized Map<String, Object> summary() {
+			// What is left once the garbage is gone: mostly the registry and its response caches
+			System.gc();
+			long heapAfterGc = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+			int cores = Runtime.getRuntime().availableProcessors();
+			Map<String, Object> summary = new LinkedHashMap<>();
+			summary.put("cores", cores);
+			summary.put("cpuAvgPercent", round(cpu.stream().mapToDouble(Double::doubleValue).average().orElse(0) * 100));
+			summary.put("cpuMaxPercent", round(cpu.stream().mapToDouble(Double::doubleValue).max().orElse(0) * 100));
+			summary.put("heapMaxUsedMb", heapMax >> 20);
+			summary.put("heapAfterGcMb", heapAfterGc >> 20);
+			summary.put("gcCount", gcCount);
+			summary.put("gcTimeMs", gcTime);
+			return summary;
+		}
+
+		private static long gcCount() {
+			return ManagementFactory.getGarbageCollectorMXBeans().stream()
+					.mapToLong(GarbageCollectorMXBean::getCollectionCount).sum();
+		}
+
+		private static long gcTime() {
+			return ManagementFactory.getGarbageCollectorMXBeans().stream()
+					.mapToLong(GarbageCollectorMXBean::getCollectionTime).sum();
+		}
+	}
+
+}
@@ -1,14 +1,81 @@
 package com.revature.gatewayserver;
 
+import static org.springframework.cloud.gateway.support.RouteMetadataUtils.CONNECT_TIMEOUT_ATTR;
+import static org.springframework.cloud.gateway.support.RouteMetadataUtils.RESPONSE_TIMEOUT_ATTR;
+
 import java.util.Date;
+import java.util.List;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cloud.circuitbreaker.resilience4j.ReactiveResilience4JCircuitBreakerFactory;
+import org.springframework.cloud.circuitbreaker.resilience4j.Resilience4JConfigBuilder;
+import org.springframework.cloud.client.circuitbreaker.Customizer;
+import org.springframework.cloud.client.loadbalancer.LoadBalanced;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.SpringCloudCircuitBreakerFilterFactory;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
 import org.springframework.cloud.gateway.route.RouteLocator;
 import org.springframework.cloud.gateway.route.builder.RouteLocatorBuilder;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.cloud.sleuth.autoconfig.zipkin2.ZipkinAutoConfiguration;
+import org.springframework.cloud.sleuth.instrument.web.HttpServerSampler;
+import org.springframework.cloud.sleuth.zipkin2.ZipkinProperties;
 import org.springframework.context.annotation.Bean;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.revature.gatewayserver.canary.CanaryLoadBalancerConfiguration;
+import com.revature.gatewayserver.canary.CanaryRegistry;
+import com.revature.gatewayserver.composition.CustomerDetailsComposer;
+import com.revature.gatewayserver.config.CanaryProperties;
+import com.revature.gatewayserver.config.CompositionProperties;
+import com.revature.gatewayserver.config.JwtProperties;
+import com.revature.gatewayserver.config.ResilienceProperties;
+import com.revature.gatewayserver.config.ShadowProperties;
+import com.revature.gatewayserver.config.SpanReporterProperties;
+import com.revature.gatewayserver.config.TraceSamplingProperties;
+import com.revature.gatewayserver.config.UpstreamPoolProperties;
+import com.revature.gatewayserver.config.ZoneAffinityProperties;
+import com.revature.gatewayserver.filters.BudgetedRetryFilter;
+import com.revature.gatewayserver.filters.CustomerDetailsCompositionFilter;
+import com.revature.gatewayserver.filters.PooledNettyRoutingFilter;
+import com.revature.gatewayserver.jwt.JwksKeyCache;
+import com.revature.gatewayserver.jwt.JwtVerifier;
+import com.revature.gatewayserver.registry.InstanceListLoadBalancerConfiguration;
+import com.revature.gatewayserver.resilience.FallbackResponseCache;
+import com.revature.gatewayserver.shadow.ShadowTrafficMirror;
+import com.revature.gatewayserver.tracing.EndpointRateLimitedSampler;
+import com.revature.gatewayserver.tracing.SpanReporters;
+import com.revature.gatewayserver.tracing.TailSamplingSpanHandler;
+import com.revature.gatewayserver.upstream.UpstreamHttpClients;
+import com.revature.gatewayserver.zone.ZoneAffinity;
+
+import brave.http.HttpRequest;
+import brave.sampler.SamplerFunction;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.netty.http.client.HttpClient;
+import zipkin2.Span;
+import zipkin2.reporter.Reporter;
+import zipkin2.reporter.ReporterMetrics;
+import zipkin2.reporter.Sender;
+import zipkin2.reporter.brave.ZipkinSpanHandler;
 
 @SpringBootApplication
+// Every lb:// service is balanced by version, so a canary can get a share of the traffic,
+// sees the registry changes pushed by the Eureka server right away, and prefers instances
+// of the gateway's own zone
+@LoadBalancerClients(defaultConfiguration = { CanaryLoadBalancerConfiguration.class,
+		InstanceListLoadBalancerConfiguration.class })
 public class GatewayserverApplication {
 
 	public static void main(String[] args) {
@@ -24,25 +91,191 @@ public class GatewayserverApplication {
 	 * add a cutom header, and send it towards the appropriate service.
 	 */
 	@Bean
-	public RouteLocator myRoutes(RouteLocatorBuilder builder) {
-		return builder.routes()
+	public RouteLocator myRoutes(RouteLocatorBuilder builder, CompositionProperties compositionProperties,
+			CustomerDetailsCompositionFilter compositionFilter, ResilienceProperties resilience,
+			BudgetedRetryFilter retryFilter, SpringCloudCircuitBreakerFilterFactory circuitBreakerFactory) {
+		RouteLocatorBuilder.Builder routes = builder.routes();
+		if (compositionProperties.isEnabled()) {
+			// Customer details are composed right here in the gateway (see CustomerDetailsCompositionFilter).
+			// order(-1) makes sure this route wins over the more general "/bank/accounts/**" below,
+			// and the uri is never called because the filter writes the response itself
+			routes.route("customerDetails", p -> p.order(-1).path("/bank/accounts/myCustomerDetails")
+					.and().method(HttpMethod.POST)
+					.filters(f -> f.filter(compositionFilter))
+					.uri("no://op"));
+		}
+		return routes
+				// Each route gets an id so that per-route settings and metrics can refer to it
 				// We're checking to see if a client sent a request to "bank/accounts"
-				.route(p -> p.path("/bank/accounts/**")
+				.route("accounts", p -> p.path("/bank/accounts/**")
 						// If so, we re-write the route by removing the bank part 
 						.filters(f -> f.rewritePath("/bank/accounts/(?<segment>.*)", "/${segment}")
 								// Then we add a custom header including the Date
-								.addResponseHeader("X-Response-Time", new Date().toString()))
+								.addResponseHeader("X-Response-Time", new Date().toString())
+								// A circuit breaker named after the route, see circuitBreaker() below
+								.filter(circuitBreaker(circuitBreakerFactory, "accounts"))
+								// Inside the breaker, failed calls are retried while the retry budget allows
+								.filter(retryFilter))
+						// How long Netty waits for the service to connect and to answer
+						.metadata(RESPONSE_TIMEOUT_ATTR, resilience.getResponseTimeout("accounts").toMillis())
+						.metadata(CONNECT_TIMEOUT_ATTR, resilience.getConnectTimeout("accounts").toMillis())
 						// And send it to the accounts service
 						.uri("lb://ACCOUNTS"))
-				.route(p -> p.path("/bank/loans/**")
+				.route("loans", p -> p.path("/bank/loans/**")
 						.filters(f -> f.rewritePath("/bank/loans/(?<segment>.*)", "/${segment}")
-								.addResponseHeader("X-Response-Time", new Date().toString()))
+								.addResponseHeader("X-Response-Time", new Date().toString())
+								.filter(circuitBreaker(circuitBreakerFactory, "loans"))
+								.filter(retryFilter))
+						.metadata(RESPONSE_TIMEOUT_ATTR, resilience.getResponseTimeout("loans").toMillis())
+						.metadata(CONNECT_TIMEOUT_ATTR, resilience.getConnectTimeout("loans").toMillis())
 						.uri("lb://LOANS"))
-				.route(p -> p.path("/bank/cards/**")
+				.route("cards", p -> p.path("/bank/cards/**")
 						.filters(f -> f.rewritePath("/bank/cards/(?<segment>.*)", "/${segment}")
-								.addResponseHeader("X-Response-Time", new Date().toString()))
+								.addResponseHeader("X-Response-Time", new Date().toString())
+								.filter(circuitBreaker(circuitBreakerFactory, "cards"))
+								.filter(retryFilter))
+						.metadata(RESPONSE_TIMEOUT_ATTR, resilience.getResponseTimeout("cards").toMillis())
+						.metadata(CONNECT_TIMEOUT_ATTR, resilience.getConnectTimeout("cards").toMillis())
 						.uri("lb://CARDS"))
 				.build();
 	}
 
+	/**
+	 * A circuit breaker named after the route (see resilience4j.circuitbreaker.*)
+	 * which forwards to FallbackController when the call fails or the breaker is
+	 * open. Filters added in the routes above run after NettyWriteResponseFilter
+	 * unless they are given an order, so the breaker gets one just outside the
+	 * retry filter. It also records the url the client asked for, which is what
+	 * the fallback cache is keyed on.
+	 */
+	private GatewayFilter circuitBreaker(SpringCloudCircuitBreakerFilterFactory factory, String routeId) {
+		GatewayFilter breaker = factory.apply(new SpringCloudCircuitBreakerFilterFactory.Config().setName(routeId)
+				.setFallbackUri("forward:/fallback/" + routeId));
+		return new OrderedGatewayFilter((exchange, chain) -> {
+			ServerWebExchangeUtils.addOriginalRequestUrl(exchange, exchange.getRequest().getURI());
+			return breaker.filter(exchange, chain);
+		}, BudgetedRetryFilter.ORDER - 1);
+	}
+
+	/**
+	 * A WebClient.Builder that resolves http://<service-id>/ through Eureka, the
+	 * same way "lb://" works for the routes above.
+	 */
+	@Bean
+	@LoadBalanced
+	public WebClient.Builder loadBalancedWebClientBuilder() {
+		return WebClient.builder();
+	}
+
+	@Bean
+	public CustomerDetailsComposer customerDetailsComposer(WebClient.Builder loadBalancedWebClientBuilder,
+			CompositionProperties compositionProperties, ObjectMapper objectMapper) {
+		return new CustomerDetailsComposer(loadBalancedWebClientBuilder.build(), compositionProperties, objectMapper);
+	}
+
+	@Bean
+	public ShadowTrafficMirror shadowTrafficMirror(ShadowProperties shadowProperties,
+			WebClient.Builder loadBalancedWebClientBuilder, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+		return new ShadowTrafficMirror(shadowProperties, loadBalancedWebClientBuilder, objectMapper, meterRegistry);
+	}
+
+	/**
+	 * The signing keys are only loaded when JWT validation is on, and then they
+	 * have to be there: see JwksKeyCache.start()
+	 */
+	@Bean
+	public JwksKeyCache jwksKeyCache(JwtProperties jwtProperties, ResourceLoader resourceLoader) {
+		JwksKeyCache keys = new JwksKeyCache(jwtProperties, resourceLoader);
+		if (jwtProperties.isEnabled()) {
+			keys.start();
+		}
+		return keys;
+	}
+
+	@Bean
+	public JwtVerifier jwtVerifier(JwtProperties jwtProperties, JwksKeyCache jwksKeyCache, MeterRegistry registry) {
+		return new JwtVerifier(jwtProperties, jwksKeyCache, registry);
+	}
+
+	@Bean
+	public FallbackResponseCache fallbackResponseCache(ResilienceProperties resilience) {
+		return new FallbackResponseCache(resilience.getFallbackCache().getMaxEntries(),
+				resilience.getFallbackCache().getTtl());
+	}
+
+	/**
+	 * The breaker's TimeLimiter defaults to 1 second, which would cut a call off
+	 * before its own response timeout and retries had a chance. Each route gets
+	 * a limit that fits its retries instead. The failure thresholds come from
+	 * resilience4j.circuitbreaker.configs.default, and an explicit
+	 * resilience4j.timelimiter.instances.<route> still wins over this.
+	 */
+	@Bean
+	public Customizer<ReactiveResilience4JCircuitBreakerFactory> circuitBreakerCustomizer(
+			ResilienceProperties resilience) {
+		return factory -> factory.configureDefault(id -> new Resilience4JConfigBuilder(id)
+				.circuitBreakerConfig(factory.getCircuitBreakerRegistry().getDefaultConfig())
+				.timeLimiterConfig(TimeLimiterConfig.custom().timeoutDuration(resilience.getTimeLimit(id)).build())
+				.build());
+	}
+
+	@Bean
+	public CanaryRegistry canaryRegistry(CanaryProperties canaryProperties, MeterRegistry meterRegistry) {
+		return new CanaryRegistry(canaryProperties, meterRegistry);
+	}
+
+	/**
+	 * Which requests are traced: a few per endpoint up front, and the failed or
+	 * slow ones once they are done (see TailSamplingSpanHandler). Sleuth finds
+	 * the up front sampler by its bean name. The services follow the gateway's
+	 * up front decision, which travels with the request in the B3 headers.
+	 */
+	@Bean(HttpServerSampler.NAME)
+	public SamplerFunction<HttpRequest> endpointRateLimitedSampler(TraceSamplingProperties traceSamplingProperties) {
+		return new EndpointRateLimitedSampler(traceSamplingProperties);
+	}
+
+	/**
+	 * Takes the place of the reporter Sleuth would create, see SpanReporters
+	 */
+	@Bean(ZipkinAutoConfiguration.REPORTER_BEAN_NAME)
+	public Reporter<Span> zipkinReporter(SpanReporterProperties spanReporterProperties,
+			ZipkinProperties zipkinProperties, @Qualifier(ZipkinAutoConfiguration.SENDER_BEAN_NAME) Sender zipkinSender,
+			ReporterMetrics reporterMetrics, MeterRegistry meterRegistry) {
+		return SpanReporters.bounded(spanReporterProperties, zipkinSender, zipkinProperties.getEncoder(),
+				reporterMetrics, meterRegistry);
+	}
+
+	@Bean
+	public TailSamplingSpanHandler tailSamplingSpanHandler(TraceSamplingProperties traceSamplingProperties,
+			@Qualifier(ZipkinAutoConfiguration.REPORTER_BEAN_NAME) Reporter<Span> zipkinReporter,
+			MeterRegistry meterRegistry) {
+		return new TailSamplingSpanHandler(traceSamplingProperties,
+				ZipkinSpanHandler.newBuilder(zipkinReporter).alwaysReportSpans(true).build(), meterRegistry);
+	}
+
+	@Bean
+	public ZoneAffinity zoneAffinity(ZoneAffinityProperties zoneAffinityProperties, MeterRegistry meterRegistry) {
+		return new ZoneAffinity(zoneAffinityProperties, meterRegistry);
+	}
+
+	@Bean
+	public UpstreamHttpClients upstreamHttpClients(UpstreamPoolProperties upstreamPoolProperties,
+			HttpClientProperties httpClientProperties, List<HttpClientCustomizer> customizers,
+			MeterRegistry meterRegistry) {
+		return new UpstreamHttpClients(upstreamPoolProperties, httpClientProperties, customizers, meterRegistry);
+	}
+
+	/**
+	 * Routes every request through the connection pool of its route instead of
+	 * the one pool the gateway shares between all services.
+	 */
+	@Bean
+	public PooledNettyRoutingFilter pooledNettyRoutingFilter(HttpClient httpClient,
+			ObjectProvider<List<HttpHeadersFilter>> headersFilters, HttpClientProperties httpClientProperties,
+			UpstreamPoolProperties upstreamPoolProperties, UpstreamHttpClients upstreamHttpClients) {
+		return new PooledNettyRoutingFilter(httpClient, headersFilters, httpClientProperties, upstreamPoolProperties,
+				upstreamHttpClients);
+	}
+
 }
@@ -0,0 +1,56 @@
+package com.revature.gatewayserver.body;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Size limits for bodies that are streamed or read in one piece. Whatever
+ * happens, every buffer is either passed on or released: pooled Netty buffers
+ * live in direct memory, and a forgotten one is never given back.
+ */
+public final class BodyLimiter {
+
+	private BodyLimiter() {
+	}
+
+	/**
+	 * Passes the buffers on as they come and fails as soon as more than
+	 * maxBytes went through. The buffer that crossed the limit is released
+	 * here, the ones before it belong to whoever got them already.
+	 */
+	public static Flux<DataBuffer> limit(Publisher<? extends DataBuffer> body, long maxBytes,
+			Supplier<? extends RuntimeException> tooLarge) {
+		return Flux.defer(() -> limit(body, maxBytes, new AtomicLong(), tooLarge));
+	}
+
+	// The same, with a count that several bodies share (the chunks of a streamed response)
+	public static Flux<DataBuffer> limit(Publisher<? extends DataBuffer> body, long maxBytes, AtomicLong total,
+			Supplier<? extends RuntimeException> tooLarge) {
+		return Flux.from(body).map(buffer -> {
+			if (total.addAndGet(buffer.readableByteCount()) > maxBytes) {
+				DataBufferUtils.release(buffer);
+				throw tooLarge.get();
+			}
+			return (DataBuffer) buffer;
+		});
+	}
+
+	/**
+	 * The whole body in one buffer, but never more than maxBytes of it: the
+	 * buffers collected so far are released and the result is tooLarge instead.
+	 */
+	public static Mono<DataBuffer> join(Publisher<? extends DataBuffer> body, long maxBytes,
+			Supplier<? extends RuntimeException> tooLarge) {
+		int max = maxBytes >= Integer.MAX_VALUE ? -1 : (int) maxBytes;
+		return DataBufferUtils.join(body, max).onErrorMap(DataBufferLimitException.class, e -> tooLarge.get());
+	}
+
+}
@@ -0,0 +1,28 @@
+package com.revature.gatewayserver.body;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * A body went over its route's limit: 413 for a request, 502 for a response
+ * from a service. Being a ResponseStatusException, it becomes that status
+ * when nothing was written to the client yet.
+ */
+public class BodyTooLargeException extends ResponseStatusException {
+
+	private static final long serialVersionUID = 1L;
+
+	public BodyTooLargeException(HttpStatus status, long maxBytes) {
+		super(status, (status == HttpStatus.PAYLOAD_TOO_LARGE ? "Request" : "Response") + " body larger than "
+				+ maxBytes + " bytes");
+	}
+
+	public static BodyTooLargeException request(long maxBytes) {
+		return new BodyTooLargeException(HttpStatus.PAYLOAD_TOO_LARGE, maxBytes);
+	}
+
+	public static BodyTooLargeException response(long maxBytes) {
+		return new BodyTooLargeException(HttpStatus.BAD_GATEWAY, maxBytes);
+	}
+
+}
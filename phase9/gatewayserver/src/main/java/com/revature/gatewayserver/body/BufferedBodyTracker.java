@@ -0,0 +1,94 @@
+package com.revature.gatewayserver.body;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufAllocatorMetricProvider;
+
+/**
+ * How much request body the gateway is holding in memory right now, per
+ * route. A streamed body only passes through, but one that a filter read in
+ * one piece (see FilterUtility.cacheRequestBody) stays in a direct buffer
+ * until the exchange is done, so that is what gets counted.
+ *
+ * Published metrics: gateway.body.buffered (bytes, by route) and
+ * gateway.body.direct.used, the direct memory Netty's allocator has taken
+ * for all buffers together
+ */
+@Component
+public class BufferedBodyTracker {
+
+	public static final String LEASE_ATTR = BufferedBodyTracker.class.getName() + ".lease";
+
+	@Autowired
+	MeterRegistry meterRegistry;
+
+	private final Map<String, AtomicLong> buffered = new ConcurrentHashMap<>();
+
+	@PostConstruct
+	void registerMeters() {
+		if (ByteBufAllocator.DEFAULT instanceof ByteBufAllocatorMetricProvider) {
+			ByteBufAllocatorMetricProvider allocator = (ByteBufAllocatorMetricProvider) ByteBufAllocator.DEFAULT;
+			Gauge.builder("gateway.body.direct.used", allocator, a -> a.metric().usedDirectMemory())
+					.description("Direct memory taken by Netty's buffer allocator").baseUnit("bytes")
+					.register(meterRegistry);
+		}
+	}
+
+	/**
+	 * Starts counting for one exchange, BodySizeLimitFilter closes the lease
+	 * when the exchange is done
+	 */
+	public Lease open(String routeId) {
+		return new Lease(buffered.computeIfAbsent(routeId, id -> {
+			AtomicLong bytes = new AtomicLong();
+			Gauge.builder("gateway.body.buffered", bytes, AtomicLong::get)
+					.description("Request body bytes held in memory").baseUnit("bytes").tag("route", id)
+					.register(meterRegistry);
+			return bytes;
+		}));
+	}
+
+	public long getBuffered(String routeId) {
+		AtomicLong bytes = buffered.get(routeId);
+		return bytes != null ? bytes.get() : 0;
+	}
+
+	// Called by whoever keeps a body in memory, a no-op when limits are off
+	public static void hold(ServerWebExchange exchange, long bytes) {
+		Lease lease = exchange.getAttribute(LEASE_ATTR);
+		if (lease != null) {
+			lease.hold(bytes);
+		}
+	}
+
+	public static class Lease {
+
+		private final AtomicLong route;
+		private final AtomicLong held = new AtomicLong();
+
+		Lease(AtomicLong route) {
+			this.route = route;
+		}
+
+		public void hold(long bytes) {
+			held.addAndGet(bytes);
+			route.addAndGet(bytes);
+		}
+
+		public void close() {
+			route.addAndGet(-held.getAndSet(0));
+		}
+	}
+
+}
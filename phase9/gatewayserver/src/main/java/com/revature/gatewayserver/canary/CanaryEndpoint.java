@@ -0,0 +1,56 @@
+package com.revature.gatewayserver.canary;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * /actuator/canary shows the canary of every service with the latency of each
+ * version side by side, /actuator/canary/{service} just one of them.
+ *
+ * The weight is changed at runtime with a POST, for example:
+ * curl -X POST localhost:8072/actuator/canary/accounts -H "Content-Type: application/json" -d '{"version":"1.1.0","weight":10}'
+ */
+@Component
+@Endpoint(id = "canary")
+public class CanaryEndpoint {
+
+	@Autowired
+	CanaryRegistry canaryRegistry;
+
+	@ReadOperation
+	public Map<String, Object> canaries() {
+		Map<String, Object> canaries = new LinkedHashMap<>();
+		canaryRegistry.getCanaries().keySet()
+				.forEach(serviceId -> canaries.put(serviceId, canaryRegistry.describe(serviceId)));
+		return canaries;
+	}
+
+	@ReadOperation
+	public Map<String, Object> canary(@Selector String service) {
+		return canaryRegistry.describe(service);
+	}
+
+	/**
+	 * @param version - the version to send traffic to, may be left out to only change the weight
+	 * @param weight  - percentage of the requests the canary gets, 0 takes it out
+	 */
+	@WriteOperation
+	public Map<String, Object> setWeight(@Selector String service, @Nullable String version, int weight) {
+		try {
+			canaryRegistry.setWeight(service, version, weight);
+		} catch (IllegalArgumentException e) {
+			throw new InvalidEndpointRequestException(e.getMessage(), e.getMessage());
+		}
+		return canaryRegistry.describe(service);
+	}
+
+}
@@ -0,0 +1,29 @@
+package com.revature.gatewayserver.canary;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+import com.revature.gatewayserver.config.CanaryProperties;
+
+/**
+ * Spring Cloud LoadBalancer creates a small application context per service
+ * and registers this class in each of them (see @LoadBalancerClients on
+ * GatewayserverApplication). It is deliberately not a @Configuration, so that
+ * component scanning doesn't put the load balancer in the main context too.
+ */
+public class CanaryLoadBalancerConfiguration {
+
+	@Bean
+	public ReactorLoadBalancer<ServiceInstance> versionWeightedLoadBalancer(Environment environment,
+			LoadBalancerClientFactory clientFactory, CanaryRegistry canaryRegistry, CanaryProperties properties) {
+		String serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+		return new VersionWeightedLoadBalancer(
+				clientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class), serviceId, canaryRegistry,
+				properties.getMetadataKey());
+	}
+
+}
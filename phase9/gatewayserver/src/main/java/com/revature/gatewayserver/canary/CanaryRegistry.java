@@ -0,0 +1,236 @@
+package com.revature.gatewayserver.canary;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.revature.gatewayserver.config.CanaryProperties;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+
+/**
+ * The canary of every service: which version it is, how much traffic it gets
+ * and how it performs compared to the stable instances.
+ *
+ * Every response routed through a load balanced route is recorded in
+ * gateway.canary.requests, tagged with service, version, role (canary or
+ * stable) and outcome, so the latency of the versions can be put side by side.
+ * Every check-interval the p99 of the canary is compared with the p99 of the
+ * stable version, and when it is more than max-p99-ratio times slower its
+ * weight is set back to 0 (counted in gateway.canary.rollbacks).
+ */
+public class CanaryRegistry {
+
+	private static final Logger logger = LoggerFactory.getLogger(CanaryRegistry.class);
+
+	public static final String CANARY = "canary";
+	public static final String STABLE = "stable";
+	public static final String UNKNOWN_VERSION = "unknown";
+
+	private final CanaryProperties properties;
+	private final MeterRegistry meterRegistry;
+	private final LongSupplier clock;
+	private final Map<String, Canary> canaries = new ConcurrentHashMap<>();
+	private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+	public CanaryRegistry(CanaryProperties properties, MeterRegistry meterRegistry) {
+		this(properties, meterRegistry, System::currentTimeMillis);
+	}
+
+	CanaryRegistry(CanaryProperties properties, MeterRegistry meterRegistry, LongSupplier clock) {
+		this.properties = properties;
+		this.meterRegistry = meterRegistry;
+		this.clock = clock;
+		properties.getServices().forEach((serviceId, service) -> {
+			if (service.getVersion() != null) {
+				setWeight(serviceId, service.getVersion(), service.getWeight());
+			}
+		});
+	}
+
+	// null when the service has no canary or canaries are switched off
+	public Canary get(String serviceId) {
+		return properties.isEnabled() ? canaries.get(normalize(serviceId)) : null;
+	}
+
+	public Map<String, Canary> getCanaries() {
+		return canaries;
+	}
+
+	/**
+	 * Starts a canary or changes its weight. A rolled back canary starts over:
+	 * its samples so far no longer count towards the next comparison.
+	 *
+	 * @param version - null keeps the version the canary already has
+	 */
+	public Canary setWeight(String serviceId, String version, int weight) {
+		if (weight < 0 || weight > 100) {
+			throw new IllegalArgumentException("weight must be between 0 and 100, was " + weight);
+		}
+		String id = normalize(serviceId);
+		Canary current = canaries.get(id);
+		String newVersion = version != null ? version : current != null ? current.version : null;
+		if (newVersion == null) {
+			throw new IllegalArgumentException("No canary version known for " + serviceId);
+		}
+		Canary canary = current != null && newVersion.equals(current.version) ? current : new Canary(id, newVersion);
+		synchronized (canary) {
+			canary.weight = weight;
+			canary.rollbackReason = null;
+			canary.baseline = timer(id, newVersion, CANARY, "success").count();
+		}
+		canaries.put(id, canary);
+		logger.info("Canary {} of {} now gets {}% of the traffic", newVersion, id, weight);
+		return canary;
+	}
+
+	/**
+	 * @param version - the version the chosen instance registered with, if any
+	 */
+	public void record(String serviceId, String version, boolean success, long nanos) {
+		String id = normalize(serviceId);
+		Canary canary = canaries.get(id);
+		String role = canary != null && canary.version.equals(version) ? CANARY : STABLE;
+		timer(id, version != null ? version : UNKNOWN_VERSION, role, success ? "success" : "error").record(nanos,
+				TimeUnit.NANOSECONDS);
+		if (canary != null) {
+			long now = clock.getAsLong();
+			long last = canary.lastCheck.get();
+			// only one request per interval pays for the comparison
+			if (now - last >= properties.getCheckInterval().toMillis() && canary.lastCheck.compareAndSet(last, now)) {
+				check(canary);
+			}
+		}
+	}
+
+	/**
+	 * Compares the p99 of the canary with the p99 of the busiest stable version
+	 * and rolls the canary back if it is too slow.
+	 *
+	 * @return true if the canary was rolled back
+	 */
+	public boolean check(Canary canary) {
+		synchronized (canary) {
+			if (canary.weight == 0) {
+				return false;
+			}
+			Timer canaryTimer = timer(canary.serviceId, canary.version, CANARY, "success");
+			if (canaryTimer.count() - canary.baseline < properties.getMinSamples()) {
+				return false;
+			}
+			double canaryP99 = p99(canaryTimer);
+			double stableP99 = stableP99(canary.serviceId);
+			if (stableP99 <= 0 || canaryP99 <= stableP99 * properties.getMaxP99Ratio()) {
+				return false;
+			}
+			canary.rollbackReason = String.format(Locale.ROOT, "p99 %.1fms against %.1fms for the stable version",
+					canaryP99, stableP99);
+			canary.weight = 0;
+		}
+		logger.warn("Rolled back canary {} of {}: {}", canary.version, canary.serviceId, canary.rollbackReason);
+		meterRegistry.counter("gateway.canary.rollbacks", "service", canary.serviceId, "version", canary.version)
+				.increment();
+		return true;
+	}
+
+	// What the actuator endpoint shows for a service
+	public Map<String, Object> describe(String serviceId) {
+		String id = normalize(serviceId);
+		Map<String, Object> description = new LinkedHashMap<>();
+		Canary canary = canaries.get(id);
+		if (canary != null) {
+			description.put("version", canary.version);
+			description.put("weight", canary.weight);
+			description.put("rolledBack", canary.rollbackReason);
+		}
+		Map<String, Object> versions = new LinkedHashMap<>();
+		timers.values().stream().filter(timer -> id.equals(timer.getId().getTag("service"))).forEach(timer -> {
+			String key = timer.getId().getTag("version") + " (" + timer.getId().getTag("role") + ", "
+					+ timer.getId().getTag("outcome") + ")";
+			Map<String, Object> stats = new LinkedHashMap<>();
+			stats.put("count", timer.count());
+			stats.put("meanMs", timer.mean(TimeUnit.MILLISECONDS));
+			stats.put("p99Ms", p99(timer));
+			versions.put(key, stats);
+		});
+		description.put("versions", versions);
+		return description;
+	}
+
+	private double stableP99(String serviceId) {
+		Timer busiest = null;
+		for (Timer timer : timers.values()) {
+			if (serviceId.equals(timer.getId().getTag("service")) && STABLE.equals(timer.getId().getTag("role"))
+					&& "success".equals(timer.getId().getTag("outcome"))
+					&& (busiest == null || timer.count() > busiest.count())) {
+				busiest = timer;
+			}
+		}
+		return busiest != null ? p99(busiest) : 0;
+	}
+
+	private double p99(Timer timer) {
+		for (ValueAtPercentile percentile : timer.takeSnapshot().percentileValues()) {
+			if (percentile.percentile() == 0.99) {
+				return percentile.value(TimeUnit.MILLISECONDS);
+			}
+		}
+		return 0;
+	}
+
+	private Timer timer(String serviceId, String version, String role, String outcome) {
+		return timers.computeIfAbsent(serviceId + '|' + version + '|' + role + '|' + outcome,
+				key -> Timer.builder("gateway.canary.requests")
+						.description("Responses of each version of a service, canary and stable side by side")
+						.tags("service", serviceId, "version", version, "role", role, "outcome", outcome)
+						.publishPercentiles(0.99).publishPercentileHistogram()
+						.distributionStatisticExpiry(properties.getWindow()).register(meterRegistry));
+	}
+
+	// Eureka hands out upper case service ids, the properties are usually written in lower case
+	private static String normalize(String serviceId) {
+		return serviceId.toLowerCase(Locale.ROOT);
+	}
+
+	public static class Canary {
+
+		private final String serviceId;
+		private final String version;
+		private volatile int weight;
+		private volatile String rollbackReason;
+		private long baseline;
+		private final AtomicLong lastCheck = new AtomicLong();
+
+		Canary(String serviceId, String version) {
+			this.serviceId = serviceId;
+			this.version = version;
+		}
+
+		public String getServiceId() {
+			return serviceId;
+		}
+
+		public String getVersion() {
+			return version;
+		}
+
+		public int getWeight() {
+			return weight;
+		}
+
+		// null unless the canary was rolled back
+		public String getRollbackReason() {
+			return rollbackReason;
+		}
+	}
+
+}
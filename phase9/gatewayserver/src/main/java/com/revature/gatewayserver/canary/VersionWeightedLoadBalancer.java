@@ -0,0 +1,78 @@
+package com.revature.gatewayserver.canary;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Round robin, except that a service with a canary is split in two groups by
+ * the version in the instances' Eureka metadata: "weight" percent of the
+ * requests go round robin over the canary instances, the rest over all other
+ * (stable) instances. If one of the groups has no instances up, the other one
+ * takes all the traffic.
+ */
+public class VersionWeightedLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+	private final ObjectProvider<ServiceInstanceListSupplier> suppliers;
+	private final String serviceId;
+	private final CanaryRegistry canaries;
+	private final String metadataKey;
+	private final AtomicInteger position = new AtomicInteger(ThreadLocalRandom.current().nextInt(1000));
+
+	public VersionWeightedLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> suppliers, String serviceId,
+			CanaryRegistry canaries, String metadataKey) {
+		this.suppliers = suppliers;
+		this.serviceId = serviceId;
+		this.canaries = canaries;
+		this.metadataKey = metadataKey;
+	}
+
+	@Override
+	public Mono<Response<ServiceInstance>> choose(Request request) {
+		ServiceInstanceListSupplier supplier = suppliers.getIfAvailable(NoopServiceInstanceListSupplier::new);
+		return supplier.get(request).next().map(this::choose);
+	}
+
+	Response<ServiceInstance> choose(List<ServiceInstance> instances) {
+		CanaryRegistry.Canary canary = canaries.get(serviceId);
+		if (canary == null) {
+			return roundRobin(instances);
+		}
+		List<ServiceInstance> canaryInstances = new ArrayList<>();
+		List<ServiceInstance> stableInstances = new ArrayList<>();
+		for (ServiceInstance instance : instances) {
+			if (canary.getVersion().equals(instance.getMetadata().get(metadataKey))) {
+				canaryInstances.add(instance);
+			} else {
+				stableInstances.add(instance);
+			}
+		}
+		if (canaryInstances.isEmpty() || stableInstances.isEmpty()) {
+			return roundRobin(instances);
+		}
+		boolean toCanary = ThreadLocalRandom.current().nextInt(100) < canary.getWeight();
+		return roundRobin(toCanary ? canaryInstances : stableInstances);
+	}
+
+	private Response<ServiceInstance> roundRobin(List<ServiceInstance> instances) {
+		if (instances.isEmpty()) {
+			return new EmptyResponse();
+		}
+		int pos = position.incrementAndGet() & Integer.MAX_VALUE;
+		return new DefaultResponse(instances.get(pos % instances.size()));
+	}
+
+}
@@ -0,0 +1,116 @@
+package com.revature.gatewayserver.composition;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.revature.gatewayserver.config.CompositionProperties;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Builds the same JSON that accounts returns from /myCustomerDetails, but
+ * calls accounts, loans and cards at the same time instead of one after the
+ * other. Every call (leg) has its own timeout, and a leg that fails or times
+ * out is left as null so the client still gets whatever we could collect.
+ */
+public class CustomerDetailsComposer {
+
+	private static final Logger logger = LoggerFactory.getLogger(CustomerDetailsComposer.class);
+
+	private final WebClient webClient;
+	private final CompositionProperties properties;
+	private final ObjectMapper objectMapper;
+
+	public CustomerDetailsComposer(WebClient webClient, CompositionProperties properties, ObjectMapper objectMapper) {
+		this.webClient = webClient;
+		this.properties = properties;
+		this.objectMapper = objectMapper;
+	}
+
+	/**
+	 * @param headers  - sent with every call: the correlation id, so loans and cards
+	 *                 can log the same trace id, and the JWT claim headers
+	 * @param customer - the raw request body, e.g. {"customerId": 1}
+	 */
+	public Mono<Result> compose(HttpHeaders headers, byte[] customer) {
+		Mono<JsonNode> accounts = leg("accounts", properties.getAccounts(), headers, customer);
+		Mono<JsonNode> loans = leg("loans", properties.getLoans(), headers, customer);
+		Mono<JsonNode> cards = leg("cards", properties.getCards(), headers, customer);
+
+		// zip subscribes to all three at once, so the total time is the slowest leg
+		return Mono.zip(accounts, loans, cards).map(legs -> {
+			Result result = new Result(objectMapper.createObjectNode());
+			result.put("accounts", legs.getT1());
+			result.put("loans", legs.getT2());
+			result.put("cards", legs.getT3());
+			return result;
+		});
+	}
+
+	private Mono<JsonNode> leg(String name, CompositionProperties.Leg leg, HttpHeaders headers, byte[] customer) {
+		return webClient.post().uri(leg.getUri())
+				.contentType(MediaType.APPLICATION_JSON)
+				.headers(h -> h.addAll(headers))
+				.bodyValue(customer)
+				.retrieve()
+				.bodyToMono(JsonNode.class)
+				// an empty body (accounts returns nothing for an unknown customer) is valid
+				.defaultIfEmpty(NullNode.getInstance())
+				.timeout(leg.getTimeout())
+				.onErrorResume(e -> {
+					logger.debug("{} leg failed for customer details: {}", name, e.toString());
+					// MissingNode never comes out of a JSON body, so it marks a failed leg
+					return Mono.just(MissingNode.getInstance());
+				});
+	}
+
+	/**
+	 * The composed CustomerDetails JSON plus the names of the legs that failed
+	 */
+	public static class Result {
+
+		private final ObjectNode details;
+		private final List<String> failedLegs = new ArrayList<>();
+
+		Result(ObjectNode details) {
+			this.details = details;
+		}
+
+		void put(String name, JsonNode value) {
+			if (value.isMissingNode()) {
+				failedLegs.add(name);
+				details.putNull(name);
+			} else {
+				details.set(name, value);
+			}
+		}
+
+		public ObjectNode getDetails() {
+			return details;
+		}
+
+		public List<String> getFailedLegs() {
+			return failedLegs;
+		}
+
+		public boolean isPartial() {
+			return !failedLegs.isEmpty();
+		}
+
+		public boolean isEmpty() {
+			return failedLegs.size() == 3;
+		}
+	}
+
+}
@@ -0,0 +1,75 @@
+package com.revature.gatewayserver.compression;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The response encodings the gateway can produce, and the Accept-Encoding
+ * negotiation that picks one of them.
+ */
+public enum ContentCoding {
+
+	GZIP("gzip"), DEFLATE("deflate");
+
+	private final String token;
+
+	ContentCoding(String token) {
+		this.token = token;
+	}
+
+	public String getToken() {
+		return token;
+	}
+
+	/**
+	 * Picks the coding with the highest q-value the client accepts, preferring
+	 * gzip on a tie. For example "deflate, gzip;q=0.5" gives DEFLATE, while
+	 * "gzip;q=0, *" gives DEFLATE as well because gzip was explicitly refused.
+	 *
+	 * @return null if the client accepts neither
+	 */
+	public static ContentCoding negotiate(List<String> acceptEncoding) {
+		if (acceptEncoding == null || acceptEncoding.isEmpty()) {
+			return null;
+		}
+		double gzip = -1;
+		double deflate = -1;
+		double wildcard = -1;
+		for (String header : acceptEncoding) {
+			for (String part : header.split(",")) {
+				String[] params = part.split(";");
+				String coding = params[0].trim().toLowerCase(Locale.ROOT);
+				double q = 1;
+				for (int i = 1; i < params.length; i++) {
+					String param = params[i].trim();
+					if (param.startsWith("q=") || param.startsWith("Q=")) {
+						try {
+							q = Double.parseDouble(param.substring(2).trim());
+						} catch (NumberFormatException e) {
+							q = 0;
+						}
+					}
+				}
+				if (coding.equals("gzip") || coding.equals("x-gzip")) {
+					gzip = Math.max(gzip, q);
+				} else if (coding.equals("deflate")) {
+					deflate = Math.max(deflate, q);
+				} else if (coding.equals("*")) {
+					wildcard = Math.max(wildcard, q);
+				}
+			}
+		}
+		// a coding that isn't listed gets the q-value of "*", if there is one
+		if (gzip < 0) {
+			gzip = wildcard;
+		}
+		if (deflate < 0) {
+			deflate = wildcard;
+		}
+		if (gzip <= 0 && deflate <= 0) {
+			return null;
+		}
+		return gzip >= deflate ? GZIP : DEFLATE;
+	}
+
+}
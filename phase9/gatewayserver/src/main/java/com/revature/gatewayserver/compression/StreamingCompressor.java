@@ -0,0 +1,114 @@
+package com.revature.gatewayserver.compression;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Compresses a body one chunk at a time as it passes through, so the gateway
+ * never has to hold a whole response in memory. Only the Deflater's own window
+ * (32KB) is kept between chunks. For gzip the 10 byte header goes out with the
+ * first chunk and the CRC/size trailer with finish().
+ *
+ * Not thread safe, but a response body is written by one thread at a time.
+ * end() has to be called once the body is done to free the native zlib memory.
+ */
+public class StreamingCompressor {
+
+	private static final byte[] GZIP_HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0 };
+
+	private final ContentCoding coding;
+	private final Deflater deflater;
+	private final CRC32 crc = new CRC32();
+	private final byte[] window = new byte[8192];
+	private boolean headerWritten;
+	private long bytesIn;
+	private long bytesOut;
+	private long nanos;
+
+	public StreamingCompressor(ContentCoding coding, int level) {
+		this.coding = coding;
+		// gzip wraps raw deflate data in its own header, "deflate" means the zlib format
+		this.deflater = new Deflater(level, coding == ContentCoding.GZIP);
+	}
+
+	/**
+	 * @return whatever compressed output is ready, which may be nothing at all
+	 *         for small chunks
+	 */
+	public byte[] compress(byte[] chunk) {
+		long start = System.nanoTime();
+		ByteArrayOutputStream out = new ByteArrayOutputStream(chunk.length / 2 + 16);
+		writeHeader(out);
+		if (coding == ContentCoding.GZIP) {
+			crc.update(chunk, 0, chunk.length);
+		}
+		bytesIn += chunk.length;
+		deflater.setInput(chunk);
+		while (!deflater.needsInput()) {
+			drain(out);
+		}
+		nanos += System.nanoTime() - start;
+		return count(out.toByteArray());
+	}
+
+	// Flushes what is left in the Deflater and, for gzip, adds the trailer
+	public byte[] finish() {
+		long start = System.nanoTime();
+		ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+		writeHeader(out);
+		deflater.finish();
+		while (!deflater.finished()) {
+			drain(out);
+		}
+		if (coding == ContentCoding.GZIP) {
+			writeInt(out, (int) crc.getValue());
+			writeInt(out, (int) bytesIn);
+		}
+		nanos += System.nanoTime() - start;
+		return count(out.toByteArray());
+	}
+
+	public void end() {
+		deflater.end();
+	}
+
+	public long getBytesIn() {
+		return bytesIn;
+	}
+
+	public long getBytesOut() {
+		return bytesOut;
+	}
+
+	// Time spent compressing, which is pure CPU time on the Netty thread
+	public long getNanos() {
+		return nanos;
+	}
+
+	private void drain(ByteArrayOutputStream out) {
+		int count = deflater.deflate(window, 0, window.length);
+		out.write(window, 0, count);
+	}
+
+	private void writeHeader(ByteArrayOutputStream out) {
+		if (coding == ContentCoding.GZIP && !headerWritten) {
+			out.write(GZIP_HEADER, 0, GZIP_HEADER.length);
+		}
+		headerWritten = true;
+	}
+
+	// gzip stores its numbers little endian
+	private static void writeInt(ByteArrayOutputStream out, int value) {
+		out.write(value & 0xff);
+		out.write((value >> 8) & 0xff);
+		out.write((value >> 16) & 0xff);
+		out.write((value >> 24) & 0xff);
+	}
+
+	private byte[] count(byte[] output) {
+		bytesOut += output.length;
+		return output;
+	}
+
+}
@@ -0,0 +1,56 @@
+package com.revature.gatewayserver.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * @ConfigurationProperties reads all properties that begin with
+ * "gatewayserver.body-limits". The sizes apply to every route unless
+ * overridden under "routes.<route-id>", and are written like 10MB or 512KB.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "gatewayserver.body-limits")
+@Getter
+@Setter
+@ToString
+public class BodyLimitProperties {
+
+	private boolean enabled = true;
+	// Bigger request bodies are turned away with 413, whether they are streamed or read by a filter
+	private DataSize maxRequestSize = DataSize.ofMegabytes(10);
+	// Bigger responses from a service end in a 502 (or a cut connection once the response has started)
+	private DataSize maxResponseSize = DataSize.ofMegabytes(50);
+	private Map<String, Route> routes = new HashMap<>();
+
+	public long getMaxRequestSize(String routeId) {
+		Route route = routes.get(routeId);
+		return (route != null && route.getMaxRequestSize() != null ? route.getMaxRequestSize() : maxRequestSize)
+				.toBytes();
+	}
+
+	public long getMaxResponseSize(String routeId) {
+		Route route = routes.get(routeId);
+		return (route != null && route.getMaxResponseSize() != null ? route.getMaxResponseSize() : maxResponseSize)
+				.toBytes();
+	}
+
+	/**
+	 * Per route overrides, anything left null falls back to the top level value
+	 */
+	@Getter
+	@Setter
+	@ToString
+	public static class Route {
+		private DataSize maxRequestSize;
+		private DataSize maxResponseSize;
+	}
+
+}
@@ -0,0 +1,49 @@
+package com.revature.gatewayserver.config;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * @ConfigurationProperties reads all properties that begin with
+ * "gatewayserver.canary"
+ */
+@Configuration
+@ConfigurationProperties(prefix = "gatewayserver.canary")
+@Getter
+@Setter
+@ToString
+public class CanaryProperties {
+
+	private boolean enabled = true;
+	// The Eureka metadata entry that tells the versions of a service apart
+	private String metadataKey = "version";
+	// Roll the canary back when its p99 is this many times the stable p99
+	private double maxP99Ratio = 1.5;
+	// Canary responses needed before its p99 is trusted
+	private int minSamples = 50;
+	// How often the p99s are compared
+	private Duration checkInterval = Duration.ofSeconds(10);
+	// The latency percentiles cover this much recent traffic
+	private Duration window = Duration.ofMinutes(1);
+	// Keyed by service id, e.g. gatewayserver.canary.services.accounts.version=1.1.0
+	private Map<String, Service> services = new HashMap<>();
+
+	@Getter
+	@Setter
+	@ToString
+	public static class Service {
+		// Instances registered with this version are the canary, all others are stable
+		private String version;
+		// Percentage of requests (0-100) sent to the canary
+		private int weight;
+	}
+
+}
@@ -0,0 +1,27 @@
+package com.revature.gatewayserver.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * @ConfigurationProperties reads all properties that begin with
+ * "gatewayserver.client-address"
+ */
+@Configuration
+@ConfigurationProperties(prefix = "gatewayserver.client-address")
+@Getter
+@Setter
+@ToString
+public class ClientAddressProperties {
+
+	// The load balancers and ingresses in front of us (addresses or CIDR ranges like 10.0.0.0/8).
+	// X-Forwarded-For is only read on requests coming from one of them, anyone else could make it up
+	private List<String> trustedProxies = new ArrayList<>();
+}
@@ -0,0 +1,48 @@
+package com.revature.gatewayserver.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * @ConfigurationProperties reads all properties that begin with
+ * "gatewayserver.composition". Each "leg" is one of the downstream calls that
+ * together make up a customer's details.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "gatewayserver.composition")
+@Getter
+@Setter
+@ToString
+public class CompositionProperties {
+
+	private boolean enabled = true;
+
+	// http://<service-id>/... is resolved through Eureka by the @LoadBalanced WebClient
+	private Leg accounts = new Leg("http://accounts/myAccount", Duration.ofSeconds(2));
+	private Leg loans = new Leg("http://loans/myLoans", Duration.ofSeconds(2));
+	private Leg cards = new Leg("http://cards/myCards", Duration.ofSeconds(2));
+
+	@Getter
+	@Setter
+	@ToString
+	public static class Leg {
+
+		private String uri;
+		private Duration timeout;
+
+		public Leg() {
+		}
+
+		public Leg(String uri, Duration timeout) {
+			this.uri = uri;
+			this.timeout = timeout;
+		}
+	}
+
+}
@@ -0,0 +1,33 @@
+package com.revature.gatewayserver.config;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * @ConfigurationProperties reads all properties that begin with
+ * "gatewayserver.compression"
+ */
+@Configuration
+@ConfigurationProperties(prefix = "gatewayserver.compression")
+@Getter
+@Setter
+@ToString
+public class CompressionProperties {
+
+	private boolean enabled = true;
+	// Bodies smaller than this are sent as they are, see CompressionCrossoverBenchmark
+	private DataSize minResponseSize = DataSize.ofBytes(1024);
+	// 1 is fastest, 9 is smallest. 6 is the zlib default
+	private int level = 6;
+	private List<String> mimeTypes = Arrays.asList("application/json", "application/xml", "text/html", "text/plain",
+			"text/css", "application/javascript");
+
+}
@@ -0,0 +1,55 @@
+package com.revature.gatewayserver.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * @ConfigurationProperties reads all properties that begin with
+ * "gatewayserver.concurrency". The top level values apply to every route, and
+ * anything under "routes.<route-id>" overrides them for that route only.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "gatewayserver.concurrency")
+@Getter
+@Setter
+@ToString
+public class ConcurrencyLimitProperties {
+
+	public enum Algorithm {
+		AIMD, GRADIENT
+	}
+
+	private boolean enabled = true;
+	private Algorithm algorithm = Algorithm.GRADIENT;
+	private int initialLimit = 20;
+	private int minLimit = 1;
+	private int maxLimit = 200;
+	// AIMD: how much of the limit we keep after an overload signal
+	private double backoffRatio = 0.9;
+	// Gradient: how much slower than normal a response may be before we back off
+	private double rttTolerance = 1.5;
+	private double smoothing = 0.2;
+	private int longWindow = 600;
+	private Map<String, Route> routes = new HashMap<>();
+
+	/**
+	 * Per route overrides, anything left null falls back to the top level value
+	 */
+	@Getter
+	@Setter
+	@ToString
+	public static class Route {
+		private Algorithm algorithm;
+		private Integer initialLimit;
+		private Integer minLimit;
+		private Integer maxLimit;
+	}
+
+}
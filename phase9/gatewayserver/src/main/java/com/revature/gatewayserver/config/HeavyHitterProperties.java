@@ -0,0 +1,50 @@
+package com.revature.gatewayserver.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * @ConfigurationProperties reads all properties that begin with
+ * "gatewayserver.heavy-hitters"
+ */
+@Configuration
+@ConfigurationProperties(prefix = "gatewayserver.heavy-hitters")
+@Getter
+@Setter
+@ToString
+public class HeavyHitterProperties {
+
+	private boolean enabled = true;
+	// Count-Min Sketch size: the error is about total/width, with probability 1 - 0.5^depth
+	private int width = 2048;
+	private int depth = 4;
+	// How many of the heaviest keys are tracked by name
+	private int topK = 20;
+	// Every window all counts are halved, so the sketch follows the recent traffic
+	private Duration window = Duration.ofMinutes(1);
+	// Where the customer id is taken from: this header, else this field of a JSON body
+	private String customerIdHeader = "X-Customer-Id";
+	private String customerIdField = "customerId";
+	// JSON bodies bigger than this are not searched for the customer id
+	private int maxBodySize = 16 * 1024;
+	private Throttle throttle = new Throttle();
+
+	@Getter
+	@Setter
+	@ToString
+	public static class Throttle {
+		private boolean enabled = false;
+		// A key with more than this share of a route's traffic gets 429 Too Many Requests
+		private double maxShare = 0.25;
+		// Nobody is throttled before the route has seen this many requests in the window
+		private int minRequests = 200;
+		private Duration retryAfter = Duration.ofSeconds(1);
+	}
+
+}
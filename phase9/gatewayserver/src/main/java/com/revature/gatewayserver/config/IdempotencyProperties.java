@@ -0,0 +1,33 @@
+package com.revature.gatewayserver.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * @ConfigurationProperties reads all properties that begin with
+ * "gatewayserver.idempotency"
+ */
+@Configuration
+@ConfigurationProperties(prefix = "gatewayserver.idempotency")
+@Getter
+@Setter
+@ToString
+public class IdempotencyProperties {
+
+	private boolean enabled = true;
+	private String headerName = "Idempotency-Key";
+	// How long a finished response can be replayed
+	private Duration ttl = Duration.ofMinutes(5);
+	private int maxEntries = 10000;
+	// Responses bigger than this are not kept, a retry of them goes to the service again
+	private int maxBodySize = 256 * 1024;
+	// How long a retry waits for the first request to finish before going to the service itself
+	private Duration inflightTimeout = Duration.ofSeconds(30);
+
+}
@@ -0,0 +1,57 @@
+package com.revature.gatewayserver.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * @ConfigurationProperties reads all properties that begin with
+ * "gatewayserver.jwt"
+ */
+@Configuration
+@ConfigurationProperties(prefix = "gatewayserver.jwt")
+@Getter
+@Setter
+@ToString
+public class JwtProperties {
+
+	private boolean enabled = false;
+	// Requests to these paths need a valid "Authorization: Bearer <token>". That includes the
+	// /accounts/**, /loans/** and /cards/** routes the discovery locator publishes
+	private List<String> paths = new ArrayList<>(Collections.singletonList("/**"));
+	// Except for these
+	private List<String> excludedPaths = new ArrayList<>(Arrays.asList("/actuator/**", "/fallback/**"));
+	// Where the signing keys come from: file:, classpath: or http(s): (the identity provider's JWKS endpoint)
+	private String jwksLocation;
+	private Duration jwksRefreshInterval = Duration.ofMinutes(5);
+	// A token signed with a key we don't know yet triggers a reload, but not more often than this
+	private Duration jwksMinReloadInterval = Duration.ofSeconds(30);
+	// Checked only when set
+	private String issuer;
+	private String audience;
+	private Duration clockSkew = Duration.ofSeconds(30);
+	// Tokens already verified are remembered (by digest) until they expire
+	private int cacheMaxEntries = 10000;
+	// Claim -> request header the services receive it in
+	private Map<String, String> claimHeaders = defaultClaimHeaders();
+
+	private static Map<String, String> defaultClaimHeaders() {
+		Map<String, String> headers = new LinkedHashMap<>();
+		headers.put("sub", "X-User-Id");
+		headers.put("customerId", "X-Customer-Id");
+		headers.put("scope", "X-User-Scope");
+		return headers;
+	}
+
+}
@@ -0,0 +1,52 @@
+package com.revature.gatewayserver.config;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * @ConfigurationProperties reads all properties that begin with
+ * "gatewayserver.priority". Requests are sorted into the traffic classes
+ * listed under "classes.<name>", which share the concurrency limit of each
+ * route (see gatewayserver.concurrency) by weight.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "gatewayserver.priority")
+@Getter
+@Setter
+@ToString
+public class PriorityProperties {
+
+	private boolean enabled = true;
+	// A caller can pick its class with this header, unless it is listed under "clients"
+	private String header = "X-Priority";
+	private String defaultClass = "interactive";
+	// Requests that may wait for a free slot, per route and over all classes
+	private int maxQueueSize = 100;
+	private Map<String, TrafficClass> classes = new LinkedHashMap<>();
+	// client address (first X-Forwarded-For entry or the remote address) -> class
+	private Map<String, String> clients = new HashMap<>();
+	// route id -> class, for requests that didn't pick one
+	private Map<String, String> routes = new HashMap<>();
+
+	@Getter
+	@Setter
+	@ToString
+	public static class TrafficClass {
+		// Share of the slots while several classes are waiting, 4 against 1 means 80% / 20%
+		private int weight = 1;
+		// When the queue is full, waiting requests of the lowest priority are turned away first
+		private int priority = 0;
+		// Longer than this in the queue and the request gets a 503 after all
+		private Duration maxQueueTime = Duration.ofMillis(500);
+	}
+
+}
@@ -0,0 +1,23 @@
+package com.revature.gatewayserver.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * @ConfigurationProperties reads all properties that begin with "gatewayserver.registry-cache"
+ */
+@Configuration
+@ConfigurationProperties(prefix = "gatewayserver.registry-cache")
+@Getter
+@Setter
+@ToString
+public class RegistryCacheProperties {
+
+	private boolean enabled = true;
+	// Where the last registry fetched from Eureka is kept
+	private String file;
+}
@@ -0,0 +1,116 @@
+package com.revature.gatewayserver.config;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * @ConfigurationProperties reads all properties that begin with
+ * "gatewayserver.resilience". Timeouts and retries apply to every route unless
+ * overridden under "routes.<route-id>". The circuit breakers themselves are
+ * configured with the usual resilience4j.circuitbreaker.* properties.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "gatewayserver.resilience")
+@Getter
+@Setter
+@ToString
+public class ResilienceProperties {
+
+	private Duration responseTimeout = Duration.ofSeconds(3);
+	private Duration connectTimeout = Duration.ofSeconds(1);
+	// How many times a failed request may be sent again (so 2 means at most 3 attempts)
+	private int retries = 2;
+	// Wait before the first retry, doubled for every retry after that
+	private Duration backoff = Duration.ofMillis(50);
+	// All the bank endpoints are POSTs that only read data, so they are safe to repeat
+	private Set<HttpMethod> retryMethods = new HashSet<>(Arrays.asList(HttpMethod.GET, HttpMethod.POST));
+	// Upstream answers that count as a failure: they are retried and recorded by the breaker
+	private Set<Integer> failureStatuses = new HashSet<>(Arrays.asList(502, 503, 504));
+	private Budget retryBudget = new Budget();
+	private FallbackCache fallbackCache = new FallbackCache();
+	private Map<String, Route> routes = new HashMap<>();
+
+	/**
+	 * Caps retries to a share of the real traffic, so that when a service is
+	 * overloaded the gateway doesn't multiply its load by (retries + 1)
+	 */
+	@Getter
+	@Setter
+	@ToString
+	public static class Budget {
+		// Every request adds this many retry tokens, e.g. 0.2 allows 1 retry for 5 requests
+		private double ratio = 0.2;
+		// Retries that are always allowed, so a quiet route can still retry
+		private int minRetriesPerSecond = 5;
+		// How long a deposited token stays valid
+		private Duration ttl = Duration.ofSeconds(10);
+	}
+
+	/**
+	 * The last good response per request, served by /fallback/<route> while the
+	 * breaker is open
+	 */
+	@Getter
+	@Setter
+	@ToString
+	public static class FallbackCache {
+		private boolean enabled = true;
+		private int maxEntries = 1000;
+		private int maxBodySize = 64 * 1024;
+		private Duration ttl = Duration.ofMinutes(5);
+	}
+
+	/**
+	 * Per route overrides, anything left null falls back to the top level value
+	 */
+	@Getter
+	@Setter
+	@ToString
+	public static class Route {
+		private Duration responseTimeout;
+		private Duration connectTimeout;
+		private Integer retries;
+	}
+
+	public Duration getResponseTimeout(String routeId) {
+		Route route = routes.get(routeId);
+		return route != null && route.getResponseTimeout() != null ? route.getResponseTimeout() : responseTimeout;
+	}
+
+	public Duration getConnectTimeout(String routeId) {
+		Route route = routes.get(routeId);
+		return route != null && route.getConnectTimeout() != null ? route.getConnectTimeout() : connectTimeout;
+	}
+
+	public int getRetries(String routeId) {
+		Route route = routes.get(routeId);
+		return route != null && route.getRetries() != null ? route.getRetries() : retries;
+	}
+
+	/**
+	 * How long the circuit breaker lets a call run: every attempt may use its
+	 * full response timeout, plus the backoff between attempts and a second of
+	 * slack for connecting and load balancing.
+	 */
+	public Duration getTimeLimit(String routeId) {
+		int attempts = getRetries(routeId) + 1;
+		Duration limit = getResponseTimeout(routeId).multipliedBy(attempts);
+		for (int retry = 0; retry < attempts - 1; retry++) {
+			limit = limit.plus(backoff.multipliedBy(1L << retry));
+		}
+		return limit.plusSeconds(1);
+	}
+
+}
@@ -0,0 +1,48 @@
+package com.revature.gatewayserver.config;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * @ConfigurationProperties reads all properties that begin with
+ * "gatewayserver.shadow". Only the routes listed under "routes.<route-id>" are
+ * mirrored.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "gatewayserver.shadow")
+@Getter
+@Setter
+@ToString
+public class ShadowProperties {
+
+	private boolean enabled = true;
+	// Shadow requests in flight at once, anything beyond that is dropped
+	private int maxConcurrent = 20;
+	// Threads that compare the responses
+	private int threads = 2;
+	// Comparisons waiting for a thread before shadow requests are dropped
+	private int queueCapacity = 100;
+	private Duration timeout = Duration.ofSeconds(5);
+	// Bodies bigger than this are not compared
+	private int maxBodySize = 256 * 1024;
+	private Map<String, Route> routes = new HashMap<>();
+
+	@Getter
+	@Setter
+	@ToString
+	public static class Route {
+		// Eureka service id of the build under test, e.g. LOANS-SHADOW
+		private String serviceId;
+		// Share of the requests (0.0 - 1.0) that are mirrored
+		private double fraction = 0.1;
+	}
+
+}
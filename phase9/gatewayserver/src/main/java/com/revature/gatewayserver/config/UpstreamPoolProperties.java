@@ -0,0 +1,56 @@
+package com.revature.gatewayserver.config;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * @ConfigurationProperties reads all properties that begin with
+ * "gatewayserver.upstream". Every route gets its own pool of connections to
+ * its service; the top level values size all of them and "routes.<route-id>"
+ * overrides them for one route.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "gatewayserver.upstream")
+@Getter
+@Setter
+@ToString
+public class UpstreamPoolProperties {
+
+	private boolean enabled = true;
+	// Connections per service instance
+	private int maxConnections = 100;
+	// Requests allowed to wait for a free connection, -1 means no limit
+	private int pendingAcquireMaxCount = 200;
+	private Duration pendingAcquireTimeout = Duration.ofSeconds(2);
+	// Has to stay below Tomcat's keep-alive timeout (20s) or we'd pick connections the service already closed
+	private Duration maxIdleTime = Duration.ofSeconds(15);
+	private Duration maxLifeTime = Duration.ofMinutes(5);
+	private Duration evictionInterval = Duration.ofSeconds(10);
+	// HTTP/2 without TLS (prior knowledge), the service needs server.http2.enabled=true
+	private boolean h2c = false;
+	private Map<String, Route> routes = new HashMap<>();
+
+	/**
+	 * Per route overrides, anything left null falls back to the top level value
+	 */
+	@Getter
+	@Setter
+	@ToString
+	public static class Route {
+		private Integer maxConnections;
+		private Integer pendingAcquireMaxCount;
+		private Duration pendingAcquireTimeout;
+		private Duration maxIdleTime;
+		private Duration maxLifeTime;
+		private Boolean h2c;
+	}
+
+}
@@ -0,0 +1,80 @@
+package com.revature.gatewayserver.controller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.revature.gatewayserver.body.BodyTooLargeException;
+import com.revature.gatewayserver.filters.FilterUtility;
+import com.revature.gatewayserver.resilience.FallbackResponseCache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+/**
+ * The circuit breaker of every route forwards here when the call failed or the
+ * breaker is open. If we have seen a good response for the very same request
+ * recently, that one is served (marked with "X-Fallback: cached" and an Age
+ * header), otherwise the client gets a 503 right away.
+ */
+@RestController
+public class FallbackController {
+
+	private static final Logger logger = LoggerFactory.getLogger(FallbackController.class);
+
+	public static final String FALLBACK_HEADER = "X-Fallback";
+
+	@Autowired
+	FallbackResponseCache fallbackCache;
+
+	@Autowired
+	MeterRegistry meterRegistry;
+
+	@RequestMapping("/fallback/{route}")
+	public Mono<ResponseEntity<byte[]>> fallback(@PathVariable String route, ServerWebExchange exchange) {
+		Throwable cause = exchange.getAttribute(ServerWebExchangeUtils.CIRCUITBREAKER_EXECUTION_EXCEPTION_ATTR);
+		logger.debug("Fallback for route {} because of {}", route, cause != null ? cause.toString() : "an open circuit");
+		if (cause instanceof BodyTooLargeException) {
+			// Not the service's fault, so no cached response either. The error handler turns it into
+			// its 413 / 502, or drops the connection if part of the response was sent already
+			return Mono.error(cause);
+		}
+
+		return requestBody(exchange).map(body -> {
+			FallbackResponseCache.CachedResponse cached = fallbackCache
+					.get(FallbackResponseCache.key(exchange, route, body));
+			if (cached == null) {
+				meterRegistry.counter("gateway.fallback", "route", route, "result", "unavailable").increment();
+				return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(FALLBACK_HEADER, "unavailable")
+						.<byte[]>build();
+			}
+			meterRegistry.counter("gateway.fallback", "route", route, "result", "cached").increment();
+			long age = (System.currentTimeMillis() - cached.getCreated()) / 1000;
+			ResponseEntity.BodyBuilder response = ResponseEntity.status(cached.getStatus())
+					.header(FALLBACK_HEADER, "cached").header("Age", String.valueOf(age));
+			if (cached.getContentType() != null) {
+				response.contentType(cached.getContentType());
+			}
+			return response.body(cached.getBody());
+		});
+	}
+
+	/**
+	 * If the retry filter ran, the body was cached by it. If the breaker was
+	 * already open nobody has read the body yet, so we read it here.
+	 */
+	private Mono<byte[]> requestBody(ServerWebExchange exchange) {
+		if (exchange.getAttribute(ServerWebExchangeUtils.CACHED_REQUEST_BODY_ATTR) != null) {
+			return Mono.just(FilterUtility.getCachedBody(exchange));
+		}
+		return FilterUtility.readBody(exchange);
+	}
+
+}
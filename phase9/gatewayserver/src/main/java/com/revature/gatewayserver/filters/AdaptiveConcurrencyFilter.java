@@ -0,0 +1,199 @@
+package com.revature.gatewayserver.filters;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.revature.gatewayserver.config.ConcurrencyLimitProperties;
+import com.revature.gatewayserver.config.PriorityProperties;
+import com.revature.gatewayserver.limiter.AdaptiveConcurrencyLimiter;
+import com.revature.gatewayserver.limiter.AimdLimit;
+import com.revature.gatewayserver.limiter.ConcurrencyLimit;
+import com.revature.gatewayserver.limiter.GradientLimit;
+import com.revature.gatewayserver.limiter.QueueRejectedException;
+import com.revature.gatewayserver.limiter.WeightedFairScheduler;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * A fixed rate limit can't follow the real capacity of a service: when cards
+ * slows down under GC it still gets the same traffic. This filter gives every
+ * route its own AdaptiveConcurrencyLimiter which learns the limit from the
+ * response times it observes, and answers with a fast 503 once the limit is
+ * reached instead of letting requests pile up on the Netty connections.
+ *
+ * The current limit, in-flight and rejected counts are published per route as
+ * gateway.concurrency.limit / .inflight / .rejected
+ *
+ * With gatewayserver.priority.enabled every request is put in a traffic class
+ * first (by the client it comes from, its X-Priority header or its route), and
+ * a WeightedFairScheduler shares the limit between the classes instead of
+ * rejecting right away. That adds gateway.priority.queue.time, .queued and
+ * .rejected (by reason: queue-full, shed, timeout), per route and class.
+ */
+@Component
+public class AdaptiveConcurrencyFilter implements GlobalFilter, Ordered {
+
+	private static final Logger logger = LoggerFactory.getLogger(AdaptiveConcurrencyFilter.class);
+
+	public static final int ORDER = 10;
+
+	@Autowired
+	ConcurrencyLimitProperties properties;
+
+	@Autowired
+	PriorityProperties priorityProperties;
+
+	@Autowired
+	ClientAddressResolver clientAddressResolver;
+
+	@Autowired
+	MeterRegistry meterRegistry;
+
+	private final Map<String, AdaptiveConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+	private final Map<String, WeightedFairScheduler> schedulers = new ConcurrentHashMap<>();
+
+	@Override
+	public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+		Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+		if (!properties.isEnabled() || route == null) {
+			return chain.filter(exchange);
+		}
+
+		if (priorityProperties.isEnabled()) {
+			return filterByPriority(exchange, chain, route.getId());
+		}
+
+		AdaptiveConcurrencyLimiter limiter = getLimiter(route.getId());
+		int inflight = limiter.tryAcquire();
+		if (inflight < 0) {
+			logger.debug("Concurrency limit of {} reached for route {}, rejecting request", limiter.getLimit(),
+					route.getId());
+			exchange.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+			return exchange.getResponse().setComplete();
+		}
+
+		long start = System.nanoTime();
+		return chain.filter(exchange).doFinally(signal -> {
+			if (signal == SignalType.CANCEL) {
+				limiter.release();
+			} else {
+				HttpStatus status = exchange.getResponse().getStatusCode();
+				boolean dropped = signal == SignalType.ON_ERROR || (status != null && status.is5xxServerError());
+				limiter.release(System.nanoTime() - start, inflight, dropped);
+			}
+		});
+	}
+
+	@Override
+	public int getOrder() {
+		return ORDER;
+	}
+
+	private Mono<Void> filterByPriority(ServerWebExchange exchange, GatewayFilterChain chain, String routeId) {
+		WeightedFairScheduler scheduler = getScheduler(routeId);
+		String trafficClass = scheduler.resolve(classify(exchange, routeId));
+		long queuedAt = System.nanoTime();
+		return scheduler.acquire(trafficClass).flatMap(permit -> {
+			long start = System.nanoTime();
+			meterRegistry.timer("gateway.priority.queue.time", "route", routeId, "class", trafficClass)
+					.record(start - queuedAt, TimeUnit.NANOSECONDS);
+			return chain.filter(exchange).doFinally(signal -> {
+				if (signal == SignalType.CANCEL) {
+					permit.release();
+				} else {
+					HttpStatus status = exchange.getResponse().getStatusCode();
+					boolean dropped = signal == SignalType.ON_ERROR || (status != null && status.is5xxServerError());
+					permit.release(System.nanoTime() - start, dropped);
+				}
+			});
+		}).onErrorResume(QueueRejectedException.class, e -> {
+			logger.debug("No slot for a {} request on route {}: {}", trafficClass, routeId, e.getReason());
+			meterRegistry.counter("gateway.priority.rejected", "route", routeId, "class", trafficClass, "reason",
+					e.getReason()).increment();
+			exchange.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+			return exchange.getResponse().setComplete();
+		});
+	}
+
+	// A known client can't talk its way into another class, everybody else may pick one with the header.
+	// The address is the one ClientAddressResolver trusts, so it can't be claimed through X-Forwarded-For
+	private String classify(ServerWebExchange exchange, String routeId) {
+		String byClient = priorityProperties.getClients()
+				.get(clientAddressResolver.getClientAddress(exchange.getRequest()));
+		if (byClient != null) {
+			return byClient;
+		}
+		String byHeader = exchange.getRequest().getHeaders().getFirst(priorityProperties.getHeader());
+		if (byHeader != null && priorityProperties.getClasses().containsKey(byHeader)) {
+			return byHeader;
+		}
+		return priorityProperties.getRoutes().get(routeId);
+	}
+
+	// Creates the scheduler (and its metrics) the first time a route is used
+	public WeightedFairScheduler getScheduler(String routeId) {
+		return schedulers.computeIfAbsent(routeId, id -> {
+			WeightedFairScheduler scheduler = new WeightedFairScheduler(getLimiter(id), priorityProperties,
+					Schedulers.parallel());
+			for (String trafficClass : scheduler.getClassNames()) {
+				Gauge.builder("gateway.priority.queued", scheduler, s -> s.getQueued(trafficClass))
+						.description("Requests waiting for a slot").tag("route", id).tag("class", trafficClass)
+						.register(meterRegistry);
+			}
+			return scheduler;
+		});
+	}
+
+	// Creates the limiter (and its metrics) the first time a route is used
+	public AdaptiveConcurrencyLimiter getLimiter(String routeId) {
+		return limiters.computeIfAbsent(routeId, id -> {
+			AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(createLimit(id));
+			Gauge.builder("gateway.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+					.description("Current learned concurrency limit").tag("route", id).register(meterRegistry);
+			Gauge.builder("gateway.concurrency.inflight", limiter, AdaptiveConcurrencyLimiter::getInflight)
+					.description("Requests currently in flight").tag("route", id).register(meterRegistry);
+			FunctionCounter.builder("gateway.concurrency.rejected", limiter, AdaptiveConcurrencyLimiter::getRejected)
+					.description("Requests rejected with 503 because the limit was reached").tag("route", id)
+					.register(meterRegistry);
+			return limiter;
+		});
+	}
+
+	private ConcurrencyLimit createLimit(String routeId) {
+		ConcurrencyLimitProperties.Route overrides = properties.getRoutes().get(routeId);
+		if (overrides == null) {
+			overrides = new ConcurrencyLimitProperties.Route();
+		}
+		ConcurrencyLimitProperties.Algorithm algorithm = overrides.getAlgorithm() != null ? overrides.getAlgorithm()
+				: properties.getAlgorithm();
+		int initialLimit = overrides.getInitialLimit() != null ? overrides.getInitialLimit()
+				: properties.getInitialLimit();
+		int minLimit = overrides.getMinLimit() != null ? overrides.getMinLimit() : properties.getMinLimit();
+		int maxLimit = overrides.getMaxLimit() != null ? overrides.getMaxLimit() : properties.getMaxLimit();
+
+		if (algorithm == ConcurrencyLimitProperties.Algorithm.AIMD) {
+			return new AimdLimit(initialLimit, minLimit, maxLimit, properties.getBackoffRatio());
+		}
+		return new GradientLimit(initialLimit, minLimit, maxLimit, properties.getRttTolerance(),
+				properties.getSmoothing(), properties.getLongWindow());
+	}
+
+}
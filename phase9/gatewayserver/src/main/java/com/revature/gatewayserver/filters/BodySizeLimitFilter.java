@@ -0,0 +1,140 @@
+package com.revature.gatewayserver.filters;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.revature.gatewayserver.body.BodyLimiter;
+import com.revature.gatewayserver.body.BodyTooLargeException;
+import com.revature.gatewayserver.body.BufferedBodyTracker;
+import com.revature.gatewayserver.config.BodyLimitProperties;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Request and response bodies stream through the gateway, but never more
+ * than the route's max-request-size / max-response-size of them:
+ *
+ * - a request that announces a bigger Content-Length gets a 413 before a
+ *   single byte of it is read
+ * - a chunked request is counted while it streams and fails with 413 once it
+ *   goes over (BodyTooLargeException, also for filters that read the whole
+ *   body, see FilterUtility.cacheRequestBody)
+ * - a response that announces a bigger Content-Length becomes a 502 and the
+ *   connection to the service is dropped instead of read to the end, a
+ *   chunked one is cut off once it goes over
+ *
+ * Published metrics: gateway.body.rejected (by route and direction), and the
+ * gauges of BufferedBodyTracker
+ */
+@Component
+public class BodySizeLimitFilter implements GlobalFilter, Ordered {
+
+	public static final String MAX_REQUEST_SIZE_ATTR = BodySizeLimitFilter.class.getName() + ".maxRequestSize";
+
+	// Before the first filter that reads a body
+	public static final int ORDER = JwtAuthenticationFilter.ORDER + 1;
+
+	@Autowired
+	BodyLimitProperties properties;
+
+	@Autowired
+	BufferedBodyTracker tracker;
+
+	@Autowired
+	MeterRegistry meterRegistry;
+
+	@Override
+	public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+		Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+		if (!properties.isEnabled() || route == null) {
+			return chain.filter(exchange);
+		}
+		String routeId = route.getId();
+		long maxRequestSize = properties.getMaxRequestSize(routeId);
+		long maxResponseSize = properties.getMaxResponseSize(routeId);
+
+		if (exchange.getRequest().getHeaders().getContentLength() > maxRequestSize) {
+			rejected(routeId, "request");
+			exchange.getResponse().setStatusCode(HttpStatus.PAYLOAD_TOO_LARGE);
+			return exchange.getResponse().setComplete();
+		}
+
+		BufferedBodyTracker.Lease lease = tracker.open(routeId);
+		exchange.getAttributes().put(BufferedBodyTracker.LEASE_ATTR, lease);
+		exchange.getAttributes().put(MAX_REQUEST_SIZE_ATTR, maxRequestSize);
+		ServerHttpRequest request = new ServerHttpRequestDecorator(exchange.getRequest()) {
+			@Override
+			public Flux<DataBuffer> getBody() {
+				return BodyLimiter.limit(super.getBody(), maxRequestSize, () -> {
+					rejected(routeId, "request");
+					return BodyTooLargeException.request(maxRequestSize);
+				});
+			}
+		};
+		ServerHttpResponse response = new LimitedResponse(exchange.getResponse(), routeId, maxResponseSize);
+		return chain.filter(exchange.mutate().request(request).response(response).build())
+				.doFinally(signal -> lease.close());
+	}
+
+	@Override
+	public int getOrder() {
+		return ORDER;
+	}
+
+	private void rejected(String routeId, String direction) {
+		meterRegistry.counter("gateway.body.rejected", "route", routeId, "direction", direction).increment();
+	}
+
+	private class LimitedResponse extends ServerHttpResponseDecorator {
+
+		private final String routeId;
+		private final long maxBytes;
+
+		LimitedResponse(ServerHttpResponse delegate, String routeId, long maxBytes) {
+			super(delegate);
+			this.routeId = routeId;
+			this.maxBytes = maxBytes;
+		}
+
+		@Override
+		public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+			if (getHeaders().getContentLength() > maxBytes) {
+				rejected(routeId, "response");
+				// cancelling the body closes the connection to the service instead of reading all of it
+				return Flux.from(body).take(0).then(Mono.error(BodyTooLargeException.response(maxBytes)));
+			}
+			return super.writeWith(BodyLimiter.limit(body, maxBytes, () -> {
+				rejected(routeId, "response");
+				return BodyTooLargeException.response(maxBytes);
+			}));
+		}
+
+		// Streamed responses (server-sent events) are flushed chunk by chunk, the limit is on all of them
+		@Override
+		public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+			AtomicLong total = new AtomicLong();
+			return super.writeAndFlushWith(Flux.from(body).map(chunk -> BodyLimiter.limit(chunk, maxBytes, total, () -> {
+				rejected(routeId, "response");
+				return BodyTooLargeException.response(maxBytes);
+			})));
+		}
+	}
+
+}
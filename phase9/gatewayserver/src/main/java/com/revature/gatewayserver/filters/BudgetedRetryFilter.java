@@ -0,0 +1,203 @@
+package com.revature.gatewayserver.filters;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.NotFoundException;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.revature.gatewayserver.body.BodyTooLargeException;
+import com.revature.gatewayserver.config.ResilienceProperties;
+import com.revature.gatewayserver.resilience.FallbackResponseCache;
+import com.revature.gatewayserver.resilience.RetryBudget;
+import com.revature.gatewayserver.resilience.UpstreamStatusException;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Route filter that sends a failed request again, at most "retries" times and
+ * only while the route's RetryBudget has tokens left. A failure is a
+ * connection error, a response timeout or one of the failure statuses
+ * (502/503/504 by default). It sits inside the circuit breaker, so the breaker
+ * only sees the outcome once the retries are used up.
+ *
+ * The request body is cached so a POST can be sent again, and every good
+ * response is copied into the FallbackResponseCache for /fallback/<route>.
+ *
+ * Retries and budget depletion are published per route as gateway.retry.attempts,
+ * gateway.retry.budget.exhausted and gateway.retry.budget.balance
+ */
+@Component
+public class BudgetedRetryFilter implements GatewayFilter, Ordered {
+
+	private static final Logger logger = LoggerFactory.getLogger(BudgetedRetryFilter.class);
+
+	// Has to run before NettyWriteResponseFilter so that it sees our AttemptResponse
+	public static final int ORDER = NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 2;
+
+	@Autowired
+	ResilienceProperties properties;
+
+	@Autowired
+	FallbackResponseCache fallbackCache;
+
+	@Autowired
+	MeterRegistry meterRegistry;
+
+	private final Map<String, RetryBudget> budgets = new ConcurrentHashMap<>();
+
+	@Override
+	public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+		Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+		String routeId = route.getId();
+		RetryBudget budget = getBudget(routeId);
+		budget.deposit();
+
+		int retries = properties.getRetryMethods().contains(exchange.getRequest().getMethod())
+				? properties.getRetries(routeId)
+				: 0;
+		boolean caching = properties.getFallbackCache().isEnabled();
+		if (retries == 0 && !caching) {
+			return chain.filter(exchange);
+		}
+
+		// Reads the body once and swaps in a request that can hand it out again for every attempt
+		return FilterUtility.cacheRequestBody(exchange, request -> {
+			ServerWebExchange replayable = exchange.mutate().request(request).build();
+			String cacheKey = caching ? FallbackResponseCache.key(exchange, routeId, FilterUtility.getCachedBody(exchange))
+					: null;
+			return attempt(replayable, chain, budget, cacheKey, retries, 0);
+		});
+	}
+
+	private Mono<Void> attempt(ServerWebExchange exchange, GatewayFilterChain chain, RetryBudget budget,
+			String cacheKey, int retries, int attempt) {
+		ServerHttpResponse response = new AttemptResponse(exchange.getResponse(), cacheKey);
+		return chain.filter(exchange.mutate().response(response).build()).onErrorResume(e -> {
+			if (attempt >= retries || exchange.getResponse().isCommitted() || !isRetryable(e)) {
+				return Mono.error(e);
+			}
+			if (!budget.tryWithdraw()) {
+				logger.debug("Retry budget exhausted, not retrying {}: {}", exchange.getRequest().getPath(), e.toString());
+				return Mono.error(e);
+			}
+			logger.debug("Retrying {} after {}", exchange.getRequest().getPath(), e.toString());
+			// forget the failed response so the routing filters run again
+			ServerWebExchangeUtils.reset(exchange);
+			Duration backoff = properties.getBackoff().multipliedBy(1L << attempt);
+			return Mono.delay(backoff).then(attempt(exchange, chain, budget, cacheKey, retries, attempt + 1));
+		});
+	}
+
+	@Override
+	public int getOrder() {
+		return ORDER;
+	}
+
+	private boolean isRetryable(Throwable e) {
+		if (e instanceof NotFoundException) {
+			// no instance registered in Eureka, asking again won't find one
+			return false;
+		}
+		if (e instanceof BodyTooLargeException) {
+			// the same body won't be any smaller next time
+			return false;
+		}
+		if (e instanceof ResponseStatusException) {
+			// includes the 504 the routing filter raises when the response timeout is hit
+			return properties.getFailureStatuses().contains(((ResponseStatusException) e).getStatus().value());
+		}
+		return e instanceof IOException || e instanceof TimeoutException;
+	}
+
+	// Creates the budget (and its metrics) the first time a route is used
+	public RetryBudget getBudget(String routeId) {
+		return budgets.computeIfAbsent(routeId, id -> {
+			ResilienceProperties.Budget settings = properties.getRetryBudget();
+			RetryBudget budget = new RetryBudget(settings.getRatio(), settings.getMinRetriesPerSecond(),
+					(int) settings.getTtl().getSeconds());
+			Gauge.builder("gateway.retry.budget.balance", budget, RetryBudget::getBalance)
+					.description("Retries that could be sent right now").tag("route", id).register(meterRegistry);
+			FunctionCounter.builder("gateway.retry.attempts", budget, RetryBudget::getRetries)
+					.description("Requests sent again after a failure").tag("route", id).register(meterRegistry);
+			FunctionCounter.builder("gateway.retry.budget.exhausted", budget, RetryBudget::getExhausted)
+					.description("Retries skipped because the retry budget was empty").tag("route", id)
+					.register(meterRegistry);
+			return budget;
+		});
+	}
+
+	/**
+	 * The response of a single attempt. By the time the body is written the
+	 * status is known: a failure status is turned into an error (so it can be
+	 * retried) and a good response is copied into the fallback cache.
+	 */
+	private class AttemptResponse extends ServerHttpResponseDecorator {
+
+		private final String cacheKey;
+
+		AttemptResponse(ServerHttpResponse delegate, String cacheKey) {
+			super(delegate);
+			this.cacheKey = cacheKey;
+		}
+
+		@Override
+		public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+			HttpStatus status = getStatusCode();
+			if (status != null && properties.getFailureStatuses().contains(status.value())) {
+				// read and drop the body so the connection can go back to the pool
+				return Flux.from(body).doOnNext(DataBufferUtils::release)
+						.then(Mono.error(new UpstreamStatusException(status)));
+			}
+			if (cacheKey != null && status != null && status.is2xxSuccessful()) {
+				return super.writeWith(capture(body, status));
+			}
+			return super.writeWith(body);
+		}
+
+		private Flux<? extends DataBuffer> capture(Publisher<? extends DataBuffer> body, HttpStatus status) {
+			int maxBodySize = properties.getFallbackCache().getMaxBodySize();
+			ByteArrayOutputStream copy = new ByteArrayOutputStream();
+			return Flux.from(body).doOnNext(buffer -> {
+				if (copy.size() <= maxBodySize) {
+					ByteBuffer content = buffer.asByteBuffer();
+					byte[] bytes = new byte[content.remaining()];
+					content.get(bytes);
+					copy.write(bytes, 0, bytes.length);
+				}
+			}).doOnComplete(() -> {
+				// bodies over the limit are not worth keeping around
+				if (copy.size() <= maxBodySize) {
+					fallbackCache.put(cacheKey, status, getHeaders().getContentType(), copy.toByteArray());
+				}
+			});
+		}
+	}
+
+}
@@ -0,0 +1,64 @@
+package com.revature.gatewayserver.filters;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.revature.gatewayserver.canary.CanaryRegistry;
+import com.revature.gatewayserver.config.CanaryProperties;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Records how long the instance the load balancer picked took to answer, by
+ * the version it registered with in Eureka. This is what the canary of a
+ * service is compared against (see CanaryRegistry). Every retry of a request
+ * is recorded on its own, since it may go to another instance.
+ */
+@Component
+public class CanaryMetricsFilter implements GlobalFilter, Ordered {
+
+	// Right after the load balancer has chosen the instance
+	public static final int ORDER = ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 1;
+
+	@Autowired
+	CanaryRegistry canaryRegistry;
+
+	@Autowired
+	CanaryProperties properties;
+
+	@Override
+	public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+		Response<ServiceInstance> chosen = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+		if (chosen == null || !chosen.hasServer()) {
+			return chain.filter(exchange);
+		}
+		ServiceInstance instance = chosen.getServer();
+		String version = instance.getMetadata().get(properties.getMetadataKey());
+
+		long start = System.nanoTime();
+		return chain.filter(exchange).doFinally(signal -> {
+			// a cancelled request says nothing about the instance
+			if (signal != SignalType.CANCEL) {
+				HttpStatus status = exchange.getResponse().getStatusCode();
+				boolean success = signal != SignalType.ON_ERROR && (status == null || !status.is5xxServerError());
+				canaryRegistry.record(instance.getServiceId(), version, success, System.nanoTime() - start);
+			}
+		});
+	}
+
+	@Override
+	public int getOrder() {
+		return ORDER;
+	}
+
+}
@@ -0,0 +1,112 @@
+package com.revature.gatewayserver.filters;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import com.revature.gatewayserver.config.ClientAddressProperties;
+
+/**
+ * The address a request comes from, for the filters that treat clients
+ * differently (HeavyHitterFilter, AdaptiveConcurrencyFilter).
+ *
+ * That is the remote address of the connection, unless the connection comes
+ * from one of the gatewayserver.client-address.trusted-proxies. Then the
+ * X-Forwarded-For entries are read from the right, skipping our own proxies,
+ * and the first other address is the client: everything left of it was sent
+ * by the client itself and can't be trusted.
+ */
+@Component
+public class ClientAddressResolver {
+
+	public static final String FORWARDED_FOR = "X-Forwarded-For";
+
+	// Only IP literals, so that parsing an entry never turns into a DNS lookup
+	private static final Pattern IP_LITERAL = Pattern.compile("\\d{1,3}(\\.\\d{1,3}){3}|[0-9a-fA-F:.]*:[0-9a-fA-F:.]*");
+
+	@Autowired
+	ClientAddressProperties properties;
+
+	public String getClientAddress(ServerHttpRequest request) {
+		InetSocketAddress remoteAddress = request.getRemoteAddress();
+		if (remoteAddress == null) {
+			return "unknown";
+		}
+		String remote = remoteAddress.getAddress() != null ? remoteAddress.getAddress().getHostAddress()
+				: remoteAddress.getHostString();
+		if (!isTrustedProxy(remote)) {
+			return remote;
+		}
+		List<String> forwardedFor = request.getHeaders().get(FORWARDED_FOR);
+		if (forwardedFor == null) {
+			return remote;
+		}
+		String[] hops = String.join(",", forwardedFor).split(",");
+		String client = remote;
+		for (int i = hops.length - 1; i >= 0; i--) {
+			String hop = hops[i].trim();
+			if (!StringUtils.hasText(hop)) {
+				continue;
+			}
+			client = hop;
+			if (!isTrustedProxy(hop)) {
+				break;
+			}
+		}
+		return client;
+	}
+
+	boolean isTrustedProxy(String address) {
+		InetAddress parsed = parse(address);
+		if (parsed == null) {
+			return false;
+		}
+		for (String trusted : properties.getTrustedProxies()) {
+			if (matches(trusted.trim(), parsed)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// "10.0.0.7" or "10.0.0.0/8"
+	private static boolean matches(String trusted, InetAddress address) {
+		int slash = trusted.indexOf('/');
+		InetAddress network = parse(slash < 0 ? trusted : trusted.substring(0, slash));
+		if (network == null) {
+			return false;
+		}
+		byte[] networkBytes = network.getAddress();
+		byte[] addressBytes = address.getAddress();
+		if (networkBytes.length != addressBytes.length) {
+			return false;
+		}
+		int prefix = slash < 0 ? networkBytes.length * 8 : Integer.parseInt(trusted.substring(slash + 1));
+		for (int i = 0; i < networkBytes.length && prefix > 0; i++, prefix -= 8) {
+			int mask = prefix >= 8 ? 0xff : (0xff << (8 - prefix)) & 0xff;
+			if ((networkBytes[i] & mask) != (addressBytes[i] & mask)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static InetAddress parse(String address) {
+		if (address == null || !IP_LITERAL.matcher(address).matches()) {
+			return null;
+		}
+		try {
+			return InetAddress.getByName(address);
+		} catch (UnknownHostException e) {
+			return null;
+		}
+	}
+
+}
@@ -0,0 +1,96 @@
+package com.revature.gatewayserver.filters;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.revature.gatewayserver.composition.CustomerDetailsComposer;
+import com.revature.gatewayserver.config.JwtProperties;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Route filter for /bank/accounts/myCustomerDetails. Instead of forwarding the
+ * request to accounts (which then calls loans and cards one by one over Feign)
+ * the gateway calls all three services itself, in parallel, and answers the
+ * client directly. The request never reaches the routing filters.
+ *
+ * If some of the calls failed the client still gets a 200 with those parts set
+ * to null, and the X-Partial-Response header lists what is missing.
+ *
+ * Every call carries the correlation id and the JWT claim headers
+ * (X-User-Id...), like a routed request does.
+ */
+@Component
+public class CustomerDetailsCompositionFilter implements GatewayFilter, Ordered {
+
+	public static final String PARTIAL_RESPONSE_HEADER = "X-Partial-Response";
+
+	// The global filters ordered after us never run, since we don't call the chain. So we come
+	// after RequestTraceFilter (correlation id), the JWT check, heavy hitters, idempotency and
+	// shadow traffic, and after the gateway's own metrics filter (order 0)
+	public static final int ORDER = 1;
+
+	@Autowired
+	CustomerDetailsComposer composer;
+
+	@Autowired
+	FilterUtility filterUtility;
+
+	@Autowired
+	ObjectMapper objectMapper;
+
+	@Autowired
+	JwtProperties jwtProperties;
+
+	@Override
+	public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+		// RequestTraceFilter already made sure there is a correlation id on the request (see ORDER)
+		HttpHeaders requestHeaders = exchange.getRequest().getHeaders();
+		String correlationId = filterUtility.getCorrelationId(requestHeaders);
+		HttpHeaders forwarded = new HttpHeaders();
+		forwarded.set(FilterUtility.CORRELATION_ID, correlationId);
+		// set from the verified token by JwtAuthenticationFilter, which runs before us
+		jwtProperties.getClaimHeaders().values().forEach(header -> {
+			if (requestHeaders.containsKey(header)) {
+				forwarded.put(header, requestHeaders.get(header));
+			}
+		});
+
+		return FilterUtility.readBody(exchange)
+				.flatMap(body -> composer.compose(forwarded, body))
+				.flatMap(result -> {
+					ServerHttpResponse response = exchange.getResponse();
+					response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+					response.getHeaders().add(FilterUtility.CORRELATION_ID, correlationId);
+					if (result.isEmpty()) {
+						response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+					}
+					if (result.isPartial()) {
+						response.getHeaders().add(PARTIAL_RESPONSE_HEADER, String.join(",", result.getFailedLegs()));
+					}
+					return response.writeWith(Mono.fromCallable(() -> toBuffer(response, result)));
+				});
+	}
+
+	@Override
+	public int getOrder() {
+		return ORDER;
+	}
+
+	private DataBuffer toBuffer(ServerHttpResponse response, CustomerDetailsComposer.Result result)
+			throws JsonProcessingException {
+		return response.bufferFactory().wrap(objectMapper.writeValueAsBytes(result.getDetails()));
+	}
+
+}
@@ -1,11 +1,25 @@
 package com.revature.gatewayserver.filters;
 
+import java.nio.ByteBuffer;
 import java.util.List;
+import java.util.function.Function;
 
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 
+import com.revature.gatewayserver.body.BodyLimiter;
+import com.revature.gatewayserver.body.BodyTooLargeException;
+import com.revature.gatewayserver.body.BufferedBodyTracker;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
 /**
  * This Utility class is degined to be autowired into our pre-filter class, 
  * providing the capability of modifying requests so as to append a trace id
@@ -35,4 +49,60 @@ public class FilterUtility {
 		return this.setRequestHeader(exchange, CORRELATION_ID, correlationId);
 	}
 
+	/**
+	 * ServerWebExchangeUtils.cacheRequestBody, except that a body an earlier
+	 * filter already cached is reused. Caching it a second time would replace
+	 * the cached buffer with a slice of itself, and the original would never
+	 * be released.
+	 *
+	 * The body is read up to the route's max-request-size only (see
+	 * BodySizeLimitFilter), a bigger one fails with 413 instead of being
+	 * buffered whole.
+	 */
+	public static <T> Mono<T> cacheRequestBody(ServerWebExchange exchange, Function<ServerHttpRequest, Mono<T>> function) {
+		if (exchange.getAttribute(ServerWebExchangeUtils.CACHED_REQUEST_BODY_ATTR) != null) {
+			return function.apply(exchange.getRequest());
+		}
+		long maxBytes = getMaxRequestSize(exchange);
+		ServerHttpRequest bounded = new ServerHttpRequestDecorator(exchange.getRequest()) {
+			@Override
+			public Flux<DataBuffer> getBody() {
+				return BodyLimiter.join(super.getBody(), maxBytes, () -> BodyTooLargeException.request(maxBytes))
+						.doOnNext(body -> BufferedBodyTracker.hold(exchange, body.readableByteCount())).flux();
+			}
+		};
+		return ServerWebExchangeUtils.cacheRequestBody(exchange.mutate().request(bounded).build(), function);
+	}
+
+	// The request body in one piece, bounded like cacheRequestBody() but not kept on the exchange
+	public static Mono<byte[]> readBody(ServerWebExchange exchange) {
+		long maxBytes = getMaxRequestSize(exchange);
+		return BodyLimiter.join(exchange.getRequest().getBody(), maxBytes, () -> BodyTooLargeException.request(maxBytes))
+				.map(buffer -> {
+					byte[] bytes = new byte[buffer.readableByteCount()];
+					buffer.read(bytes);
+					DataBufferUtils.release(buffer);
+					return bytes;
+				}).defaultIfEmpty(new byte[0]);
+	}
+
+	// Set by BodySizeLimitFilter, unlimited when body limits are turned off
+	private static long getMaxRequestSize(ServerWebExchange exchange) {
+		Long maxBytes = exchange.getAttribute(BodySizeLimitFilter.MAX_REQUEST_SIZE_ATTR);
+		return maxBytes != null ? maxBytes : Long.MAX_VALUE;
+	}
+
+	// A copy of the body cached by cacheRequestBody(), which is left readable for the routing filters
+	public static byte[] getCachedBody(ServerWebExchange exchange) {
+		DataBuffer body = exchange.getAttribute(ServerWebExchangeUtils.CACHED_REQUEST_BODY_ATTR);
+		if (body == null) {
+			return new byte[0];
+		}
+		// asByteBuffer() shares the content but not the read position
+		ByteBuffer content = body.asByteBuffer();
+		byte[] bytes = new byte[content.remaining()];
+		content.get(bytes);
+		return bytes;
+	}
+
 }
@@ -0,0 +1,149 @@
+package com.revature.gatewayserver.filters;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.revature.gatewayserver.config.HeavyHitterProperties;
+import com.revature.gatewayserver.hotkeys.HeavyHitterDetector;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+/**
+ * Counts every request of a route by client address (see ClientAddressResolver,
+ * X-Forwarded-For only counts from our own proxies) and by customer id in a
+ * HeavyHitterDetector, so the few clients and customers behind most of the
+ * load show up in /actuator/heavyhitters while it happens, not after the
+ * incident.
+ *
+ * With gatewayserver.heavy-hitters.throttle.enabled a key that sends more than
+ * max-share of a route's recent traffic gets 429 Too Many Requests until its
+ * share drops again (counted in gateway.heavy-hitters.throttled).
+ */
+@Component
+public class HeavyHitterFilter implements GlobalFilter, Ordered {
+
+	private static final Logger logger = LoggerFactory.getLogger(HeavyHitterFilter.class);
+
+	public static final String CLIENT = "client";
+	public static final String CUSTOMER = "customer";
+
+	// Early, so a throttled request costs as little as possible, but after the JWT filter so
+	// that X-Customer-Id is the verified one (the filter removes it from the client's request
+	// also when JWT is disabled, then we take the id from the body), and after the body size check
+	public static final int ORDER = BodySizeLimitFilter.ORDER + 1;
+
+	@Autowired
+	HeavyHitterProperties properties;
+
+	@Autowired
+	ObjectMapper objectMapper;
+
+	@Autowired
+	MeterRegistry meterRegistry;
+
+	@Autowired
+	ClientAddressResolver clientAddressResolver;
+
+	// route id -> dimension -> detector
+	private final Map<String, Map<String, HeavyHitterDetector>> detectors = new ConcurrentHashMap<>();
+
+	@Override
+	public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+		Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+		if (!properties.isEnabled() || route == null) {
+			return chain.filter(exchange);
+		}
+		String routeId = route.getId();
+		if (isThrottled(routeId, CLIENT, clientAddressResolver.getClientAddress(exchange.getRequest()))) {
+			return tooManyRequests(exchange, routeId, CLIENT);
+		}
+
+		String customerId = exchange.getRequest().getHeaders().getFirst(properties.getCustomerIdHeader());
+		if (StringUtils.hasText(customerId)) {
+			return isThrottled(routeId, CUSTOMER, customerId) ? tooManyRequests(exchange, routeId, CUSTOMER)
+					: chain.filter(exchange);
+		}
+		if (!hasSmallJsonBody(exchange.getRequest())) {
+			return chain.filter(exchange);
+		}
+		// The bank endpoints take the customer id in the POST body
+		return FilterUtility.cacheRequestBody(exchange, request -> {
+			ServerWebExchange cached = exchange.mutate().request(request).build();
+			String bodyCustomerId = customerIdFromBody(FilterUtility.getCachedBody(exchange));
+			if (bodyCustomerId != null && isThrottled(routeId, CUSTOMER, bodyCustomerId)) {
+				return tooManyRequests(cached, routeId, CUSTOMER);
+			}
+			return chain.filter(cached);
+		});
+	}
+
+	@Override
+	public int getOrder() {
+		return ORDER;
+	}
+
+	public Map<String, Map<String, HeavyHitterDetector>> getDetectors() {
+		return detectors;
+	}
+
+	// Counts the request and tells whether the key is over its share
+	private boolean isThrottled(String routeId, String dimension, String key) {
+		HeavyHitterDetector detector = detectors.computeIfAbsent(routeId, id -> new ConcurrentHashMap<>())
+				.computeIfAbsent(dimension, d -> new HeavyHitterDetector(properties.getWidth(), properties.getDepth(),
+						properties.getTopK(), properties.getWindow().toMillis()));
+		double share = detector.add(key);
+		HeavyHitterProperties.Throttle throttle = properties.getThrottle();
+		if (throttle.isEnabled() && share > throttle.getMaxShare() && detector.getTotal() >= throttle.getMinRequests()) {
+			logger.debug("Throttling {} {} on route {}, it sent {}% of the recent requests", dimension, key, routeId,
+					Math.round(share * 100));
+			return true;
+		}
+		return false;
+	}
+
+	private Mono<Void> tooManyRequests(ServerWebExchange exchange, String routeId, String dimension) {
+		meterRegistry.counter("gateway.heavy-hitters.throttled", "route", routeId, "dimension", dimension).increment();
+		exchange.getResponse().setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+		exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER,
+				String.valueOf(Math.max(1, properties.getThrottle().getRetryAfter().getSeconds())));
+		return exchange.getResponse().setComplete();
+	}
+
+	private boolean hasSmallJsonBody(ServerHttpRequest request) {
+		HttpHeaders headers = request.getHeaders();
+		long length = headers.getContentLength();
+		return length > 0 && length <= properties.getMaxBodySize() && headers.getContentType() != null
+				&& MediaType.APPLICATION_JSON.isCompatibleWith(headers.getContentType());
+	}
+
+	private String customerIdFromBody(byte[] body) {
+		try {
+			JsonNode customerId = objectMapper.readTree(body).get(properties.getCustomerIdField());
+			return customerId != null && customerId.isValueNode() ? customerId.asText() : null;
+		} catch (IOException e) {
+			// not our problem, the service will answer with 400
+			return null;
+		}
+	}
+
+}
@@ -0,0 +1,235 @@
+package com.revature.gatewayserver.filters;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Optional;
+
+import javax.annotation.PostConstruct;
+
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.revature.gatewayserver.config.IdempotencyProperties;
+import com.revature.gatewayserver.config.JwtProperties;
+import com.revature.gatewayserver.controller.FallbackController;
+import com.revature.gatewayserver.idempotency.IdempotencyStore;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Makes POSTs that carry an Idempotency-Key header safe to send again. A
+ * client that timed out and retries with the same key either joins the request
+ * that is still in flight or gets the stored response replayed (marked with
+ * "Idempotent-Replayed: true"), instead of the whole fan-out running twice.
+ *
+ * Only responses the service actually produced are kept: 5xx answers,
+ * fallbacks and bodies over max-body-size are forgotten right away, so a retry
+ * of those is sent to the service again. Reusing a key for a different request
+ * (other path or body) is answered with 422. With JWT on, keys are kept per
+ * user (X-User-Id), so nobody gets another user's response.
+ *
+ * Published metrics: gateway.idempotency.requests (by result) and
+ * gateway.idempotency.keys
+ */
+@Component
+public class IdempotencyFilter implements GlobalFilter, Ordered {
+
+	private static final Logger logger = LoggerFactory.getLogger(IdempotencyFilter.class);
+
+	public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+	// Inside compression, so we store and replay plain bodies, but outside the circuit breaker and retries
+	public static final int ORDER = HeavyHitterFilter.ORDER + 1;
+
+	@Autowired
+	IdempotencyProperties properties;
+
+	@Autowired
+	JwtProperties jwtProperties;
+
+	@Autowired
+	MeterRegistry meterRegistry;
+
+	private IdempotencyStore store;
+
+	@PostConstruct
+	void createStore() {
+		store = new IdempotencyStore(properties.getMaxEntries(), properties.getTtl());
+		Gauge.builder("gateway.idempotency.keys", store, IdempotencyStore::size)
+				.description("Idempotency keys in flight or remembered").register(meterRegistry);
+	}
+
+	@Override
+	public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+		String idempotencyKey = exchange.getRequest().getHeaders().getFirst(properties.getHeaderName());
+		if (!properties.isEnabled() || exchange.getRequest().getMethod() != HttpMethod.POST
+				|| !StringUtils.hasText(idempotencyKey)) {
+			return chain.filter(exchange);
+		}
+		Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+		// Each user has keys of their own, or one could get another's response replayed by reusing
+		// their key. The header is the verified "sub" claim, JwtAuthenticationFilter removes what the
+		// client sent. A header value can't hold a line break, so no two users end up with one key
+		String userId = exchange.getRequest().getHeaders().getFirst(jwtProperties.getClaimHeaders().get("sub"));
+		String key = route.getId() + ":" + idempotencyKey + (StringUtils.hasText(userId) ? "\n" + userId : "");
+
+		// The body is part of the fingerprint, and the request has to be sendable after we read it
+		return FilterUtility.cacheRequestBody(exchange, request -> {
+			ServerWebExchange cached = exchange.mutate().request(request).build();
+			return claim(cached, chain, key, fingerprint(cached));
+		});
+	}
+
+	@Override
+	public int getOrder() {
+		return ORDER;
+	}
+
+	private Mono<Void> claim(ServerWebExchange exchange, GatewayFilterChain chain, String key, String fingerprint) {
+		IdempotencyStore.Claim claim = store.claim(key, fingerprint);
+		IdempotencyStore.Entry entry = claim.getEntry();
+		if (claim.isOwner()) {
+			count("first");
+			RecordingResponse response = new RecordingResponse(exchange.getResponse(), key, entry);
+			return chain.filter(exchange.mutate().response(response).build()).doFinally(signal -> {
+				// errors, cancellations and responses we didn't keep: the next retry has to be sent for real
+				if (!entry.isCompleted()) {
+					store.fail(key, entry);
+				}
+			});
+		}
+		if (!entry.getFingerprint().equals(fingerprint)) {
+			count("mismatch");
+			logger.debug("Idempotency key {} was reused for a different request", key);
+			exchange.getResponse().setStatusCode(HttpStatus.UNPROCESSABLE_ENTITY);
+			return exchange.getResponse().setComplete();
+		}
+		String result = entry.isCompleted() ? "replayed" : "joined";
+		return entry.getResponse().timeout(properties.getInflightTimeout()).map(Optional::of)
+				.defaultIfEmpty(Optional.empty()).onErrorReturn(Optional.empty()).flatMap(stored -> {
+					if (stored.isPresent()) {
+						count(result);
+						return replay(exchange, stored.get());
+					}
+					if (entry.isFailed()) {
+						// the first request failed and forgot the key, so this one may go to the service
+						return claim(exchange, chain, key, fingerprint);
+					}
+					// the first request is taking longer than we are willing to wait
+					count("timeout");
+					return chain.filter(exchange);
+				});
+	}
+
+	private Mono<Void> replay(ServerWebExchange exchange, IdempotencyStore.StoredResponse stored) {
+		ServerHttpResponse response = exchange.getResponse();
+		response.setStatusCode(stored.getStatus());
+		response.getHeaders().putAll(stored.getHeaders());
+		response.getHeaders().set(REPLAYED_HEADER, "true");
+		return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(stored.getBody())));
+	}
+
+	private String fingerprint(ServerWebExchange exchange) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update(exchange.getRequest().getURI().getRawPath().getBytes(StandardCharsets.UTF_8));
+			digest.update(FilterUtility.getCachedBody(exchange));
+			StringBuilder hex = new StringBuilder();
+			for (byte b : digest.digest()) {
+				hex.append(String.format("%02x", b));
+			}
+			return hex.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private void count(String result) {
+		meterRegistry.counter("gateway.idempotency.requests", "result", result).increment();
+	}
+
+	/**
+	 * Copies the response of the first request on its way to the client and
+	 * hands it to the store once the whole body went through.
+	 */
+	private class RecordingResponse extends ServerHttpResponseDecorator {
+
+		private final String key;
+		private final IdempotencyStore.Entry entry;
+
+		RecordingResponse(ServerHttpResponse delegate, String key, IdempotencyStore.Entry entry) {
+			super(delegate);
+			this.key = key;
+			this.entry = entry;
+		}
+
+		@Override
+		public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+			if (!isStorable()) {
+				return super.writeWith(body);
+			}
+			HttpHeaders headers = storedHeaders();
+			HttpStatus status = getStatusCode();
+			int maxBodySize = properties.getMaxBodySize();
+			ByteArrayOutputStream copy = new ByteArrayOutputStream();
+			return super.writeWith(Flux.from(body).doOnNext(buffer -> {
+				if (copy.size() <= maxBodySize) {
+					ByteBuffer content = buffer.asByteBuffer();
+					byte[] bytes = new byte[content.remaining()];
+					content.get(bytes);
+					copy.write(bytes, 0, bytes.length);
+				}
+			}).doOnComplete(() -> {
+				if (copy.size() <= maxBodySize) {
+					store.complete(key, entry, new IdempotencyStore.StoredResponse(status, headers, copy.toByteArray()));
+				}
+			}));
+		}
+
+		@Override
+		public Mono<Void> setComplete() {
+			if (isStorable()) {
+				store.complete(key, entry, new IdempotencyStore.StoredResponse(getStatusCode(), storedHeaders(), new byte[0]));
+			}
+			return super.setComplete();
+		}
+
+		private boolean isStorable() {
+			HttpStatus status = getStatusCode();
+			return status != null && !status.is5xxServerError()
+					&& !getHeaders().containsKey(FallbackController.FALLBACK_HEADER);
+		}
+
+		// The framing headers are worked out again when the stored body is written
+		private HttpHeaders storedHeaders() {
+			HttpHeaders headers = new HttpHeaders();
+			headers.putAll(getHeaders());
+			headers.remove(HttpHeaders.CONTENT_LENGTH);
+			headers.remove(HttpHeaders.TRANSFER_ENCODING);
+			return headers;
+		}
+	}
+
+}
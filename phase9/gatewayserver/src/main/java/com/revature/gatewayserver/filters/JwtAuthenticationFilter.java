@@ -0,0 +1,124 @@
+package com.revature.gatewayserver.filters;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.revature.gatewayserver.config.JwtProperties;
+import com.revature.gatewayserver.jwt.InvalidTokenException;
+import com.revature.gatewayserver.jwt.JwtVerifier;
+import com.revature.gatewayserver.jwt.VerifiedTokenCache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+/**
+ * Lets requests through only with a valid "Authorization: Bearer" JWT, and
+ * hands the verified claims to accounts, loans and cards as headers
+ * (X-User-Id, X-Customer-Id...). Those headers are always removed from what
+ * the client sent, so they can't be forged, also with
+ * gatewayserver.jwt.enabled=false (HeavyHitterFilter counts customers by
+ * X-Customer-Id).
+ *
+ * Every path is protected unless gatewayserver.jwt.excluded-paths says
+ * otherwise (actuator and the fallbacks by default). Protecting only /bank/**
+ * would leave the /accounts/**, /loans/** and /cards/** routes of the
+ * discovery locator open.
+ *
+ * A signature is only checked the first time a token is seen (see
+ * JwtVerifier), which is what keeps this cheap: run
+ * JwtVerificationBenchmark for the numbers.
+ *
+ * Published metrics: gateway.jwt.requests with result missing here, the
+ * other results and the verification metrics come from JwtVerifier
+ */
+@Component
+public class JwtAuthenticationFilter implements GlobalFilter, Ordered {
+
+	private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
+
+	private static final String BEARER = "Bearer ";
+
+	// Before anything else spends time on the request (compression only wraps the response, the
+	// trace filter only adds the correlation id)
+	public static final int ORDER = ResponseCompressionFilter.ORDER + 1;
+
+	@Autowired
+	JwtProperties properties;
+
+	@Autowired
+	JwtVerifier verifier;
+
+	@Autowired
+	MeterRegistry meterRegistry;
+
+	private final PathMatcher pathMatcher = new AntPathMatcher();
+
+	@Override
+	public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+		if (!properties.isEnabled()) {
+			// Nothing verified them, so the claim headers the client sent can't be trusted either
+			return chain.filter(withClaimHeaders(exchange, null));
+		}
+		String path = exchange.getRequest().getPath().value();
+		if (!isProtected(path)) {
+			return chain.filter(withClaimHeaders(exchange, null));
+		}
+
+		String authorization = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+		if (authorization == null || !authorization.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+			count("missing");
+			return unauthorized(exchange, null);
+		}
+		String token = authorization.substring(BEARER.length()).trim();
+
+		VerifiedTokenCache.VerifiedToken verified;
+		try {
+			verified = verifier.verify(token);
+		} catch (InvalidTokenException e) {
+			logger.debug("Rejected token for {}: {}", path, e.getMessage());
+			return unauthorized(exchange, e.getMessage());
+		}
+		return chain.filter(withClaimHeaders(exchange, verified));
+	}
+
+	@Override
+	public int getOrder() {
+		return ORDER;
+	}
+
+	private boolean isProtected(String path) {
+		return properties.getPaths().stream().anyMatch(pattern -> pathMatcher.match(pattern, path))
+				&& properties.getExcludedPaths().stream().noneMatch(pattern -> pathMatcher.match(pattern, path));
+	}
+
+	private ServerWebExchange withClaimHeaders(ServerWebExchange exchange, VerifiedTokenCache.VerifiedToken verified) {
+		return exchange.mutate().request(request -> request.headers(headers -> {
+			properties.getClaimHeaders().values().forEach(headers::remove);
+			if (verified != null) {
+				verified.getHeaders().forEach(headers::set);
+			}
+		})).build();
+	}
+
+	private Mono<Void> unauthorized(ServerWebExchange exchange, String description) {
+		exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
+		exchange.getResponse().getHeaders().set(HttpHeaders.WWW_AUTHENTICATE, description == null ? "Bearer"
+				: "Bearer error=\"invalid_token\", error_description=\"" + description.replace("\"", "'") + "\"");
+		return exchange.getResponse().setComplete();
+	}
+
+	private void count(String result) {
+		meterRegistry.counter("gateway.jwt.requests", "result", result).increment();
+	}
+
+}
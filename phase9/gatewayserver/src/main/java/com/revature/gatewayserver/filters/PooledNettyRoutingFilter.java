@@ -0,0 +1,49 @@
+package com.revature.gatewayserver.filters;
+
+import java.util.List;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.filter.NettyRoutingFilter;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.revature.gatewayserver.config.UpstreamPoolProperties;
+import com.revature.gatewayserver.upstream.UpstreamHttpClients;
+
+import reactor.netty.http.client.HttpClient;
+
+/**
+ * The gateway's own NettyRoutingFilter, except that each route is sent through
+ * its own connection pool (see UpstreamHttpClients). It runs just before the
+ * stock filter, which then sees the request is already routed and does nothing.
+ */
+public class PooledNettyRoutingFilter extends NettyRoutingFilter {
+
+	public static final int ORDER = NettyRoutingFilter.ORDER - 1;
+
+	private final UpstreamPoolProperties properties;
+	private final UpstreamHttpClients clients;
+
+	public PooledNettyRoutingFilter(HttpClient httpClient, ObjectProvider<List<HttpHeadersFilter>> headersFilters,
+			HttpClientProperties httpClientProperties, UpstreamPoolProperties properties, UpstreamHttpClients clients) {
+		super(httpClient, headersFilters, httpClientProperties);
+		this.properties = properties;
+		this.clients = clients;
+	}
+
+	@Override
+	protected HttpClient getHttpClient(Route route, ServerWebExchange exchange) {
+		if (!properties.isEnabled()) {
+			return super.getHttpClient(route, exchange);
+		}
+		return clients.forRequest(route);
+	}
+
+	@Override
+	public int getOrder() {
+		return ORDER;
+	}
+
+}
@@ -5,7 +5,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
-import org.springframework.core.annotation.Order;
+import org.springframework.core.Ordered;
 import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
@@ -16,12 +16,16 @@ import reactor.core.publisher.Mono;
  * If you have multiple pre-filters, you can mention the order in which they
  * execute when a request comes in, chaining one after the other.
  */
-@Order(1)
 @Component
-public class RequestTraceFilter implements GlobalFilter {
+public class RequestTraceFilter implements GlobalFilter, Ordered {
 
 	private static final Logger logger = LoggerFactory.getLogger(RequestTraceFilter.class);
 
+	// The gateway only looks at Ordered for global filters, an @Order annotation would be ignored.
+	// First of all, so that every filter after us (shadow copies, retries, composition) sees the
+	// same correlation id, and a retry doesn't get a new one
+	public static final int ORDER = ResponseCompressionFilter.ORDER - 1;
+
 	@Autowired
 	FilterUtility filterUtility;
 
@@ -53,6 +57,11 @@ public class RequestTraceFilter implements GlobalFilter {
 		return chain.filter(exchange);
 	}
 
+	@Override
+	public int getOrder() {
+		return ORDER;
+	}
+
 	// checks for our automatically generated trace-id on a request
 	private boolean isCorrelationIdPresent(HttpHeaders requestHeaders) {
 		if (filterUtility.getCorrelationId(requestHeaders) != null) {
@@ -0,0 +1,202 @@
+package com.revature.gatewayserver.filters;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.revature.gatewayserver.compression.ContentCoding;
+import com.revature.gatewayserver.compression.StreamingCompressor;
+import com.revature.gatewayserver.config.CompressionProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Compresses responses with gzip or deflate, whichever the client prefers in
+ * its Accept-Encoding header. The body is compressed chunk by chunk while it
+ * streams from the service to the client (see StreamingCompressor), so large
+ * customer histories are never held in memory as a whole.
+ *
+ * Bodies with a Content-Length under min-response-size are left alone, since
+ * compressing them costs more CPU than it saves on the wire. When the service
+ * doesn't send a length (Tomcat switches to chunked above ~8KB) the body is
+ * large enough by definition.
+ *
+ * Published metrics: gateway.compression.responses (by result),
+ * gateway.compression.bytes.in / .saved and gateway.compression.time
+ */
+@Component
+public class ResponseCompressionFilter implements GlobalFilter, Ordered {
+
+	// Outside the circuit breaker and retry filters, so fallback responses are compressed too
+	public static final int ORDER = BudgetedRetryFilter.ORDER - 10;
+
+	@Autowired
+	CompressionProperties properties;
+
+	@Autowired
+	MeterRegistry meterRegistry;
+
+	private final Map<ContentCoding, Meters> meters = new EnumMap<>(ContentCoding.class);
+
+	@PostConstruct
+	void registerMeters() {
+		for (ContentCoding coding : ContentCoding.values()) {
+			meters.put(coding, new Meters(coding));
+		}
+	}
+
+	@Override
+	public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+		if (!properties.isEnabled() || exchange.getRequest().getMethod() == HttpMethod.HEAD) {
+			return chain.filter(exchange);
+		}
+		return chain.filter(exchange.mutate().response(new CompressingResponse(exchange)).build());
+	}
+
+	@Override
+	public int getOrder() {
+		return ORDER;
+	}
+
+	private class CompressingResponse extends ServerHttpResponseDecorator {
+
+		private final List<String> acceptEncoding;
+
+		CompressingResponse(ServerWebExchange exchange) {
+			super(exchange.getResponse());
+			this.acceptEncoding = exchange.getRequest().getHeaders().get(HttpHeaders.ACCEPT_ENCODING);
+		}
+
+		@Override
+		public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+			ContentCoding coding = chooseCoding();
+			if (coding == null) {
+				return super.writeWith(body);
+			}
+			getHeaders().remove(HttpHeaders.CONTENT_LENGTH);
+			getHeaders().set(HttpHeaders.CONTENT_ENCODING, coding.getToken());
+
+			StreamingCompressor compressor = new StreamingCompressor(coding, properties.getLevel());
+			DataBufferFactory bufferFactory = bufferFactory();
+			Flux<DataBuffer> compressed = Flux.from(body).<byte[]>handle((buffer, sink) -> {
+				byte[] chunk = new byte[buffer.readableByteCount()];
+				buffer.read(chunk);
+				DataBufferUtils.release(buffer);
+				byte[] output = compressor.compress(chunk);
+				// the Deflater may keep small chunks to itself until it has enough to work with
+				if (output.length > 0) {
+					sink.next(output);
+				}
+			}).concatWith(Mono.fromCallable(compressor::finish)).map(bufferFactory::wrap).doFinally(signal -> {
+				if (signal == SignalType.ON_COMPLETE) {
+					meters.get(coding).record(compressor);
+				}
+				compressor.end();
+			});
+			return super.writeWith(compressed);
+		}
+
+		/**
+		 * Decides once the service's headers are known
+		 *
+		 * @return null if the body should go out as it is
+		 */
+		private ContentCoding chooseCoding() {
+			HttpHeaders headers = getHeaders();
+			HttpStatus status = getStatusCode();
+			if (status == HttpStatus.NO_CONTENT || status == HttpStatus.NOT_MODIFIED
+					|| headers.containsKey(HttpHeaders.CONTENT_ENCODING) || !isCompressible(headers.getContentType())) {
+				return null;
+			}
+			if (!headers.getVary().contains(HttpHeaders.ACCEPT_ENCODING)) {
+				headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+			}
+			String cacheControl = headers.getCacheControl();
+			if (cacheControl != null && cacheControl.contains("no-transform")) {
+				return null;
+			}
+			ContentCoding coding = ContentCoding.negotiate(acceptEncoding);
+			if (coding == null) {
+				count("not-accepted");
+				return null;
+			}
+			long length = headers.getContentLength();
+			if (length >= 0 && length < properties.getMinResponseSize().toBytes()) {
+				count("too-small");
+				return null;
+			}
+			count(coding.getToken());
+			return coding;
+		}
+
+		private boolean isCompressible(MediaType contentType) {
+			if (contentType == null) {
+				return false;
+			}
+			// application/problem+json and friends are JSON as well
+			if ("json".equals(contentType.getSubtypeSuffix()) || "xml".equals(contentType.getSubtypeSuffix())) {
+				return true;
+			}
+			for (String mimeType : properties.getMimeTypes()) {
+				if (MediaType.parseMediaType(mimeType).isCompatibleWith(contentType)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private void count(String result) {
+			meterRegistry.counter("gateway.compression.responses", "result", result).increment();
+		}
+	}
+
+	private class Meters {
+
+		final Counter bytesIn;
+		final Counter bytesSaved;
+		final Timer time;
+
+		Meters(ContentCoding coding) {
+			bytesIn = Counter.builder("gateway.compression.bytes.in").baseUnit("bytes")
+					.description("Response bytes before compression").tag("coding", coding.getToken())
+					.register(meterRegistry);
+			bytesSaved = Counter.builder("gateway.compression.bytes.saved").baseUnit("bytes")
+					.description("Response bytes compression kept off the wire").tag("coding", coding.getToken())
+					.register(meterRegistry);
+			time = Timer.builder("gateway.compression.time")
+					.description("CPU time spent compressing one response").tag("coding", coding.getToken())
+					.register(meterRegistry);
+		}
+
+		void record(StreamingCompressor compressor) {
+			bytesIn.increment(compressor.getBytesIn());
+			bytesSaved.increment(compressor.getBytesIn() - compressor.getBytesOut());
+			time.record(compressor.getNanos(), TimeUnit.NANOSECONDS);
+		}
+	}
+
+}
@@ -0,0 +1,135 @@
+package com.revature.gatewayserver.filters;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.revature.gatewayserver.config.ShadowProperties;
+import com.revature.gatewayserver.controller.FallbackController;
+import com.revature.gatewayserver.shadow.ShadowTrafficMirror;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Mirrors a fraction of the requests of a route to a shadow service (a new
+ * loans or cards build registered in Eureka under its own id). The primary
+ * response is copied on its way to the client, and once it is complete the
+ * same request is handed to ShadowTrafficMirror, which sends it and compares
+ * the answers in the background.
+ */
+@Component
+public class ShadowTrafficFilter implements GlobalFilter, Ordered {
+
+	// Outside the circuit breaker and retries, so we compare with what the client really got
+	public static final int ORDER = IdempotencyFilter.ORDER + 1;
+
+	@Autowired
+	ShadowProperties properties;
+
+	@Autowired
+	ShadowTrafficMirror mirror;
+
+	@Override
+	public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+		Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+		ShadowProperties.Route shadow = route != null ? properties.getRoutes().get(route.getId()) : null;
+		if (!properties.isEnabled() || shadow == null || shadow.getServiceId() == null
+				|| ThreadLocalRandom.current().nextDouble() >= shadow.getFraction()) {
+			return chain.filter(exchange);
+		}
+
+		// The body has to be read here already, by the time the shadow request is sent it is released
+		return FilterUtility.cacheRequestBody(exchange, request -> {
+			byte[] body = FilterUtility.getCachedBody(exchange);
+			HttpHeaders headers = shadowHeaders(exchange.getRequest().getHeaders());
+			CapturingResponse response = new CapturingResponse(exchange.getResponse());
+			long start = System.nanoTime();
+			return chain.filter(exchange.mutate().request(request).response(response).build()).doOnSuccess(done -> {
+				URI requestUrl = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR);
+				// a fallback or a response that didn't make it through completely says nothing about the service
+				if (requestUrl == null || !response.complete
+						|| response.getHeaders().containsKey(FallbackController.FALLBACK_HEADER)) {
+					return;
+				}
+				String pathAndQuery = requestUrl.getRawPath()
+						+ (requestUrl.getRawQuery() != null ? "?" + requestUrl.getRawQuery() : "");
+				mirror.mirror(route.getId(), shadow.getServiceId(), exchange.getRequest().getMethod(), pathAndQuery,
+						headers, body, new ShadowTrafficMirror.PrimaryResponse(response.getStatusCode(),
+								response.body(), System.nanoTime() - start));
+			});
+		});
+	}
+
+	@Override
+	public int getOrder() {
+		return ORDER;
+	}
+
+	private HttpHeaders shadowHeaders(HttpHeaders original) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.putAll(original);
+		headers.remove(HttpHeaders.HOST);
+		headers.remove(HttpHeaders.CONTENT_LENGTH);
+		// plain bodies are easier to compare
+		headers.remove(HttpHeaders.ACCEPT_ENCODING);
+		return headers;
+	}
+
+	private class CapturingResponse extends ServerHttpResponseDecorator {
+
+		private final ByteArrayOutputStream copy = new ByteArrayOutputStream();
+		private volatile boolean complete;
+
+		CapturingResponse(ServerHttpResponse delegate) {
+			super(delegate);
+		}
+
+		@Override
+		public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+			int maxBodySize = properties.getMaxBodySize();
+			return super.writeWith(Flux.from(body).doOnNext(buffer -> {
+				if (copy.size() <= maxBodySize) {
+					ByteBuffer content = buffer.asByteBuffer();
+					byte[] bytes = new byte[content.remaining()];
+					content.get(bytes);
+					copy.write(bytes, 0, bytes.length);
+				}
+			}).doOnComplete(() -> complete = true));
+		}
+
+		@Override
+		public Mono<Void> setComplete() {
+			complete = true;
+			return super.setComplete();
+		}
+
+		// null if the body was too large to keep
+		byte[] body() {
+			return copy.size() <= properties.getMaxBodySize() ? copy.toByteArray() : null;
+		}
+
+		@Override
+		public HttpStatus getStatusCode() {
+			HttpStatus status = super.getStatusCode();
+			return status != null ? status : HttpStatus.OK;
+		}
+	}
+
+}
@@ -0,0 +1,60 @@
+package com.revature.gatewayserver.filters;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.revature.gatewayserver.zone.ZoneAffinity;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Tells ZoneAffinity about every request the load balancer sent to an
+ * instance, and how it ended, so it knows which instances are saturated or
+ * failing. Done here rather than in a LoadBalancerLifecycle because the
+ * load balancer filter doesn't report requests that get cancelled (a timeout
+ * of the circuit breaker), which would stay in flight forever.
+ */
+@Component
+public class ZoneAffinityFilter implements GlobalFilter, Ordered {
+
+	// Right after the load balancer has chosen the instance
+	public static final int ORDER = ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 1;
+
+	@Autowired
+	ZoneAffinity zoneAffinity;
+
+	@Override
+	public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+		Response<ServiceInstance> chosen = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+		if (chosen == null || !chosen.hasServer()) {
+			return chain.filter(exchange);
+		}
+		ServiceInstance instance = chosen.getServer();
+		zoneAffinity.started(instance);
+		return chain.filter(exchange).doFinally(signal -> {
+			if (signal == SignalType.CANCEL) {
+				zoneAffinity.cancelled(instance);
+			} else {
+				HttpStatus status = exchange.getResponse().getStatusCode();
+				zoneAffinity.finished(instance,
+						signal != SignalType.ON_ERROR && (status == null || !status.is5xxServerError()));
+			}
+		});
+	}
+
+	@Override
+	public int getOrder() {
+		return ORDER;
+	}
+
+}
@@ -0,0 +1,73 @@
+package com.revature.gatewayserver.hotkeys;
+
+/**
+ * Counts how often each key was seen in a fixed amount of memory (width *
+ * depth counters), however many distinct keys there are. Each key is counted
+ * in one counter per row; collisions only ever add to a count, so the smallest
+ * of the key's counters is the best estimate and never too low.
+ *
+ * Not thread safe, HeavyHitterDetector guards it.
+ */
+public class CountMinSketch {
+
+	private final int width;
+	private final int depth;
+	private final long[][] counters;
+
+	public CountMinSketch(int width, int depth) {
+		if (width < 1 || depth < 1) {
+			throw new IllegalArgumentException("width and depth must be positive");
+		}
+		this.width = width;
+		this.depth = depth;
+		this.counters = new long[depth][width];
+	}
+
+	/**
+	 * @return the estimated count of the key, including this one
+	 */
+	public long add(String key) {
+		int h1 = mix(key.hashCode());
+		int h2 = mix(h1 ^ 0x5bd1e995);
+		long estimate = Long.MAX_VALUE;
+		for (int row = 0; row < depth; row++) {
+			estimate = Math.min(estimate, ++counters[row][column(h1, h2, row)]);
+		}
+		return estimate;
+	}
+
+	public long estimate(String key) {
+		int h1 = mix(key.hashCode());
+		int h2 = mix(h1 ^ 0x5bd1e995);
+		long estimate = Long.MAX_VALUE;
+		for (int row = 0; row < depth; row++) {
+			estimate = Math.min(estimate, counters[row][column(h1, h2, row)]);
+		}
+		return estimate;
+	}
+
+	// Lets old traffic fade out instead of counting forever
+	public void halve() {
+		for (long[] row : counters) {
+			for (int column = 0; column < width; column++) {
+				row[column] >>= 1;
+			}
+		}
+	}
+
+	// Double hashing gives every row its own, independent enough position
+	private int column(int h1, int h2, int row) {
+		return ((h1 + row * h2) & Integer.MAX_VALUE) % width;
+	}
+
+	// String.hashCode() puts similar keys (customer 1, 2, 3...) next to each other, murmur3's finalizer spreads them
+	private static int mix(int h) {
+		h ^= h >>> 16;
+		h *= 0x85ebca6b;
+		h ^= h >>> 13;
+		h *= 0xc2b2ae35;
+		h ^= h >>> 16;
+		return h;
+	}
+
+}
@@ -0,0 +1,124 @@
+package com.revature.gatewayserver.hotkeys;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Finds the keys (client addresses, customer ids...) behind most of the
+ * traffic of one route, in constant memory: a CountMinSketch estimates the
+ * count of every key, and the topK keys with the highest estimates are kept
+ * by name. A key only enters the top list by beating the smallest count in it.
+ *
+ * Every window all counts are halved, so a key that stops sending drops out
+ * after a few windows and the shares describe the recent traffic.
+ */
+public class HeavyHitterDetector {
+
+	private final CountMinSketch sketch;
+	private final int topK;
+	private final long windowMillis;
+	private final LongSupplier clock;
+	private final Map<String, Long> top = new HashMap<>();
+	private long total;
+	private long nextDecay;
+
+	public HeavyHitterDetector(int width, int depth, int topK, long windowMillis) {
+		this(width, depth, topK, windowMillis, System::currentTimeMillis);
+	}
+
+	HeavyHitterDetector(int width, int depth, int topK, long windowMillis, LongSupplier clock) {
+		this.sketch = new CountMinSketch(width, depth);
+		this.topK = topK;
+		this.windowMillis = windowMillis;
+		this.clock = clock;
+		this.nextDecay = clock.getAsLong() + windowMillis;
+	}
+
+	/**
+	 * Counts one request of the key
+	 *
+	 * @return the share of the recent traffic (0.0 - 1.0) that came from this key
+	 */
+	public synchronized double add(String key) {
+		long now = clock.getAsLong();
+		if (now >= nextDecay) {
+			decay();
+			nextDecay = now + windowMillis;
+		}
+		total++;
+		long estimate = sketch.add(key);
+		if (top.containsKey(key) || top.size() < topK) {
+			top.put(key, estimate);
+		} else {
+			String smallest = smallest();
+			if (estimate > top.get(smallest)) {
+				top.remove(smallest);
+				top.put(key, estimate);
+			}
+		}
+		return (double) estimate / total;
+	}
+
+	// Requests counted in the recent windows, with the same decay as the keys
+	public synchronized long getTotal() {
+		return total;
+	}
+
+	/**
+	 * @return the heaviest keys, heaviest first
+	 */
+	public synchronized List<HeavyHitter> getTop() {
+		List<HeavyHitter> hitters = new ArrayList<>(top.size());
+		top.forEach((key, count) -> hitters.add(new HeavyHitter(key, count, total > 0 ? (double) count / total : 0)));
+		hitters.sort((a, b) -> Long.compare(b.getCount(), a.getCount()));
+		return hitters;
+	}
+
+	private void decay() {
+		sketch.halve();
+		total >>= 1;
+		top.replaceAll((key, count) -> count >> 1);
+		top.values().removeIf(count -> count == 0);
+	}
+
+	private String smallest() {
+		String smallest = null;
+		long min = Long.MAX_VALUE;
+		for (Map.Entry<String, Long> entry : top.entrySet()) {
+			if (entry.getValue() < min) {
+				min = entry.getValue();
+				smallest = entry.getKey();
+			}
+		}
+		return smallest;
+	}
+
+	public static class HeavyHitter {
+
+		private final String key;
+		private final long count;
+		private final double share;
+
+		HeavyHitter(String key, long count, double share) {
+			this.key = key;
+			this.count = count;
+			this.share = share;
+		}
+
+		public String getKey() {
+			return key;
+		}
+
+		public long getCount() {
+			return count;
+		}
+
+		public double getShare() {
+			return share;
+		}
+	}
+
+}
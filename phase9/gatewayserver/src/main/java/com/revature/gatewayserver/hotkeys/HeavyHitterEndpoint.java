@@ -0,0 +1,45 @@
+package com.revature.gatewayserver.hotkeys;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import com.revature.gatewayserver.filters.HeavyHitterFilter;
+
+/**
+ * /actuator/heavyhitters lists the heaviest clients and customers of every
+ * route with their share of the recent traffic, /actuator/heavyhitters/{route}
+ * those of one route.
+ */
+@Component
+@Endpoint(id = "heavyhitters")
+public class HeavyHitterEndpoint {
+
+	@Autowired
+	HeavyHitterFilter heavyHitterFilter;
+
+	@ReadOperation
+	public Map<String, Object> heavyHitters() {
+		Map<String, Object> routes = new LinkedHashMap<>();
+		heavyHitterFilter.getDetectors().keySet().forEach(routeId -> routes.put(routeId, route(routeId)));
+		return routes;
+	}
+
+	@ReadOperation
+	public Map<String, Object> route(@Selector String route) {
+		Map<String, Object> dimensions = new LinkedHashMap<>();
+		heavyHitterFilter.getDetectors().getOrDefault(route, new LinkedHashMap<>()).forEach((dimension, detector) -> {
+			Map<String, Object> description = new LinkedHashMap<>();
+			description.put("total", detector.getTotal());
+			description.put("top", detector.getTop());
+			dimensions.put(dimension, description);
+		});
+		return dimensions;
+	}
+
+}
@@ -0,0 +1,161 @@
+package com.revature.gatewayserver.idempotency;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Requests seen with an Idempotency-Key, both the ones still in flight and the
+ * ones that finished. The first request with a key claims it; a retry with the
+ * same key gets that entry and waits on it (in flight) or replays it (done).
+ *
+ * It's a bounded LRU: beyond maxEntries the least recently used key is
+ * forgotten, and a key is forgotten ttl after its response was stored.
+ */
+public class IdempotencyStore {
+
+	private final int maxEntries;
+	private final long ttlMillis;
+	private final LongSupplier clock;
+	private final Map<String, Entry> entries;
+
+	public IdempotencyStore(int maxEntries, Duration ttl) {
+		this(maxEntries, ttl, System::currentTimeMillis);
+	}
+
+	IdempotencyStore(int maxEntries, Duration ttl, LongSupplier clock) {
+		this.maxEntries = maxEntries;
+		this.ttlMillis = ttl.toMillis();
+		this.clock = clock;
+		// access order = true turns the LinkedHashMap into an LRU list
+		this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+				return size() > IdempotencyStore.this.maxEntries;
+			}
+		};
+	}
+
+	/**
+	 * @param fingerprint - identifies the request itself, so a key that is
+	 *                    reused for a different request can be told apart
+	 */
+	public synchronized Claim claim(String key, String fingerprint) {
+		long now = clock.getAsLong();
+		Entry existing = entries.get(key);
+		if (existing != null && !existing.isExpired(now)) {
+			return new Claim(existing, false);
+		}
+		Entry entry = new Entry(fingerprint, now + ttlMillis);
+		entries.put(key, entry);
+		return new Claim(entry, true);
+	}
+
+	// The first request finished with a response worth replaying
+	public synchronized void complete(String key, Entry entry, StoredResponse response) {
+		entry.expires = clock.getAsLong() + ttlMillis;
+		entry.response = response;
+		entry.result.tryEmitValue(response);
+	}
+
+	// The first request failed or its response can't be kept: forget the key so a retry is sent again
+	public synchronized void fail(String key, Entry entry) {
+		entries.remove(key, entry);
+		entry.failed = true;
+		entry.result.tryEmitEmpty();
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	public static class Claim {
+
+		private final Entry entry;
+		private final boolean owner;
+
+		Claim(Entry entry, boolean owner) {
+			this.entry = entry;
+			this.owner = owner;
+		}
+
+		public Entry getEntry() {
+			return entry;
+		}
+
+		// true for the request that has to actually be sent
+		public boolean isOwner() {
+			return owner;
+		}
+	}
+
+	public static class Entry {
+
+		private final String fingerprint;
+		private final Sinks.One<StoredResponse> result = Sinks.one();
+		private volatile StoredResponse response;
+		private volatile long expires;
+		private volatile boolean failed;
+
+		Entry(String fingerprint, long expires) {
+			this.fingerprint = fingerprint;
+			this.expires = expires;
+		}
+
+		public String getFingerprint() {
+			return fingerprint;
+		}
+
+		public boolean isCompleted() {
+			return response != null;
+		}
+
+		public boolean isFailed() {
+			return failed;
+		}
+
+		// Emits the stored response, or nothing if the first request failed
+		public Mono<StoredResponse> getResponse() {
+			return result.asMono();
+		}
+
+		boolean isExpired(long now) {
+			return now > expires;
+		}
+	}
+
+	public static class StoredResponse {
+
+		private final HttpStatus status;
+		private final HttpHeaders headers;
+		private final byte[] body;
+
+		public StoredResponse(HttpStatus status, HttpHeaders headers, byte[] body) {
+			this.status = status;
+			this.headers = headers;
+			this.body = body;
+		}
+
+		public HttpStatus getStatus() {
+			return status;
+		}
+
+		public HttpHeaders getHeaders() {
+			return headers;
+		}
+
+		public byte[] getBody() {
+			return body;
+		}
+	}
+
+}
@@ -0,0 +1,19 @@
+package com.revature.gatewayserver.jwt;
+
+/**
+ * The bearer token can't be trusted: malformed, badly signed, expired or
+ * meant for somebody else. The message ends up in the WWW-Authenticate header.
+ */
+public class InvalidTokenException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public InvalidTokenException(String message) {
+		super(message);
+	}
+
+	public InvalidTokenException(String message, Throwable cause) {
+		super(message, cause);
+	}
+
+}
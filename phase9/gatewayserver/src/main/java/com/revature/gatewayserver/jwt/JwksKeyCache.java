@@ -0,0 +1,132 @@
+package com.revature.gatewayserver.jwt;
+
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.revature.gatewayserver.config.JwtProperties;
+
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * The public keys tokens are signed with, read from a JWKS document (a file
+ * standing in for the identity provider, or its jwks endpoint) and turned into
+ * ready to use verifiers once, instead of for every request.
+ *
+ * The document is read again every jwks-refresh-interval on a background
+ * thread, so rotated keys are picked up without a restart. A token with a
+ * key id we don't know triggers an early reload, at most once per
+ * jwks-min-reload-interval so that made up key ids can't keep us busy.
+ */
+public class JwksKeyCache implements DisposableBean {
+
+	private static final Logger logger = LoggerFactory.getLogger(JwksKeyCache.class);
+
+	private final JwtProperties properties;
+	private final ResourceLoader resourceLoader;
+	private final Scheduler scheduler = Schedulers.newSingle("jwks-refresh", true);
+	private final AtomicLong lastReload = new AtomicLong();
+	private volatile Map<String, JWSVerifier> verifiers = Collections.emptyMap();
+
+	public JwksKeyCache(JwtProperties properties, ResourceLoader resourceLoader) {
+		this.properties = properties;
+		this.resourceLoader = resourceLoader;
+	}
+
+	/**
+	 * Loads the keys and schedules the refresh. Fails if the keys can't be read,
+	 * a gateway that would turn every request away shouldn't start.
+	 */
+	public void start() {
+		if (properties.getJwksLocation() == null) {
+			throw new IllegalStateException("gatewayserver.jwt.jwks-location is required when JWT validation is enabled");
+		}
+		if (!reload()) {
+			throw new IllegalStateException("Could not read the signing keys from " + properties.getJwksLocation());
+		}
+		long interval = properties.getJwksRefreshInterval().toMillis();
+		scheduler.schedulePeriodically(this::reload, interval, interval, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * @param keyId - may be null when the token doesn't name its key, which works as long as there is only one
+	 * @return null if there is no such key (a reload is started in the background)
+	 */
+	public JWSVerifier getVerifier(String keyId) {
+		Map<String, JWSVerifier> current = verifiers;
+		JWSVerifier verifier = keyId != null ? current.get(keyId)
+				: current.size() == 1 ? current.values().iterator().next() : null;
+		if (verifier == null) {
+			long now = System.currentTimeMillis();
+			long last = lastReload.get();
+			if (now - last >= properties.getJwksMinReloadInterval().toMillis() && lastReload.compareAndSet(last, now)) {
+				scheduler.schedule(this::reload);
+			}
+		}
+		return verifier;
+	}
+
+	public int size() {
+		return verifiers.size();
+	}
+
+	// Keeps the keys we have if the document can't be read
+	boolean reload() {
+		lastReload.set(System.currentTimeMillis());
+		Resource resource = resourceLoader.getResource(properties.getJwksLocation());
+		try (InputStream in = resource.getInputStream()) {
+			Map<String, JWSVerifier> loaded = new HashMap<>();
+			for (JWK key : JWKSet.load(in).getKeys()) {
+				if (key.getKeyUse() != null && !KeyUse.SIGNATURE.equals(key.getKeyUse())) {
+					continue;
+				}
+				JWSVerifier verifier = toVerifier(key);
+				if (verifier != null) {
+					loaded.put(key.getKeyID(), verifier);
+				}
+			}
+			verifiers = loaded;
+			logger.debug("Loaded {} signing keys from {}", loaded.size(), properties.getJwksLocation());
+			return true;
+		} catch (Exception e) {
+			logger.warn("Could not reload the signing keys from {}: {}", properties.getJwksLocation(), e.toString());
+			return false;
+		}
+	}
+
+	private JWSVerifier toVerifier(JWK key) throws JOSEException {
+		if (key instanceof RSAKey) {
+			return new RSASSAVerifier((RSAKey) key);
+		}
+		if (key instanceof ECKey) {
+			return new ECDSAVerifier((ECKey) key);
+		}
+		logger.debug("Ignoring key {} of type {}", key.getKeyID(), key.getKeyType());
+		return null;
+	}
+
+	@Override
+	public void destroy() {
+		scheduler.dispose();
+	}
+
+}
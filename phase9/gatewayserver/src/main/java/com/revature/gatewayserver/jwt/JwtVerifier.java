@@ -0,0 +1,161 @@
+package com.revature.gatewayserver.jwt;
+
+import java.text.ParseException;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.revature.gatewayserver.config.JwtProperties;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Checks a bearer token: signature (RSA or EC keys from the JwksKeyCache),
+ * expiry and not-before with some clock skew, and issuer and audience when
+ * they are configured. Tokens that passed are remembered in the
+ * VerifiedTokenCache until they expire.
+ *
+ * Published metrics: gateway.jwt.requests (by result: verified, cached,
+ * rejected), gateway.jwt.verify.time and gateway.jwt.cache.size
+ */
+public class JwtVerifier {
+
+	private final JwtProperties properties;
+	private final JwksKeyCache keys;
+	private final VerifiedTokenCache cache;
+	private final LongSupplier clock;
+	private final MeterRegistry registry;
+	private final Timer verifyTime;
+
+	public JwtVerifier(JwtProperties properties, JwksKeyCache keys, MeterRegistry registry) {
+		this(properties, keys, registry, System::currentTimeMillis);
+	}
+
+	JwtVerifier(JwtProperties properties, JwksKeyCache keys, MeterRegistry registry, LongSupplier clock) {
+		this.properties = properties;
+		this.keys = keys;
+		this.cache = new VerifiedTokenCache(properties.getCacheMaxEntries());
+		this.clock = clock;
+		this.registry = registry;
+		this.verifyTime = Timer.builder("gateway.jwt.verify.time")
+				.description("Time to check the signature of a new token").register(registry);
+		Gauge.builder("gateway.jwt.cache.size", cache, VerifiedTokenCache::size)
+				.description("Verified tokens remembered").register(registry);
+	}
+
+	/**
+	 * The cached result if the token was seen before, else a full verification
+	 *
+	 * @throws InvalidTokenException if the token can't be trusted
+	 */
+	public VerifiedTokenCache.VerifiedToken verify(String token) {
+		String digest = VerifiedTokenCache.digest(token);
+		VerifiedTokenCache.VerifiedToken verified = cache.get(digest, clock.getAsLong());
+		if (verified != null) {
+			count("cached");
+			return verified;
+		}
+		long start = System.nanoTime();
+		try {
+			verified = verifySignature(token);
+		} catch (InvalidTokenException e) {
+			count("rejected");
+			throw e;
+		} finally {
+			verifyTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		}
+		cache.put(digest, verified);
+		count("verified");
+		return verified;
+	}
+
+	public VerifiedTokenCache getCache() {
+		return cache;
+	}
+
+	/**
+	 * The full check, without looking at the cache
+	 *
+	 * @throws InvalidTokenException if the token can't be trusted
+	 */
+	public VerifiedTokenCache.VerifiedToken verifySignature(String token) {
+		SignedJWT jwt;
+		JWTClaimsSet claims;
+		try {
+			jwt = SignedJWT.parse(token);
+			claims = jwt.getJWTClaimsSet();
+		} catch (ParseException e) {
+			throw new InvalidTokenException("Malformed token", e);
+		}
+		JWSAlgorithm algorithm = jwt.getHeader().getAlgorithm();
+		if (!JWSAlgorithm.Family.RSA.contains(algorithm) && !JWSAlgorithm.Family.EC.contains(algorithm)) {
+			// in particular no "none" and no HMAC with the public key as secret
+			throw new InvalidTokenException("Unsupported algorithm " + algorithm);
+		}
+		JWSVerifier verifier = keys.getVerifier(jwt.getHeader().getKeyID());
+		if (verifier == null) {
+			throw new InvalidTokenException("Unknown signing key " + jwt.getHeader().getKeyID());
+		}
+		try {
+			if (!jwt.verify(verifier)) {
+				throw new InvalidTokenException("Invalid signature");
+			}
+		} catch (JOSEException e) {
+			throw new InvalidTokenException("Invalid signature", e);
+		}
+		checkClaims(claims);
+		return new VerifiedTokenCache.VerifiedToken(claimHeaders(claims), claims.getExpirationTime().getTime());
+	}
+
+	private void count(String result) {
+		registry.counter("gateway.jwt.requests", "result", result).increment();
+	}
+
+	private void checkClaims(JWTClaimsSet claims) {
+		long now = clock.getAsLong();
+		long skew = properties.getClockSkew().toMillis();
+		Date expiration = claims.getExpirationTime();
+		if (expiration == null) {
+			throw new InvalidTokenException("Token without expiry");
+		}
+		if (expiration.getTime() + skew < now) {
+			throw new InvalidTokenException("Token expired");
+		}
+		if (claims.getNotBeforeTime() != null && claims.getNotBeforeTime().getTime() - skew > now) {
+			throw new InvalidTokenException("Token not valid yet");
+		}
+		if (properties.getIssuer() != null && !properties.getIssuer().equals(claims.getIssuer())) {
+			throw new InvalidTokenException("Unexpected issuer");
+		}
+		if (properties.getAudience() != null
+				&& (claims.getAudience() == null || !claims.getAudience().contains(properties.getAudience()))) {
+			throw new InvalidTokenException("Unexpected audience");
+		}
+	}
+
+	private Map<String, String> claimHeaders(JWTClaimsSet claims) {
+		Map<String, String> headers = new LinkedHashMap<>();
+		properties.getClaimHeaders().forEach((claim, header) -> {
+			Object value = claims.getClaim(claim);
+			if (value instanceof Collection) {
+				headers.put(header,
+						((Collection<?>) value).stream().map(String::valueOf).collect(Collectors.joining(" ")));
+			} else if (value != null) {
+				headers.put(header, String.valueOf(value));
+			}
+		});
+		return headers;
+	}
+
+}
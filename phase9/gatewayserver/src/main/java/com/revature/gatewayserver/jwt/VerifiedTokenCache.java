@@ -0,0 +1,83 @@
+package com.revature.gatewayserver.jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Tokens whose signature was already checked, so a client sending the same
+ * token again only costs us a SHA-256 instead of an RSA verification. Only the
+ * digest of a token is kept, never the token itself, and an entry is dropped
+ * once the token expires. The cache is a bounded LRU like the fallback cache.
+ */
+public class VerifiedTokenCache {
+
+	private final int maxEntries;
+	private final Map<String, VerifiedToken> entries;
+
+	public VerifiedTokenCache(int maxEntries) {
+		this.maxEntries = maxEntries;
+		// access order = true turns the LinkedHashMap into an LRU list
+		this.entries = new LinkedHashMap<String, VerifiedToken>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, VerifiedToken> eldest) {
+				return size() > VerifiedTokenCache.this.maxEntries;
+			}
+		};
+	}
+
+	public static String digest(String token) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	// null if the token wasn't verified yet or has expired since
+	public synchronized VerifiedToken get(String digest, long now) {
+		VerifiedToken token = entries.get(digest);
+		if (token != null && token.getExpiresAt() <= now) {
+			entries.remove(digest);
+			return null;
+		}
+		return token;
+	}
+
+	public synchronized void put(String digest, VerifiedToken token) {
+		entries.put(digest, token);
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * What we forward for a verified token: the claim headers
+	 */
+	public static class VerifiedToken {
+
+		private final Map<String, String> headers;
+		private final long expiresAt;
+
+		public VerifiedToken(Map<String, String> headers, long expiresAt) {
+			this.headers = headers;
+			this.expiresAt = expiresAt;
+		}
+
+		public Map<String, String> getHeaders() {
+			return headers;
+		}
+
+		public long getExpiresAt() {
+			return expiresAt;
+		}
+	}
+
+}
@@ -0,0 +1,72 @@
+package com.revature.gatewayserver.limiter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps track of how many requests are currently in flight to one downstream
+ * service and refuses new ones once we hit the limit the ConcurrencyLimit has
+ * learned. There is no queue on purpose: a request that can't be served right
+ * away is rejected immediately so the client can retry somewhere else. (With
+ * priority classes turned on, the WeightedFairScheduler adds a short, bounded
+ * one in front of it.)
+ */
+public class AdaptiveConcurrencyLimiter {
+
+	private final ConcurrencyLimit limit;
+	private final AtomicInteger inflight = new AtomicInteger();
+	private final AtomicLong rejected = new AtomicLong();
+
+	public AdaptiveConcurrencyLimiter(ConcurrencyLimit limit) {
+		this.limit = limit;
+	}
+
+	/**
+	 * @return the number of requests in flight when this one was admitted, or -1
+	 *         if the request was rejected
+	 */
+	public int tryAcquire() {
+		int admitted = acquireIfBelowLimit();
+		if (admitted < 0) {
+			rejected.incrementAndGet();
+		}
+		return admitted;
+	}
+
+	// The same without counting a rejection, for the WeightedFairScheduler which queues the request instead
+	int acquireIfBelowLimit() {
+		while (true) {
+			int current = inflight.get();
+			if (current >= limit.getLimit()) {
+				return -1;
+			}
+			if (inflight.compareAndSet(current, current + 1)) {
+				return current + 1;
+			}
+		}
+	}
+
+	// Called once the request finished and we know how it went
+	public void release(long rttNanos, int inflightAtStart, boolean dropped) {
+		inflight.decrementAndGet();
+		limit.onSample(rttNanos, inflightAtStart, dropped);
+	}
+
+	// Called when the client went away, the sample says nothing about the upstream
+	public void release() {
+		inflight.decrementAndGet();
+	}
+
+	public int getLimit() {
+		return limit.getLimit();
+	}
+
+	public int getInflight() {
+		return inflight.get();
+	}
+
+	public long getRejected() {
+		return rejected.get();
+	}
+
+}
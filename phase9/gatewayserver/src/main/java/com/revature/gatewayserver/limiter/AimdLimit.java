@@ -0,0 +1,28 @@
+package com.revature.gatewayserver.limiter;
+
+/**
+ * Additive Increase / Multiplicative Decrease - the same idea TCP uses for its
+ * congestion window. Every successful request nudges the limit up by one, every
+ * overload signal cuts it down by the backoff ratio (0.9 means lose 10%).
+ */
+public class AimdLimit extends ConcurrencyLimit {
+
+	private final double backoffRatio;
+
+	public AimdLimit(int initialLimit, int minLimit, int maxLimit, double backoffRatio) {
+		super(initialLimit, minLimit, maxLimit);
+		this.backoffRatio = backoffRatio;
+	}
+
+	@Override
+	public synchronized void onSample(long rttNanos, int inflight, boolean dropped) {
+		if (dropped) {
+			limit = clamp(limit * backoffRatio);
+		} else if (inflight * 2 >= limit) {
+			// only grow when we actually used the capacity we have, otherwise an idle
+			// route would creep up to maxLimit without ever being tested
+			limit = clamp(limit + 1);
+		}
+	}
+
+}
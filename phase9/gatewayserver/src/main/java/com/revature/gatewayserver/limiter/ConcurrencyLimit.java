@@ -0,0 +1,39 @@
+package com.revature.gatewayserver.limiter;
+
+/**
+ * A ConcurrencyLimit learns how many requests a downstream service can handle
+ * at the same time. Every time a request finishes we feed it a sample (how long
+ * it took, how many requests were in flight, and whether it failed), and it
+ * moves the limit up or down accordingly.
+ */
+public abstract class ConcurrencyLimit {
+
+	protected final int minLimit;
+	protected final int maxLimit;
+
+	// volatile because the filter reads the limit on every request without locking
+	protected volatile int limit;
+
+	protected ConcurrencyLimit(int initialLimit, int minLimit, int maxLimit) {
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.limit = clamp(initialLimit);
+	}
+
+	public int getLimit() {
+		return limit;
+	}
+
+	/**
+	 * @param rttNanos - round trip time of the finished request
+	 * @param inflight - number of requests in flight when the request started
+	 * @param dropped  - true if the request failed in a way that signals overload
+	 *                 (5xx from upstream, timeout, connection error)
+	 */
+	public abstract void onSample(long rttNanos, int inflight, boolean dropped);
+
+	protected int clamp(double newLimit) {
+		return (int) Math.max(minLimit, Math.min(maxLimit, newLimit));
+	}
+
+}
@@ -0,0 +1,74 @@
+package com.revature.gatewayserver.limiter;
+
+/**
+ * Gradient based limit. We keep a slow moving average of the RTT (what the
+ * service looks like when it is healthy) and compare every new sample against
+ * it. When the service slows down (GC, saturated thread pool) the short RTT
+ * grows past the long RTT, the gradient drops below 1 and so does the limit.
+ *
+ * newLimit = limit * gradient + queueSize, where queueSize = sqrt(limit) leaves
+ * a little headroom so the limit can still probe upwards.
+ *
+ * The smoothed estimate is kept as a double and only rounded for getLimit():
+ * with a smoothing of 0.2 one sample moves a limit of 20 by less than 1, which
+ * an int would throw away every time, and the limit could never grow again.
+ */
+public class GradientLimit extends ConcurrencyLimit {
+
+	private final double rttTolerance;
+	private final double smoothing;
+	private final int longWindow;
+
+	private double estimate;
+	private double longRtt;
+	private long samples;
+
+	/**
+	 * @param rttTolerance - how much slower than the long term RTT a sample may be
+	 *                     before we start shrinking the limit (1.5 = 50% slower)
+	 * @param smoothing    - how fast the limit moves towards its new value (0..1)
+	 * @param longWindow   - number of samples the long term RTT average covers
+	 */
+	public GradientLimit(int initialLimit, int minLimit, int maxLimit, double rttTolerance, double smoothing,
+			int longWindow) {
+		super(initialLimit, minLimit, maxLimit);
+		this.rttTolerance = rttTolerance;
+		this.smoothing = smoothing;
+		this.longWindow = longWindow;
+		this.estimate = limit;
+	}
+
+	@Override
+	public synchronized void onSample(long rttNanos, int inflight, boolean dropped) {
+		double shortRtt = rttNanos;
+		if (samples++ == 0) {
+			longRtt = shortRtt;
+		} else {
+			longRtt = longRtt + (shortRtt - longRtt) / Math.min(samples, longWindow);
+		}
+
+		// if the long term average drifted far above the current sample the service
+		// recovered; pull the average back down quickly so we don't stay pessimistic
+		if (longRtt / shortRtt > 2) {
+			longRtt = longRtt * 0.95;
+		}
+
+		// the service isn't busy enough to tell us anything about its capacity
+		if (!dropped && inflight * 2 < limit) {
+			return;
+		}
+
+		double newLimit;
+		if (dropped) {
+			// an error is a clear overload signal, no headroom until things calm down
+			newLimit = estimate * 0.5;
+		} else {
+			double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * longRtt / shortRtt));
+			double queueSize = Math.sqrt(estimate);
+			newLimit = estimate * gradient + queueSize;
+		}
+		estimate = Math.max(minLimit, Math.min(maxLimit, estimate * (1 - smoothing) + newLimit * smoothing));
+		limit = clamp(Math.round(estimate));
+	}
+
+}
@@ -0,0 +1,27 @@
+package com.revature.gatewayserver.limiter;
+
+/**
+ * A request that didn't get a slot from the WeightedFairScheduler. The reason
+ * is what ends up in the metrics: queue-full, shed or timeout.
+ */
+public class QueueRejectedException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public static final String QUEUE_FULL = "queue-full";
+	public static final String SHED = "shed";
+	public static final String TIMEOUT = "timeout";
+
+	private final String reason;
+
+	public QueueRejectedException(String reason) {
+		// the stack trace would always be the same scheduler code, no need to fill it in
+		super("Request rejected: " + reason, null, false, false);
+		this.reason = reason;
+	}
+
+	public String getReason() {
+		return reason;
+	}
+
+}
@@ -0,0 +1,281 @@
+package com.revature.gatewayserver.limiter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.revature.gatewayserver.config.PriorityProperties;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * Shares the slots of one route's AdaptiveConcurrencyLimiter between traffic
+ * classes (interactive, batch...). While there is room a request goes through
+ * right away. Once the limit is reached requests wait in a queue per class,
+ * and every freed slot goes to the class whose next request has the smallest
+ * virtual finish time (weighted fair queuing): with weights 4 and 1 a batch
+ * burst gets one slot in five and can't push interactive requests back.
+ *
+ * The queue is short on purpose. A request waits at most its class'
+ * max-queue-time, and when maxQueueSize requests are waiting already, the
+ * newest waiting request of a lower priority class is shed to make room. A
+ * request nobody is below gets a 503 itself.
+ */
+public class WeightedFairScheduler {
+
+	private static final int WAITING = 0;
+	private static final int ADMITTED = 1;
+	private static final int GONE = 2;
+
+	private final AdaptiveConcurrencyLimiter limiter;
+	private final int maxQueueSize;
+	private final Scheduler timer;
+	private final Map<String, ClassQueue> classes = new LinkedHashMap<>();
+	private final ClassQueue defaultClass;
+
+	// The finish tag of the last admitted request, a class that starts waiting starts from here
+	private double virtualTime;
+	private int queued;
+
+	public WeightedFairScheduler(AdaptiveConcurrencyLimiter limiter, PriorityProperties properties, Scheduler timer) {
+		this.limiter = limiter;
+		this.maxQueueSize = properties.getMaxQueueSize();
+		this.timer = timer;
+		properties.getClasses().forEach((name, settings) -> classes.put(name, new ClassQueue(name, settings)));
+		this.defaultClass = classes.computeIfAbsent(properties.getDefaultClass(),
+				name -> new ClassQueue(name, new PriorityProperties.TrafficClass()));
+	}
+
+	// The class a request ends up in, unknown names fall back to the default class
+	public String resolve(String className) {
+		return className != null && classes.containsKey(className) ? className : defaultClass.name;
+	}
+
+	public Set<String> getClassNames() {
+		return Collections.unmodifiableSet(classes.keySet());
+	}
+
+	public synchronized int getQueued(String className) {
+		ClassQueue queue = classes.get(className);
+		return queue != null ? queue.waiters.size() : 0;
+	}
+
+	/**
+	 * A Permit as soon as the request may go ahead, or a QueueRejectedException.
+	 * The permit has to be released when the request is done, cancelling while
+	 * waiting gives up the place in the queue.
+	 */
+	public Mono<Permit> acquire(String className) {
+		ClassQueue queue = classes.getOrDefault(className, defaultClass);
+		return Mono.create(sink -> {
+			Waiter waiter = new Waiter(queue, sink);
+			sink.onCancel(() -> cancel(waiter));
+			Permit permit = null;
+			Waiter shed = null;
+			boolean full = false;
+			synchronized (this) {
+				if (waiter.state != WAITING) {
+					return;
+				}
+				if (queued == 0) {
+					int inflight = limiter.acquireIfBelowLimit();
+					if (inflight >= 0) {
+						permit = new Permit(inflight);
+						waiter.state = ADMITTED;
+					}
+				}
+				if (permit == null) {
+					if (queued >= maxQueueSize) {
+						shed = lowestPriorityBelow(queue.settings.getPriority());
+						if (shed != null) {
+							remove(shed);
+						} else {
+							full = true;
+							waiter.state = GONE;
+						}
+					}
+					if (!full) {
+						enqueue(waiter);
+					}
+				}
+			}
+			if (shed != null) {
+				shed.dispose();
+				shed.sink.error(new QueueRejectedException(QueueRejectedException.SHED));
+			}
+			if (permit != null) {
+				sink.success(permit);
+			} else if (full) {
+				sink.error(new QueueRejectedException(QueueRejectedException.QUEUE_FULL));
+			} else {
+				waiter.timeout = timer.schedule(() -> timeout(waiter), queue.settings.getMaxQueueTime().toMillis(),
+						TimeUnit.MILLISECONDS);
+				// the limit may have grown since the last release
+				dispatch();
+			}
+		});
+	}
+
+	// Hands free slots to waiting requests, smallest finish tag first
+	private void dispatch() {
+		List<Waiter> admitted = new ArrayList<>();
+		synchronized (this) {
+			while (queued > 0) {
+				ClassQueue next = null;
+				for (ClassQueue queue : classes.values()) {
+					Waiter head = queue.waiters.peekFirst();
+					if (head != null && (next == null || head.finish < next.waiters.peekFirst().finish)) {
+						next = queue;
+					}
+				}
+				int inflight = limiter.acquireIfBelowLimit();
+				if (inflight < 0) {
+					break;
+				}
+				Waiter waiter = next.waiters.pollFirst();
+				queued--;
+				virtualTime = waiter.finish;
+				waiter.state = ADMITTED;
+				waiter.permit = new Permit(inflight);
+				admitted.add(waiter);
+			}
+		}
+		for (Waiter waiter : admitted) {
+			waiter.dispose();
+			waiter.sink.success(waiter.permit);
+		}
+	}
+
+	private void enqueue(Waiter waiter) {
+		ClassQueue queue = waiter.queue;
+		double start = Math.max(virtualTime, queue.lastFinish);
+		waiter.finish = start + 1.0 / Math.max(1, queue.settings.getWeight());
+		queue.lastFinish = waiter.finish;
+		queue.waiters.addLast(waiter);
+		queued++;
+	}
+
+	private void remove(Waiter waiter) {
+		if (waiter.queue.waiters.remove(waiter)) {
+			queued--;
+		}
+		waiter.state = GONE;
+	}
+
+	// The newest request of the least important class that is still below the given priority
+	private Waiter lowestPriorityBelow(int priority) {
+		ClassQueue lowest = null;
+		for (ClassQueue queue : classes.values()) {
+			if (!queue.waiters.isEmpty() && queue.settings.getPriority() < priority
+					&& (lowest == null || queue.settings.getPriority() < lowest.settings.getPriority())) {
+				lowest = queue;
+			}
+		}
+		return lowest != null ? lowest.waiters.peekLast() : null;
+	}
+
+	private void timeout(Waiter waiter) {
+		synchronized (this) {
+			if (waiter.state != WAITING) {
+				return;
+			}
+			remove(waiter);
+		}
+		waiter.sink.error(new QueueRejectedException(QueueRejectedException.TIMEOUT));
+	}
+
+	private void cancel(Waiter waiter) {
+		Permit permit = null;
+		synchronized (this) {
+			if (waiter.state == WAITING) {
+				remove(waiter);
+			} else if (waiter.state == ADMITTED) {
+				// admitted while the client went away, the permit never reached the request
+				permit = waiter.permit;
+			}
+		}
+		waiter.dispose();
+		if (permit != null) {
+			permit.release();
+		}
+	}
+
+	/**
+	 * One slot of the concurrency limit, released once (the second call is a no-op)
+	 */
+	public class Permit {
+
+		private final int inflightAtStart;
+		private final AtomicBoolean released = new AtomicBoolean();
+
+		Permit(int inflightAtStart) {
+			this.inflightAtStart = inflightAtStart;
+		}
+
+		public int getInflightAtStart() {
+			return inflightAtStart;
+		}
+
+		// See AdaptiveConcurrencyLimiter.release(long, int, boolean)
+		public void release(long rttNanos, boolean dropped) {
+			if (released.compareAndSet(false, true)) {
+				limiter.release(rttNanos, inflightAtStart, dropped);
+				dispatch();
+			}
+		}
+
+		public void release() {
+			if (released.compareAndSet(false, true)) {
+				limiter.release();
+				dispatch();
+			}
+		}
+	}
+
+	private static class ClassQueue {
+
+		private final String name;
+		private final PriorityProperties.TrafficClass settings;
+		private final Deque<Waiter> waiters = new ArrayDeque<>();
+		private double lastFinish;
+
+		ClassQueue(String name, PriorityProperties.TrafficClass settings) {
+			this.name = name;
+			this.settings = settings;
+		}
+	}
+
+	// state and finish are guarded by the scheduler's lock
+	private static class Waiter {
+
+		private final ClassQueue queue;
+		private final MonoSink<Permit> sink;
+		private int state = WAITING;
+		private double finish;
+		private Permit permit;
+		private volatile Disposable timeout;
+
+		Waiter(ClassQueue queue, MonoSink<Permit> sink) {
+			this.queue = queue;
+			this.sink = sink;
+		}
+
+		void dispose() {
+			Disposable task = timeout;
+			if (task != null) {
+				task.dispose();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,32 @@
+package com.revature.gatewayserver.registry;
+
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+
+import com.revature.gatewayserver.zone.ZoneAffinity;
+import com.revature.gatewayserver.zone.ZoneAffinityServiceInstanceListSupplier;
+
+/**
+ * Spring Cloud LoadBalancer creates a small application context per service
+ * and registers this class in each of them (see @LoadBalancerClients on
+ * GatewayserverApplication). It is deliberately not a @Configuration, so that
+ * component scanning doesn't put the supplier in the main context too.
+ *
+ * Same chain as the default one (registry, then a cache), with the pushed
+ * registry changes applied on top of the cache, and the instances of our own
+ * zone picked out of the result last.
+ */
+public class InstanceListLoadBalancerConfiguration {
+
+	@Bean
+	public ServiceInstanceListSupplier instanceListSupplier(ConfigurableApplicationContext context,
+			RegistryEventStream eventStream, ZoneAffinity zoneAffinity) {
+		return new ZoneAffinityServiceInstanceListSupplier(
+				new PushAwareServiceInstanceListSupplier(
+						ServiceInstanceListSupplier.builder().withDiscoveryClient().withCaching().build(context),
+						eventStream.getChanges()),
+				zoneAffinity);
+	}
+
+}
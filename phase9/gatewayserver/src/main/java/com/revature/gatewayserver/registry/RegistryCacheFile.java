@@ -0,0 +1,62 @@
+package com.revature.gatewayserver.registry;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import com.netflix.discovery.converters.EurekaJacksonCodec;
+import com.netflix.discovery.shared.Applications;
+
+/**
+ * The Eureka registry (every application and its instances) saved to a JSON
+ * file, in the format the Eureka server itself answers with.
+ */
+public class RegistryCacheFile {
+
+	private final Path file;
+
+	public RegistryCacheFile(Path file) {
+		this.file = file;
+	}
+
+	public Path getFile() {
+		return file;
+	}
+
+	public boolean exists() {
+		return Files.isRegularFile(file);
+	}
+
+	// When the registry in the file was fetched from Eureka
+	public long savedAt() throws IOException {
+		return Files.getLastModifiedTime(file).toMillis();
+	}
+
+	public Applications read() throws IOException {
+		try (InputStream in = Files.newInputStream(file)) {
+			return EurekaJacksonCodec.getInstance().readValue(Applications.class, in);
+		}
+	}
+
+	/**
+	 * Replaces the file. Written to a temporary file first, so a crash can't
+	 * leave half a registry behind for the next startup.
+	 */
+	public void write(Applications applications) throws IOException {
+		Path directory = file.toAbsolutePath().getParent();
+		Files.createDirectories(directory);
+		Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+		try {
+			try (OutputStream out = Files.newOutputStream(temporary)) {
+				EurekaJacksonCodec.getInstance().writeTo(applications, out);
+			}
+			Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temporary);
+		}
+	}
+
+}
@@ -0,0 +1,205 @@
+package com.revature.gatewayserver.registry;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.netflix.discovery.EurekaClientConfig;
+import com.revature.gatewayserver.config.RegistryPushProperties;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Subscribes to the Eureka server's registry events (server-sent events on
+ * /registry/events) and records them in RegistryChanges, which the load
+ * balancer applies on top of the registry. A lost stream is opened again
+ * after reconnect-delay; meanwhile the polled registry is all we have, as
+ * without push.
+ *
+ * Published metrics: eureka.push.connected, eureka.push.events (by type) and
+ * eureka.push.changes (pushed changes the registry may not show yet)
+ */
+@Component
+public class RegistryEventStream implements DisposableBean {
+
+	private static final Logger logger = LoggerFactory.getLogger(RegistryEventStream.class);
+
+	private static final TypeReference<Map<String, String>> METADATA = new TypeReference<Map<String, String>>() {
+	};
+
+	@Autowired
+	RegistryPushProperties properties;
+
+	@Autowired
+	ObjectProvider<EurekaClientConfig> eurekaClientConfig;
+
+	@Autowired
+	MeterRegistry meterRegistry;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private RegistryChanges changes;
+
+	private volatile boolean running;
+	private volatile boolean connected;
+	private volatile HttpURLConnection connection;
+	private Thread thread;
+
+	@PostConstruct
+	void init() {
+		changes = new RegistryChanges(properties.getOverrideTtl());
+	}
+
+	public RegistryChanges getChanges() {
+		return changes;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void start() {
+		String url = url();
+		if (!properties.isEnabled() || url == null) {
+			return;
+		}
+		Gauge.builder("eureka.push.connected", () -> connected ? 1 : 0)
+				.description("1 while we are subscribed to the Eureka server's registry events").register(meterRegistry);
+		Gauge.builder("eureka.push.changes", changes, RegistryChanges::size)
+				.description("Pushed registry changes the polled registry may not show yet").register(meterRegistry);
+		running = true;
+		thread = new Thread(() -> run(url), "registry-event-stream");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	private void run(String url) {
+		while (running) {
+			try {
+				read(url);
+			} catch (IOException e) {
+				logger.debug("Registry event stream {} lost: {}", url, e.toString());
+			} finally {
+				connected = false;
+			}
+			try {
+				Thread.sleep(properties.getReconnectDelay().toMillis());
+			} catch (InterruptedException e) {
+				return;
+			}
+		}
+	}
+
+	private void read(String url) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+		this.connection = connection;
+		connection.setRequestProperty("Accept", "text/event-stream");
+		connection.setConnectTimeout(2000);
+		connection.setReadTimeout((int) properties.getReadTimeout().toMillis());
+		try {
+			if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+				logger.debug("Registry event stream {} answered {}", url, connection.getResponseCode());
+				return;
+			}
+			connected = true;
+			logger.info("Subscribed to registry events from {}", url);
+			try (BufferedReader reader = new BufferedReader(
+					new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+				String type = null;
+				StringBuilder data = new StringBuilder();
+				String line;
+				while (running && (line = reader.readLine()) != null) {
+					if (line.isEmpty()) {
+						if (type != null && data.length() > 0) {
+							onEvent(type, data.toString());
+						}
+						type = null;
+						data.setLength(0);
+					} else if (line.startsWith("event:")) {
+						type = line.substring(6).trim();
+					} else if (line.startsWith("data:")) {
+						data.append(data.length() > 0 ? "\n" : "").append(line.substring(5).trim());
+					}
+					// anything else is a comment (heartbeat)
+				}
+			}
+		} finally {
+			connection.disconnect();
+		}
+	}
+
+	void onEvent(String type, String data) {
+		JsonNode event;
+		try {
+			event = objectMapper.readTree(data);
+		} catch (IOException e) {
+			logger.debug("Ignoring unreadable registry event {}", data);
+			return;
+		}
+		String app = event.path("app").asText();
+		String instanceId = event.path("instanceId").asText();
+		if ("registered".equals(type) && "UP".equals(event.path("status").asText())) {
+			Map<String, String> metadata = event.hasNonNull("metadata")
+					? objectMapper.convertValue(event.get("metadata"), METADATA)
+					: Collections.emptyMap();
+			changes.registered(new DefaultServiceInstance(instanceId, app, event.path("host").asText(),
+					event.path("port").asInt(), event.path("secure").asBoolean(), metadata));
+		} else {
+			// cancelled, or registered again as DOWN, STARTING, OUT_OF_SERVICE...
+			changes.removed(app, instanceId);
+		}
+		meterRegistry.counter("eureka.push.events", "type", type).increment();
+		logger.debug("Registry event {} for {} {}", type, app, instanceId);
+	}
+
+	// The configured url, else /registry/events on the Eureka server we poll
+	private String url() {
+		if (StringUtils.hasText(properties.getUrl())) {
+			return properties.getUrl();
+		}
+		EurekaClientConfig config = eurekaClientConfig.getIfAvailable();
+		List<String> serviceUrls = config != null ? config.getEurekaServerServiceUrls("defaultZone")
+				: Collections.emptyList();
+		if (serviceUrls.isEmpty()) {
+			return null;
+		}
+		String serviceUrl = StringUtils.trimTrailingCharacter(serviceUrls.get(0), '/');
+		if (serviceUrl.endsWith("/eureka")) {
+			serviceUrl = serviceUrl.substring(0, serviceUrl.length() - "/eureka".length());
+		}
+		return serviceUrl + "/registry/events";
+	}
+
+	@Override
+	public void destroy() {
+		running = false;
+		HttpURLConnection current = connection;
+		if (current != null) {
+			current.disconnect();
+		}
+		if (thread != null) {
+			thread.interrupt();
+		}
+	}
+
+}
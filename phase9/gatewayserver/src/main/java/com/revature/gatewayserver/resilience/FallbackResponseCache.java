@@ -0,0 +1,123 @@
+package com.revature.gatewayserver.resilience;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.server.ServerWebExchange;
+
+/**
+ * Remembers the last successful response for each request the gateway routed,
+ * so that the fallback of an open circuit breaker can answer with slightly old
+ * data instead of an error. The cache is a small LRU: the least recently used
+ * entry is dropped once maxEntries is reached, and entries older than the ttl
+ * are never served.
+ */
+public class FallbackResponseCache {
+
+	private final int maxEntries;
+	private final long ttlMillis;
+	private final LongSupplier clock;
+	private final Map<String, CachedResponse> entries;
+
+	public FallbackResponseCache(int maxEntries, Duration ttl) {
+		this(maxEntries, ttl, System::currentTimeMillis);
+	}
+
+	FallbackResponseCache(int maxEntries, Duration ttl, LongSupplier clock) {
+		this.maxEntries = maxEntries;
+		this.ttlMillis = ttl.toMillis();
+		this.clock = clock;
+		// access order = true turns the LinkedHashMap into an LRU list
+		this.entries = new LinkedHashMap<String, CachedResponse>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+				return size() > FallbackResponseCache.this.maxEntries;
+			}
+		};
+	}
+
+	/**
+	 * The key is the route, the request line the client sent (before any path
+	 * rewriting) and a digest of the body, since the bank endpoints take the
+	 * customer id in a POST body.
+	 */
+	public static String key(ServerWebExchange exchange, String routeId, byte[] body) {
+		Set<URI> originalUrls = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ORIGINAL_REQUEST_URL_ATTR);
+		URI uri = originalUrls != null && !originalUrls.isEmpty() ? originalUrls.iterator().next()
+				: exchange.getRequest().getURI();
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update((exchange.getRequest().getMethodValue() + ' ' + uri.getRawPath() + '?' + uri.getRawQuery() + ' ')
+					.getBytes(StandardCharsets.UTF_8));
+			StringBuilder key = new StringBuilder(routeId).append(':');
+			for (byte b : digest.digest(body)) {
+				key.append(String.format("%02x", b));
+			}
+			return key.toString();
+		} catch (NoSuchAlgorithmException e) {
+			// every JVM has to ship SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+
+	public synchronized void put(String key, HttpStatus status, MediaType contentType, byte[] body) {
+		entries.put(key, new CachedResponse(status, contentType, body, clock.getAsLong()));
+	}
+
+	public synchronized CachedResponse get(String key) {
+		CachedResponse response = entries.get(key);
+		if (response != null && clock.getAsLong() - response.getCreated() > ttlMillis) {
+			entries.remove(key);
+			return null;
+		}
+		return response;
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	public static class CachedResponse {
+
+		private final HttpStatus status;
+		private final MediaType contentType;
+		private final byte[] body;
+		private final long created;
+
+		CachedResponse(HttpStatus status, MediaType contentType, byte[] body, long created) {
+			this.status = status;
+			this.contentType = contentType;
+			this.body = body;
+			this.created = created;
+		}
+
+		public HttpStatus getStatus() {
+			return status;
+		}
+
+		public MediaType getContentType() {
+			return contentType;
+		}
+
+		public byte[] getBody() {
+			return body;
+		}
+
+		public long getCreated() {
+			return created;
+		}
+	}
+
+}
@@ -0,0 +1,97 @@
+package com.revature.gatewayserver.resilience;
+
+import java.util.function.LongSupplier;
+
+/**
+ * A token bucket for retries. Every request deposits "ratio" tokens and every
+ * retry withdraws one, so the retries of a route can never be more than that
+ * share of its traffic, plus a small reserve of minRetriesPerSecond. Tokens
+ * expire after the ttl, which keeps an old burst of healthy traffic from
+ * paying for a storm of retries later.
+ *
+ * Deposits and withdrawals are kept in one bucket per second for ttl seconds.
+ */
+public class RetryBudget {
+
+	private final double ratio;
+	private final int minRetriesPerSecond;
+	private final LongSupplier clock;
+
+	private final long[] deposits;
+	private final long[] withdrawals;
+	private final long[] bucketSeconds;
+
+	private long exhausted;
+	private long retries;
+
+	public RetryBudget(double ratio, int minRetriesPerSecond, int ttlSeconds) {
+		this(ratio, minRetriesPerSecond, ttlSeconds, System::currentTimeMillis);
+	}
+
+	RetryBudget(double ratio, int minRetriesPerSecond, int ttlSeconds, LongSupplier clock) {
+		this.ratio = ratio;
+		this.minRetriesPerSecond = minRetriesPerSecond;
+		this.clock = clock;
+		int buckets = Math.max(1, ttlSeconds);
+		this.deposits = new long[buckets];
+		this.withdrawals = new long[buckets];
+		this.bucketSeconds = new long[buckets];
+	}
+
+	// Called once for every request, before its first attempt
+	public synchronized void deposit() {
+		deposits[bucket()]++;
+	}
+
+	/**
+	 * @return true if there was a token for one more retry, which is then used up
+	 */
+	public synchronized boolean tryWithdraw() {
+		if (balance() < 1) {
+			exhausted++;
+			return false;
+		}
+		withdrawals[bucket()]++;
+		retries++;
+		return true;
+	}
+
+	public synchronized double getBalance() {
+		return balance();
+	}
+
+	// Retries that were not sent because the budget was empty
+	public synchronized long getExhausted() {
+		return exhausted;
+	}
+
+	public synchronized long getRetries() {
+		return retries;
+	}
+
+	private double balance() {
+		long now = clock.getAsLong() / 1000;
+		long deposited = 0;
+		long withdrawn = 0;
+		for (int i = 0; i < deposits.length; i++) {
+			if (now - bucketSeconds[i] < deposits.length) {
+				deposited += deposits[i];
+				withdrawn += withdrawals[i];
+			}
+		}
+		return (double) minRetriesPerSecond * deposits.length + deposited * ratio - withdrawn;
+	}
+
+	// Returns the bucket for the current second, clearing it if it still holds an older second
+	private int bucket() {
+		long now = clock.getAsLong() / 1000;
+		int index = (int) (now % deposits.length);
+		if (bucketSeconds[index] != now) {
+			bucketSeconds[index] = now;
+			deposits[index] = 0;
+			withdrawals[index] = 0;
+		}
+		return index;
+	}
+
+}
@@ -0,0 +1,19 @@
+package com.revature.gatewayserver.resilience;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Raised instead of passing an upstream failure status (e.g. 503) to the
+ * client, so that the retry filter and the circuit breaker can treat it like
+ * any other error. If nothing handles it the client still gets that status.
+ */
+public class UpstreamStatusException extends ResponseStatusException {
+
+	private static final long serialVersionUID = 1L;
+
+	public UpstreamStatusException(HttpStatus status) {
+		super(status, "Upstream service answered with " + status.value());
+	}
+
+}
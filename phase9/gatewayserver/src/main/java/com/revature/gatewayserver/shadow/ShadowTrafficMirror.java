@@ -0,0 +1,178 @@
+package com.revature.gatewayserver.shadow;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.revature.gatewayserver.config.ShadowProperties;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Sends a copy of a request to the shadow service and compares its answer
+ * with the one the client got. Nothing here ever reaches the client: a shadow
+ * request is only started after the primary response went out, runs on its own
+ * connection pool and "shadow" threads, and is dropped when max-concurrent
+ * requests are already in flight or the comparison queue is full.
+ *
+ * Published metrics per route: gateway.shadow.requests (by result: match,
+ * status-mismatch, body-mismatch, too-large, error, dropped),
+ * gateway.shadow.latency (target primary or shadow) and
+ * gateway.shadow.inflight
+ */
+public class ShadowTrafficMirror implements DisposableBean {
+
+	private static final Logger logger = LoggerFactory.getLogger(ShadowTrafficMirror.class);
+
+	public static final String SHADOW_HEADER = "X-Shadow-Request";
+
+	private final ShadowProperties properties;
+	private final ObjectMapper objectMapper;
+	private final MeterRegistry meterRegistry;
+	private final ConnectionProvider connectionProvider;
+	private final WebClient webClient;
+	private final Scheduler scheduler;
+	private final AtomicInteger inflight = new AtomicInteger();
+
+	/**
+	 * @param loadBalancedBuilder - resolves the shadow service id through Eureka
+	 */
+	public ShadowTrafficMirror(ShadowProperties properties, WebClient.Builder loadBalancedBuilder,
+			ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+		this.properties = properties;
+		this.objectMapper = objectMapper;
+		this.meterRegistry = meterRegistry;
+		this.connectionProvider = ConnectionProvider.builder("gateway-shadow")
+				.maxConnections(properties.getMaxConcurrent()).build();
+		this.webClient = loadBalancedBuilder.clone()
+				.clientConnector(new ReactorClientHttpConnector(
+						HttpClient.create(connectionProvider).responseTimeout(properties.getTimeout())))
+				.codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(properties.getMaxBodySize()))
+				.build();
+		this.scheduler = Schedulers.newBoundedElastic(properties.getThreads(), properties.getQueueCapacity(),
+				"shadow");
+		Gauge.builder("gateway.shadow.inflight", inflight, AtomicInteger::get)
+				.description("Shadow requests waiting for an answer").register(meterRegistry);
+	}
+
+	/**
+	 * Fire and forget: returns right away, the outcome only shows in the metrics.
+	 *
+	 * @param pathAndQuery - the path the primary service was called with
+	 */
+	public void mirror(String routeId, String serviceId, HttpMethod method, String pathAndQuery, HttpHeaders headers,
+			byte[] body, PrimaryResponse primary) {
+		latency(routeId, "primary").record(primary.nanos, TimeUnit.NANOSECONDS);
+		if (inflight.incrementAndGet() > properties.getMaxConcurrent()) {
+			inflight.decrementAndGet();
+			count(routeId, "dropped");
+			return;
+		}
+		Mono.defer(() -> {
+			long start = System.nanoTime();
+			WebClient.RequestBodySpec request = webClient.method(method).uri("http://" + serviceId + pathAndQuery)
+					.headers(copy -> copy.addAll(headers)).header(SHADOW_HEADER, "true");
+			return (body.length > 0 ? request.bodyValue(body) : request)
+					.exchangeToMono(response -> response.bodyToMono(byte[].class).defaultIfEmpty(new byte[0])
+							.map(shadowBody -> {
+								latency(routeId, "shadow").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+								return compare(primary, response.statusCode(), shadowBody);
+							}));
+		}).timeout(properties.getTimeout()).subscribeOn(scheduler).publishOn(scheduler)
+				.doFinally(signal -> inflight.decrementAndGet())
+				.subscribe(result -> count(routeId, result), e -> count(routeId, failure(routeId, e)));
+	}
+
+	String compare(PrimaryResponse primary, HttpStatus shadowStatus, byte[] shadowBody) {
+		if (primary.status != shadowStatus) {
+			return "status-mismatch";
+		}
+		if (primary.body == null) {
+			return "too-large";
+		}
+		if (Arrays.equals(primary.body, shadowBody)) {
+			return "match";
+		}
+		// the same JSON can still be written in a different field order or spacing
+		try {
+			JsonNode primaryJson = objectMapper.readTree(primary.body);
+			JsonNode shadowJson = objectMapper.readTree(shadowBody);
+			if (primaryJson != null && primaryJson.equals(shadowJson)) {
+				return "match";
+			}
+		} catch (IOException e) {
+			// not JSON, the bytes differ
+		}
+		return "body-mismatch";
+	}
+
+	private String failure(String routeId, Throwable e) {
+		if (e instanceof RejectedExecutionException) {
+			return "dropped";
+		}
+		if (e instanceof DataBufferLimitException) {
+			return "too-large";
+		}
+		logger.debug("Shadow request for route {} failed: {}", routeId, e.toString());
+		return "error";
+	}
+
+	private void count(String routeId, String result) {
+		if ("status-mismatch".equals(result) || "body-mismatch".equals(result)) {
+			logger.debug("Shadow response for route {} differs: {}", routeId, result);
+		}
+		meterRegistry.counter("gateway.shadow.requests", "route", routeId, "result", result).increment();
+	}
+
+	private Timer latency(String routeId, String target) {
+		return Timer.builder("gateway.shadow.latency").description("Response time of primary and shadow service")
+				.tags("route", routeId, "target", target).publishPercentileHistogram().register(meterRegistry);
+	}
+
+	@Override
+	public void destroy() {
+		scheduler.dispose();
+		connectionProvider.disposeLater().block();
+	}
+
+	/**
+	 * What the client got from the primary service
+	 */
+	public static class PrimaryResponse {
+
+		private final HttpStatus status;
+		private final byte[] body;
+		private final long nanos;
+
+		/**
+		 * @param body - null if it was too large to keep
+		 */
+		public PrimaryResponse(HttpStatus status, byte[] body, long nanos) {
+			this.status = status;
+			this.body = body;
+			this.nanos = nanos;
+		}
+	}
+
+}
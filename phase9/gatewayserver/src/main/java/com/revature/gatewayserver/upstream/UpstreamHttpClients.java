@@ -0,0 +1,152 @@
+package com.revature.gatewayserver.upstream;
+
+import static org.springframework.cloud.gateway.support.RouteMetadataUtils.CONNECT_TIMEOUT_ATTR;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.route.Route;
+
+import com.revature.gatewayserver.config.UpstreamPoolProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.channel.ChannelOption;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * One Netty HttpClient per route, each with its own ConnectionProvider, so a
+ * slow service can only use up its own connections and every pool can be
+ * sized for the service behind it. The providers are named "gateway-<route>",
+ * which is the "name" tag of Reactor Netty's pool gauges:
+ *
+ * reactor.netty.connection.provider.total/active/idle/pending.connections
+ *
+ * On top of those we record per route how long a request waited for a
+ * connection (gateway.upstream.acquire.time) and how many connections were
+ * opened (gateway.upstream.connections.opened). Compared with the number of
+ * requests the latter shows how well connections are reused.
+ */
+public class UpstreamHttpClients implements DisposableBean {
+
+	private final UpstreamPoolProperties properties;
+	private final HttpClientProperties httpClientProperties;
+	private final List<HttpClientCustomizer> customizers;
+	private final MeterRegistry meterRegistry;
+	private final Map<String, RouteClient> clients = new ConcurrentHashMap<>();
+
+	public UpstreamHttpClients(UpstreamPoolProperties properties, HttpClientProperties httpClientProperties,
+			List<HttpClientCustomizer> customizers, MeterRegistry meterRegistry) {
+		this.properties = properties;
+		this.httpClientProperties = httpClientProperties;
+		this.customizers = customizers;
+		this.meterRegistry = meterRegistry;
+	}
+
+	/**
+	 * The client for one request on the given route. Called right before the
+	 * request is sent, so the time until Netty hands us a connection is the
+	 * time spent waiting in the pool (plus the TCP connect for a new one).
+	 */
+	public HttpClient forRequest(Route route) {
+		RouteClient routeClient = clients.computeIfAbsent(route.getId(), id -> create(route));
+		long start = System.nanoTime();
+		return routeClient.client.doOnRequest((request, connection) -> routeClient.acquireTime
+				.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+	}
+
+	private RouteClient create(Route route) {
+		String id = route.getId();
+		UpstreamPoolProperties.Route overrides = properties.getRoutes().get(id);
+		if (overrides == null) {
+			overrides = new UpstreamPoolProperties.Route();
+		}
+		int maxConnections = overrides.getMaxConnections() != null ? overrides.getMaxConnections()
+				: properties.getMaxConnections();
+		int pendingAcquireMaxCount = overrides.getPendingAcquireMaxCount() != null
+				? overrides.getPendingAcquireMaxCount()
+				: properties.getPendingAcquireMaxCount();
+		Duration pendingAcquireTimeout = overrides.getPendingAcquireTimeout() != null
+				? overrides.getPendingAcquireTimeout()
+				: properties.getPendingAcquireTimeout();
+		Duration maxIdleTime = overrides.getMaxIdleTime() != null ? overrides.getMaxIdleTime()
+				: properties.getMaxIdleTime();
+		Duration maxLifeTime = overrides.getMaxLifeTime() != null ? overrides.getMaxLifeTime()
+				: properties.getMaxLifeTime();
+		boolean h2c = overrides.getH2c() != null ? overrides.getH2c() : properties.isH2c();
+
+		ConnectionProvider provider = ConnectionProvider.builder("gateway-" + id)
+				.maxConnections(maxConnections)
+				.pendingAcquireMaxCount(pendingAcquireMaxCount)
+				.pendingAcquireTimeout(pendingAcquireTimeout)
+				.maxIdleTime(maxIdleTime)
+				.maxLifeTime(maxLifeTime)
+				// close idle and expired connections even when the route is quiet
+				.evictInBackground(properties.getEvictionInterval())
+				.metrics(true)
+				.build();
+
+		Counter opened = Counter.builder("gateway.upstream.connections.opened")
+				.description("New connections opened to the service").tag("route", id).register(meterRegistry);
+		Timer acquireTime = Timer.builder("gateway.upstream.acquire.time")
+				.description("Time a request waited for a pooled connection").tag("route", id)
+				.publishPercentileHistogram().register(meterRegistry);
+
+		HttpClient client = HttpClient.create(provider)
+				// only called when a new channel is created, not when one is taken from the pool
+				.doOnChannelInit((observer, channel, address) -> opened.increment());
+
+		// the same settings spring.cloud.gateway.httpclient.* applies to the shared client
+		Object connectTimeout = route.getMetadata().get(CONNECT_TIMEOUT_ATTR);
+		if (connectTimeout != null) {
+			client = client.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, Integer.valueOf(connectTimeout.toString()));
+		} else if (httpClientProperties.getConnectTimeout() != null) {
+			client = client.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, httpClientProperties.getConnectTimeout());
+		}
+		if (httpClientProperties.getMaxHeaderSize() != null) {
+			int maxHeaderSize = (int) httpClientProperties.getMaxHeaderSize().toBytes();
+			client = client.httpResponseDecoder(spec -> spec.maxHeaderSize(maxHeaderSize));
+		}
+		if (httpClientProperties.isCompression()) {
+			client = client.compress(true);
+		}
+		if (httpClientProperties.isWiretap()) {
+			client = client.wiretap(true);
+		}
+		if (h2c) {
+			client = client.protocol(HttpProtocol.H2C);
+		}
+		for (HttpClientCustomizer customizer : customizers) {
+			client = customizer.customize(client);
+		}
+		return new RouteClient(client, provider, acquireTime);
+	}
+
+	@Override
+	public void destroy() {
+		clients.values().forEach(routeClient -> routeClient.provider.dispose());
+	}
+
+	private static class RouteClient {
+
+		final HttpClient client;
+		final ConnectionProvider provider;
+		final Timer acquireTime;
+
+		RouteClient(HttpClient client, ConnectionProvider provider, Timer acquireTime) {
+			this.client = client;
+			this.provider = provider;
+			this.acquireTime = acquireTime;
+		}
+	}
+
+}
@@ -0,0 +1,111 @@
+package com.revature.gatewayserver.body;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.revature.gatewayserver.filters.BodySizeLimitFilter;
+import com.revature.gatewayserver.filters.FilterUtility;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Every test checks that each buffer handed out was released exactly once,
+ * whether the body made it through or was cut off.
+ */
+class BodyLimiterTests {
+
+	private final List<NettyDataBuffer> allocated = new ArrayList<>();
+	private final NettyDataBufferFactory factory = new NettyDataBufferFactory(new UnpooledByteBufAllocator(true));
+
+	@AfterEach
+	void noLeaks() {
+		for (NettyDataBuffer buffer : allocated) {
+			assertEquals(0, buffer.getNativeBuffer().refCnt(), "buffer was not released");
+		}
+	}
+
+	@Test
+	void streamedBodyIsCutOffAtTheLimit() {
+		List<DataBuffer> received = new ArrayList<>();
+		BodyTooLargeException e = assertThrows(BodyTooLargeException.class,
+				() -> BodyLimiter.limit(body(10, 4), 25, () -> BodyTooLargeException.request(25))
+						.doOnNext(received::add).blockLast());
+		assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, e.getStatus());
+		// whoever got the buffers before the limit owns them
+		assertEquals(2, received.size());
+		received.forEach(DataBufferUtils::release);
+
+		long passed = BodyLimiter.limit(body(10, 2), 25, () -> BodyTooLargeException.request(25))
+				.doOnNext(DataBufferUtils::release).count().block();
+		assertEquals(2, passed);
+	}
+
+	@Test
+	void joinReleasesWhatItCollectedWhenTheBodyIsTooBig() {
+		assertThrows(BodyTooLargeException.class,
+				() -> BodyLimiter.join(body(10, 4), 25, () -> BodyTooLargeException.request(25)).block());
+
+		DataBuffer joined = BodyLimiter.join(body(10, 2), 25, () -> BodyTooLargeException.request(25)).block();
+		assertEquals(20, joined.readableByteCount());
+		DataBufferUtils.release(joined);
+	}
+
+	@Test
+	void cachedBodyIsBoundedAndCounted() {
+		BufferedBodyTracker tracker = new BufferedBodyTracker();
+		tracker.meterRegistry = new SimpleMeterRegistry();
+
+		ServerWebExchange tooBig = exchange(body(10, 4), 25, tracker.open("loans"));
+		assertThrows(BodyTooLargeException.class,
+				() -> FilterUtility.cacheRequestBody(tooBig, request -> Mono.just(true)).block());
+		assertEquals(0, tracker.getBuffered("loans"));
+
+		BufferedBodyTracker.Lease lease = tracker.open("loans");
+		ServerWebExchange small = exchange(body(10, 2), 25, lease);
+		FilterUtility.cacheRequestBody(small, request -> Mono.just(true)).block();
+		assertEquals(20, FilterUtility.getCachedBody(small).length);
+		assertEquals(20, tracker.getBuffered("loans"));
+
+		// what RemoveCachedBodyFilter and BodySizeLimitFilter do once the exchange is done
+		DataBufferUtils.release(small.getAttribute(ServerWebExchangeUtils.CACHED_REQUEST_BODY_ATTR));
+		lease.close();
+		assertEquals(0, tracker.getBuffered("loans"));
+	}
+
+	private ServerWebExchange exchange(Flux<DataBuffer> body, long maxBytes, BufferedBodyTracker.Lease lease) {
+		ServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.post("/bank/loans/myLoans").body(body));
+		exchange.getAttributes().put(BodySizeLimitFilter.MAX_REQUEST_SIZE_ATTR, maxBytes);
+		exchange.getAttributes().put(BufferedBodyTracker.LEASE_ATTR, lease);
+		// the gateway's body caching needs Netty buffers
+		return exchange.mutate().response(new MockServerHttpResponse(factory)).build();
+	}
+
+	private Flux<DataBuffer> body(int chunkSize, int chunks) {
+		return Flux.range(0, chunks).map(i -> {
+			NettyDataBuffer buffer = factory.allocateBuffer(chunkSize);
+			buffer.write(new byte[chunkSize]);
+			allocated.add(buffer);
+			return buffer;
+		});
+	}
+
+}
@@ -0,0 +1,92 @@
+package com.revature.gatewayserver.canary;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import com.revature.gatewayserver.config.CanaryProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class CanaryRoutingTests {
+
+	private final AtomicLong now = new AtomicLong(1_000_000);
+	private final CanaryProperties properties = new CanaryProperties();
+	private final CanaryRegistry registry = new CanaryRegistry(properties, new SimpleMeterRegistry(), now::get);
+
+	@Test
+	void weightDecidesTheShareOfTheCanary() {
+		registry.setWeight("ACCOUNTS", "1.1.0", 20);
+		List<ServiceInstance> instances = Arrays.asList(instance("a1", "1.0.0"), instance("a2", "1.0.0"),
+				instance("a3", "1.1.0"));
+		VersionWeightedLoadBalancer loadBalancer = new VersionWeightedLoadBalancer(null, "ACCOUNTS", registry,
+				"version");
+
+		int canary = 0;
+		for (int i = 0; i < 10000; i++) {
+			if ("a3".equals(loadBalancer.choose(instances).getServer().getInstanceId())) {
+				canary++;
+			}
+		}
+		assertTrue(canary > 1700 && canary < 2300, "canary got " + canary);
+
+		registry.setWeight("accounts", null, 0);
+		for (int i = 0; i < 100; i++) {
+			assertFalse("a3".equals(loadBalancer.choose(instances).getServer().getInstanceId()));
+		}
+	}
+
+	@Test
+	void withoutStableInstancesTheCanaryTakesEverything() {
+		registry.setWeight("loans", "2.0.0", 1);
+		VersionWeightedLoadBalancer loadBalancer = new VersionWeightedLoadBalancer(null, "LOANS", registry, "version");
+
+		assertEquals("l1", loadBalancer.choose(Collections.singletonList(instance("l1", "2.0.0"))).getServer()
+				.getInstanceId());
+		assertFalse(loadBalancer.choose(Collections.emptyList()).hasServer());
+	}
+
+	@Test
+	void slowCanaryIsRolledBack() {
+		properties.setMinSamples(20);
+		CanaryRegistry.Canary canary = registry.setWeight("cards", "1.1.0", 10);
+		for (int i = 0; i < 200; i++) {
+			registry.record("CARDS", "1.0.0", true, TimeUnit.MILLISECONDS.toNanos(20));
+		}
+		for (int i = 0; i < 30; i++) {
+			registry.record("CARDS", "1.1.0", true, TimeUnit.MILLISECONDS.toNanos(25));
+		}
+		now.addAndGet(Duration.ofSeconds(11).toMillis());
+		registry.record("CARDS", "1.1.0", true, TimeUnit.MILLISECONDS.toNanos(25));
+		assertNull(canary.getRollbackReason());
+		assertEquals(10, canary.getWeight());
+
+		for (int i = 0; i < 10; i++) {
+			registry.record("CARDS", "1.1.0", true, TimeUnit.MILLISECONDS.toNanos(400));
+		}
+		now.addAndGet(Duration.ofSeconds(11).toMillis());
+		registry.record("CARDS", "1.1.0", true, TimeUnit.MILLISECONDS.toNanos(400));
+		assertEquals(0, canary.getWeight());
+		assertNotNull(canary.getRollbackReason());
+	}
+
+	private static ServiceInstance instance(String id, String version) {
+		DefaultServiceInstance instance = new DefaultServiceInstance(id, "ACCOUNTS", id, 8080, false);
+		instance.getMetadata().put("version", version);
+		return instance;
+	}
+
+}
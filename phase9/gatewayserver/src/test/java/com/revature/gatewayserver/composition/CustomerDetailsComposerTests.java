@@ -0,0 +1,106 @@
+package com.revature.gatewayserver.composition;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.revature.gatewayserver.config.CompositionProperties;
+import com.revature.gatewayserver.filters.FilterUtility;
+
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+class CustomerDetailsComposerTests {
+
+	private static final byte[] CUSTOMER = "{\"customerId\":1}".getBytes();
+
+	private DisposableServer server;
+	private CompositionProperties properties;
+	private CustomerDetailsComposer composer;
+
+	@BeforeEach
+	void startStubs() {
+		server = HttpServer.create().port(0)
+				.route(routes -> routes
+						.post("/myAccount", (req, res) -> res.header("Content-Type", "application/json")
+								.sendString(Mono.just("{\"accountNumber\":186576453}")))
+						.post("/myLoans", (req, res) -> res.header("Content-Type", "application/json")
+								.sendString(Mono.just("[{\"loanNumber\":1}]")))
+						// loans and cards answer 400 without a correlation id
+						.post("/echoHeaders", (req, res) -> res.header("Content-Type", "application/json")
+								.sendString(Mono.just("{\"correlationId\":\"" + req.requestHeaders().get(FilterUtility.CORRELATION_ID)
+										+ "\",\"userId\":\"" + req.requestHeaders().get("X-User-Id") + "\"}")))
+						.post("/slowCards", (req, res) -> res.header("Content-Type", "application/json")
+								.sendString(Mono.just("[]").delayElement(Duration.ofSeconds(2))))
+						.post("/brokenCards", (req, res) -> res.status(500).send()))
+				.bindNow();
+
+		properties = new CompositionProperties();
+		properties.getAccounts().setUri(url("/myAccount"));
+		properties.getLoans().setUri(url("/myLoans"));
+		properties.getCards().setUri(url("/brokenCards"));
+		composer = new CustomerDetailsComposer(WebClient.create(), properties, new ObjectMapper());
+	}
+
+	@AfterEach
+	void stopStubs() {
+		server.disposeNow();
+	}
+
+	@Test
+	void failedLegIsReturnedAsNull() {
+		CustomerDetailsComposer.Result result = composer.compose(headers(), CUSTOMER).block();
+
+		assertTrue(result.isPartial());
+		assertFalse(result.isEmpty());
+		assertEquals("[cards]", result.getFailedLegs().toString());
+		assertEquals(186576453, result.getDetails().get("accounts").get("accountNumber").asInt());
+		assertEquals(1, result.getDetails().get("loans").size());
+		assertTrue(result.getDetails().get("cards").isNull());
+	}
+
+	@Test
+	void slowLegIsCutOffByItsTimeout() {
+		properties.getCards().setUri(url("/slowCards"));
+		properties.getCards().setTimeout(Duration.ofMillis(100));
+
+		long start = System.nanoTime();
+		CustomerDetailsComposer.Result result = composer.compose(headers(), CUSTOMER).block();
+
+		assertEquals("[cards]", result.getFailedLegs().toString());
+		assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(1)) < 0);
+	}
+
+	@Test
+	void correlationIdAndClaimHeadersAreForwarded() {
+		properties.getCards().setUri(url("/echoHeaders"));
+
+		CustomerDetailsComposer.Result result = composer.compose(headers(), CUSTOMER).block();
+
+		assertFalse(result.isPartial());
+		assertEquals("test-id", result.getDetails().get("cards").get("correlationId").asText());
+		assertEquals("user-1", result.getDetails().get("cards").get("userId").asText());
+	}
+
+	private HttpHeaders headers() {
+		HttpHeaders headers = new HttpHeaders();
+		headers.set(FilterUtility.CORRELATION_ID, "test-id");
+		headers.set("X-User-Id", "user-1");
+		return headers;
+	}
+
+	private String url(String path) {
+		return "http://localhost:" + server.port() + path;
+	}
+
+}
@@ -0,0 +1,126 @@
+package com.revature.gatewayserver.composition;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.revature.gatewayserver.config.CompositionProperties;
+import com.revature.gatewayserver.filters.FilterUtility;
+
+import reactor.core.publisher.Mono;
+import reactor.netty.ByteBufFlux;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+
+/**
+ * Compares the two ways of serving myCustomerDetails, as seen from the gateway:
+ *
+ * current  - gateway -> accounts, and accounts calls loans, then cards (Feign)
+ * composed - gateway -> accounts, loans and cards at the same time
+ *
+ * The stub services sleep for roughly what the real ones spend in H2 and
+ * Tomcat. Run with: mvn test -Pbenchmark -Dtest=CustomerDetailsCompositionBenchmark
+ */
+@Tag("benchmark")
+class CustomerDetailsCompositionBenchmark {
+
+	private static final int WARMUP = 30;
+	private static final int ITERATIONS = 100;
+	private static final byte[] CUSTOMER = "{\"customerId\":1}".getBytes();
+
+	private static final AtomicInteger hops = new AtomicInteger();
+	private static DisposableServer loans;
+	private static DisposableServer cards;
+	private static DisposableServer accounts;
+
+	@BeforeAll
+	static void startStubs() {
+		loans = stub("/myLoans", "[{\"loanNumber\":1},{\"loanNumber\":2}]", 30);
+		cards = stub("/myCards", "[{\"cardId\":1}]", 30);
+		HttpClient client = HttpClient.create();
+		accounts = HttpServer.create().port(0).route(routes -> routes
+				.post("/myAccount", (req, res) -> {
+					hops.incrementAndGet();
+					return res.sendString(Mono.just("{\"accountNumber\":1}").delayElement(Duration.ofMillis(20)));
+				})
+				// what AccountsController.myCustomerDetails does today: DB, then loans, then cards
+				.post("/myCustomerDetails", (req, res) -> {
+					hops.incrementAndGet();
+					Mono<String> details = Mono.delay(Duration.ofMillis(20))
+							.then(post(client, loans, "/myLoans"))
+							.flatMap(l -> post(client, cards, "/myCards").map(c -> "{\"loans\":" + l + ",\"cards\":" + c + "}"));
+					return res.sendString(details);
+				}))
+				.bindNow();
+	}
+
+	@AfterAll
+	static void stopStubs() {
+		accounts.disposeNow();
+		loans.disposeNow();
+		cards.disposeNow();
+	}
+
+	@Test
+	void compareLatencyAndHops() {
+		WebClient webClient = WebClient.create();
+
+		CompositionProperties properties = new CompositionProperties();
+		properties.getAccounts().setUri(url(accounts, "/myAccount"));
+		properties.getLoans().setUri(url(loans, "/myLoans"));
+		properties.getCards().setUri(url(cards, "/myCards"));
+		CustomerDetailsComposer composer = new CustomerDetailsComposer(webClient, properties, new ObjectMapper());
+
+		Mono<?> current = webClient.post().uri(url(accounts, "/myCustomerDetails")).bodyValue(CUSTOMER).retrieve()
+				.bodyToMono(String.class);
+		HttpHeaders headers = new HttpHeaders();
+		headers.set(FilterUtility.CORRELATION_ID, "bench");
+		Mono<?> composed = composer.compose(headers, CUSTOMER);
+
+		report("current (accounts fans out serially)", current, 3);
+		report("composed (gateway fans out in parallel)", composed, 1);
+	}
+
+	private void report(String name, Mono<?> call, int sequentialHops) {
+		for (int i = 0; i < WARMUP; i++) {
+			call.block();
+		}
+		hops.set(0);
+		long[] latencies = new long[ITERATIONS];
+		for (int i = 0; i < ITERATIONS; i++) {
+			long start = System.nanoTime();
+			call.block();
+			latencies[i] = System.nanoTime() - start;
+		}
+		Arrays.sort(latencies);
+		System.out.printf("%-42s p50=%6.1fms p99=%6.1fms hops/request=%.1f sequential hops=%d%n", name,
+				latencies[ITERATIONS / 2] / 1e6, latencies[ITERATIONS * 99 / 100] / 1e6,
+				hops.get() / (double) ITERATIONS, sequentialHops);
+	}
+
+	private static DisposableServer stub(String path, String body, long delayMillis) {
+		return HttpServer.create().port(0).route(routes -> routes.post(path, (req, res) -> {
+			hops.incrementAndGet();
+			return res.sendString(Mono.just(body).delayElement(Duration.ofMillis(delayMillis)));
+		})).bindNow();
+	}
+
+	private static Mono<String> post(HttpClient client, DisposableServer server, String path) {
+		return client.post().uri(url(server, path)).send(ByteBufFlux.fromString(Mono.just("{}")))
+				.responseContent().aggregate().asString();
+	}
+
+	private static String url(DisposableServer server, String path) {
+		return "http://localhost:" + server.port() + path;
+	}
+
+}
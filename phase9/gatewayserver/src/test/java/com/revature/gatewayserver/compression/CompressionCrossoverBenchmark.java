@@ -0,0 +1,86 @@
+package com.revature.gatewayserver.compression;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Where does compressing a response start to pay off? For every body size this
+ * measures the CPU time of gzip at the configured level and adds the time the
+ * bytes take on the wire, once for a slow mobile link and once for a fast one.
+ * The crossover is the smallest size where the compressed response arrives
+ * first, which is what gatewayserver.compression.min-response-size is based on.
+ *
+ * Run with: mvn test -Pbenchmark -Dtest=CompressionCrossoverBenchmark
+ */
+@Tag("benchmark")
+class CompressionCrossoverBenchmark {
+
+	private static final int[] SIZES = { 128, 256, 512, 768, 1024, 1536, 2048, 4096, 16384, 65536 };
+	private static final int ITERATIONS = 2000;
+	private static final int LEVEL = 6;
+	// bits per second
+	private static final double SLOW_LINK = 1_000_000;
+	private static final double FAST_LINK = 100_000_000;
+	// TCP/IP headers per 1460 byte segment
+	private static final int SEGMENT = 1460;
+	private static final int SEGMENT_OVERHEAD = 40;
+
+	@Test
+	void findCrossover() {
+		byte[] body = StreamingCompressorTests.loans(2000);
+		Integer slowCrossover = null;
+		Integer fastCrossover = null;
+
+		System.out.printf("%8s %8s %8s %10s %12s %12s %12s %12s%n", "size", "gzipped", "ratio", "cpu(us)",
+				"slow plain", "slow gzip", "fast plain", "fast gzip");
+		for (int size : SIZES) {
+			byte[] payload = Arrays.copyOf(body, size);
+			// warm up the JIT and zlib
+			for (int i = 0; i < ITERATIONS / 4; i++) {
+				compress(payload);
+			}
+			long nanos = 0;
+			int compressedSize = 0;
+			for (int i = 0; i < ITERATIONS; i++) {
+				long start = System.nanoTime();
+				compressedSize = compress(payload);
+				nanos += System.nanoTime() - start;
+			}
+			double cpuMicros = nanos / 1000.0 / ITERATIONS;
+
+			double slowPlain = wireMicros(size, SLOW_LINK);
+			double slowGzip = cpuMicros + wireMicros(compressedSize, SLOW_LINK);
+			double fastPlain = wireMicros(size, FAST_LINK);
+			double fastGzip = cpuMicros + wireMicros(compressedSize, FAST_LINK);
+			if (slowCrossover == null && slowGzip < slowPlain) {
+				slowCrossover = size;
+			}
+			if (fastCrossover == null && fastGzip < fastPlain) {
+				fastCrossover = size;
+			}
+			System.out.printf("%8d %8d %8.2f %10.1f %12.1f %12.1f %12.1f %12.1f%n", size, compressedSize,
+					compressedSize / (double) size, cpuMicros, slowPlain, slowGzip, fastPlain, fastGzip);
+		}
+		System.out.println("Crossover on a 1 Mbit/s link: " + describe(slowCrossover));
+		System.out.println("Crossover on a 100 Mbit/s link: " + describe(fastCrossover));
+	}
+
+	private static int compress(byte[] payload) {
+		StreamingCompressor compressor = new StreamingCompressor(ContentCoding.GZIP, LEVEL);
+		int size = compressor.compress(payload).length + compressor.finish().length;
+		compressor.end();
+		return size;
+	}
+
+	private static double wireMicros(int bytes, double bitsPerSecond) {
+		int segments = Math.max(1, (bytes + SEGMENT - 1) / SEGMENT);
+		return (bytes + segments * SEGMENT_OVERHEAD) * 8 / bitsPerSecond * 1_000_000;
+	}
+
+	private static String describe(Integer size) {
+		return size == null ? "none of the sizes tested" : size + " bytes";
+	}
+
+}
@@ -0,0 +1,93 @@
+package com.revature.gatewayserver.compression;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.junit.jupiter.api.Test;
+
+class StreamingCompressorTests {
+
+	@Test
+	void negotiatesOnQValues() {
+		assertEquals(ContentCoding.GZIP, ContentCoding.negotiate(Collections.singletonList("gzip, deflate, br")));
+		assertEquals(ContentCoding.DEFLATE, ContentCoding.negotiate(Collections.singletonList("deflate, gzip;q=0.5")));
+		assertEquals(ContentCoding.DEFLATE, ContentCoding.negotiate(Arrays.asList("gzip;q=0", "*")));
+		assertNull(ContentCoding.negotiate(Collections.singletonList("br, identity")));
+		assertNull(ContentCoding.negotiate(Collections.singletonList("*;q=0")));
+		assertNull(ContentCoding.negotiate(null));
+	}
+
+	@Test
+	void gzipChunksCanBeReadBack() throws IOException {
+		byte[] body = loans(500);
+		byte[] compressed = compressInChunks(ContentCoding.GZIP, body, 1000);
+
+		assertArrayEquals(body, readAll(new GZIPInputStream(new ByteArrayInputStream(compressed))));
+		assertTrue(compressed.length < body.length / 5);
+	}
+
+	@Test
+	void deflateChunksCanBeReadBack() throws IOException {
+		byte[] body = loans(500);
+		byte[] compressed = compressInChunks(ContentCoding.DEFLATE, body, 777);
+
+		assertArrayEquals(body, readAll(new InflaterInputStream(new ByteArrayInputStream(compressed))));
+	}
+
+	@Test
+	void emptyBodyIsStillValidGzip() throws IOException {
+		byte[] compressed = compressInChunks(ContentCoding.GZIP, new byte[0], 10);
+		assertEquals(0, readAll(new GZIPInputStream(new ByteArrayInputStream(compressed))).length);
+	}
+
+	private byte[] compressInChunks(ContentCoding coding, byte[] body, int chunkSize) {
+		StreamingCompressor compressor = new StreamingCompressor(coding, 6);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for (int offset = 0; offset < body.length; offset += chunkSize) {
+			byte[] chunk = Arrays.copyOfRange(body, offset, Math.min(body.length, offset + chunkSize));
+			byte[] compressed = compressor.compress(chunk);
+			out.write(compressed, 0, compressed.length);
+		}
+		byte[] rest = compressor.finish();
+		out.write(rest, 0, rest.length);
+		compressor.end();
+		assertEquals(body.length, compressor.getBytesIn());
+		assertEquals(out.size(), compressor.getBytesOut());
+		return out.toByteArray();
+	}
+
+	static byte[] loans(int count) {
+		StringBuilder json = new StringBuilder("[");
+		for (int i = 0; i < count; i++) {
+			json.append(i == 0 ? "" : ",").append("{\"loanNumber\":").append(1000 + i)
+					.append(",\"customerId\":1,\"startDt\":\"2021-10-").append(10 + i % 20)
+					.append("\",\"loanType\":\"").append(i % 2 == 0 ? "Home" : "Vehicle")
+					.append("\",\"totalLoan\":").append(200000 + i * 37).append(",\"amountPaid\":")
+					.append(50000 + i * 11).append(",\"outstandingAmount\":").append(150000 + i * 26).append('}');
+		}
+		return json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static byte[] readAll(InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		int read;
+		while ((read = in.read(buffer)) > 0) {
+			out.write(buffer, 0, read);
+		}
+		return out.toByteArray();
+	}
+
+}
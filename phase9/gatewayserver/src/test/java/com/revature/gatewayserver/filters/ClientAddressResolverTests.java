@@ -0,0 +1,58 @@
+package com.revature.gatewayserver.filters;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+
+import com.revature.gatewayserver.config.ClientAddressProperties;
+
+class ClientAddressResolverTests {
+
+	private final ClientAddressResolver resolver = resolver("10.0.0.0/8", "192.168.1.5");
+
+	@Test
+	void forwardedForIsIgnoredFromAnyoneElse() {
+		assertEquals("203.0.113.9", resolver.getClientAddress(request("203.0.113.9", "10.1.2.3")));
+		assertEquals("203.0.113.9", resolver.getClientAddress(request("203.0.113.9", null)));
+	}
+
+	@Test
+	void theFirstUntrustedHopFromTheRightIsTheClient() {
+		// the client made up the first entry, our ingress appended the address it saw
+		assertEquals("203.0.113.9",
+				resolver.getClientAddress(request("10.0.0.2", "198.51.100.1, 203.0.113.9, 192.168.1.5")));
+		assertEquals("10.0.0.3", resolver.getClientAddress(request("10.0.0.2", "10.0.0.3")));
+		assertEquals("10.0.0.2", resolver.getClientAddress(request("10.0.0.2", null)));
+	}
+
+	@Test
+	void matchesAddressesAndRanges() {
+		assertEquals(true, resolver.isTrustedProxy("10.255.0.1"));
+		assertEquals(true, resolver.isTrustedProxy("192.168.1.5"));
+		assertEquals(false, resolver.isTrustedProxy("192.168.1.6"));
+		assertEquals(false, resolver.isTrustedProxy("11.0.0.1"));
+		assertEquals(false, resolver.isTrustedProxy("localhost"));
+	}
+
+	private static MockServerHttpRequest request(String remote, String forwardedFor) {
+		MockServerHttpRequest.BaseBuilder<?> builder = MockServerHttpRequest.get("/bank/loans/myLoans")
+				.remoteAddress(new InetSocketAddress(remote, 40000));
+		if (forwardedFor != null) {
+			builder.header(ClientAddressResolver.FORWARDED_FOR, forwardedFor);
+		}
+		return builder.build();
+	}
+
+	private static ClientAddressResolver resolver(String... trustedProxies) {
+		ClientAddressProperties properties = new ClientAddressProperties();
+		properties.setTrustedProxies(Arrays.asList(trustedProxies));
+		ClientAddressResolver resolver = new ClientAddressResolver();
+		resolver.properties = properties;
+		return resolver;
+	}
+
+}
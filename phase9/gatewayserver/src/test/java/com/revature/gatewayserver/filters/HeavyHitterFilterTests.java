@@ -0,0 +1,90 @@
+package com.revature.gatewayserver.filters;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.revature.gatewayserver.config.ClientAddressProperties;
+import com.revature.gatewayserver.config.HeavyHitterProperties;
+import com.revature.gatewayserver.config.JwtProperties;
+import com.revature.gatewayserver.hotkeys.HeavyHitterDetector;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.buffer.ByteBufAllocator;
+
+class HeavyHitterFilterTests {
+
+	private final Route route = Route.async().id("loans").uri(URI.create("lb://LOANS")).predicate(exchange -> true)
+			.build();
+
+	@Test
+	void forgedCustomerIdHeaderIsIgnoredWithoutJwt() {
+		HeavyHitterProperties properties = new HeavyHitterProperties();
+		properties.getThrottle().setEnabled(true);
+		properties.getThrottle().setMaxShare(0.5);
+		properties.getThrottle().setMinRequests(4);
+		HeavyHitterFilter heavyHitters = heavyHitterFilter(properties);
+		JwtAuthenticationFilter jwt = jwtFilter();
+
+		HttpStatus[] statuses = new HttpStatus[5];
+		for (int i = 0; i < statuses.length; i++) {
+			// a new header every time, hoping to never reach a customer's share
+			ServerWebExchange exchange = exchange("203.0.113." + i, "customer-" + i, "{\"customerId\":1}");
+			jwt.filter(exchange, forwarded -> heavyHitters.filter(forwarded,
+					upstream -> upstream.getResponse().setComplete())).block();
+			statuses[i] = exchange.getResponse().getStatusCode();
+		}
+
+		HeavyHitterDetector customers = heavyHitters.getDetectors().get("loans").get(HeavyHitterFilter.CUSTOMER);
+		List<String> counted = customers.getTop().stream().map(HeavyHitterDetector.HeavyHitter::getKey)
+				.collect(Collectors.toList());
+		assertEquals(Collections.singletonList("1"), counted);
+		assertEquals(HttpStatus.TOO_MANY_REQUESTS, statuses[4]);
+	}
+
+	private ServerWebExchange exchange(String remote, String customerIdHeader, String body) {
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.post("/bank/loans/myLoans")
+				.remoteAddress(new InetSocketAddress(remote, 40000)).header("X-Customer-Id", customerIdHeader)
+				.contentType(MediaType.APPLICATION_JSON).contentLength(body.length()).body(body));
+		exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+		// the gateway caches request bodies in Netty buffers, like a real server response would hand out
+		return exchange.mutate()
+				.response(new MockServerHttpResponse(new NettyDataBufferFactory(ByteBufAllocator.DEFAULT))).build();
+	}
+
+	private static HeavyHitterFilter heavyHitterFilter(HeavyHitterProperties properties) {
+		ClientAddressResolver resolver = new ClientAddressResolver();
+		resolver.properties = new ClientAddressProperties();
+		HeavyHitterFilter filter = new HeavyHitterFilter();
+		filter.properties = properties;
+		filter.objectMapper = new ObjectMapper();
+		filter.meterRegistry = new SimpleMeterRegistry();
+		filter.clientAddressResolver = resolver;
+		return filter;
+	}
+
+	// gatewayserver.jwt.enabled=false, the default
+	private static JwtAuthenticationFilter jwtFilter() {
+		JwtAuthenticationFilter filter = new JwtAuthenticationFilter();
+		filter.properties = new JwtProperties();
+		filter.meterRegistry = new SimpleMeterRegistry();
+		return filter;
+	}
+
+}
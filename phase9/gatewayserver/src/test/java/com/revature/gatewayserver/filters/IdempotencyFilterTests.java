@@ -0,0 +1,89 @@
+package com.revature.gatewayserver.filters;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.revature.gatewayserver.config.IdempotencyProperties;
+import com.revature.gatewayserver.config.JwtProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.buffer.ByteBufAllocator;
+import reactor.core.publisher.Mono;
+
+class IdempotencyFilterTests {
+
+	private final IdempotencyFilter filter = new IdempotencyFilter();
+	private final AtomicInteger sent = new AtomicInteger();
+
+	@BeforeEach
+	void setUp() {
+		filter.properties = new IdempotencyProperties();
+		filter.jwtProperties = new JwtProperties();
+		filter.meterRegistry = new SimpleMeterRegistry();
+		filter.createStore();
+	}
+
+	@Test
+	void usersDontShareAKey() {
+		ServerWebExchange alice = send("alice");
+		ServerWebExchange bob = send("bob");
+
+		assertEquals(2, sent.get());
+		assertNull(bob.getResponse().getHeaders().getFirst(IdempotencyFilter.REPLAYED_HEADER));
+		assertEquals(HttpStatus.OK, alice.getResponse().getStatusCode());
+		assertEquals("for bob", body(bob));
+	}
+
+	@Test
+	void aUserSendingAgainGetsTheStoredResponse() {
+		send("alice");
+		ServerWebExchange again = send("alice");
+
+		assertEquals(1, sent.get());
+		assertEquals("true", again.getResponse().getHeaders().getFirst(IdempotencyFilter.REPLAYED_HEADER));
+		assertEquals("for alice", body(again));
+	}
+
+	// The same key and body, as the user the JWT filter verified
+	private ServerWebExchange send(String userId) {
+		String body = "{\"customerId\":1}";
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.post("/bank/accounts/myAccount")
+				.header("Idempotency-Key", "payment-1").header("X-User-Id", userId)
+				.contentType(MediaType.APPLICATION_JSON).contentLength(body.length()).body(body));
+		exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR,
+				Route.async().id("accounts").uri(URI.create("lb://ACCOUNTS")).predicate(e -> true).build());
+		// the gateway caches request bodies in Netty buffers, like a real server response would hand out
+		ServerWebExchange netty = exchange.mutate()
+				.response(new MockServerHttpResponse(new NettyDataBufferFactory(ByteBufAllocator.DEFAULT))).build();
+		filter.filter(netty, forwarded -> {
+			sent.incrementAndGet();
+			forwarded.getResponse().setStatusCode(HttpStatus.OK);
+			byte[] answer = ("for " + forwarded.getRequest().getHeaders().getFirst("X-User-Id"))
+					.getBytes(StandardCharsets.UTF_8);
+			return forwarded.getResponse()
+					.writeWith(Mono.fromSupplier(() -> forwarded.getResponse().bufferFactory().wrap(answer)));
+		}).block();
+		return netty;
+	}
+
+	private static String body(ServerWebExchange exchange) {
+		return ((MockServerHttpResponse) exchange.getResponse()).getBodyAsString().block();
+	}
+
+}
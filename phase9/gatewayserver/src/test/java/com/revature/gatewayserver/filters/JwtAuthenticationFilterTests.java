@@ -0,0 +1,65 @@
+package com.revature.gatewayserver.filters;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.revature.gatewayserver.config.JwtProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class JwtAuthenticationFilterTests {
+
+	private final JwtAuthenticationFilter filter = filter();
+
+	@Test
+	void discoveryLocatorRoutesNeedAToken() {
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.post("/accounts/myAccount"));
+
+		assertNull(filter(exchange));
+		assertEquals(HttpStatus.UNAUTHORIZED, exchange.getResponse().getStatusCode());
+	}
+
+	@Test
+	void bankRoutesNeedAToken() {
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.post("/bank/loans/myLoans"));
+
+		assertNull(filter(exchange));
+		assertEquals(HttpStatus.UNAUTHORIZED, exchange.getResponse().getStatusCode());
+	}
+
+	@Test
+	void excludedPathsGoThrough() {
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/actuator/health"));
+
+		assertEquals("/actuator/health", filter(exchange).getRequest().getPath().value());
+		assertNull(exchange.getResponse().getStatusCode());
+	}
+
+	// The exchange the rest of the chain got, null if the request was stopped
+	private ServerWebExchange filter(ServerWebExchange exchange) {
+		AtomicReference<ServerWebExchange> forwarded = new AtomicReference<>();
+		filter.filter(exchange, next -> {
+			forwarded.set(next);
+			return next.getResponse().setComplete();
+		}).block();
+		return forwarded.get();
+	}
+
+	private static JwtAuthenticationFilter filter() {
+		JwtProperties properties = new JwtProperties();
+		properties.setEnabled(true);
+		JwtAuthenticationFilter filter = new JwtAuthenticationFilter();
+		filter.properties = properties;
+		filter.meterRegistry = new SimpleMeterRegistry();
+		return filter;
+	}
+
+}
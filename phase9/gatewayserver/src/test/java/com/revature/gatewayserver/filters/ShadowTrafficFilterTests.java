@@ -0,0 +1,133 @@
+package com.revature.gatewayserver.filters;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.handler.FilteringWebHandler;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.revature.gatewayserver.config.ShadowProperties;
+import com.revature.gatewayserver.shadow.ShadowTrafficMirror;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.buffer.ByteBufAllocator;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+class ShadowTrafficFilterTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	// correlation id each side was called with
+	private final Map<String, String> correlationIds = new ConcurrentHashMap<>();
+	private DisposableServer shadowService;
+	private ShadowTrafficMirror mirror;
+
+	@BeforeEach
+	void start() {
+		// like LoansController, which answers 400 without a correlation id
+		shadowService = HttpServer.create().port(0).route(routes -> routes.post("/myLoans", (req, res) -> {
+			String correlationId = req.requestHeaders().get(FilterUtility.CORRELATION_ID);
+			if (correlationId == null) {
+				return res.status(HttpStatus.BAD_REQUEST.value()).send();
+			}
+			correlationIds.put("shadow", correlationId);
+			return res.header("Content-Type", MediaType.APPLICATION_JSON_VALUE).sendString(Mono.just("[]"));
+		})).bindNow();
+		mirror = new ShadowTrafficMirror(new ShadowProperties(), WebClient.builder(), new ObjectMapper(), meterRegistry);
+	}
+
+	@AfterEach
+	void stop() {
+		mirror.destroy();
+		shadowService.disposeNow();
+	}
+
+	@Test
+	void shadowGetsTheCorrelationIdTheGatewayGenerated() throws InterruptedException {
+		ShadowProperties.Route shadow = new ShadowProperties.Route();
+		shadow.setServiceId("localhost:" + shadowService.port());
+		shadow.setFraction(1.0);
+		ShadowProperties properties = new ShadowProperties();
+		properties.setRoutes(Collections.singletonMap("loans", shadow));
+		ShadowTrafficFilter shadowFilter = new ShadowTrafficFilter();
+		shadowFilter.properties = properties;
+		shadowFilter.mirror = mirror;
+		RequestTraceFilter traceFilter = new RequestTraceFilter();
+		traceFilter.filterUtility = new FilterUtility();
+
+		// the client sends no correlation id
+		handler(shadowFilter, traceFilter).handle(exchange("{\"customerId\":1}")).block();
+
+		for (int i = 0; i < 100 && count("match") + count("status-mismatch") == 0; i++) {
+			Thread.sleep(50);
+		}
+		assertEquals(1, count("match"));
+		assertNotNull(correlationIds.get("primary"));
+		assertEquals(correlationIds.get("primary"), correlationIds.get("shadow"));
+	}
+
+	private double count(String result) {
+		return meterRegistry.counter("gateway.shadow.requests", "route", "loans", "result", result).count();
+	}
+
+	// The global filters in the order the gateway runs them, with the primary service at the end
+	private FilteringWebHandler handler(GlobalFilter... filters) {
+		GlobalFilter[] all = Arrays.copyOf(filters, filters.length + 1);
+		all[filters.length] = new PrimaryService();
+		return new FilteringWebHandler(Arrays.asList(all));
+	}
+
+	private ServerWebExchange exchange(String body) {
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.post("/bank/loans/myLoans")
+				.contentType(MediaType.APPLICATION_JSON).contentLength(body.length()).body(body));
+		exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR,
+				Route.async().id("loans").uri(URI.create("lb://LOANS")).predicate(e -> true).build());
+		// the gateway caches request bodies in Netty buffers, like a real server response would hand out
+		return exchange.mutate()
+				.response(new MockServerHttpResponse(new NettyDataBufferFactory(ByteBufAllocator.DEFAULT))).build();
+	}
+
+	// Stands in for the routing filters and loans
+	private class PrimaryService implements GlobalFilter, Ordered {
+
+		@Override
+		public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+			correlationIds.put("primary", exchange.getRequest().getHeaders().getFirst(FilterUtility.CORRELATION_ID));
+			exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR,
+					URI.create("http://loans/myLoans"));
+			exchange.getResponse().getHeaders().setContentType(MediaType.APPLICATION_JSON);
+			return exchange.getResponse().writeWith(Mono.fromSupplier(
+					() -> exchange.getResponse().bufferFactory().wrap("[]".getBytes(StandardCharsets.UTF_8))));
+		}
+
+		@Override
+		public int getOrder() {
+			return Ordered.LOWEST_PRECEDENCE;
+		}
+	}
+
+}
@@ -0,0 +1,67 @@
+package com.revature.gatewayserver.hotkeys;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+class HeavyHitterDetectorTests {
+
+	private final AtomicLong now = new AtomicLong(1_000_000);
+
+	@Test
+	void sketchNeverUnderestimates() {
+		CountMinSketch sketch = new CountMinSketch(256, 4);
+		Random random = new Random(42);
+		int[] counts = new int[5000];
+		for (int i = 0; i < 100_000; i++) {
+			int customer = random.nextInt(counts.length);
+			counts[customer]++;
+			sketch.add("customer-" + customer);
+		}
+		long overestimated = 0;
+		for (int customer = 0; customer < counts.length; customer++) {
+			long estimate = sketch.estimate("customer-" + customer);
+			assertTrue(estimate >= counts[customer]);
+			overestimated += estimate - counts[customer];
+		}
+		// on average off by less than total / width
+		assertTrue(overestimated / counts.length < 100_000 / 256, "average error " + overestimated / counts.length);
+	}
+
+	@Test
+	void findsTheHotCustomersAmongMany() {
+		HeavyHitterDetector detector = new HeavyHitterDetector(1024, 4, 5, 60_000, now::get);
+		Random random = new Random(7);
+		for (int i = 0; i < 50_000; i++) {
+			int pick = random.nextInt(100);
+			// customers 1 and 2 send 30% and 10% of the requests, 20000 others share the rest
+			String key = pick < 30 ? "1" : pick < 40 ? "2" : String.valueOf(1000 + random.nextInt(20_000));
+			detector.add(key);
+		}
+		List<HeavyHitterDetector.HeavyHitter> top = detector.getTop();
+		assertEquals("1", top.get(0).getKey());
+		assertEquals("2", top.get(1).getKey());
+		assertEquals(0.3, top.get(0).getShare(), 0.03);
+		assertEquals(0.1, top.get(1).getShare(), 0.03);
+	}
+
+	@Test
+	void oldTrafficFadesOut() {
+		HeavyHitterDetector detector = new HeavyHitterDetector(1024, 4, 5, 60_000, now::get);
+		for (int i = 0; i < 1000; i++) {
+			detector.add("10.0.0.1");
+		}
+		for (int window = 0; window < 12; window++) {
+			now.addAndGet(60_000);
+			detector.add("10.0.0.2");
+		}
+		assertEquals("10.0.0.2", detector.getTop().get(0).getKey());
+		assertTrue(detector.add("10.0.0.2") > 0.5);
+	}
+
+}
@@ -0,0 +1,72 @@
+package com.revature.gatewayserver.idempotency;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+
+class IdempotencyStoreTests {
+
+	private final AtomicLong now = new AtomicLong(1_000_000);
+
+	@Test
+	void retryJoinsTheRequestInFlight() {
+		IdempotencyStore store = new IdempotencyStore(10, Duration.ofMinutes(1), now::get);
+		IdempotencyStore.Claim first = store.claim("accounts:abc", "fp");
+		IdempotencyStore.Claim retry = store.claim("accounts:abc", "fp");
+
+		assertTrue(first.isOwner());
+		assertFalse(retry.isOwner());
+		assertSame(first.getEntry(), retry.getEntry());
+		assertFalse(retry.getEntry().isCompleted());
+
+		store.complete("accounts:abc", first.getEntry(), response("{}"));
+		IdempotencyStore.StoredResponse stored = retry.getEntry().getResponse().block();
+		assertEquals(HttpStatus.OK, stored.getStatus());
+		assertArrayEquals("{}".getBytes(), stored.getBody());
+	}
+
+	@Test
+	void failedRequestIsForgotten() {
+		IdempotencyStore store = new IdempotencyStore(10, Duration.ofMinutes(1), now::get);
+		IdempotencyStore.Claim first = store.claim("loans:abc", "fp");
+		IdempotencyStore.Claim retry = store.claim("loans:abc", "fp");
+
+		store.fail("loans:abc", first.getEntry());
+
+		assertNull(retry.getEntry().getResponse().block());
+		assertTrue(retry.getEntry().isFailed());
+		assertTrue(store.claim("loans:abc", "fp").isOwner());
+	}
+
+	@Test
+	void storedResponsesExpireAndAreBounded() {
+		IdempotencyStore store = new IdempotencyStore(2, Duration.ofSeconds(30), now::get);
+		IdempotencyStore.Claim first = store.claim("cards:1", "fp");
+		store.complete("cards:1", first.getEntry(), response("[]"));
+
+		now.addAndGet(29_000);
+		assertFalse(store.claim("cards:1", "fp").isOwner());
+		now.addAndGet(2_000);
+		assertTrue(store.claim("cards:1", "fp").isOwner());
+
+		store.claim("cards:2", "fp");
+		store.claim("cards:3", "fp");
+		assertEquals(2, store.size());
+		assertTrue(store.claim("cards:1", "fp").isOwner());
+	}
+
+	private static IdempotencyStore.StoredResponse response(String body) {
+		return new IdempotencyStore.StoredResponse(HttpStatus.OK, new HttpHeaders(), body.getBytes());
+	}
+
+}
@@ -0,0 +1,62 @@
+package com.revature.gatewayserver.jwt;
+
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.revature.gatewayserver.config.JwtProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * What a JWT costs per request: a full check (parse, RS256 signature, claims)
+ * for a token seen for the first time, against the cache hit every later
+ * request with the same token gets (a SHA-256 and a map lookup).
+ *
+ * Run with: mvn test -Pbenchmark -Dtest=JwtVerificationBenchmark
+ */
+@Tag("benchmark")
+class JwtVerificationBenchmark {
+
+	private static final int ITERATIONS = 20_000;
+
+	@Test
+	void compareFullVerificationWithCacheHit(@TempDir Path dir) throws Exception {
+		RSAKey key = new RSAKeyGenerator(2048).keyID("k1").generate();
+		JwtProperties properties = new JwtProperties();
+		properties.setJwksLocation(JwtVerifierTests.jwks(dir, key));
+		JwksKeyCache keys = new JwksKeyCache(properties, new DefaultResourceLoader());
+		keys.reload();
+		JwtVerifier verifier = new JwtVerifier(properties, keys, new SimpleMeterRegistry());
+		String token = JwtVerifierTests.token(key, System.currentTimeMillis(), 3_600_000);
+
+		// warm up the JIT
+		for (int i = 0; i < ITERATIONS / 4; i++) {
+			verifier.verifySignature(token);
+			verifier.verify(token);
+		}
+
+		long start = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			verifier.verifySignature(token);
+		}
+		double fullMicros = (System.nanoTime() - start) / 1000.0 / ITERATIONS;
+
+		start = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			verifier.verify(token);
+		}
+		double cachedMicros = (System.nanoTime() - start) / 1000.0 / ITERATIONS;
+
+		System.out.printf("%-24s %10s%n", "", "us/request");
+		System.out.printf("%-24s %10.2f%n", "full verification", fullMicros);
+		System.out.printf("%-24s %10.2f%n", "verified-token cache", cachedMicros);
+		System.out.printf("Cache hit is %.0fx cheaper%n", fullMicros / cachedMicros);
+	}
+
+}
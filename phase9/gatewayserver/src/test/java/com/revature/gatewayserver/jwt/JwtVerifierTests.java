@@ -0,0 +1,118 @@
+package com.revature.gatewayserver.jwt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.revature.gatewayserver.config.JwtProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class JwtVerifierTests {
+
+	private final AtomicLong now = new AtomicLong(System.currentTimeMillis());
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private RSAKey key;
+	private JwtVerifier verifier;
+
+	@BeforeEach
+	void setUp(@TempDir Path dir) throws Exception {
+		key = new RSAKeyGenerator(2048).keyID("k1").generate();
+		verifier = new JwtVerifier(properties(jwks(dir, key)), keys(jwks(dir, key)), meterRegistry, now::get);
+	}
+
+	@Test
+	void validTokenBecomesClaimHeaders() throws Exception {
+		VerifiedTokenCache.VerifiedToken verified = verifier.verify(token(key, 60_000));
+
+		assertEquals("alice", verified.getHeaders().get("X-User-Id"));
+		assertEquals("42", verified.getHeaders().get("X-Customer-Id"));
+		assertEquals("accounts loans", verified.getHeaders().get("X-User-Scope"));
+	}
+
+	@Test
+	void rejectsExpiredTokensAndForeignKeys() throws Exception {
+		String expired = token(key, -60_000);
+		assertThrows(InvalidTokenException.class, () -> verifier.verify(expired));
+
+		RSAKey other = new RSAKeyGenerator(2048).keyID("k1").generate();
+		String forged = token(other, 60_000);
+		assertThrows(InvalidTokenException.class, () -> verifier.verify(forged));
+
+		assertThrows(InvalidTokenException.class, () -> verifier.verify("not.a.token"));
+		assertEquals(0, verifier.getCache().size());
+	}
+
+	@Test
+	void verifiedTokenIsCachedUntilItExpires() throws Exception {
+		String token = token(key, 60_000);
+		VerifiedTokenCache.VerifiedToken first = verifier.verify(token);
+		assertSame(first, verifier.verify(token));
+		assertNotNull(verifier.getCache().get(VerifiedTokenCache.digest(token), now.get()));
+		assertEquals(1, meterRegistry.counter("gateway.jwt.requests", "result", "verified").count());
+		assertEquals(1, meterRegistry.counter("gateway.jwt.requests", "result", "cached").count());
+
+		// past the expiry the cached entry is gone and the token itself fails again
+		now.addAndGet(60_000 + 31_000);
+		assertThrows(InvalidTokenException.class, () -> verifier.verify(token));
+		assertEquals(0, verifier.getCache().size());
+		assertEquals(1, meterRegistry.counter("gateway.jwt.requests", "result", "rejected").count());
+	}
+
+	private JwtProperties properties(String location) {
+		JwtProperties properties = new JwtProperties();
+		properties.setEnabled(true);
+		properties.setJwksLocation(location);
+		return properties;
+	}
+
+	private JwksKeyCache keys(String location) {
+		JwksKeyCache keys = new JwksKeyCache(properties(location), new DefaultResourceLoader());
+		keys.reload();
+		return keys;
+	}
+
+	static String jwks(Path dir, RSAKey key) throws Exception {
+		Path file = dir.resolve("jwks.json");
+		Files.write(file, new JWKSet(key.toPublicJWK()).toString().getBytes(StandardCharsets.UTF_8));
+		return file.toUri().toString();
+	}
+
+	String token(RSAKey signingKey, long validFor) throws JOSEException {
+		return token(signingKey, now.get(), validFor);
+	}
+
+	static String token(RSAKey signingKey, long issuedAt, long validFor) throws JOSEException {
+		JWTClaimsSet claims = new JWTClaimsSet.Builder().subject("alice").claim("customerId", 42)
+				.claim("scope", Arrays.asList("accounts", "loans")).issueTime(new Date(issuedAt))
+				.expirationTime(new Date(issuedAt + validFor)).build();
+		SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(signingKey.getKeyID()).build(),
+				claims);
+		jwt.sign(new RSASSASigner(signingKey));
+		return jwt.serialize();
+	}
+
+}
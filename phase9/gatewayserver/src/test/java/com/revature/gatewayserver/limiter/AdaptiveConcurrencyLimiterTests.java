@@ -0,0 +1,92 @@
+package com.revature.gatewayserver.limiter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.revature.gatewayserver.config.ConcurrencyLimitProperties;
+
+class AdaptiveConcurrencyLimiterTests {
+
+	private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+	private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(100);
+
+	@Test
+	void rejectsOnceLimitIsReached() {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(new AimdLimit(2, 1, 10, 0.9));
+
+		assertEquals(1, limiter.tryAcquire());
+		assertEquals(2, limiter.tryAcquire());
+		assertEquals(-1, limiter.tryAcquire());
+		assertEquals(1, limiter.getRejected());
+
+		limiter.release();
+		assertEquals(2, limiter.tryAcquire());
+	}
+
+	@Test
+	void aimdGrowsOnSuccessAndBacksOffOnDrop() {
+		AimdLimit limit = new AimdLimit(10, 1, 100, 0.5);
+
+		limit.onSample(FAST, 10, false);
+		assertEquals(11, limit.getLimit());
+
+		limit.onSample(FAST, 11, true);
+		assertEquals(5, limit.getLimit());
+	}
+
+	@Test
+	void aimdDoesNotGrowWhenIdle() {
+		AimdLimit limit = new AimdLimit(10, 1, 100, 0.5);
+		limit.onSample(FAST, 1, false);
+		assertEquals(10, limit.getLimit());
+	}
+
+	@Test
+	void gradientShrinksWhenResponsesSlowDown() {
+		GradientLimit limit = new GradientLimit(50, 1, 200, 1.5, 0.5, 100);
+		for (int i = 0; i < 50; i++) {
+			limit.onSample(FAST, limit.getLimit(), false);
+		}
+		int healthy = limit.getLimit();
+
+		for (int i = 0; i < 20; i++) {
+			limit.onSample(SLOW, limit.getLimit(), false);
+		}
+		assertTrue(limit.getLimit() < healthy, "limit should drop once RTT grows: " + limit.getLimit());
+	}
+
+	@Test
+	void limitStaysWithinBounds() {
+		GradientLimit limit = new GradientLimit(5, 2, 8, 1.5, 1.0, 100);
+		for (int i = 0; i < 100; i++) {
+			limit.onSample(FAST, limit.getLimit(), false);
+		}
+		assertEquals(8, limit.getLimit());
+		for (int i = 0; i < 100; i++) {
+			limit.onSample(SLOW, limit.getLimit(), true);
+		}
+		assertEquals(2, limit.getLimit());
+	}
+
+	@Test
+	void gradientRecoversAndGrowsWithTheDefaultSmoothing() {
+		ConcurrencyLimitProperties properties = new ConcurrencyLimitProperties();
+		GradientLimit limit = new GradientLimit(properties.getInitialLimit(), properties.getMinLimit(),
+				properties.getMaxLimit(), properties.getRttTolerance(), properties.getSmoothing(),
+				properties.getLongWindow());
+		for (int i = 0; i < 50; i++) {
+			limit.onSample(FAST, limit.getLimit(), true);
+		}
+		assertEquals(properties.getMinLimit(), limit.getLimit());
+
+		for (int i = 0; i < 200; i++) {
+			limit.onSample(FAST, limit.getLimit(), false);
+		}
+		assertTrue(limit.getLimit() > properties.getInitialLimit(), "limit should grow back: " + limit.getLimit());
+	}
+
+}
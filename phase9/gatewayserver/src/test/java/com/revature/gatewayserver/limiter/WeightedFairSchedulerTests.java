@@ -0,0 +1,105 @@
+package com.revature.gatewayserver.limiter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+import com.revature.gatewayserver.config.PriorityProperties;
+
+import reactor.core.Disposable;
+import reactor.core.scheduler.Schedulers;
+
+class WeightedFairSchedulerTests {
+
+	@Test
+	void waitingClassesShareSlotsByWeight() {
+		WeightedFairScheduler scheduler = scheduler(100);
+		WeightedFairScheduler.Permit first = scheduler.acquire("interactive").block();
+
+		// the batch burst arrives first and still only gets its share
+		List<String> admitted = new ArrayList<>();
+		List<WeightedFairScheduler.Permit> permits = new ArrayList<>();
+		for (String trafficClass : new String[] { "batch", "interactive" }) {
+			for (int i = 0; i < 10; i++) {
+				scheduler.acquire(trafficClass).subscribe(permit -> {
+					admitted.add(trafficClass);
+					permits.add(permit);
+				});
+			}
+		}
+		assertEquals(10, scheduler.getQueued("batch"));
+
+		first.release(1_000_000, false);
+		for (int i = 0; i < 9; i++) {
+			permits.get(i).release(1_000_000, false);
+		}
+		assertEquals(10, admitted.size());
+		assertEquals(8, admitted.stream().filter("interactive"::equals).count());
+	}
+
+	@Test
+	void lowPriorityIsShedFirstWhenTheQueueIsFull() {
+		WeightedFairScheduler scheduler = scheduler(2);
+		scheduler.acquire("interactive").block();
+
+		AtomicReference<Throwable> oldBatch = new AtomicReference<>();
+		AtomicReference<Throwable> newBatch = new AtomicReference<>();
+		scheduler.acquire("batch").subscribe(permit -> {
+		}, oldBatch::set);
+		scheduler.acquire("batch").subscribe(permit -> {
+		}, newBatch::set);
+		scheduler.acquire("interactive").subscribe();
+
+		assertEquals(null, oldBatch.get());
+		assertEquals(QueueRejectedException.SHED, ((QueueRejectedException) newBatch.get()).getReason());
+
+		// nobody below batch to make room for it
+		AtomicReference<Throwable> lastBatch = new AtomicReference<>();
+		scheduler.acquire("batch").subscribe(permit -> {
+		}, lastBatch::set);
+		assertEquals(QueueRejectedException.QUEUE_FULL, ((QueueRejectedException) lastBatch.get()).getReason());
+	}
+
+	@Test
+	void waitingRequestsTimeOutOrGiveUpTheirPlace() throws Exception {
+		WeightedFairScheduler scheduler = scheduler(100);
+		scheduler.acquire("interactive").block();
+
+		AtomicReference<Throwable> timedOut = new AtomicReference<>();
+		scheduler.acquire("interactive").subscribe(permit -> {
+		}, timedOut::set);
+		Disposable cancelled = scheduler.acquire("batch").subscribe();
+		cancelled.dispose();
+		assertEquals(0, scheduler.getQueued("batch"));
+
+		Thread.sleep(300);
+		assertTrue(timedOut.get() instanceof QueueRejectedException);
+		assertEquals(QueueRejectedException.TIMEOUT, ((QueueRejectedException) timedOut.get()).getReason());
+		assertEquals(0, scheduler.getQueued("interactive"));
+	}
+
+	private WeightedFairScheduler scheduler(int maxQueueSize) {
+		PriorityProperties properties = new PriorityProperties();
+		properties.setMaxQueueSize(maxQueueSize);
+		properties.getClasses().put("interactive", trafficClass(4, 10, Duration.ofMillis(100)));
+		properties.getClasses().put("batch", trafficClass(1, 0, Duration.ofSeconds(10)));
+		// a limit of exactly one request in flight
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(new AimdLimit(1, 1, 1, 0.9));
+		return new WeightedFairScheduler(limiter, properties, Schedulers.parallel());
+	}
+
+	private PriorityProperties.TrafficClass trafficClass(int weight, int priority, Duration maxQueueTime) {
+		PriorityProperties.TrafficClass trafficClass = new PriorityProperties.TrafficClass();
+		trafficClass.setWeight(weight);
+		trafficClass.setPriority(priority);
+		trafficClass.setMaxQueueTime(maxQueueTime);
+		return trafficClass;
+	}
+
+}
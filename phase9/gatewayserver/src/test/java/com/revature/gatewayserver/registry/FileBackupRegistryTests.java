@@ -0,0 +1,61 @@
+package com.revature.gatewayserver.registry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.discovery.shared.Application;
+import com.netflix.discovery.shared.Applications;
+
+class FileBackupRegistryTests {
+
+	@TempDir
+	Path directory;
+
+	@AfterEach
+	void forgetFile() {
+		FileBackupRegistry.use(null);
+	}
+
+	@Test
+	void startsWithTheSavedRegistry() throws Exception {
+		Applications applications = new Applications();
+		applications.addApplication(application("LOANS", "loans-1", 8090));
+		applications.addApplication(application("CARDS", "cards-1", 9000));
+		applications.setAppsHashCode(applications.getReconcileHashCode());
+		applications.setVersion(42L);
+		RegistryCacheFile file = new RegistryCacheFile(directory.resolve("cache/gatewayserver.json"));
+		file.write(applications);
+		FileBackupRegistry.use(file);
+
+		Applications loaded = new FileBackupRegistry().fetchRegistry();
+
+		assertEquals(applications.getAppsHashCode(), loaded.getReconcileHashCode());
+		assertEquals(8090, loaded.getRegisteredApplications("LOANS").getByInstanceId("loans-1").getPort());
+		// so that the first fetch from Eureka is a full one
+		assertEquals(-1L, loaded.getVersion());
+		assertTrue(FileBackupRegistry.getLoadedSavedAt() > 0);
+	}
+
+	@Test
+	void nothingWithoutASavedRegistry() {
+		FileBackupRegistry.use(new RegistryCacheFile(directory.resolve("gatewayserver.json")));
+
+		assertNull(new FileBackupRegistry().fetchRegistry());
+	}
+
+	private Application application(String name, String instanceId, int port) {
+		Application application = new Application(name);
+		application.addInstance(InstanceInfo.Builder.newBuilder().setAppName(name).setInstanceId(instanceId)
+				.setHostName("localhost").setPort(port).setStatus(InstanceInfo.InstanceStatus.UP).build());
+		return application;
+	}
+
+}
@@ -0,0 +1,56 @@
+package com.revature.gatewayserver.registry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+class RegistryChangesTests {
+
+	private final AtomicLong now = new AtomicLong(1000);
+	private final RegistryChanges changes = new RegistryChanges(Duration.ofSeconds(60), now::get);
+
+	@Test
+	void appliesPushedChangesOnTopOfTheRegistry() {
+		List<ServiceInstance> registry = Arrays.asList(instance("loans-1"), instance("loans-2"));
+		changes.removed("LOANS", "loans-1");
+		changes.registered(instance("loans-3"));
+
+		assertEquals(Arrays.asList("loans-2", "loans-3"), ids(changes.apply("loans", registry)));
+		// the registry caught up: nothing twice
+		assertEquals(Arrays.asList("loans-2", "loans-3"),
+				ids(changes.apply("loans", Arrays.asList(instance("loans-2"), instance("loans-3")))));
+		// a new registration wins over an earlier cancellation
+		changes.registered(instance("loans-1"));
+		assertEquals(Arrays.asList("loans-1", "loans-2", "loans-3"), ids(changes.apply("loans", registry)));
+	}
+
+	@Test
+	void forgetsChangesAfterTheirTtl() {
+		List<ServiceInstance> registry = Collections.singletonList(instance("loans-1"));
+		changes.removed("LOANS", "loans-1");
+		assertEquals(0, changes.apply("loans", registry).size());
+
+		now.addAndGet(60_000);
+		assertSame(registry, changes.apply("loans", registry));
+		assertEquals(0, changes.size());
+	}
+
+	private ServiceInstance instance(String instanceId) {
+		return new DefaultServiceInstance(instanceId, "LOANS", "localhost", 8090, false);
+	}
+
+	private List<String> ids(List<ServiceInstance> instances) {
+		return instances.stream().map(ServiceInstance::getInstanceId).sorted().collect(Collectors.toList());
+	}
+
+}
@@ -0,0 +1,72 @@
+package com.revature.gatewayserver.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+
+class RetryBudgetTests {
+
+	private final AtomicLong now = new AtomicLong(1_000_000);
+
+	@Test
+	void retriesAreCappedByRatioOfTraffic() {
+		RetryBudget budget = new RetryBudget(0.2, 0, 10, now::get);
+		for (int i = 0; i < 50; i++) {
+			budget.deposit();
+		}
+
+		int retries = 0;
+		while (budget.tryWithdraw()) {
+			retries++;
+		}
+		assertEquals(10, retries);
+		assertEquals(1, budget.getExhausted());
+	}
+
+	@Test
+	void quietRouteCanStillRetry() {
+		RetryBudget budget = new RetryBudget(0.2, 1, 3, now::get);
+
+		assertTrue(budget.tryWithdraw());
+		assertTrue(budget.tryWithdraw());
+		assertTrue(budget.tryWithdraw());
+		assertFalse(budget.tryWithdraw());
+	}
+
+	@Test
+	void tokensExpireAfterTtl() {
+		RetryBudget budget = new RetryBudget(1.0, 0, 2, now::get);
+		budget.deposit();
+		budget.deposit();
+		assertEquals(2.0, budget.getBalance());
+
+		now.addAndGet(2_000);
+		assertEquals(0.0, budget.getBalance());
+		assertFalse(budget.tryWithdraw());
+	}
+
+	@Test
+	void fallbackCacheDropsOldAndLeastRecentlyUsedEntries() {
+		FallbackResponseCache cache = new FallbackResponseCache(2, Duration.ofSeconds(30), now::get);
+		cache.put("a", HttpStatus.OK, MediaType.APPLICATION_JSON, new byte[] { 1 });
+		cache.put("b", HttpStatus.OK, MediaType.APPLICATION_JSON, new byte[] { 2 });
+		cache.get("a");
+		cache.put("c", HttpStatus.OK, MediaType.APPLICATION_JSON, new byte[] { 3 });
+
+		assertNull(cache.get("b"));
+		assertNotNull(cache.get("a"));
+
+		now.addAndGet(31_000);
+		assertNull(cache.get("c"));
+	}
+
+}
@@ -0,0 +1,48 @@
+package com.revature.gatewayserver.shadow;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.revature.gatewayserver.config.ShadowProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ShadowTrafficMirrorTests {
+
+	private final ShadowTrafficMirror mirror = new ShadowTrafficMirror(new ShadowProperties(), WebClient.builder(),
+			new ObjectMapper(), new SimpleMeterRegistry());
+
+	@AfterEach
+	void close() {
+		mirror.destroy();
+	}
+
+	@Test
+	void jsonIsComparedByContent() {
+		assertEquals("match", compare(HttpStatus.OK, "{\"loanNumber\":1,\"loanType\":\"Home\"}", HttpStatus.OK,
+				"{ \"loanType\": \"Home\", \"loanNumber\": 1 }"));
+		assertEquals("body-mismatch", compare(HttpStatus.OK, "{\"loanNumber\":1}", HttpStatus.OK, "{\"loanNumber\":2}"));
+		assertEquals("body-mismatch", compare(HttpStatus.OK, "plain", HttpStatus.OK, "text"));
+	}
+
+	@Test
+	void statusIsComparedFirst() {
+		assertEquals("status-mismatch", compare(HttpStatus.OK, "[]", HttpStatus.INTERNAL_SERVER_ERROR, "[]"));
+		assertEquals("too-large", mirror.compare(new ShadowTrafficMirror.PrimaryResponse(HttpStatus.OK, null, 0),
+				HttpStatus.OK, new byte[0]));
+	}
+
+	private String compare(HttpStatus primaryStatus, String primaryBody, HttpStatus shadowStatus, String shadowBody) {
+		return mirror.compare(new ShadowTrafficMirror.PrimaryResponse(primaryStatus,
+				primaryBody.getBytes(StandardCharsets.UTF_8), 0), shadowStatus,
+				shadowBody.getBytes(StandardCharsets.UTF_8));
+	}
+
+}
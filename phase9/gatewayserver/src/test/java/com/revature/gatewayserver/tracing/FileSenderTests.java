@@ -0,0 +1,75 @@
+package com.revature.gatewayserver.tracing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.revature.gatewayserver.config.SpanReporterProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import zipkin2.Span;
+import zipkin2.codec.SpanBytesDecoder;
+import zipkin2.reporter.AsyncReporter;
+import zipkin2.reporter.ReporterMetrics;
+
+class FileSenderTests {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void appendsOneCompactSpanPerLine() throws Exception {
+		SpanReporterProperties properties = properties(1024 * 1024);
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		AsyncReporter<Span> reporter = SpanReporters.bounded(properties, null, null, ReporterMetrics.NOOP_METRICS,
+				meterRegistry);
+		reporter.report(span("1", "post"));
+		reporter.report(span("2", "get"));
+		reporter.flush();
+		reporter.close();
+
+		List<String> lines = Files.readAllLines(dir.resolve("spans.jsonl"));
+		assertEquals(2, lines.size());
+		// batches may be written in any order
+		assertEquals(new HashSet<>(Arrays.asList("post", "get")), lines.stream()
+				.map(line -> SpanBytesDecoder.JSON_V2.decodeOne(line.getBytes(StandardCharsets.UTF_8)).name())
+				.collect(Collectors.toSet()));
+		// one batch, or two if the reporter's thread got to the first span before flush()
+		assertTrue(meterRegistry.get("zipkin.reporter.flush.time").tag("sink", "file").tag("outcome", "success")
+				.timer().count() >= 1);
+	}
+
+	@Test
+	void rollsTheFileOverAtMaxSize() throws Exception {
+		FileSender sender = new FileSender(properties(10));
+		sender.write(Arrays.asList("0123456789".getBytes(StandardCharsets.UTF_8)));
+		sender.write(Arrays.asList("abc".getBytes(StandardCharsets.UTF_8)));
+
+		assertEquals(Arrays.asList("abc"), Files.readAllLines(dir.resolve("spans.jsonl")));
+		assertTrue(Files.exists(dir.resolve("spans.jsonl.1")));
+	}
+
+	private SpanReporterProperties properties(long maxSize) {
+		SpanReporterProperties properties = new SpanReporterProperties();
+		properties.setSink(SpanReporterProperties.Sink.FILE);
+		properties.getFile().setPath(dir.resolve("spans.jsonl").toString());
+		properties.getFile().setMaxSize(maxSize);
+		return properties;
+	}
+
+	private Span span(String id, String name) {
+		return Span.newBuilder().traceId("1").id(id).name(name).localEndpoint(null).timestamp(1000L).duration(10L)
+				.build();
+	}
+
+}
@@ -0,0 +1,86 @@
+package com.revature.gatewayserver.tracing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.revature.gatewayserver.config.TraceSamplingProperties;
+
+import brave.Span;
+import brave.Tracing;
+import brave.handler.MutableSpan;
+import brave.handler.SpanHandler;
+import brave.propagation.TraceContext;
+import brave.sampler.Sampler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class TailSamplingSpanHandlerTests {
+
+	private final List<MutableSpan> reported = new ArrayList<>();
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final TailSamplingSpanHandler handler = new TailSamplingSpanHandler(properties(), new SpanHandler() {
+		@Override
+		public boolean end(TraceContext context, MutableSpan span, Cause cause) {
+			reported.add(span);
+			return true;
+		}
+	}, meterRegistry);
+	private final Tracing tracing = tracing();
+
+	@AfterEach
+	void close() {
+		tracing.close();
+	}
+
+	@Test
+	void dropsFastRequestsThatWerentSampledUpFront() {
+		request(100, null);
+
+		assertEquals(0, reported.size());
+		assertEquals(0, handler.pendingTraces());
+		assertEquals(1, meterRegistry.counter("tracing.sampling", "decision", TailSamplingSpanHandler.DROPPED).count());
+	}
+
+	@Test
+	void keepsTheWholeRequestWhenItFailedOrWasSlow() {
+		request(100, "500");
+		assertEquals(1, meterRegistry.counter("tracing.sampling", "decision", TailSamplingSpanHandler.ERROR).count());
+		assertEquals(2, reported.size());
+
+		request(800_000, null);
+		assertEquals(1, meterRegistry.counter("tracing.sampling", "decision", TailSamplingSpanHandler.SLOW).count());
+		assertEquals(4, reported.size());
+		assertEquals(2, reported.stream().map(MutableSpan::traceId).collect(Collectors.toSet()).size());
+	}
+
+	// A server span lasting durationMicros, with a client call that answered with childStatus
+	private void request(long durationMicros, String childStatus) {
+		Span root = tracing.tracer().nextSpan().name("post").start(1_000_000);
+		Span child = tracing.tracer().newChild(root.context()).name("post").start(1_000_010);
+		if (childStatus != null) {
+			child.tag("http.status_code", childStatus);
+		}
+		child.finish(1_000_050);
+		root.finish(1_000_000 + durationMicros);
+	}
+
+	private Tracing tracing() {
+		Tracing.Builder builder = Tracing.newBuilder().sampler(Sampler.NEVER_SAMPLE).addSpanHandler(handler);
+		handler.customize(builder);
+		return builder.build();
+	}
+
+	private TraceSamplingProperties properties() {
+		TraceSamplingProperties properties = new TraceSamplingProperties();
+		properties.setEnabled(true);
+		properties.setSlowThreshold(Duration.ofMillis(500));
+		return properties;
+	}
+
+}
@@ -0,0 +1,97 @@
+package com.revature.gatewayserver.upstream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.route.Route;
+
+import com.revature.gatewayserver.config.UpstreamPoolProperties;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+/**
+ * Sends a few thousand requests, many more at once than the pool allows,
+ * through one route's client and checks that they all share a handful of
+ * connections instead of opening a new one per request, and that none of
+ * them waited long for a connection. Raise the load with
+ * -Dsoak.requests=100000 for a longer run.
+ */
+class UpstreamConnectionSoakTests {
+
+	private static final int REQUESTS = Integer.getInteger("soak.requests", 3000);
+	private static final int CONCURRENCY = 50;
+	private static final int MAX_CONNECTIONS = 10;
+	private static final Duration PENDING_ACQUIRE_TIMEOUT = Duration.ofSeconds(10);
+
+	private final AtomicInteger serverConnections = new AtomicInteger();
+	private DisposableServer server;
+	private UpstreamHttpClients clients;
+	private SimpleMeterRegistry meterRegistry;
+
+	@BeforeEach
+	void start() {
+		server = HttpServer.create().port(0)
+				.doOnChannelInit((observer, channel, address) -> serverConnections.incrementAndGet())
+				.route(routes -> routes.post("/myAccount", (req, res) -> res
+						.sendString(req.receive().aggregate().asString().map(body -> "{\"accountNumber\":1}"))))
+				.bindNow();
+
+		UpstreamPoolProperties properties = new UpstreamPoolProperties();
+		properties.setMaxConnections(MAX_CONNECTIONS);
+		properties.setPendingAcquireMaxCount(-1);
+		properties.setPendingAcquireTimeout(PENDING_ACQUIRE_TIMEOUT);
+		meterRegistry = new SimpleMeterRegistry();
+		clients = new UpstreamHttpClients(properties, new HttpClientProperties(), Collections.emptyList(),
+				meterRegistry);
+	}
+
+	@AfterEach
+	void stop() {
+		clients.destroy();
+		server.disposeNow();
+	}
+
+	@Test
+	void connectionsAreReusedUnderLoad() {
+		Route route = Route.async().id("accounts").uri(URI.create("http://localhost:" + server.port()))
+				.predicate(exchange -> true).build();
+		String url = "http://localhost:" + server.port() + "/myAccount";
+
+		Long succeeded = Flux.range(0, REQUESTS)
+				.flatMap(i -> clients.forRequest(route).post().uri(url)
+						.send((req, out) -> out.sendString(Mono.just("{\"customerId\":" + i + "}")))
+						.responseSingle((res, body) -> body.asString().map(s -> res.status().code())), CONCURRENCY)
+				.filter(status -> status == 200)
+				.count()
+				.block(Duration.ofMinutes(5));
+
+		double opened = meterRegistry.get("gateway.upstream.connections.opened").tag("route", "accounts").counter()
+				.count();
+		Timer acquire = meterRegistry.get("gateway.upstream.acquire.time").tag("route", "accounts").timer();
+
+		assertEquals(REQUESTS, succeeded);
+		assertEquals(REQUESTS, acquire.count());
+		assertTrue(serverConnections.get() > 0 && serverConnections.get() <= MAX_CONNECTIONS,
+				"pool opened " + serverConnections.get() + " connections, at most " + MAX_CONNECTIONS + " allowed");
+		assertEquals(serverConnections.get(), (int) opened);
+		// waiting for a connection never came close to failing the request
+		assertTrue(acquire.max(TimeUnit.MILLISECONDS) < PENDING_ACQUIRE_TIMEOUT.toMillis() / 2,
+				"longest acquire took " + acquire.max(TimeUnit.MILLISECONDS) + "ms");
+	}
+
+}
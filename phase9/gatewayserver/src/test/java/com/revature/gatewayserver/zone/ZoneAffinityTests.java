@@ -0,0 +1,94 @@
+package com.revature.gatewayserver.zone;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import com.revature.gatewayserver.config.ZoneAffinityProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ZoneAffinityTests {
+
+	private final AtomicLong now = new AtomicLong(1000);
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final ZoneAffinityProperties properties = properties();
+	private final ZoneAffinity zoneAffinity = new ZoneAffinity(properties, meterRegistry, now::get);
+
+	private final ServiceInstance localA = instance("loans-a", "zone-a");
+	private final ServiceInstance localB = instance("loans-b", "zone-a");
+	private final ServiceInstance remote = instance("loans-c", "zone-b");
+	private final List<ServiceInstance> all = Arrays.asList(localA, remote, localB);
+
+	@Test
+	void prefersOurZoneAndSpillsOverWhenItIsSaturated() {
+		assertEquals(Arrays.asList("loans-a", "loans-b"), ids(zoneAffinity.select("LOANS", all)));
+
+		zoneAffinity.started(localA);
+		zoneAffinity.started(localA);
+		assertEquals(Arrays.asList("loans-b"), ids(zoneAffinity.select("LOANS", all)));
+
+		zoneAffinity.started(localB);
+		zoneAffinity.started(localB);
+		assertEquals(Arrays.asList("loans-c"), ids(zoneAffinity.select("LOANS", all)));
+		assertEquals(1, meterRegistry.counter("loadbalancer.zone.spills", "service", "loans").count());
+
+		zoneAffinity.finished(localB, true);
+		assertEquals(Arrays.asList("loans-b"), ids(zoneAffinity.select("LOANS", all)));
+		assertEquals(1.0, zoneAffinity.sameZoneRatio());
+	}
+
+	@Test
+	void skipsFailingInstancesForTheCooldown() {
+		zoneAffinity.started(localA);
+		zoneAffinity.finished(localA, false);
+		zoneAffinity.started(localA);
+		zoneAffinity.finished(localA, false);
+		assertEquals(Arrays.asList("loans-b"), ids(zoneAffinity.select("LOANS", all)));
+
+		now.addAndGet(10_000);
+		assertEquals(Arrays.asList("loans-a", "loans-b"), ids(zoneAffinity.select("LOANS", all)));
+	}
+
+	@Test
+	void leavesTheInstancesAloneWithoutAZone() {
+		properties.setZone(null);
+		assertEquals(all, zoneAffinity.select("LOANS", all));
+
+		zoneAffinity.started(remote);
+		assertEquals(1, meterRegistry.counter("loadbalancer.zone.requests", "service", "loans", "locality",
+				ZoneAffinity.UNKNOWN).count());
+		assertEquals(Collections.singletonList(remote),
+				zoneAffinity.select("LOANS", Collections.singletonList(remote)));
+	}
+
+	private ZoneAffinityProperties properties() {
+		ZoneAffinityProperties properties = new ZoneAffinityProperties();
+		properties.setEnabled(true);
+		properties.setZone("zone-a");
+		properties.setMaxInFlight(2);
+		properties.setFailureThreshold(2);
+		properties.setFailureCooldown(Duration.ofSeconds(10));
+		return properties;
+	}
+
+	private ServiceInstance instance(String instanceId, String zone) {
+		DefaultServiceInstance instance = new DefaultServiceInstance(instanceId, "LOANS", instanceId, 8090, false);
+		instance.getMetadata().put("zone", zone);
+		return instance;
+	}
+
+	private List<String> ids(List<ServiceInstance> instances) {
+		return instances.stream().map(ServiceInstance::getInstanceId).sorted().collect(Collectors.toList());
+	}
+
+}
@@ -1,13 +1,68 @@
 package com.revature.loans;
 
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cloud.config.client.ConfigServerBootstrapper;
+import org.springframework.cloud.sleuth.autoconfig.zipkin2.ZipkinAutoConfiguration;
+import org.springframework.cloud.sleuth.instrument.web.HttpServerSampler;
+import org.springframework.cloud.sleuth.zipkin2.ZipkinProperties;
+import org.springframework.context.annotation.Bean;
+
+import com.revature.loans.config.SpanReporterProperties;
+import com.revature.loans.config.TraceSamplingProperties;
+import com.revature.loans.snapshot.ConfigSnapshotInterceptor;
+import com.revature.loans.tracing.EndpointRateLimitedSampler;
+import com.revature.loans.tracing.SpanReporters;
+import com.revature.loans.tracing.TailSamplingSpanHandler;
+
+import brave.http.HttpRequest;
+import brave.sampler.SamplerFunction;
+import io.micrometer.core.instrument.MeterRegistry;
+import zipkin2.Span;
+import zipkin2.reporter.Reporter;
+import zipkin2.reporter.ReporterMetrics;
+import zipkin2.reporter.Sender;
+import zipkin2.reporter.brave.ZipkinSpanHandler;
 
 @SpringBootApplication
 public class LoansApplication {
 
 	public static void main(String[] args) {
-		SpringApplication.run(LoansApplication.class, args);
+		SpringApplication application = new SpringApplication(LoansApplication.class);
+		// Start from the last configuration we got from the config server, see ConfigSnapshotInterceptor
+		application.addBootstrapRegistryInitializer(
+				new ConfigServerBootstrapper().withLoaderInterceptor(new ConfigSnapshotInterceptor()));
+		application.run(args);
+	}
+
+	/**
+	 * Which requests are traced: a few per endpoint up front, and the failed or
+	 * slow ones once they are done (see TailSamplingSpanHandler). Sleuth finds
+	 * the up front sampler by its bean name.
+	 */
+	@Bean(HttpServerSampler.NAME)
+	public SamplerFunction<HttpRequest> endpointRateLimitedSampler(TraceSamplingProperties traceSamplingProperties) {
+		return new EndpointRateLimitedSampler(traceSamplingProperties);
+	}
+
+	/**
+	 * Takes the place of the reporter Sleuth would create, see SpanReporters
+	 */
+	@Bean(ZipkinAutoConfiguration.REPORTER_BEAN_NAME)
+	public Reporter<Span> zipkinReporter(SpanReporterProperties spanReporterProperties,
+			ZipkinProperties zipkinProperties, @Qualifier(ZipkinAutoConfiguration.SENDER_BEAN_NAME) Sender zipkinSender,
+			ReporterMetrics reporterMetrics, MeterRegistry registry) {
+		return SpanReporters.bounded(spanReporterProperties, zipkinSender, zipkinProperties.getEncoder(),
+				reporterMetrics, registry);
+	}
+
+	@Bean
+	public TailSamplingSpanHandler tailSamplingSpanHandler(TraceSamplingProperties traceSamplingProperties,
+			@Qualifier(ZipkinAutoConfiguration.REPORTER_BEAN_NAME) Reporter<Span> zipkinReporter,
+			MeterRegistry registry) {
+		return new TailSamplingSpanHandler(traceSamplingProperties,
+				ZipkinSpanHandler.newBuilder(zipkinReporter).alwaysReportSpans(true).build(), registry);
 	}
 
 }
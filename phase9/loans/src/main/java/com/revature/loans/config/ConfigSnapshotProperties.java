@@ -0,0 +1,27 @@
+package com.revature.loans.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * @ConfigurationProperties reads all properties that begin with "configsnapshot"
+ */
+@Configuration
+@ConfigurationProperties(prefix = "configsnapshot")
+@Getter
+@Setter
+@ToString
+public class ConfigSnapshotProperties {
+
+	private boolean enabled = true;
+	// Where the last configuration fetched from the config server is kept
+	private String file;
+	// How often to check the config server for changes, 0 to only check once after startup
+	private Duration reconcileInterval = Duration.ofMinutes(5);
+}
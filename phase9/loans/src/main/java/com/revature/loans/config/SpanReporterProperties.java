@@ -0,0 +1,49 @@
+package com.revature.loans.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * @ConfigurationProperties reads all properties that begin with "spanreporter"
+ */
+@Configuration
+@ConfigurationProperties(prefix = "spanreporter")
+@Getter
+@Setter
+@ToString
+public class SpanReporterProperties {
+
+	public enum Sink {
+		ZIPKIN, FILE
+	}
+
+	// Where finished spans go: Zipkin (spring.zipkin.*) or a local file
+	private Sink sink = Sink.ZIPKIN;
+	// Spans waiting to be sent. When either bound is reached new spans are dropped, the request never waits
+	private int queuedMaxSpans = 1000;
+	private int queuedMaxBytes = 1024 * 1024;
+	// Spans are sent in batches of at most this size, or after message-timeout when there are fewer
+	private int messageMaxBytes = 512 * 1024;
+	private Duration messageTimeout = Duration.ofSeconds(1);
+	// How long we wait at shutdown for the last spans to be sent
+	private Duration closeTimeout = Duration.ofSeconds(1);
+	private File file = new File();
+
+	@Getter
+	@Setter
+	@ToString
+	public static class File {
+
+		// One compact JSON span (Zipkin v2 format) per line, appended
+		private String path = "spans/spans.jsonl";
+		// Then the file is renamed to <path>.1 (replacing the previous one) and a new one started
+		private long maxSize = 100L * 1024 * 1024;
+	}
+
+}
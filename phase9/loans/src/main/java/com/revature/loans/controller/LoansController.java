@@ -5,19 +5,18 @@ import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.ObjectWriter;
-import com.revature.loans.config.LoansServiceConfig;
+import com.revature.loans.config.PropertiesPayload;
 import com.revature.loans.model.Customer;
 import com.revature.loans.model.Loans;
-import com.revature.loans.model.Properties;
 import com.revature.loans.repository.LoansRepository;
 
 @RestController
@@ -30,7 +29,7 @@ public class LoansController {
 	
 
 	@Autowired
-	LoansServiceConfig loansConfig;
+	PropertiesPayload propertiesPayload;
 
 	
 	@PostMapping("/myLoans")
@@ -47,13 +46,18 @@ public class LoansController {
 		}
 	}
 	
+	/**
+	 * This method will return all properties configured for this service in JSON
+	 * format to the client. The JSON is only built again after the configuration
+	 * changed, and a client sending back the ETag it got gets a 304.
+	 */
 	@GetMapping("/loans/properties")
-	public String getPropertyDetails() throws JsonProcessingException {
-		ObjectWriter ow = new ObjectMapper().writer().withDefaultPrettyPrinter();
-		Properties properties = new Properties(loansConfig.getMsg(), loansConfig.getBuildVersion(),
-				loansConfig.getMailDetails(), loansConfig.getActiveBranches());
-		String jsonStr = ow.writeValueAsString(properties);
-		return jsonStr;
+	public ResponseEntity<byte[]> getPropertyDetails(WebRequest request) {
+		PropertiesPayload.Payload payload = propertiesPayload.get();
+		if (request.checkNotModified(payload.getEtag())) {
+			return null;
+		}
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(payload.getBody());
 	}
 
 
@@ -0,0 +1,88 @@
+package com.revature.loans.snapshot;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.config.ConfigData;
+import org.springframework.boot.context.config.ConfigData.Option;
+import org.springframework.boot.context.config.ConfigData.Options;
+import org.springframework.cloud.config.client.ConfigServerBootstrapper;
+import org.springframework.cloud.config.client.ConfigServerConfigDataResource;
+import org.springframework.core.env.PropertySource;
+import org.springframework.util.StringUtils;
+
+import com.revature.loans.config.ConfigSnapshotProperties;
+
+/**
+ * Hooks into the config client (see LoansApplication.main) so startup
+ * doesn't depend on the config server: if we have a snapshot of what the
+ * config server sent last time, the application starts from it right away,
+ * and the ConfigSnapshotReconciler checks with the config server once we're
+ * up.
+ *
+ * Every time the config server is actually asked (first startup, refresh),
+ * what it sent is saved as the new snapshot.
+ */
+public class ConfigSnapshotInterceptor implements ConfigServerBootstrapper.LoaderInterceptor {
+
+	private static final Logger logger = LoggerFactory.getLogger(ConfigSnapshotInterceptor.class);
+
+	// After startup (a refresh) the config server is always asked
+	private volatile boolean started;
+
+	@Override
+	public ConfigData apply(ConfigServerBootstrapper.LoadContext context) {
+		ConfigSnapshotProperties properties = context.getBinder()
+				.bind("configsnapshot", ConfigSnapshotProperties.class).orElseGet(ConfigSnapshotProperties::new);
+		if (!properties.isEnabled()) {
+			return context.getInvocation().apply(context.getLoaderContext(), context.getResource());
+		}
+		ConfigServerConfigDataResource resource = context.getResource();
+		ConfigSnapshot snapshot = new ConfigSnapshot(Paths.get(StringUtils.hasText(properties.getFile())
+				? properties.getFile()
+				: "config-snapshot/" + resource.getProperties().getName() + ".json"));
+
+		if (!started) {
+			context.getLoaderContext().getBootstrapContext().addCloseListener(event -> started = true);
+			if (snapshot.exists()) {
+				try {
+					List<PropertySource<?>> propertySources = snapshot.read();
+					logger.info("Starting from the config snapshot {}", snapshot.getFile());
+					return configData(propertySources, resource);
+				} catch (IOException e) {
+					logger.warn("Could not read the config snapshot {}: {}", snapshot.getFile(), e.toString());
+				}
+			}
+		}
+
+		ConfigData configData = context.getInvocation().apply(context.getLoaderContext(), resource);
+		if (configData != null) {
+			try {
+				snapshot.write(configData.getPropertySources());
+			} catch (IOException e) {
+				logger.warn("Could not write the config snapshot {}: {}", snapshot.getFile(), e.toString());
+			}
+		}
+		return configData;
+	}
+
+	// The same options the config client gives what it loads from the config server
+	private ConfigData configData(List<PropertySource<?>> propertySources, ConfigServerConfigDataResource resource) {
+		String[] profiles = StringUtils.commaDelimitedListToStringArray(resource.getProfiles());
+		return new ConfigData(propertySources, propertySource -> {
+			List<Option> options = new ArrayList<>(Arrays.asList(Option.IGNORE_IMPORTS, Option.IGNORE_PROFILES));
+			for (String profile : profiles) {
+				if (propertySource.getName().contains("-" + profile + ".")) {
+					options.add(Option.PROFILE_SPECIFIC);
+				}
+			}
+			return Options.of(options.toArray(new Option[0]));
+		});
+	}
+
+}
@@ -0,0 +1,165 @@
+package com.revature.loans.snapshot;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.LogFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cloud.config.client.ConfigClientProperties;
+import org.springframework.cloud.config.client.ConfigClientRequestTemplateFactory;
+import org.springframework.cloud.config.environment.Environment;
+import org.springframework.cloud.endpoint.event.RefreshEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.EnumerablePropertySource;
+import org.springframework.core.env.PropertySource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.RestTemplate;
+
+import com.revature.loans.config.ConfigSnapshotProperties;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Checks in the background whether the config server has something else than
+ * what we are running with (which may come from the config snapshot), right
+ * after startup and then every configsnapshot.reconcile-interval. If it does,
+ * a RefreshEvent is published: the same as calling /actuator/refresh, which
+ * loads the new configuration and saves it as the new snapshot.
+ *
+ * The config server answers 304 to a repeated check when nothing changed
+ * (If-None-Match), so the checks are cheap.
+ *
+ * Published metrics: config.snapshot.reconcile (by result: unchanged, changed,
+ * failed)
+ */
+@Component
+public class ConfigSnapshotReconciler implements DisposableBean {
+
+	private static final Logger logger = LoggerFactory.getLogger(ConfigSnapshotReconciler.class);
+
+	// The config client names the property sources it loads like this
+	private static final String PREFIX = "configserver:";
+
+	@Autowired
+	ConfigSnapshotProperties properties;
+
+	// Only there when the config server is imported (spring.config.import=configserver:...)
+	@Autowired
+	ObjectProvider<ConfigClientProperties> clientProperties;
+
+	@Autowired
+	ConfigurableEnvironment environment;
+
+	@Autowired
+	ApplicationEventPublisher publisher;
+
+	@Autowired
+	MeterRegistry meterRegistry;
+
+	private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "config-snapshot-reconciler");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private ConfigClientProperties client;
+	private RestTemplate restTemplate;
+	private volatile String etag;
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void start() {
+		client = clientProperties.getIfAvailable();
+		if (!properties.isEnabled() || client == null || client.getUri() == null || client.getUri().length == 0) {
+			return;
+		}
+		restTemplate = new ConfigClientRequestTemplateFactory(LogFactory.getLog(getClass()), client).create();
+		long interval = properties.getReconcileInterval().toMillis();
+		if (interval > 0) {
+			executor.scheduleWithFixedDelay(this::reconcile, 0, interval, TimeUnit.MILLISECONDS);
+		} else {
+			executor.execute(this::reconcile);
+		}
+	}
+
+	void reconcile() {
+		String result;
+		try {
+			result = matchesConfigServer() ? "unchanged" : "changed";
+		} catch (RuntimeException e) {
+			logger.debug("Could not reach the config server: {}", e.toString());
+			result = "failed";
+		}
+		meterRegistry.counter("config.snapshot.reconcile", "result", result).increment();
+		if ("changed".equals(result)) {
+			logger.info("The config server has a newer configuration, refreshing");
+			publisher.publishEvent(new RefreshEvent(this, null, "Config snapshot reconciled"));
+		}
+	}
+
+	private boolean matchesConfigServer() {
+		String[] profiles = environment.getActiveProfiles();
+		String profile = profiles.length > 0 ? String.join(",", profiles) : "default";
+		String label = StringUtils.hasText(client.getLabel()) ? "/" + client.getLabel().replace("/", "(_)") : "";
+
+		HttpHeaders headers = new HttpHeaders();
+		headers.setAccept(Collections.singletonList(MediaType.APPLICATION_JSON));
+		String previous = etag;
+		if (previous != null) {
+			headers.setIfNoneMatch(previous);
+		}
+		String uri = StringUtils.trimTrailingCharacter(client.getUri()[0], '/');
+		ResponseEntity<Environment> response = restTemplate.exchange(uri + "/{name}/{profile}" + label,
+				HttpMethod.GET, new HttpEntity<>(headers), Environment.class, client.getName(), profile);
+		if (response.getStatusCode() == HttpStatus.NOT_MODIFIED) {
+			return true;
+		}
+		etag = response.getHeaders().getETag();
+		return response.getBody() != null && matchesRunningConfig(response.getBody());
+	}
+
+	// Same property sources with the same values as in the running application
+	private boolean matchesRunningConfig(Environment fetched) {
+		long running = environment.getPropertySources().stream()
+				.filter(source -> source.getName().startsWith(PREFIX)).count();
+		if (running != fetched.getPropertySources().size()) {
+			return false;
+		}
+		for (org.springframework.cloud.config.environment.PropertySource source : fetched.getPropertySources()) {
+			PropertySource<?> current = environment.getPropertySources().get(PREFIX + source.getName());
+			if (!(current instanceof EnumerablePropertySource)
+					|| ((EnumerablePropertySource<?>) current).getPropertyNames().length != source.getSource().size()) {
+				return false;
+			}
+			for (Map.Entry<?, ?> property : source.getSource().entrySet()) {
+				Object value = current.getProperty(String.valueOf(property.getKey()));
+				if (value == null || !String.valueOf(property.getValue()).equals(String.valueOf(value))) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public void destroy() {
+		executor.shutdownNow();
+	}
+
+}
@@ -0,0 +1,55 @@
+package com.revature.loans.tracing;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.revature.loans.config.TraceSamplingProperties;
+
+import brave.http.HttpRequest;
+import brave.sampler.RateLimitingSampler;
+import brave.sampler.Sampler;
+import brave.sampler.SamplerFunction;
+
+/**
+ * The up front (head) sampling decision for a request we receive without one:
+ * at most baseline-per-second requests per endpoint (method and path) are
+ * sampled, so a rarely called endpoint is seen as often as a busy one. A
+ * request that comes with a decision (the B3 headers of the caller) keeps it.
+ */
+public class EndpointRateLimitedSampler implements SamplerFunction<HttpRequest> {
+
+	private static final String OTHER = "other";
+
+	private final TraceSamplingProperties properties;
+	private final Map<String, Sampler> samplers = new ConcurrentHashMap<>();
+
+	public EndpointRateLimitedSampler(TraceSamplingProperties properties) {
+		this.properties = properties;
+	}
+
+	@Override
+	public Boolean trySample(HttpRequest request) {
+		if (!properties.isEnabled()) {
+			// no opinion, Sleuth's own sampler decides
+			return null;
+		}
+		String endpoint = request.method() + " " + request.path();
+		Sampler sampler = samplers.get(endpoint);
+		if (sampler == null) {
+			sampler = samplers.size() < properties.getMaxEndpoints()
+					? samplers.computeIfAbsent(endpoint, key -> newSampler())
+					: samplers.computeIfAbsent(OTHER, key -> newSampler());
+		}
+		return sampler.isSampled(0L);
+	}
+
+	int size() {
+		return samplers.size();
+	}
+
+	private Sampler newSampler() {
+		return properties.getBaselinePerSecond() > 0 ? RateLimitingSampler.create(properties.getBaselinePerSecond())
+				: Sampler.NEVER_SAMPLE;
+	}
+
+}
@@ -0,0 +1,126 @@
+package com.revature.loans.tracing;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import com.revature.loans.config.SpanReporterProperties;
+
+import zipkin2.Call;
+import zipkin2.Callback;
+import zipkin2.CheckResult;
+import zipkin2.codec.Encoding;
+import zipkin2.reporter.Sender;
+
+/**
+ * A stand-in for Zipkin when there is none, as in local runs: the spans are
+ * appended to a file, one compact JSON span (Zipkin v2 format) per line. The
+ * file can be loaded into a Zipkin later on:
+ *
+ *   jq -s . spans/loans.jsonl | curl -H 'Content-Type: application/json' -d @- http://localhost:9411/api/v2/spans
+ *
+ * When the file reaches max-size it is renamed to <file>.1, so at most twice
+ * max-size is kept.
+ */
+public class FileSender extends Sender {
+
+	private final Path file;
+	private final long maxSize;
+	private final int messageMaxBytes;
+
+	public FileSender(SpanReporterProperties properties) {
+		this.file = Paths.get(properties.getFile().getPath()).toAbsolutePath();
+		this.maxSize = properties.getFile().getMaxSize();
+		this.messageMaxBytes = properties.getMessageMaxBytes();
+	}
+
+	@Override
+	public Encoding encoding() {
+		return Encoding.JSON;
+	}
+
+	@Override
+	public int messageMaxBytes() {
+		return messageMaxBytes;
+	}
+
+	// Each span on its own line
+	@Override
+	public int messageSizeInBytes(List<byte[]> encodedSpans) {
+		int size = 0;
+		for (byte[] span : encodedSpans) {
+			size += span.length + 1;
+		}
+		return size;
+	}
+
+	@Override
+	public Call<Void> sendSpans(List<byte[]> encodedSpans) {
+		return new WriteCall(encodedSpans);
+	}
+
+	@Override
+	public CheckResult check() {
+		try {
+			Files.createDirectories(file.getParent());
+			return Files.isWritable(file.getParent()) ? CheckResult.OK
+					: CheckResult.failed(new IOException(file.getParent() + " is not writable"));
+		} catch (IOException e) {
+			return CheckResult.failed(e);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "FileSender{" + file + "}";
+	}
+
+	synchronized void write(List<byte[]> encodedSpans) throws IOException {
+		Files.createDirectories(file.getParent());
+		if (Files.exists(file) && Files.size(file) >= maxSize) {
+			Files.move(file, file.resolveSibling(file.getFileName() + ".1"), StandardCopyOption.REPLACE_EXISTING);
+		}
+		try (OutputStream out = Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+			for (byte[] span : encodedSpans) {
+				out.write(span);
+				out.write('\n');
+			}
+		}
+	}
+
+	private class WriteCall extends Call.Base<Void> {
+
+		private final List<byte[]> encodedSpans;
+
+		WriteCall(List<byte[]> encodedSpans) {
+			this.encodedSpans = encodedSpans;
+		}
+
+		@Override
+		protected Void doExecute() throws IOException {
+			write(encodedSpans);
+			return null;
+		}
+
+		@Override
+		protected void doEnqueue(Callback<Void> callback) {
+			try {
+				write(encodedSpans);
+				callback.onSuccess(null);
+			} catch (IOException | RuntimeException e) {
+				callback.onError(e);
+			}
+		}
+
+		@Override
+		public Call<Void> clone() {
+			return new WriteCall(encodedSpans);
+		}
+	}
+
+}
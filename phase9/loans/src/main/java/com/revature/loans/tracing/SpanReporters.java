@@ -0,0 +1,52 @@
+package com.revature.loans.tracing;
+
+import java.util.concurrent.TimeUnit;
+
+import com.revature.loans.config.SpanReporterProperties;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import zipkin2.Span;
+import zipkin2.codec.BytesEncoder;
+import zipkin2.codec.SpanBytesEncoder;
+import zipkin2.reporter.AsyncReporter;
+import zipkin2.reporter.ReporterMetrics;
+import zipkin2.reporter.Sender;
+
+/**
+ * The reporter finished spans go through. Spans are queued and sent in
+ * batches by a background thread, so a request only pays for putting its
+ * spans in the queue. The queue is bounded (queued-max-spans and
+ * queued-max-bytes): when Zipkin is slow or down and the queue is full, new
+ * spans are dropped instead of piling up, and a batch that can't be sent is
+ * dropped too.
+ *
+ * Published metrics, besides zipkin.reporter.flush.time (see TimedSender):
+ * zipkin.reporter.queue.spans and zipkin.reporter.queue.bytes,
+ * zipkin.reporter.spans.dropped and zipkin.reporter.messages.dropped (by
+ * cause), zipkin.reporter.spans.total and zipkin.reporter.messages.total
+ */
+public final class SpanReporters {
+
+	private SpanReporters() {
+	}
+
+	/**
+	 * @param zipkinSender - where the spans go when the sink is ZIPKIN
+	 * @param zipkinEncoder - the span format Zipkin expects (spring.zipkin.encoder)
+	 */
+	public static AsyncReporter<Span> bounded(SpanReporterProperties properties, Sender zipkinSender,
+			BytesEncoder<Span> zipkinEncoder, ReporterMetrics metrics, MeterRegistry meterRegistry) {
+		boolean toFile = properties.getSink() == SpanReporterProperties.Sink.FILE;
+		Sender sender = new TimedSender(toFile ? new FileSender(properties) : zipkinSender,
+				properties.getSink().name().toLowerCase(), meterRegistry);
+		return AsyncReporter.builder(sender)
+				.queuedMaxSpans(properties.getQueuedMaxSpans())
+				.queuedMaxBytes(properties.getQueuedMaxBytes())
+				.messageMaxBytes(Math.min(properties.getMessageMaxBytes(), sender.messageMaxBytes()))
+				.messageTimeout(properties.getMessageTimeout().toMillis(), TimeUnit.MILLISECONDS)
+				.closeTimeout(properties.getCloseTimeout().toMillis(), TimeUnit.MILLISECONDS)
+				.metrics(metrics)
+				.build(toFile ? SpanBytesEncoder.JSON_V2 : zipkinEncoder);
+	}
+
+}
@@ -0,0 +1,183 @@
+package com.revature.loans.warmup;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import com.netflix.appinfo.ApplicationInfoManager;
+import com.netflix.appinfo.HealthCheckHandler;
+import com.netflix.appinfo.InstanceInfo.InstanceStatus;
+import com.revature.loans.config.WarmupProperties;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+
+/**
+ * Warms the instance up before it gets traffic. The instance registers with
+ * Eureka as STARTING (eureka.instance.initial-status) and Kubernetes sees it
+ * as not ready until the application runners are done, so while this runs
+ * nobody sends it requests. It then:
+ *
+ * - opens the database connections of the pool
+ * - sends the warmup.requests to its own endpoints, which loads the classes
+ * and gets the JIT, Hibernate and Jackson going
+ *
+ * and finally tells Eureka it is UP. Warm-up is best effort: anything failing
+ * is logged and the instance goes UP anyway, at the latest after
+ * max-duration.
+ *
+ * Every refresh (/actuator/refresh, a config change) registers the instance
+ * with Eureka again, which sets it back to the initial status. The Eureka
+ * client asks its HealthCheckHandler for the status right after, and this
+ * is where a warmed up instance goes back to UP instead of staying STARTING.
+ *
+ * Published metrics: warmup.duration and warmup.requests
+ */
+@Component
+public class WarmupRunner implements ApplicationRunner, HealthCheckHandler {
+
+	private static final Logger logger = LoggerFactory.getLogger(WarmupRunner.class);
+
+	@Autowired
+	WarmupProperties properties;
+
+	@Autowired
+	Environment environment;
+
+	@Autowired
+	ObjectProvider<DataSource> dataSource;
+
+	@Autowired
+	ObjectProvider<ApplicationInfoManager> applicationInfoManager;
+
+	@Autowired
+	MeterRegistry meterRegistry;
+
+	private volatile boolean warmedUp;
+
+	@Override
+	public void run(ApplicationArguments args) {
+		if (properties.isEnabled()) {
+			warmUp();
+		}
+		warmedUp = true;
+		ApplicationInfoManager infoManager = applicationInfoManager.getIfAvailable();
+		if (infoManager != null) {
+			infoManager.setInstanceStatus(InstanceStatus.UP);
+		}
+	}
+
+	// Leaves any other status alone, e.g. OUT_OF_SERVICE set through the Eureka server
+	@Override
+	public InstanceStatus getStatus(InstanceStatus currentStatus) {
+		return warmedUp && currentStatus == InstanceStatus.STARTING ? InstanceStatus.UP : currentStatus;
+	}
+
+	private void warmUp() {
+		long start = System.nanoTime();
+		fillConnectionPool();
+		String port = environment.getProperty("local.server.port");
+		int requests = port != null ? exercise("http://localhost:" + port) : 0;
+		long nanos = System.nanoTime() - start;
+		TimeGauge.builder("warmup.duration", () -> nanos, TimeUnit.NANOSECONDS)
+				.description("Time spent warming up before going UP").register(meterRegistry);
+		Gauge.builder("warmup.requests", () -> requests).description("Requests sent during the warm-up")
+				.register(meterRegistry);
+		logger.info("Warm-up done in {} ms ({} requests)", TimeUnit.NANOSECONDS.toMillis(nanos), requests);
+	}
+
+	// Opens all the connections the pool keeps, instead of on the first requests
+	private void fillConnectionPool() {
+		DataSource source = dataSource.getIfAvailable();
+		List<Connection> connections = new ArrayList<>();
+		try {
+			if (source == null || !source.isWrapperFor(HikariDataSource.class)) {
+				return;
+			}
+			int size = source.unwrap(HikariDataSource.class).getMinimumIdle();
+			for (int i = 0; i < size; i++) {
+				connections.add(source.getConnection());
+			}
+		} catch (SQLException e) {
+			logger.warn("Could not open the database connections: {}", e.toString());
+		} finally {
+			for (Connection connection : connections) {
+				try {
+					connection.close();
+				} catch (SQLException e) {
+					logger.debug("Could not give a connection back", e);
+				}
+			}
+		}
+	}
+
+	// The number of requests sent
+	int exercise(String baseUrl) {
+		RestTemplate restTemplate = new RestTemplate();
+		long deadline = System.nanoTime() + properties.getMaxDuration().toNanos();
+		AtomicInteger next = new AtomicInteger();
+		AtomicInteger sent = new AtomicInteger();
+		int total = properties.getIterations() * properties.getRequests().size();
+		ExecutorService executor = Executors.newFixedThreadPool(properties.getConcurrency());
+		for (int i = 0; i < properties.getConcurrency(); i++) {
+			executor.execute(() -> {
+				int n;
+				while ((n = next.getAndIncrement()) < total && System.nanoTime() < deadline) {
+					send(restTemplate, baseUrl, properties.getRequests().get(n % properties.getRequests().size()));
+					sent.incrementAndGet();
+				}
+			});
+		}
+		executor.shutdown();
+		try {
+			if (!executor.awaitTermination(properties.getMaxDuration().toMillis(), TimeUnit.MILLISECONDS)) {
+				logger.warn("Warm-up requests still running after {}, going on", properties.getMaxDuration());
+				executor.shutdownNow();
+			}
+		} catch (InterruptedException e) {
+			executor.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+		return sent.get();
+	}
+
+	private void send(RestTemplate restTemplate, String baseUrl, WarmupProperties.Request request) {
+		HttpHeaders headers = new HttpHeaders();
+		request.getHeaders().forEach(headers::set);
+		if (request.getBody() != null) {
+			headers.setContentType(MediaType.APPLICATION_JSON);
+		}
+		try {
+			restTemplate.exchange(baseUrl + request.getPath(), HttpMethod.resolve(request.getMethod()),
+					new HttpEntity<>(request.getBody(), headers), byte[].class);
+		} catch (RestClientException e) {
+			// an error answer warms up as well
+			logger.debug("Warm-up request {} {} failed: {}", request.getMethod(), request.getPath(), e.toString());
+		}
+	}
+
+}
@@ -0,0 +1,59 @@
+package com.revature.loans.snapshot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.PropertySource;
+
+class ConfigSnapshotTests {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void keepsNamesOrderAndValues() throws Exception {
+		ConfigSnapshot snapshot = new ConfigSnapshot(directory.resolve("snapshots/loans.json"));
+		assertFalse(snapshot.exists());
+
+		snapshot.write(Arrays.asList(
+				new MapPropertySource("configserver:loans.properties",
+						Collections.singletonMap("loans.buildVersion", 3)),
+				new MapPropertySource("configserver:loans-prod.properties",
+						Collections.singletonMap("loans.activeBranches[0]", "Tampa"))));
+
+		assertTrue(snapshot.exists());
+		List<PropertySource<?>> read = snapshot.read();
+		assertEquals(Arrays.asList("configserver:loans.properties", "configserver:loans-prod.properties"),
+				read.stream().map(PropertySource::getName).collect(Collectors.toList()));
+		assertEquals("3", read.get(0).getProperty("loans.buildVersion"));
+		assertEquals("Tampa", read.get(1).getProperty("loans.activeBranches[0]"));
+	}
+
+	@Test
+	void replacesTheWholeSnapshot() throws Exception {
+		ConfigSnapshot snapshot = new ConfigSnapshot(directory.resolve("loans.json"));
+		snapshot.write(Collections.singletonList(new MapPropertySource("configserver:loans.properties",
+				Collections.singletonMap("loans.msg", "old"))));
+		snapshot.write(Collections.singletonList(new MapPropertySource("configserver:loans.properties",
+				Collections.singletonMap("loans.msg", "new"))));
+
+		assertEquals("new", snapshot.read().get(0).getProperty("loans.msg"));
+		// no temporary files left behind
+		try (Stream<Path> files = Files.list(directory)) {
+			assertEquals(1, files.count());
+		}
+	}
+
+}